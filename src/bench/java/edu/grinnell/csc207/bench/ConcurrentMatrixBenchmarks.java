@@ -0,0 +1,207 @@
+package edu.grinnell.csc207.bench;
+
+import edu.grinnell.csc207.util.ConcurrentMatrix;
+import edu.grinnell.csc207.util.ConcurrentSparseMatrix;
+import edu.grinnell.csc207.util.Matrix;
+import edu.grinnell.csc207.util.MatrixDense;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH throughput benchmarks of one matrix shared by 1 to 32 threads, each of which gets and
+ * sets random cells. Compares {@link ConcurrentMatrix} and {@link ConcurrentSparseMatrix} with
+ * a {@link MatrixDense} that every thread locks before using. Run them with
+ * <code>mvn -Pbench compile exec:exec -Dbench.args="ConcurrentMatrixBenchmarks"</code>.
+ *
+ * @author Alexander Pollock
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentMatrixBenchmarks {
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  /**
+   * The implementation to measure.
+   */
+  @Param({"ConcurrentMatrix", "ConcurrentSparseMatrix", "MatrixDense"})
+  public String impl;
+
+  /**
+   * The percentage of operations that are gets rather than sets.
+   */
+  @Param({"50", "95"})
+  public int readPercent;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The width and height of the matrix.
+   */
+  static final int SIZE = 1024;
+
+  /**
+   * The matrix the threads share.
+   */
+  Matrix<Integer> matrix;
+
+  /**
+   * Whether every use of the matrix must lock it.
+   */
+  boolean locked;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  /**
+   * Build the matrix.
+   */
+  @Setup
+  public void setup() {
+    this.locked = this.impl.equals("MatrixDense");
+    switch (this.impl) {
+      case "ConcurrentMatrix":
+        this.matrix = new ConcurrentMatrix<Integer>(SIZE, SIZE, 0);
+        break;
+      case "ConcurrentSparseMatrix":
+        this.matrix = new ConcurrentSparseMatrix<Integer>(SIZE, SIZE, 0);
+        break;
+      case "MatrixDense":
+        this.matrix = new MatrixDense<Integer>(SIZE, SIZE, 0);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+    } // switch
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * One operation with one thread.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(1)
+  public Integer threads01() {
+    return this.operate();
+  } // threads01()
+
+  /**
+   * One operation with two threads.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(2)
+  public Integer threads02() {
+    return this.operate();
+  } // threads02()
+
+  /**
+   * One operation with four threads.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(4)
+  public Integer threads04() {
+    return this.operate();
+  } // threads04()
+
+  /**
+   * One operation with eight threads.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(8)
+  public Integer threads08() {
+    return this.operate();
+  } // threads08()
+
+  /**
+   * One operation with sixteen threads.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(16)
+  public Integer threads16() {
+    return this.operate();
+  } // threads16()
+
+  /**
+   * One operation with thirty-two threads.
+   *
+   * @return the value read, if any.
+   */
+  @Benchmark
+  @Threads(32)
+  public Integer threads32() {
+    return this.operate();
+  } // threads32()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get or set a random cell.
+   *
+   * @return the value read, or null for a set.
+   */
+  Integer operate() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int row = random.nextInt(SIZE);
+    int col = random.nextInt(SIZE);
+    boolean read = random.nextInt(100) < this.readPercent;
+    if (this.locked) {
+      synchronized (this.matrix) {
+        return this.access(read, row, col);
+      } // synchronized
+    } // if
+    return this.access(read, row, col);
+  } // operate()
+
+  /**
+   * Get or set a cell.
+   *
+   * @param read Whether to get the cell rather than set it.
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @return the value read, or null for a set.
+   */
+  Integer access(boolean read, int row, int col) {
+    if (read) {
+      return this.matrix.get(row, col);
+    } // if
+    this.matrix.set(row, col, row ^ col);
+    return null;
+  } // access(boolean, int, int)
+} // class ConcurrentMatrixBenchmarks
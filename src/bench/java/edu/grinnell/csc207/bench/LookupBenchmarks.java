@@ -0,0 +1,196 @@
+package edu.grinnell.csc207.bench;
+
+import edu.grinnell.csc207.util.AssociativeArray;
+import edu.grinnell.csc207.util.IntObjectMap;
+import edu.grinnell.csc207.util.KeyNotFoundException;
+import edu.grinnell.csc207.util.MatrixV0;
+import edu.grinnell.csc207.util.NullKeyException;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks of looking up every cell of a matrix in which 99% of the cells hold the
+ * default value, comparing lookups that signal a miss with KeyNotFoundException against
+ * lookups that return a fallback. Also measures the old MatrixV0 lookup, in which
+ * AssociativeArray.get caught the exception from find and threw a new one, which the matrix
+ * then caught. Run them with
+ * <code>mvn -Pbench compile exec:exec -Dbench.args="LookupBenchmarks"</code>.
+ *
+ * @author Alexander Pollock
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LookupBenchmarks {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * One in this many cells holds a value other than the default.
+   */
+  static final int SPARSITY = 100;
+
+  /**
+   * The width and height of the matrix kept in an IntObjectMap.
+   */
+  static final int MAP_SIDE = 1000;
+
+  /**
+   * The width and height of the matrix kept in an AssociativeArray, which is smaller, since
+   * every lookup scans the stored pairs.
+   */
+  static final int ARRAY_SIDE = 200;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The stored cells, in an IntObjectMap.
+   */
+  IntObjectMap<String> map;
+
+  /**
+   * The same cells, in a MatrixV0.
+   */
+  MatrixV0<String> matrix;
+
+  /**
+   * The stored cells of the smaller matrix, in an AssociativeArray.
+   */
+  AssociativeArray<Integer, String> array;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  /**
+   * Store one cell in every SPARSITY.
+   *
+   * @throws NullKeyException Never.
+   */
+  @Setup
+  public void setup() throws NullKeyException {
+    this.map = new IntObjectMap<String>();
+    this.matrix = new MatrixV0<String>(MAP_SIDE, MAP_SIDE);
+    for (int i = 0; i < MAP_SIDE * MAP_SIDE; i += SPARSITY) {
+      this.map.set(i, "X");
+      this.matrix.set(i / MAP_SIDE, i % MAP_SIDE, "X");
+    } // for
+    this.array = new AssociativeArray<Integer, String>();
+    for (int i = 0; i < ARRAY_SIDE * ARRAY_SIDE; i += SPARSITY) {
+      this.array.set(i, "X");
+    } // for
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * Look up every cell of the IntObjectMap, catching the exception for missing cells.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void intObjectMapCatch(Blackhole bh) {
+    for (int i = 0; i < MAP_SIDE * MAP_SIDE; i++) {
+      try {
+        bh.consume(this.map.get(i));
+      } catch (KeyNotFoundException e) {
+        bh.consume(e);
+      } // try/catch
+    } // for
+  } // intObjectMapCatch(Blackhole)
+
+  /**
+   * Look up every cell of the IntObjectMap with a fallback for missing cells.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void intObjectMapFallback(Blackhole bh) {
+    for (int i = 0; i < MAP_SIDE * MAP_SIDE; i++) {
+      bh.consume(this.map.getOrDefault(i, null));
+    } // for
+  } // intObjectMapFallback(Blackhole)
+
+  /**
+   * Look up every cell of the MatrixV0.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void matrixV0Get(Blackhole bh) {
+    for (int row = 0; row < MAP_SIDE; row++) {
+      for (int col = 0; col < MAP_SIDE; col++) {
+        bh.consume(this.matrix.get(row, col));
+      } // for col
+    } // for row
+  } // matrixV0Get(Blackhole)
+
+  /**
+   * Look up every cell of the AssociativeArray, catching the exception for missing cells.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void associativeArrayCatch(Blackhole bh) {
+    for (int i = 0; i < ARRAY_SIDE * ARRAY_SIDE; i++) {
+      try {
+        bh.consume(this.array.get(i));
+      } catch (KeyNotFoundException e) {
+        bh.consume(e);
+      } // try/catch
+    } // for
+  } // associativeArrayCatch(Blackhole)
+
+  /**
+   * Look up every cell of the AssociativeArray the old way: each miss throws an exception,
+   * which is caught and replaced by a second one, which is caught in turn.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void associativeArrayTwoExceptions(Blackhole bh) {
+    for (int i = 0; i < ARRAY_SIDE * ARRAY_SIDE; i++) {
+      try {
+        try {
+          bh.consume(this.array.get(i));
+        } catch (KeyNotFoundException e) {
+          throw new KeyNotFoundException();
+        } // try/catch
+      } catch (Exception e) {
+        bh.consume(e);
+      } // try/catch
+    } // for
+  } // associativeArrayTwoExceptions(Blackhole)
+
+  /**
+   * Look up every cell of the AssociativeArray with a fallback for missing cells.
+   *
+   * @param bh Consumes the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public void associativeArrayFallback(Blackhole bh) {
+    for (int i = 0; i < ARRAY_SIDE * ARRAY_SIDE; i++) {
+      bh.consume(this.array.getOrDefault(i, null));
+    } // for
+  } // associativeArrayFallback(Blackhole)
+} // class LookupBenchmarks
@@ -0,0 +1,271 @@
+package edu.grinnell.csc207.bench;
+
+import edu.grinnell.csc207.util.Matrix;
+import edu.grinnell.csc207.util.MatrixDense;
+import edu.grinnell.csc207.util.MatrixIndirect;
+import edu.grinnell.csc207.util.MatrixRuns;
+import edu.grinnell.csc207.util.MatrixTiled;
+import edu.grinnell.csc207.util.MatrixV0;
+import edu.grinnell.csc207.util.PersistentMatrix;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the Matrix operations that do not change the matrix, for every
+ * implementation, over a range of sizes and of fractions of cells that hold something other
+ * than the default. The operations that do change it are in {@link MatrixMutationBenchmarks},
+ * which rebuilds the matrix before each call. Run them with
+ * <code>mvn -Pbench compile exec:exec</code>.
+ *
+ * @author Alexander Pollock
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MatrixBenchmarks {
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  /**
+   * The implementation to measure.
+   */
+  @Param({"MatrixV0", "MatrixDense", "MatrixIndirect", "MatrixTiled", "MatrixRuns",
+      "PersistentMatrix.Transient"})
+  public String impl;
+
+  /**
+   * The width and height of the matrix.
+   */
+  @Param({"100", "1000"})
+  public int size;
+
+  /**
+   * The fraction of cells that hold something other than the default.
+   */
+  @Param({"0.01", "0.5"})
+  public double density;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of cells we look up in each call of get.
+   */
+  static final int BATCH = 1024;
+
+  /**
+   * The matrix being measured.
+   */
+  Matrix<Integer> matrix;
+
+  /**
+   * A matrix with the same contents, for equals.
+   */
+  Matrix<Integer> same;
+
+  /**
+   * Random rows for get.
+   */
+  int[] rows;
+
+  /**
+   * Random columns for get.
+   */
+  int[] cols;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  /**
+   * Build the matrix.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(207);
+    this.matrix = build(this.impl, this.size, this.density, random);
+    this.same = build(this.impl, this.size, this.density, new Random(207));
+    this.rows = new int[BATCH];
+    this.cols = new int[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      this.rows[i] = random.nextInt(this.size);
+      this.cols[i] = random.nextInt(this.size);
+    } // for
+  } // setup()
+
+  /**
+   * Build a matrix of the given kind and fill the requested fraction of its cells.
+   *
+   * @param kind The name of the implementation.
+   * @param n The width and height.
+   * @param density The fraction of cells to fill.
+   * @param random Where the filled cells and their values come from.
+   *
+   * @return the matrix.
+   */
+  static Matrix<Integer> build(String kind, int n, double density, Random random) {
+    Matrix<Integer> result;
+    switch (kind) {
+      case "MatrixV0":
+        result = new MatrixV0<Integer>(n, n, 0);
+        break;
+      case "MatrixDense":
+        result = new MatrixDense<Integer>(n, n, 0);
+        break;
+      case "MatrixIndirect":
+        result = new MatrixIndirect<Integer>(n, n, 0);
+        break;
+      case "MatrixTiled":
+        result = new MatrixTiled<Integer>(n, n, 0);
+        break;
+      case "MatrixRuns":
+        result = new MatrixRuns<Integer>(n, n, 0);
+        break;
+      case "PersistentMatrix.Transient":
+        result = new PersistentMatrix<Integer>(n, n, 0).asTransient();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown implementation: " + kind);
+    } // switch
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < n; c++) {
+        if (random.nextDouble() < density) {
+          result.set(r, c, 1 + random.nextInt(100));
+        } // if
+      } // for
+    } // for
+    return result;
+  } // build(String, int, double, Random)
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * Look up BATCH random cells.
+   *
+   * @return the sum of the values, so that the lookups are not optimized away.
+   */
+  @Benchmark
+  public int get() {
+    int sum = 0;
+    for (int i = 0; i < BATCH; i++) {
+      sum += this.matrix.get(this.rows[i], this.cols[i]);
+    } // for
+    return sum;
+  } // get()
+
+  /**
+   * Sum every cell.
+   *
+   * @return the sum.
+   */
+  @Benchmark
+  public Integer reduce() {
+    return this.matrix.reduce(0, Integer::sum);
+  } // reduce()
+
+  /**
+   * Sum every cell on the common fork/join pool.
+   *
+   * @return the sum.
+   */
+  @Benchmark
+  public Integer reduceParallel() {
+    return this.matrix.reduceParallel(0, Integer::sum);
+  } // reduceParallel()
+
+  /**
+   * Make a new matrix with the sign of every cell flipped.
+   *
+   * @return the new matrix.
+   */
+  @Benchmark
+  public Object map() {
+    return this.matrix.map((x) -> -x);
+  } // map()
+
+  /**
+   * Make a new matrix with the sign of every cell flipped, on the common fork/join pool.
+   *
+   * @return the new matrix.
+   */
+  @Benchmark
+  public Object mapParallel() {
+    return this.matrix.mapParallel((x) -> -x);
+  } // mapParallel()
+
+  /**
+   * Clone the matrix.
+   *
+   * @return the clone.
+   */
+  @Benchmark
+  public Object cloneMatrix() {
+    return this.matrix.clone();
+  } // cloneMatrix()
+
+  /**
+   * Clone the matrix and change one cell of the clone, which is when copy-on-write
+   * implementations pay for the copy.
+   *
+   * @return the clone.
+   */
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Object cloneThenSet() {
+    Matrix<Integer> copy = this.matrix.clone();
+    copy.set(0, 0, 7);
+    return copy;
+  } // cloneThenSet()
+
+  /**
+   * Compare two matrices with equal contents.
+   *
+   * @return whether they are equal.
+   */
+  @Benchmark
+  public boolean equalsMatrix() {
+    return this.matrix.equals(this.same);
+  } // equalsMatrix()
+
+  /**
+   * Compute the hash code.
+   *
+   * @return the hash code.
+   */
+  @Benchmark
+  public int hashCodeMatrix() {
+    return this.matrix.hashCode();
+  } // hashCodeMatrix()
+
+  /**
+   * Print the matrix, with labels, to a writer that discards everything.
+   */
+  @Benchmark
+  public void printMatrix() {
+    PrintWriter pen = new PrintWriter(Writer.nullWriter());
+    Matrix.print(pen, this.matrix, true);
+    pen.flush();
+  } // printMatrix()
+} // class MatrixBenchmarks
@@ -0,0 +1,204 @@
+package edu.grinnell.csc207.bench;
+
+import edu.grinnell.csc207.util.ArraySizeException;
+import edu.grinnell.csc207.util.Matrix;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the Matrix operations that change the matrix, for every implementation,
+ * over a range of sizes and of fractions of cells that hold something other than the default.
+ * The matrix is rebuilt before every call (outside the measured time), so each call sees the
+ * matrix the parameters describe rather than what earlier calls left behind. Run them with
+ * <code>mvn -Pbench compile exec:exec -Dbench.args="MatrixMutationBenchmarks"</code>.
+ *
+ * @author Alexander Pollock
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MatrixMutationBenchmarks {
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  /**
+   * The implementation to measure.
+   */
+  @Param({"MatrixV0", "MatrixDense", "MatrixIndirect", "MatrixTiled", "MatrixRuns",
+      "PersistentMatrix.Transient"})
+  public String impl;
+
+  /**
+   * The width and height of the matrix.
+   */
+  @Param({"100", "1000"})
+  public int size;
+
+  /**
+   * The fraction of cells that hold something other than the default.
+   */
+  @Param({"0.01", "0.5"})
+  public double density;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of cells we change in each call of set.
+   */
+  static final int BATCH = 1024;
+
+  /**
+   * The matrix being measured.
+   */
+  Matrix<Integer> matrix;
+
+  /**
+   * Random rows for set.
+   */
+  int[] rows;
+
+  /**
+   * Random columns for set.
+   */
+  int[] cols;
+
+  /**
+   * A full row of values, for insertRow.
+   */
+  Integer[] rowVals;
+
+  /**
+   * A full column of values, for insertCol.
+   */
+  Integer[] colVals;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  /**
+   * Choose the cells and values that the benchmarks use.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(208);
+    this.rows = new int[BATCH];
+    this.cols = new int[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      this.rows[i] = random.nextInt(this.size);
+      this.cols[i] = random.nextInt(this.size);
+    } // for
+    this.rowVals = new Integer[this.size];
+    this.colVals = new Integer[this.size];
+    for (int i = 0; i < this.size; i++) {
+      this.rowVals[i] = i;
+      this.colVals[i] = -i;
+    } // for
+  } // setup()
+
+  /**
+   * Build a new matrix with the same contents every time.
+   */
+  @Setup(Level.Invocation)
+  public void rebuild() {
+    this.matrix = MatrixBenchmarks.build(this.impl, this.size, this.density, new Random(207));
+  } // rebuild()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * Set BATCH random cells.
+   */
+  @Benchmark
+  public void set() {
+    for (int i = 0; i < BATCH; i++) {
+      this.matrix.set(this.rows[i], this.cols[i], i);
+    } // for
+  } // set()
+
+  /**
+   * Insert a row of values in the middle and delete it again.
+   *
+   * @throws ArraySizeException Never.
+   */
+  @Benchmark
+  public void insertDeleteRow() throws ArraySizeException {
+    this.matrix.insertRow(this.size / 2, this.rowVals);
+    this.matrix.deleteRow(this.size / 2);
+  } // insertDeleteRow()
+
+  /**
+   * Insert a column of values in the middle and delete it again.
+   *
+   * @throws ArraySizeException Never.
+   */
+  @Benchmark
+  public void insertDeleteCol() throws ArraySizeException {
+    this.matrix.insertCol(this.size / 2, this.colVals);
+    this.matrix.deleteCol(this.size / 2);
+  } // insertDeleteCol()
+
+  /**
+   * Fill the middle quarter of the matrix.
+   */
+  @Benchmark
+  public void fillRegion() {
+    int quarter = this.size / 4;
+    this.matrix.fillRegion(quarter, quarter, 3 * quarter, 3 * quarter, 5);
+  } // fillRegion()
+
+  /**
+   * Fill the middle quarter of the matrix on the common fork/join pool.
+   */
+  @Benchmark
+  public void fillRegionParallel() {
+    int quarter = this.size / 4;
+    this.matrix.fillRegionParallel(quarter, quarter, 3 * quarter, 3 * quarter, 5);
+  } // fillRegionParallel()
+
+  /**
+   * Fill the main diagonal.
+   */
+  @Benchmark
+  public void fillLine() {
+    this.matrix.fillLine(0, 0, 1, 1, this.size, this.size, 6);
+  } // fillLine()
+
+  /**
+   * Flip the sign of every cell.
+   */
+  @Benchmark
+  public void mapInPlace() {
+    this.matrix.mapInPlace((x) -> -x);
+  } // mapInPlace()
+
+  /**
+   * Flip the sign of every cell on the common fork/join pool.
+   */
+  @Benchmark
+  public void mapInPlaceParallel() {
+    this.matrix.mapInPlaceParallel((x) -> -x);
+  } // mapInPlaceParallel()
+} // class MatrixMutationBenchmarks
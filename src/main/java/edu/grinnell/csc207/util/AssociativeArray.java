@@ -2,6 +2,8 @@ package edu.grinnell.csc207.util;
 
 import static java.lang.reflect.Array.newInstance;
 
+import java.util.Arrays;
+
 /**
  * A basic implementation of Associative Arrays with keys of type K and values of type V.
  * Associative Arrays store key/value pairs and permit you to look up values by key.
@@ -61,15 +63,13 @@ public class AssociativeArray<K, V> {
    */
   public AssociativeArray<K, V> clone() {
     AssociativeArray<K, V> cloned = new AssociativeArray<K, V>();
+    // The keys are already distinct, so we can copy the pairs directly rather than calling set.
+    cloned.pairs = Arrays.copyOf(this.pairs, this.pairs.length);
     for (int i = 0; i < this.size; i++) {
-      try {
-        cloned.set(this.pairs[i].clone().key, this.pairs[i].clone().val);
-      } catch (NullKeyException e) {
-        System.err.println("Couldn't add element: " + i);
-      } // try/catch
+      cloned.pairs[i] = this.pairs[i].clone();
     } // for
+    cloned.size = this.size;
     return cloned;
-
   } // clone()
 
   /**
@@ -130,16 +130,27 @@ public class AssociativeArray<K, V> {
    * @throws KeyNotFoundException when the key is null or does not appear in the associative array.
    */
   public V get(K key) throws KeyNotFoundException {
-    if (key == null) {
+    int index = this.indexOf(key);
+    if (index < 0) {
       throw new KeyNotFoundException();
     } // if
-    try {
-      return this.pairs[find(key)].val;
-    } catch (KeyNotFoundException e) {
-      throw new KeyNotFoundException();
-    } // try/catch
+    return this.pairs[index].val;
   } // get(K)
 
+  /**
+   * Get the value associated with key, or a fallback if there is none. Unlike get, never throws,
+   * so it is the cheap way to look up keys that are often missing.
+   *
+   * @param key A key
+   * @param fallback The value to return if the key is null or does not appear.
+   *
+   * @return The corresponding value, or fallback.
+   */
+  public V getOrDefault(K key, V fallback) {
+    int index = this.indexOf(key);
+    return (index < 0) ? fallback : this.pairs[index].val;
+  } // getOrDefault(K, V)
+
   /**
    * Determine if key appears in the associative array. Should return false for the null key, since
    * it cannot appear.
@@ -149,15 +160,7 @@ public class AssociativeArray<K, V> {
    * @return true if the key appears and false otherwise.
    */
   public boolean hasKey(K key) {
-    if (key == null) {
-      return false;
-    } // if
-    try {
-      find(key);
-      return true;
-    } catch (KeyNotFoundException e) {
-      return false;
-    } // try/catch
+    return this.indexOf(key) >= 0;
   } // hasKey(K)
 
   /**
@@ -167,12 +170,10 @@ public class AssociativeArray<K, V> {
    * @param key The key to remove.
    */
   public void remove(K key) {
-    int index = -1;
-    try {
-      index = find(key);
-    } catch (KeyNotFoundException e) {
+    int index = this.indexOf(key);
+    if (index < 0) {
       return;
-    } // try/catch
+    } // if
     this.pairs[index] = this.pairs[this.size - 1];
     this.size--;
   } // remove(K)
@@ -194,7 +195,7 @@ public class AssociativeArray<K, V> {
    * Expand the underlying array.
    */
   void expand() {
-    this.pairs = java.util.Arrays.copyOf(this.pairs, this.pairs.length * 2);
+    this.pairs = Arrays.copyOf(this.pairs, this.pairs.length * 2);
   } // expand()
 
   /**
@@ -208,11 +209,29 @@ public class AssociativeArray<K, V> {
    * @throws KeyNotFoundException If the key does not appear in the associative array.
    */
   int find(K key) throws KeyNotFoundException {
+    int index = this.indexOf(key);
+    if (index < 0) {
+      throw new KeyNotFoundException();
+    } // if
+    return index;
+  } // find(K)
+
+  /**
+   * Find the index of the first entry in `pairs` that contains key.
+   *
+   * @param key The key of the entry.
+   *
+   * @return The index of the key, or -1 if the key is null or does not appear.
+   */
+  int indexOf(K key) {
+    if (key == null) {
+      return -1;
+    } // if
     for (int i = 0; i < this.size; i++) {
       if (this.pairs[i].key.equals(key)) {
         return i;
       } // if
     } // for
-    throw new KeyNotFoundException();
-  } // find(K)
+    return -1;
+  } // indexOf(K)
 } // class AssociativeArray
@@ -0,0 +1,115 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Objects;
+
+/**
+ * One cell of a matrix: its row, its column, and the value it held when the cell was read.
+ * Used by the streams of Matrix.cells() and Matrix.storedCells().
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of the value.
+ */
+public final class Cell<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The row of the cell.
+   */
+  private final int row;
+
+  /**
+   * The column of the cell.
+   */
+  private final int col;
+
+  /**
+   * The value in the cell.
+   */
+  private final T val;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a cell.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @param val The value in the cell.
+   */
+  public Cell(int row, int col, T val) {
+    this.row = row;
+    this.col = col;
+    this.val = val;
+  } // Cell(int, int, T)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the row of the cell.
+   *
+   * @return the row.
+   */
+  public int row() {
+    return this.row;
+  } // row()
+
+  /**
+   * Get the column of the cell.
+   *
+   * @return the column.
+   */
+  public int col() {
+    return this.col;
+  } // col()
+
+  /**
+   * Get the value in the cell.
+   *
+   * @return the value.
+   */
+  public T val() {
+    return this.val;
+  } // val()
+
+  /**
+   * Determine if this cell is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a cell with the same row, column, and an equal value;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    if (!(other instanceof Cell)) {
+      return false;
+    } // if
+    Cell<?> otherCell = (Cell<?>) other;
+    return this.row == otherCell.row && this.col == otherCell.col
+        && Objects.equals(this.val, otherCell.val);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this cell.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return (31 * this.row + this.col) * 31 + Objects.hashCode(this.val);
+  } // hashCode()
+
+  /**
+   * Convert the cell to a string.
+   *
+   * @return a string of the form "(row,col):value".
+   */
+  public String toString() {
+    return "(" + this.row + "," + this.col + "):" + this.val;
+  } // toString()
+} // class Cell
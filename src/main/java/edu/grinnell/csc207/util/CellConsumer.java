@@ -0,0 +1,25 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * Something that does something with the cells of a matrix, one at a time. Used by
+ * {@link Matrix#forEachStored}, so that visiting a cell does not box its row and column
+ * or allocate an entry.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T>
+ *   The type of values stored in the matrix.
+ */
+public interface CellConsumer<T> {
+  /**
+   * Do something with one cell.
+   *
+   * @param row
+   *   The row of the cell.
+   * @param col
+   *   The column of the cell.
+   * @param val
+   *   The value in the cell.
+   */
+  public void accept(int row, int col, T val);
+} // interface CellConsumer<T>
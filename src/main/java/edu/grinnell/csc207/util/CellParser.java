@@ -0,0 +1,95 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * A way of turning the text of a cell into a value, for reading matrices from text. The
+ * text is only valid during the call; parsers that need to keep it must copy it.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T>
+ *   The type of values that the parser produces.
+ */
+public interface CellParser<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Parses decimal Integers, ignoring surrounding spaces, without making a string.
+   */
+  public static final CellParser<Integer> INTEGER = (text) -> {
+    int start = skipSpaces(text);
+    return Integer.parseInt(text, start, Math.max(start, trimmedEnd(text)), 10);
+  }; // INTEGER
+
+  /**
+   * Parses decimal Longs, ignoring surrounding spaces, without making a string.
+   */
+  public static final CellParser<Long> LONG = (text) -> {
+    int start = skipSpaces(text);
+    return Long.parseLong(text, start, Math.max(start, trimmedEnd(text)), 10);
+  }; // LONG
+
+  /**
+   * Parses Doubles, ignoring surrounding spaces.
+   */
+  public static final CellParser<Double> DOUBLE = (text) -> Double.parseDouble(text.toString());
+
+  /**
+   * Keeps the text as it is.
+   */
+  public static final CellParser<String> STRING = (text) -> text.toString();
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Parse the text of a cell.
+   *
+   * @param text
+   *   The text, without any quotes around it.
+   *
+   * @return the value.
+   *
+   * @throws NumberFormatException
+   *   If the text does not describe a value. (Other runtime exceptions are also fine.)
+   */
+  public T parse(CharSequence text);
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the first character of some text that is not a space.
+   *
+   * @param text
+   *   The text.
+   *
+   * @return the index of that character, or the length of the text if there is none.
+   */
+  private static int skipSpaces(CharSequence text) {
+    int i = 0;
+    while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+      i++;
+    } // while
+    return i;
+  } // skipSpaces(CharSequence)
+
+  /**
+   * Find the end of some text, not counting spaces at the end.
+   *
+   * @param text
+   *   The text.
+   *
+   * @return the index just past the last character that is not a space.
+   */
+  private static int trimmedEnd(CharSequence text) {
+    int i = text.length();
+    while (i > 0 && Character.isWhitespace(text.charAt(i - 1))) {
+      i--;
+    } // while
+    return i;
+  } // trimmedEnd(CharSequence)
+} // interface CellParser<T>
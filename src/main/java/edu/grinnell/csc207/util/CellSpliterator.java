@@ -0,0 +1,71 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator over the cells of a matrix that may hold something other
+ * than the default value. As a plain Spliterator it yields the values in
+ * the cells; the Cell methods also pass along the row and column of each
+ * cell, without boxing them or allocating an entry. Splitting divides the
+ * cells into disjoint groups (e.g., bands of rows or ranges of a hash
+ * table), so that the groups can be worked on in parallel.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T>
+ *   The type of values stored in the matrix.
+ */
+public interface CellSpliterator<T> extends Spliterator<T> {
+  /**
+   * Do something with the next cell, if there is one.
+   *
+   * @param action
+   *   What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  public boolean tryAdvanceCell(CellConsumer<? super T> action);
+
+  /**
+   * Do something with each remaining cell.
+   *
+   * @param action
+   *   What to do with each cell.
+   */
+  public default void forEachRemainingCell(CellConsumer<? super T> action) {
+    while (this.tryAdvanceCell(action)) {
+      // Keep going.
+    } // while
+  } // forEachRemainingCell(CellConsumer<? super T>)
+
+  /**
+   * Split off some of the remaining cells, if it seems worthwhile.
+   *
+   * @return a spliterator over the cells split off, or null if the cells
+   *   were not split.
+   */
+  public CellSpliterator<T> trySplit();
+
+  /**
+   * Do something with the value in the next cell, if there is one.
+   *
+   * @param action
+   *   What to do with the value.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  public default boolean tryAdvance(Consumer<? super T> action) {
+    return this.tryAdvanceCell((row, col, val) -> action.accept(val));
+  } // tryAdvance(Consumer<? super T>)
+
+  /**
+   * Do something with the value in each remaining cell.
+   *
+   * @param action
+   *   What to do with each value.
+   */
+  public default void forEachRemaining(Consumer<? super T> action) {
+    this.forEachRemainingCell((row, col, val) -> action.accept(val));
+  } // forEachRemaining(Consumer<? super T>)
+} // interface CellSpliterator<T>
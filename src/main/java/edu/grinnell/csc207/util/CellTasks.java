@@ -0,0 +1,540 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The element-wise operations of Matrix: map, zipWith, fold, count, and anyMatch. Each one
+ * works through the cells that the matrix stores, with a CellSpliterator, and then accounts for
+ * all of the other cells, which hold the default, at once. So they take time proportional to
+ * the number of stored cells. Done in parallel, the spliterator is split into parts of about
+ * LEAF_SIZE cells, which are worked on with the common fork/join pool.
+ *
+ * @author Alexander Pollock
+ */
+final class CellTasks {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The estimated number of cells below which a part is not split further.
+   */
+  static final int LEAF_SIZE = 1 << 12;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * There are no CellTasks objects.
+   */
+  private CellTasks() {
+  } // CellTasks()
+
+  // +------------+--------------------------------------------------
+  // | Operations |
+  // +------------+
+
+  /**
+   * Apply a function to every cell of a matrix, giving a new matrix. The new matrix is a
+   * MatrixTiled whose default is chosen by newDefault, so the function only sees the old
+   * default if some cell holds it, and the default does not depend on the order of the cells. In parallel, the function is applied on several threads but
+   * the results are stored by the calling thread.
+   *
+   * @param matrix The matrix.
+   * @param fun The function.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return the new matrix.
+   */
+  static <T, U> Matrix<U> map(Matrix<T> matrix, Function<? super T, ? extends U> fun,
+      boolean parallel) {
+    T def = matrix.getDefaultVal();
+    Buffer<U> results = run(matrix.cellSpliterator(), (part) -> {
+      Buffer<U> buffer = new Buffer<U>();
+      part.forEachRemainingCell((row, col, val) ->
+          buffer.add(row, col, fun.apply(val), Objects.equals(val, def)));
+      return buffer;
+    }, Buffer::append, parallel);
+    Matrix<U> result = new MatrixTiled<U>(matrix.width(), matrix.height(),
+        newDefault(matrix, results, () -> fun.apply(def)));
+    results.copyInto(result);
+    return result;
+  } // map(Matrix<T>, Function<? super T, ? extends U>, boolean)
+
+  /**
+   * Combine the corresponding cells of two matrices of the same size, giving a new matrix. The
+   * new matrix is a MatrixTiled whose default is chosen by newDefault. Each cell that either
+   * matrix stores is combined once: the cells of the right matrix that the left one also
+   * stores are skipped.
+   *
+   * @param left The first matrix.
+   * @param right The second matrix.
+   * @param fun The function that combines two cells.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return the new matrix.
+   *
+   * @throws ArraySizeException If the matrices are not the same size.
+   */
+  static <T, U, R> Matrix<R> zipWith(Matrix<T> left, Matrix<U> right,
+      BiFunction<? super T, ? super U, ? extends R> fun, boolean parallel)
+      throws ArraySizeException {
+    if (left.width() != right.width() || left.height() != right.height()) {
+      throw new ArraySizeException();
+    } // if
+    T leftDef = left.getDefaultVal();
+    U rightDef = right.getDefaultVal();
+    int width = left.width();
+    Buffer<R> results = run(left.cellSpliterator(), (part) -> {
+      Buffer<R> buffer = new Buffer<R>();
+      part.forEachRemainingCell((row, col, val) -> {
+        U other = right.get(row, col);
+        buffer.add(row, col, fun.apply(val, other),
+            Objects.equals(val, leftDef) && Objects.equals(other, rightDef));
+      });
+      return buffer;
+    }, Buffer::append, parallel);
+    long[] done = results.keys(width);
+    Buffer<R> rest = run(right.cellSpliterator(), (part) -> {
+      Buffer<R> buffer = new Buffer<R>();
+      part.forEachRemainingCell((row, col, val) -> {
+        if (Arrays.binarySearch(done, (long) row * width + col) < 0) {
+          T other = left.get(row, col);
+          buffer.add(row, col, fun.apply(other, val),
+              Objects.equals(other, leftDef) && Objects.equals(val, rightDef));
+        } // if
+      });
+      return buffer;
+    }, Buffer::append, parallel);
+    Buffer.append(results, rest);
+    Matrix<R> result = new MatrixTiled<R>(width, left.height(),
+        newDefault(left, results, () -> fun.apply(leftDef, rightDef)));
+    results.copyInto(result);
+    return result;
+  } // zipWith(Matrix<T>, Matrix<U>, BiFunction<...>, boolean)
+
+  /**
+   * Fold every cell of a matrix into one result. The cells that hold the default are folded
+   * together with O(log n) calls of combiner, so identity must be an identity for combiner, and
+   * combiner must be associative. Since the cells are visited in no particular order, it should
+   * also be commutative.
+   *
+   * @param matrix The matrix.
+   * @param identity The result for no cells.
+   * @param acc Folds one more cell into a result.
+   * @param combiner Combines two results.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return the result.
+   */
+  static <T, R> R fold(Matrix<T> matrix, R identity, BiFunction<R, ? super T, R> acc,
+      BinaryOperator<R> combiner, boolean parallel) {
+    Partial<R> total = run(matrix.cellSpliterator(), (part) -> {
+      Partial<R> partial = new Partial<R>(identity);
+      part.forEachRemainingCell((row, col, val) -> {
+        partial.val = acc.apply(partial.val, val);
+        partial.count++;
+      });
+      return partial;
+    }, (first, second) -> {
+      first.val = combiner.apply(first.val, second.val);
+      first.count += second.count;
+      return first;
+    }, parallel);
+    long rest = (long) matrix.width() * matrix.height() - total.count;
+    if (rest > 0) {
+      R defaults = repeat(acc.apply(identity, matrix.getDefaultVal()), rest, combiner);
+      total.val = combiner.apply(total.val, defaults);
+    } // if
+    return total.val;
+  } // fold(Matrix<T>, R, BiFunction<R, ? super T, R>, BinaryOperator<R>, boolean)
+
+  /**
+   * Count the cells of a matrix that hold values that meet a predicate. Tests the default
+   * value at most once.
+   *
+   * @param matrix The matrix.
+   * @param pred The predicate.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return the number of cells.
+   */
+  static <T> long count(Matrix<T> matrix, Predicate<? super T> pred, boolean parallel) {
+    long[] total = run(matrix.cellSpliterator(), (part) -> {
+      long[] counts = new long[2];
+      part.forEachRemainingCell((row, col, val) -> {
+        if (pred.test(val)) {
+          counts[0]++;
+        } // if
+        counts[1]++;
+      });
+      return counts;
+    }, (first, second) -> {
+      first[0] += second[0];
+      first[1] += second[1];
+      return first;
+    }, parallel);
+    long rest = (long) matrix.width() * matrix.height() - total[1];
+    if (rest > 0 && pred.test(matrix.getDefaultVal())) {
+      total[0] += rest;
+    } // if
+    return total[0];
+  } // count(Matrix<T>, Predicate<? super T>, boolean)
+
+  /**
+   * Determine whether any cell of a matrix holds a value that meets a predicate. Stops as soon
+   * as one is found (on every thread, in parallel). Tests the default value at most once.
+   *
+   * @param matrix The matrix.
+   * @param pred The predicate.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return true if some cell meets the predicate, and false otherwise.
+   */
+  static <T> boolean anyMatch(Matrix<T> matrix, Predicate<? super T> pred, boolean parallel) {
+    AtomicBoolean found = new AtomicBoolean();
+    long visited = run(matrix.cellSpliterator(), (part) -> {
+      long[] count = new long[1];
+      CellConsumer<T> test = (row, col, val) -> {
+        count[0]++;
+        if (pred.test(val)) {
+          found.set(true);
+        } // if
+      };
+      while (!found.get() && part.tryAdvanceCell(test)) {
+        // Keep looking.
+      } // while
+      return count[0];
+    }, Long::sum, parallel);
+    if (found.get()) {
+      return true;
+    } // if
+    return visited < (long) matrix.width() * matrix.height()
+        && pred.test(matrix.getDefaultVal());
+  } // anyMatch(Matrix<T>, Predicate<? super T>, boolean)
+
+  /**
+   * Combine a value with itself some number of times, with O(log times) calls of combiner.
+   *
+   * @param val The value.
+   * @param times The number of copies of the value, at least 1.
+   * @param combiner Combines two values; must be associative.
+   *
+   * @return the combination.
+   */
+  static <R> R repeat(R val, long times, BinaryOperator<R> combiner) {
+    R power = val;
+    R result = null;
+    boolean started = false;
+    for (long n = times; ; n >>>= 1) {
+      if ((n & 1) != 0) {
+        result = started ? combiner.apply(result, power) : power;
+        started = true;
+      } // if
+      if (n == 1) {
+        return result;
+      } // if
+      power = combiner.apply(power, power);
+    } // for
+  } // repeat(R, long, BinaryOperator<R>)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Work on the cells of a spliterator, either all at once on the calling thread or in parts
+   * on the common fork/join pool.
+   *
+   * @param spliterator The cells.
+   * @param leaf Works on one part and gives a result.
+   * @param combine Combines the results of two parts, earlier part first.
+   * @param parallel Whether to work on several threads.
+   *
+   * @return the result for all of the cells.
+   */
+  static <T, R> R run(CellSpliterator<T> spliterator, Function<CellSpliterator<T>, R> leaf,
+      BinaryOperator<R> combine, boolean parallel) {
+    if (!parallel) {
+      return leaf.apply(spliterator);
+    } // if
+    return ForkJoinPool.commonPool().invoke(new Task<T, R>(spliterator, leaf, combine));
+  } // run(CellSpliterator<T>, Function<CellSpliterator<T>, R>, BinaryOperator<R>, boolean)
+
+  /**
+   * Choose the default of the matrix that map or zipWith makes. If some cell holds the old
+   * default (because it was not visited, or was visited and held it), the new default is
+   * computed from the old one. Otherwise it is the new value of the cell in row 0, column 0;
+   * that way the function is never applied to a default that no cell holds, which might be a
+   * value (such as null) that the function cannot take, and the choice does not depend on the
+   * order in which cells are visited.
+   *
+   * @param matrix The matrix that was mapped, or the left matrix of zipWith.
+   * @param results The new values of the cells that were visited.
+   * @param fromDefault Computes the new default from the old one.
+   *
+   * @return the new default.
+   */
+  private static <U> U newDefault(Matrix<?> matrix, Buffer<U> results,
+      Supplier<? extends U> fromDefault) {
+    if (results.sawDefault || results.count() < (long) matrix.width() * matrix.height()) {
+      return fromDefault.get();
+    } // if
+    return results.originResult();
+  } // newDefault(Matrix<?>, Buffer<U>, Supplier<? extends U>)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * The result of folding some of the cells.
+   *
+   * @param <R> The type of the result.
+   */
+  static final class Partial<R> {
+    /**
+     * The result so far.
+     */
+    R val;
+
+    /**
+     * The number of cells folded in.
+     */
+    long count;
+
+    /**
+     * Create the result for no cells.
+     *
+     * @param identity The result for no cells.
+     */
+    Partial(R identity) {
+      this.val = identity;
+    } // Partial(R)
+  } // class Partial<R>
+
+  /**
+   * New values for some cells. Buffers from different parts are chained together rather than
+   * copied.
+   *
+   * @param <U> The type of the values.
+   */
+  static final class Buffer<U> {
+    /**
+     * The rows of the cells.
+     */
+    int[] rows = new int[16];
+
+    /**
+     * The columns of the cells.
+     */
+    int[] cols = new int[16];
+
+    /**
+     * The new values.
+     */
+    Object[] vals = new Object[16];
+
+    /**
+     * The number of cells.
+     */
+    int size;
+
+    /**
+     * The next buffer in the chain.
+     */
+    Buffer<U> next;
+
+    /**
+     * The last buffer in the chain.
+     */
+    Buffer<U> last = this;
+
+    /**
+     * Whether some cell in the chain held the old default.
+     */
+    boolean sawDefault;
+
+    /**
+     * Whether the chain holds the cell in row 0, column 0.
+     */
+    boolean sawOrigin;
+
+    /**
+     * The new value of that cell.
+     */
+    Object fromOrigin;
+
+    /**
+     * Add a cell.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param val The new value.
+     * @param wasDefault Whether the cell held the old default.
+     */
+    void add(int row, int col, Object val, boolean wasDefault) {
+      if (this.size == this.vals.length) {
+        this.rows = Arrays.copyOf(this.rows, 2 * this.size);
+        this.cols = Arrays.copyOf(this.cols, 2 * this.size);
+        this.vals = Arrays.copyOf(this.vals, 2 * this.size);
+      } // if
+      this.sawDefault |= wasDefault;
+      if (row == 0 && col == 0) {
+        this.sawOrigin = true;
+        this.fromOrigin = val;
+      } // if
+      this.rows[this.size] = row;
+      this.cols[this.size] = col;
+      this.vals[this.size++] = val;
+    } // add(int, int, Object, boolean)
+
+    /**
+     * Chain another buffer after this one.
+     *
+     * @param first The first buffer.
+     * @param second The buffer to chain after it.
+     *
+     * @return first.
+     */
+    static <U> Buffer<U> append(Buffer<U> first, Buffer<U> second) {
+      first.sawDefault |= second.sawDefault;
+      if (second.sawOrigin) {
+        first.sawOrigin = true;
+        first.fromOrigin = second.fromOrigin;
+      } // if
+      first.last.next = second;
+      first.last = second.last;
+      return first;
+    } // append(Buffer<U>, Buffer<U>)
+
+    /**
+     * Count the cells in the chain.
+     *
+     * @return the number of cells.
+     */
+    long count() {
+      long count = 0;
+      for (Buffer<U> buffer = this; buffer != null; buffer = buffer.next) {
+        count += buffer.size;
+      } // for
+      return count;
+    } // count()
+
+    /**
+     * Get the new value of the cell in row 0, column 0.
+     *
+     * @return the value, or null if the chain does not hold that cell.
+     */
+    @SuppressWarnings("unchecked")
+    U originResult() {
+      return (U) this.fromOrigin;
+    } // originResult()
+
+    /**
+     * Get the row-major indices of the cells in the chain, in increasing order.
+     *
+     * @param width The width of the matrix.
+     *
+     * @return the indices.
+     */
+    long[] keys(int width) {
+      long[] keys = new long[(int) this.count()];
+      int n = 0;
+      for (Buffer<U> buffer = this; buffer != null; buffer = buffer.next) {
+        for (int i = 0; i < buffer.size; i++) {
+          keys[n++] = (long) buffer.rows[i] * width + buffer.cols[i];
+        } // for
+      } // for
+      Arrays.sort(keys);
+      return keys;
+    } // keys(int)
+
+    /**
+     * Store every value in the chain in a matrix.
+     *
+     * @param matrix The matrix.
+     */
+    @SuppressWarnings("unchecked")
+    void copyInto(Matrix<U> matrix) {
+      for (Buffer<U> buffer = this; buffer != null; buffer = buffer.next) {
+        for (int i = 0; i < buffer.size; i++) {
+          matrix.set(buffer.rows[i], buffer.cols[i], (U) buffer.vals[i]);
+        } // for
+      } // for
+    } // copyInto(Matrix<U>)
+  } // class Buffer<U>
+
+  /**
+   * A fork/join task that splits a spliterator until the parts are small enough and combines
+   * the results of the parts.
+   *
+   * @param <T> The type of values in the cells.
+   * @param <R> The type of the result.
+   */
+  static final class Task<T, R> extends RecursiveTask<R> {
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The cells.
+     */
+    private final CellSpliterator<T> spliterator;
+
+    /**
+     * Works on one part.
+     */
+    private final Function<CellSpliterator<T>, R> leaf;
+
+    /**
+     * Combines the results of two parts.
+     */
+    private final BinaryOperator<R> combine;
+
+    /**
+     * Create a task for some cells.
+     *
+     * @param spliterator The cells.
+     * @param leaf Works on one part.
+     * @param combine Combines the results of two parts.
+     */
+    Task(CellSpliterator<T> spliterator, Function<CellSpliterator<T>, R> leaf,
+        BinaryOperator<R> combine) {
+      this.spliterator = spliterator;
+      this.leaf = leaf;
+      this.combine = combine;
+    } // Task(CellSpliterator<T>, Function<CellSpliterator<T>, R>, BinaryOperator<R>)
+
+    /**
+     * Split off the first part and work on it in parallel with the rest, or work on the cells
+     * directly if there are few enough of them.
+     *
+     * @return the result for the cells.
+     */
+    protected R compute() {
+      CellSpliterator<T> prefix = null;
+      if (this.spliterator.estimateSize() > LEAF_SIZE) {
+        prefix = this.spliterator.trySplit();
+      } // if
+      if (prefix == null) {
+        return this.leaf.apply(this.spliterator);
+      } // if
+      Task<T, R> first = new Task<T, R>(prefix, this.leaf, this.combine);
+      first.fork();
+      R second = new Task<T, R>(this.spliterator, this.leaf, this.combine).compute();
+      return this.combine.apply(first.join(), second);
+    } // compute()
+  } // class Task<T, R>
+} // class CellTasks
@@ -0,0 +1,151 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * A spliterator over the cells of a matrix that keeps its cells in a table of IntObjectMaps,
+ * each holding the cells of one range of keys (row * width + col), as MatrixV0 does. Splits
+ * the table of chunks in half, and knows exactly how many cells each part holds, since each
+ * chunk knows its size.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class ChunkCellSpliterator<T> implements CellSpliterator<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The chunks. Missing chunks are null.
+   */
+  private final IntObjectMap<T>[] chunks;
+
+  /**
+   * The width of the matrix.
+   */
+  private final int width;
+
+  /**
+   * The chunk we are looking at.
+   */
+  private int chunk;
+
+  /**
+   * The next slot to look at in that chunk.
+   */
+  private int slot;
+
+  /**
+   * The last chunk to look at (exclusive).
+   */
+  private final int end;
+
+  /**
+   * The number of cells left.
+   */
+  private long left;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over some of the chunks of a table.
+   *
+   * @param chunks The chunks.
+   * @param width The width of the matrix.
+   * @param start The first chunk (inclusive).
+   * @param end The last chunk (exclusive).
+   * @param size The number of cells in those chunks.
+   */
+  ChunkCellSpliterator(IntObjectMap<T>[] chunks, int width, int start, int end, long size) {
+    this.chunks = chunks;
+    this.width = width;
+    this.chunk = start;
+    this.end = end;
+    this.left = size;
+  } // ChunkCellSpliterator(IntObjectMap<T>[], int, int, int, long)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the next cell, if there is one.
+   *
+   * @param action What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean tryAdvanceCell(CellConsumer<? super T> action) {
+    while (this.chunk < this.end) {
+      IntObjectMap<T> map = this.chunks[this.chunk];
+      while (map != null && this.slot < map.keys.length) {
+        int i = this.slot++;
+        if (map.used[i]) {
+          int key = map.keys[i];
+          this.left--;
+          action.accept(key / this.width, key % this.width, (T) map.vals[i]);
+          return true;
+        } // if
+      } // while
+      this.chunk++;
+      this.slot = 0;
+    } // while
+    return false;
+  } // tryAdvanceCell(CellConsumer<? super T>)
+
+  /**
+   * Do something with each remaining cell.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachRemainingCell(CellConsumer<? super T> action) {
+    while (this.tryAdvanceCell(action)) {
+      // Each call visits one cell.
+    } // while
+  } // forEachRemainingCell(CellConsumer<? super T>)
+
+  /**
+   * Split off the first half of the remaining chunks.
+   *
+   * @return a spliterator over those chunks, or null if we have started on a chunk or there
+   *         are too few to split.
+   */
+  public CellSpliterator<T> trySplit() {
+    int mid = (this.chunk + this.end) >>> 1;
+    if (this.slot > 0 || mid <= this.chunk) {
+      return null;
+    } // if
+    long size = 0;
+    for (int i = this.chunk; i < mid; i++) {
+      if (this.chunks[i] != null) {
+        size += this.chunks[i].size();
+      } // if
+    } // for
+    ChunkCellSpliterator<T> prefix =
+        new ChunkCellSpliterator<T>(this.chunks, this.width, this.chunk, mid, size);
+    this.chunk = mid;
+    this.left -= size;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Determine the number of cells left.
+   *
+   * @return the number of cells.
+   */
+  public long estimateSize() {
+    return this.left;
+  } // estimateSize()
+
+  /**
+   * Describe the cells.
+   *
+   * @return SIZED and SUBSIZED.
+   */
+  public int characteristics() {
+    return SIZED | SUBSIZED;
+  } // characteristics()
+} // class ChunkCellSpliterator
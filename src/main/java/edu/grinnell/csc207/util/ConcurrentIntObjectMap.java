@@ -0,0 +1,614 @@
+package edu.grinnell.csc207.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash map from primitive int keys to values of type V that many threads may use at once
+ * without locks. Like {@link IntObjectMap}, it uses open addressing with linear probing over a
+ * power-of-two table, but every slot is claimed and updated with compare-and-set (through
+ * VarHandles), so readers never wait and writers only retry when another thread changed the
+ * same slot.
+ *
+ * <p>Keys are never removed from a table; removing a key leaves a tombstone value. When a
+ * table fills up, a new one is made and the threads that change the map copy the old table
+ * into it a chunk of slots at a time. A slot being copied is frozen first, so that writers
+ * of its key move on to the new table, and free slots are sealed, so that no new key lands
+ * in the old table once its copy has started. Readers follow a frozen or moved slot to the
+ * newer table. When every slot has been copied, the new table replaces the old one.</p>
+ *
+ * <p>Values may be null. The keys Integer.MIN_VALUE and Integer.MIN_VALUE + 1 are reserved
+ * to mark free and sealed slots. forEach and size are only exact when no other thread is
+ * changing the map.</p>
+ *
+ * @param <V> the value type
+ *
+ * @author Alexander Pollock
+ */
+public class ConcurrentIntObjectMap<V> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The key of a free slot.
+   */
+  static final int EMPTY = Integer.MIN_VALUE;
+
+  /**
+   * The key of a free slot that was sealed when its table started to be copied.
+   */
+  static final int SEALED = Integer.MIN_VALUE + 1;
+
+  /**
+   * The number of slots a thread copies at a time when it helps with a resize.
+   */
+  static final int COPY_CHUNK = 64;
+
+  /**
+   * The value stored in place of null.
+   */
+  private static final Object NULL = new Object();
+
+  /**
+   * The value of a slot whose key has been removed.
+   */
+  private static final Object TOMBSTONE = new Object();
+
+  /**
+   * The value of a slot that has been copied to the next table.
+   */
+  private static final Object MOVED = new Object();
+
+  /**
+   * The value of a slot that held a tombstone when it was copied to the next table. Readers
+   * and writers treat it like MOVED, but a late copy of the key from an older table stops
+   * here: the key was removed after that copy's value reached this table, so carrying the
+   * value on to a newer table would bring the key back.
+   */
+  private static final Object DEAD = new Object();
+
+  /**
+   * Atomic access to the keys of a table.
+   */
+  private static final VarHandle KEY = MethodHandles.arrayElementVarHandle(int[].class);
+
+  /**
+   * Atomic access to the values of a table.
+   */
+  private static final VarHandle VAL = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  /**
+   * Atomic access to the current table.
+   */
+  private static final VarHandle TABLE;
+
+  /**
+   * Atomic access to the next table of a table.
+   */
+  private static final VarHandle NEXT;
+
+  /**
+   * Atomic access to the number of keys claimed in a table.
+   */
+  private static final VarHandle CLAIMED;
+
+  /**
+   * Atomic access to the first slot of a table that no thread has started to copy.
+   */
+  private static final VarHandle COPY_INDEX;
+
+  /**
+   * Atomic access to the number of slots of a table that have been copied.
+   */
+  private static final VarHandle COPIED;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      TABLE = lookup.findVarHandle(ConcurrentIntObjectMap.class, "table", Table.class);
+      NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+      CLAIMED = lookup.findVarHandle(Table.class, "claimed", int.class);
+      COPY_INDEX = lookup.findVarHandle(Table.class, "copyIndex", int.class);
+      COPIED = lookup.findVarHandle(Table.class, "copied", int.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    } // try/catch
+  } // static
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The current table. Newer tables hang off its next field while it is being copied.
+   */
+  private volatile Table table;
+
+  /**
+   * The number of key/value pairs in the map.
+   */
+  private final LongAdder size = new LongAdder();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty map.
+   */
+  public ConcurrentIntObjectMap() {
+    this(IntObjectMap.DEFAULT_CAPACITY);
+  } // ConcurrentIntObjectMap()
+
+  /**
+   * Create a new, empty map with room for roughly the given number of pairs before it has to
+   * grow.
+   *
+   * @param expected The number of pairs we expect to store.
+   */
+  public ConcurrentIntObjectMap(int expected) {
+    this.table = new Table(IntObjectMap.tableSizeFor(expected));
+  } // ConcurrentIntObjectMap(int)
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Convert the map to a string.
+   *
+   * @return a string of the form "{key0:value0, key1:value1, ...}"
+   */
+  public String toString() {
+    StringBuilder str = new StringBuilder("{");
+    this.forEach((key, val) -> {
+      if (str.length() > 1) {
+        str.append(", ");
+      } // if
+      str.append(key).append(":").append(val);
+    });
+    return str.append("}").toString();
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Set the value associated with key.
+   *
+   * @param key The key whose value we are changing.
+   * @param value The new value of that key.
+   *
+   * @throws IllegalArgumentException If the key is one of the reserved keys.
+   */
+  public void set(int key, V value) {
+    checkKey(key);
+    Object old = this.store(this.table, key, (value == null) ? NULL : value, false);
+    if (old == null || old == TOMBSTONE) {
+      this.size.increment();
+    } // if
+  } // set(int, V)
+
+  /**
+   * Get the value associated with key, or a fallback if the key does not appear.
+   *
+   * @param key A key
+   * @param fallback The value to return if the key does not appear.
+   *
+   * @return The corresponding value, or fallback.
+   */
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(int key, V fallback) {
+    if (key == EMPTY || key == SEALED) {
+      return fallback;
+    } // if
+    Object val = lookup(this.table, key);
+    if (val == null || val == TOMBSTONE) {
+      return fallback;
+    } // if
+    return (val == NULL) ? null : (V) val;
+  } // getOrDefault(int, V)
+
+  /**
+   * Determine if key appears in the map.
+   *
+   * @param key The key we're looking for.
+   *
+   * @return true if the key appears and false otherwise.
+   */
+  public boolean hasKey(int key) {
+    if (key == EMPTY || key == SEALED) {
+      return false;
+    } // if
+    Object val = lookup(this.table, key);
+    return val != null && val != TOMBSTONE;
+  } // hasKey(int)
+
+  /**
+   * Remove the key/value pair associated with a key. If the key does not appear in the map, does
+   * nothing.
+   *
+   * @param key The key to remove.
+   */
+  public void remove(int key) {
+    if (key == EMPTY || key == SEALED) {
+      return;
+    } // if
+    Object old = this.store(this.table, key, TOMBSTONE, false);
+    if (old != null && old != TOMBSTONE) {
+      this.size.decrement();
+    } // if
+  } // remove(int)
+
+  /**
+   * Visit every key/value pair in the map, in no particular order. Finishes any resize in
+   * progress first. Pairs that other threads change during the visit may or may not be
+   * visited, but no key is visited twice.
+   *
+   * @param visitor What to do with each pair.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(IntObjectMap.EntryVisitor<? super V> visitor) {
+    Table current = this.table;
+    for (Table next = current.next; next != null; next = current.next) {
+      for (int i = 0; i < current.keys.length; i++) {
+        this.copySlot(current, i);
+      } // for
+      current = next;
+    } // for
+    for (int i = 0; i < current.keys.length; i++) {
+      int key = (int) KEY.getAcquire(current.keys, i);
+      if (key != EMPTY && key != SEALED) {
+        Object val = lookup(current, key);
+        if (val != null && val != TOMBSTONE) {
+          visitor.visit(key, (val == NULL) ? null : (V) val);
+        } // if
+      } // if
+    } // for
+  } // forEach(EntryVisitor<? super V>)
+
+  /**
+   * Determine how many key/value pairs are in the map.
+   *
+   * @return The number of key/value pairs in the map.
+   */
+  public int size() {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, this.size.sum()));
+  } // size()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a key is not one of the reserved keys.
+   *
+   * @param key The key.
+   *
+   * @throws IllegalArgumentException If it is.
+   */
+  static void checkKey(int key) {
+    if (key == EMPTY || key == SEALED) {
+      throw new IllegalArgumentException("Reserved key " + key);
+    } // if
+  } // checkKey(int)
+
+  /**
+   * Find the latest value of a key, starting at a table.
+   *
+   * @param start The table to start with.
+   * @param key The key.
+   *
+   * @return the stored value (NULL for null), TOMBSTONE if the key was removed, or null if the
+   *         key was never set in start or a newer table.
+   */
+  static Object lookup(Table start, int key) {
+    Table t = start;
+    Object older = null;
+    while (t != null) {
+      int i = t.find(key);
+      if (i < 0) {
+        // Only newer tables can know about the key.
+        t = t.next;
+        continue;
+      } // if
+      Object val = VAL.getAcquire(t.vals, i);
+      if (val instanceof Frozen) {
+        // Newer tables have anything written since the freeze.
+        older = ((Frozen) val).val;
+        t = t.next;
+      } else if (val == MOVED || val == DEAD) {
+        t = t.next;
+      } else {
+        return (val == null) ? older : val;
+      } // if/else
+    } // while
+    return older;
+  } // lookup(Table, int)
+
+  /**
+   * Store a value for a key, starting at a table and moving on to newer tables as needed.
+   *
+   * @param start The table to start with.
+   * @param key The key.
+   * @param val The value to store: a real value, NULL, or TOMBSTONE to remove the key.
+   * @param copying Whether we are copying from an older table, in which case we only store
+   *        into a slot that no one has written, and stop at a slot whose key was removed
+   *        before it moved on.
+   *
+   * @return the value the key had before (as for lookup), or, when copying, the value that
+   *         kept us from storing.
+   */
+  private Object store(Table start, int key, Object val, boolean copying) {
+    Table t = start;
+    while (true) {
+      if (!copying && t.next != null) {
+        this.helpCopy(t);
+      } // if
+      int i = (val == TOMBSTONE) ? t.find(key) : t.claim(key);
+      if (i < 0) {
+        if (val == TOMBSTONE && t.next == null) {
+          return null;
+        } // if
+        // The key is not here, and cannot be put here.
+        t = (t.next != null) ? t.next : this.grow(t);
+        continue;
+      } // if
+      if (t.next == null && t.claimed > t.threshold) {
+        this.grow(t);
+      } // if
+      Object old = VAL.getAcquire(t.vals, i);
+      if (copying && old == DEAD) {
+        return old;
+      } else if (old == MOVED || old == DEAD || old instanceof Frozen) {
+        // Make sure the newer table has the value from this one before we change it there.
+        this.copySlot(t, i);
+        t = t.next;
+      } else if (copying && old != null) {
+        return old;
+      } else if (val == TOMBSTONE && (old == null || old == TOMBSTONE)) {
+        return old;
+      } else if (VAL.compareAndSet(t.vals, i, old, val)) {
+        return old;
+      } // if/else
+    } // while
+  } // store(Table, int, Object, boolean)
+
+  /**
+   * Make sure that a table has a next table, and help copy into it.
+   *
+   * @param t The table.
+   *
+   * @return the next table.
+   *
+   * @throws IllegalStateException If the map cannot grow any more.
+   */
+  private Table grow(Table t) {
+    Table next = t.next;
+    if (next == null) {
+      long live = this.size.sum();
+      int expected = (int) Math.min(IntObjectMap.MAX_CAPACITY, Math.max(2 * live, t.threshold));
+      int capacity = IntObjectMap.tableSizeFor(expected);
+      if (capacity == t.keys.length && t.keys.length == IntObjectMap.MAX_CAPACITY
+          && live >= t.threshold) {
+        throw new IllegalStateException("ConcurrentIntObjectMap is full");
+      } // if
+      Table fresh = new Table(capacity);
+      next = NEXT.compareAndSet(t, null, fresh) ? fresh : t.next;
+    } // if
+    this.helpCopy(t);
+    return next;
+  } // grow(Table)
+
+  /**
+   * Copy the next chunk of a table that no thread has started on, if there is one.
+   *
+   * @param t The table being copied.
+   */
+  private void helpCopy(Table t) {
+    if (t.copyIndex >= t.keys.length) {
+      // Every chunk has been handed out, so don't let copyIndex keep growing.
+      return;
+    } // if
+    int start = (int) COPY_INDEX.getAndAdd(t, COPY_CHUNK);
+    int end = Math.min(t.keys.length, start + COPY_CHUNK);
+    for (int i = start; i < end; i++) {
+      this.copySlot(t, i);
+    } // for
+  } // helpCopy(Table)
+
+  /**
+   * Copy one slot of a table to its next table, unless some thread already has. Seals a free
+   * slot; freezes a slot that holds a value, copies the value unless the key has already been
+   * written in the next table, and marks the slot as moved (or dead, if it held a
+   * tombstone).
+   *
+   * @param t The table, which must have a next table.
+   * @param i The slot.
+   */
+  private void copySlot(Table t, int i) {
+    int key = (int) KEY.getAcquire(t.keys, i);
+    while (key == EMPTY) {
+      if (KEY.compareAndSet(t.keys, i, EMPTY, SEALED)) {
+        this.slotCopied(t);
+        return;
+      } // if
+      key = (int) KEY.getAcquire(t.keys, i);
+    } // while
+    if (key == SEALED) {
+      return;
+    } // if
+    while (true) {
+      Object val = VAL.getAcquire(t.vals, i);
+      if (val == MOVED || val == DEAD) {
+        return;
+      } else if (val == null || val == TOMBSTONE) {
+        if (VAL.compareAndSet(t.vals, i, val, (val == null) ? MOVED : DEAD)) {
+          this.slotCopied(t);
+          return;
+        } // if
+      } else {
+        Frozen frozen;
+        if (val instanceof Frozen) {
+          frozen = (Frozen) val;
+        } else {
+          frozen = new Frozen(val);
+          if (!VAL.compareAndSet(t.vals, i, val, frozen)) {
+            continue;
+          } // if
+        } // if/else
+        this.store(t.next, key, frozen.val, true);
+        if (VAL.compareAndSet(t.vals, i, frozen, MOVED)) {
+          this.slotCopied(t);
+        } // if
+        return;
+      } // if/else
+    } // while
+  } // copySlot(Table, int)
+
+  /**
+   * Count one more copied slot of a table, and replace the current table with newer ones
+   * whose copies are complete.
+   *
+   * @param t The table.
+   */
+  private void slotCopied(Table t) {
+    if ((int) COPIED.getAndAdd(t, 1) + 1 == t.keys.length) {
+      Table current = this.table;
+      while (current.next != null && current.copied == current.keys.length) {
+        TABLE.compareAndSet(this, current, current.next);
+        current = this.table;
+      } // while
+    } // if
+  } // slotCopied(Table)
+
+  // +---------------+-----------------------------------------------
+  // | Inner classes |
+  // +---------------+
+
+  /**
+   * One table of slots.
+   */
+  static class Table {
+    /**
+     * The keys, indexed by slot.
+     */
+    final int[] keys;
+
+    /**
+     * The values, indexed by slot.
+     */
+    final Object[] vals;
+
+    /**
+     * The number of claimed keys at which we start a new table.
+     */
+    final int threshold;
+
+    /**
+     * The table this one is being copied to, if any.
+     */
+    volatile Table next;
+
+    /**
+     * The number of slots whose keys have been claimed.
+     */
+    volatile int claimed;
+
+    /**
+     * The first slot that no thread has started to copy.
+     */
+    volatile int copyIndex;
+
+    /**
+     * The number of slots that have been copied.
+     */
+    volatile int copied;
+
+    /**
+     * Create an empty table.
+     *
+     * @param capacity The number of slots, a power of two.
+     */
+    Table(int capacity) {
+      this.keys = new int[capacity];
+      Arrays.fill(this.keys, EMPTY);
+      this.vals = new Object[capacity];
+      this.threshold = (capacity >>> 1) + (capacity >>> 2);
+    } // Table(int)
+
+    /**
+     * Find the slot that holds key.
+     *
+     * @param key The key of the entry.
+     *
+     * @return The slot of the key, or -1 if it does not appear.
+     */
+    int find(int key) {
+      int mask = this.keys.length - 1;
+      int i = IntObjectMap.hash(key) & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        int found = (int) KEY.getAcquire(this.keys, i);
+        if (found == key) {
+          return i;
+        } else if (found == EMPTY || found == SEALED) {
+          return -1;
+        } // if/else
+        i = (i + 1) & mask;
+      } // for
+      return -1;
+    } // find(int)
+
+    /**
+     * Find the slot that holds key, claiming a free slot for it if it does not appear.
+     *
+     * @param key The key of the entry.
+     *
+     * @return The slot of the key, or -1 if it does not appear and cannot be added.
+     */
+    int claim(int key) {
+      int mask = this.keys.length - 1;
+      int i = IntObjectMap.hash(key) & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        int found = (int) KEY.getAcquire(this.keys, i);
+        if (found == EMPTY) {
+          found = (int) KEY.compareAndExchange(this.keys, i, EMPTY, key);
+          if (found == EMPTY) {
+            CLAIMED.getAndAdd(this, 1);
+            return i;
+          } // if
+        } // if
+        if (found == key) {
+          return i;
+        } else if (found == SEALED) {
+          return -1;
+        } // if/else
+        i = (i + 1) & mask;
+      } // for
+      return -1;
+    } // claim(int)
+  } // class Table
+
+  /**
+   * A value that is being copied to the next table.
+   */
+  static class Frozen {
+    /**
+     * The value.
+     */
+    final Object val;
+
+    /**
+     * Freeze a value.
+     *
+     * @param frozen The value.
+     */
+    Frozen(Object frozen) {
+      this.val = frozen;
+    } // Frozen(Object)
+  } // class Frozen
+} // class ConcurrentIntObjectMap
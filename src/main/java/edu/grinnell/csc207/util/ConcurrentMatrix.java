@@ -0,0 +1,735 @@
+package edu.grinnell.csc207.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A matrix that many threads may use at once. Every cell is stored, one array per row, like
+ * {@link MatrixDense}.
+ *
+ * <p>Reads of single cells take no locks: the rows and dimensions are published together as
+ * one immutable shape, and cells are read with acquire semantics, so get sees a consistent
+ * shape and the latest value released by a writer. Writes of cells lock the band of rows
+ * they fall in (bands of {@link #BAND_ROWS} rows share one of a fixed set of stripe locks),
+ * so writers to different bands do not contend, and multi-cell writes such as fillRegion and
+ * setRegion are atomic within each band with respect to other writers and to getRegion.
+ * Writers also announce themselves in a WriterGate slot picked by their thread, so they share
+ * no lock or counter across bands. Structural edits (inserting and deleting rows and columns)
+ * close the gate, wait for the writes in progress, and build the new shape before publishing
+ * it; readers never see a half-built row or column.</p>
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class ConcurrentMatrix<T> implements Matrix<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The log (base 2) of the number of rows in a band.
+   */
+  static final int BAND_BITS = 4;
+
+  /**
+   * The number of rows in a band, all of which share a stripe lock.
+   */
+  public static final int BAND_ROWS = 1 << BAND_BITS;
+
+  /**
+   * The number of stripe locks, if the client does not say.
+   */
+  public static final int DEFAULT_STRIPES = 32;
+
+  /**
+   * Atomic access to the elements of a row.
+   */
+  private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The current rows and dimensions. Replaced, never changed, by structural edits.
+   */
+  private volatile Shape shape;
+
+  /**
+   * The default value.
+   */
+  private final T defaultVal;
+
+  /**
+   * Keeps cell writers out while a structural edit is in progress.
+   */
+  private final WriterGate gate = new WriterGate();
+
+  /**
+   * The stripe locks. Band b is guarded by stripes[b % stripes.length].
+   */
+  private final ReentrantLock[] stripes;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   * @param stripeCount The number of stripe locks to spread the bands over.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   * @throws IllegalArgumentException If stripeCount is not positive.
+   */
+  public ConcurrentMatrix(int width, int height, T def, int stripeCount) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    if (stripeCount <= 0) {
+      throw new IllegalArgumentException("There must be at least one stripe");
+    } // if
+    this.defaultVal = def;
+    this.stripes = new ReentrantLock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      this.stripes[i] = new ReentrantLock();
+    } // for
+    Object[][] rows = new Object[height][];
+    for (int r = 0; r < height; r++) {
+      rows[r] = this.newRow(width);
+    } // for
+    this.shape = new Shape(width, height, rows);
+  } // ConcurrentMatrix(int, int, T, int)
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default
+   * and the default number of stripe locks.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public ConcurrentMatrix(int width, int height, T def) {
+    this(width, height, def, DEFAULT_STRIPES);
+  } // ConcurrentMatrix(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public ConcurrentMatrix(int width, int height) {
+    this(width, height, null);
+  } // ConcurrentMatrix(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column. Takes no locks.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    Shape current = this.shape;
+    current.checkCell(row, col);
+    return (T) CELL.getAcquire(current.rows[row], col);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    int slot = this.gate.enter();
+    try {
+      Shape current = this.shape;
+      current.checkCell(row, col);
+      ReentrantLock stripe = this.stripe(row);
+      stripe.lock();
+      try {
+        CELL.setRelease(current.rows[row], col, val);
+      } finally {
+        stripe.unlock();
+      } // try/finally
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.shape.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.shape.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.gate.beginEdit();
+    try {
+      this.addRow(row, this.newRow(this.shape.w));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values. Other threads see either no new row or the
+   * whole new row.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    this.gate.beginEdit();
+    try {
+      Shape current = this.shape;
+      if (row < 0 || row > current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != current.w) {
+        throw new ArraySizeException();
+      } // if
+      this.addRow(row, Arrays.copyOf(vals, vals.length, Object[].class));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.gate.beginEdit();
+    try {
+      this.addCol(col, null);
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values. Other threads see either no new column
+   * or the whole new column.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    this.gate.beginEdit();
+    try {
+      Shape current = this.shape;
+      if (col < 0 || col > current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != current.h) {
+        throw new ArraySizeException();
+      } // if
+      this.addCol(col, vals);
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    this.gate.beginEdit();
+    try {
+      Shape current = this.shape;
+      if (row < 0 || row >= current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      Object[][] rows = new Object[current.h - 1][];
+      System.arraycopy(current.rows, 0, rows, 0, row);
+      System.arraycopy(current.rows, row + 1, rows, row, current.h - row - 1);
+      this.shape = new Shape(current.w, current.h - 1, rows);
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    this.gate.beginEdit();
+    try {
+      Shape current = this.shape;
+      if (col < 0 || col >= current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      Object[][] rows = new Object[current.h][];
+      for (int r = 0; r < current.h; r++) {
+        Object[] old = current.rows[r];
+        Object[] cells = new Object[current.w - 1];
+        System.arraycopy(old, 0, cells, 0, col);
+        System.arraycopy(old, col + 1, cells, col, current.w - col - 1);
+        rows[r] = cells;
+      } // for
+      this.shape = new Shape(current.w - 1, current.h, rows);
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix, one band of rows at a time.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    int slot = this.gate.enter();
+    try {
+      Shape current = this.shape;
+      if (startCol < 0 || startCol > current.w || startRow < 0 || startRow > current.h
+          || endRow > current.h || endCol > current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int row = startRow;
+      while (row < endRow) {
+        int bandEnd = bandEnd(row, endRow);
+        ReentrantLock stripe = this.stripe(row);
+        stripe.lock();
+        try {
+          for (; row < bandEnd; row++) {
+            Object[] cells = current.rows[row];
+            for (int col = startCol; col < endCol; col++) {
+              CELL.setRelease(cells, col, val);
+            } // for
+          } // for
+        } finally {
+          stripe.unlock();
+        } // try/finally
+      } // while
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    int slot = this.gate.enter();
+    try {
+      Shape current = this.shape;
+      if (startCol < 0 || startCol > current.w || startRow < 0 || startRow > current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int r = startRow;
+      int c = startCol;
+      while (r < endRow && c < endCol) {
+        current.checkCell(r, c);
+        ReentrantLock stripe = this.stripe(r);
+        stripe.lock();
+        try {
+          CELL.setRelease(current.rows[r], c, val);
+        } finally {
+          stripe.unlock();
+        } // try/finally
+        r += deltaRow;
+        c += deltaCol;
+      } // while
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Copy a rectangular region of the matrix into an array, row by row. Each band of rows is
+   * copied while holding its stripe lock, so it reflects no partial multi-cell write.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals Where to put the values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  @SuppressWarnings("unchecked")
+  public void getRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    int slot = this.gate.enter();
+    try {
+      Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+      Shape current = this.shape;
+      int i = 0;
+      int row = startRow;
+      while (row < endRow) {
+        int bandEnd = bandEnd(row, endRow);
+        ReentrantLock stripe = this.stripe(row);
+        stripe.lock();
+        try {
+          for (; row < bandEnd; row++) {
+            Object[] cells = current.rows[row];
+            for (int col = startCol; col < endCol; col++) {
+              vals[i++] = (T) CELL.getAcquire(cells, col);
+            } // for
+          } // for
+        } finally {
+          stripe.unlock();
+        } // try/finally
+      } // while
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // getRegion(int, int, int, int, T[])
+
+  /**
+   * Set every cell of a rectangular region of the matrix from an array, row by row, one band
+   * of rows at a time.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals The new values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void setRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    int slot = this.gate.enter();
+    try {
+      Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+      Shape current = this.shape;
+      int i = 0;
+      int row = startRow;
+      while (row < endRow) {
+        int bandEnd = bandEnd(row, endRow);
+        ReentrantLock stripe = this.stripe(row);
+        stripe.lock();
+        try {
+          for (; row < bandEnd; row++) {
+            Object[] cells = current.rows[row];
+            for (int col = startCol; col < endCol; col++) {
+              CELL.setRelease(cells, col, vals[i++]);
+            } // for
+          } // for
+        } finally {
+          stripe.unlock();
+        } // try/finally
+      } // while
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // setRegion(int, int, int, int, T[])
+
+  /**
+   * Visit every cell, row by row, without taking locks. The visit sees the shape the matrix
+   * had when it started; cells changed during the visit may be seen with either value.
+   *
+   * @param action What to do with each cell.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(CellConsumer<? super T> action) {
+    Shape current = this.shape;
+    for (int r = 0; r < current.h; r++) {
+      Object[] cells = current.rows[r];
+      for (int c = 0; c < current.w; c++) {
+        action.accept(r, c, (T) CELL.getAcquire(cells, c));
+      } // for
+    } // for
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit every cell in a band of rows, row by row, without taking locks, as forEachStored
+   * does for the whole matrix.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Shape current = this.shape;
+    if (startRow < 0 || startRow > endRow || endRow > current.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    for (int r = startRow; r < endRow; r++) {
+      Object[] cells = current.rows[r];
+      for (int c = 0; c < current.w; c++) {
+        action.accept(r, c, (T) CELL.getAcquire(cells, c));
+      } // for
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Make a copy of the matrix, with the same number of stripe locks. The copy is a snapshot:
+   * no writes are in progress while it is made.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    this.gate.beginEdit();
+    try {
+      Shape current = this.shape;
+      ConcurrentMatrix<T> cloned =
+          new ConcurrentMatrix<T>(0, 0, this.defaultVal, this.stripes.length);
+      Object[][] rows = new Object[current.h][];
+      for (int r = 0; r < current.h; r++) {
+        rows[r] = current.rows[r].clone();
+      } // for
+      cloned.shape = new Shape(current.w, current.h, rows);
+      return cloned;
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. Uses Matrix.cellsHashCode, so that equal matrices of
+   * any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find the stripe lock that guards a row.
+   *
+   * @param row The row.
+   *
+   * @return the lock for the row's band.
+   */
+  private ReentrantLock stripe(int row) {
+    return this.stripes[(row >>> BAND_BITS) % this.stripes.length];
+  } // stripe(int)
+
+  /**
+   * Find where the band of a row ends, stopping early at a limit.
+   *
+   * @param row The row.
+   * @param limit The row to stop at.
+   *
+   * @return the row after the last row in the band, or limit if that comes first.
+   */
+  private static int bandEnd(int row, int limit) {
+    return (int) Math.min(limit, ((long) (row >>> BAND_BITS) + 1) << BAND_BITS);
+  } // bandEnd(int, int)
+
+  /**
+   * Make a row filled with the default value.
+   *
+   * @param width The number of cells in the row.
+   *
+   * @return the row.
+   */
+  private Object[] newRow(int width) {
+    Object[] cells = new Object[width];
+    if (this.defaultVal != null) {
+      Arrays.fill(cells, this.defaultVal);
+    } // if
+    return cells;
+  } // newRow(int)
+
+  /**
+   * Publish a shape with one more row. The caller must have begun an edit.
+   *
+   * @param row Where the new row goes.
+   * @param cells The cells of the new row, which the matrix takes over.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  private void addRow(int row, Object[] cells) {
+    Shape current = this.shape;
+    if (row < 0 || row > current.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    Object[][] rows = new Object[current.h + 1][];
+    System.arraycopy(current.rows, 0, rows, 0, row);
+    rows[row] = cells;
+    System.arraycopy(current.rows, row, rows, row + 1, current.h - row);
+    this.shape = new Shape(current.w, current.h + 1, rows);
+  } // addRow(int, Object[])
+
+  /**
+   * Publish a shape with one more column. The caller must have begun an edit.
+   *
+   * @param col Where the new column goes.
+   * @param vals The cells of the new column, or null to fill it with the default value.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  private void addCol(int col, T[] vals) {
+    Shape current = this.shape;
+    if (col < 0 || col > current.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    Object[][] rows = new Object[current.h][];
+    for (int r = 0; r < current.h; r++) {
+      Object[] old = current.rows[r];
+      Object[] cells = new Object[current.w + 1];
+      System.arraycopy(old, 0, cells, 0, col);
+      cells[col] = (vals == null) ? this.defaultVal : vals[r];
+      System.arraycopy(old, col, cells, col + 1, current.w - col);
+      rows[r] = cells;
+    } // for
+    this.shape = new Shape(current.w + 1, current.h, rows);
+  } // addCol(int, T[])
+
+  // +--------------+------------------------------------------------
+  // | Nested class |
+  // +--------------+
+
+  /**
+   * The rows and dimensions of the matrix at some moment. Never changed once published,
+   * except for the contents of the rows.
+   */
+  private static class Shape {
+    /**
+     * The width.
+     */
+    final int w;
+
+    /**
+     * The height.
+     */
+    final int h;
+
+    /**
+     * The rows, each with w cells.
+     */
+    final Object[][] rows;
+
+    /**
+     * Create a shape.
+     *
+     * @param width The width.
+     * @param height The height.
+     * @param cells The rows, each with width cells.
+     */
+    Shape(int width, int height, Object[][] cells) {
+      this.w = width;
+      this.h = height;
+      this.rows = cells;
+    } // Shape(int, int, Object[][])
+
+    /**
+     * Make sure that a cell is in the shape.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     *
+     * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+     */
+    void checkCell(int row, int col) {
+      if (row < 0 || row >= this.h || col < 0 || col >= this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+    } // checkCell(int, int)
+  } // class Shape
+} // class ConcurrentMatrix
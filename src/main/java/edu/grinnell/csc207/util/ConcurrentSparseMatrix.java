@@ -0,0 +1,571 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A matrix that many threads may use at once, which stores only the cells that hold something
+ * other than the default value, in a {@link ConcurrentIntObjectMap} keyed by row * width + col
+ * (so it holds fewer than 2^31 cells).
+ *
+ * <p>Cell reads and writes take no locks, so threads that write different cells scale with the
+ * number of cores. Each writer announces itself in a slot of a padded counter array picked
+ * by its thread, so writers on different cores touch different cache lines. Structural edits
+ * (inserting and deleting rows and columns) and clone raise a flag, wait for the writers in
+ * progress to leave, and build a new map before publishing it together with the new
+ * dimensions; writers that arrive during an edit wait for it. Readers see either the old
+ * shape and cells or the new ones.</p>
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class ConcurrentSparseMatrix<T> implements Matrix<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The current dimensions and cells. Replaced, never changed, by structural edits (though
+   * the cells change).
+   */
+  private volatile State<T> state;
+
+  /**
+   * The default value.
+   */
+  private final T defaultVal;
+
+  /**
+   * Keeps writers out while a structural edit is in progress.
+   */
+  private final WriterGate gate = new WriterGate();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public ConcurrentSparseMatrix(int width, int height, T def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.defaultVal = def;
+    this.state = new State<T>(width, height, new ConcurrentIntObjectMap<T>());
+  } // ConcurrentSparseMatrix(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public ConcurrentSparseMatrix(int width, int height) {
+    this(width, height, null);
+  } // ConcurrentSparseMatrix(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column. Takes no locks.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public T get(int row, int col) {
+    State<T> current = this.state;
+    current.checkCell(row, col);
+    return current.cells.getOrDefault(row * current.w + col, this.defaultVal);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column. Takes no locks unless a structural edit is
+   * in progress.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    int slot = this.gate.enter();
+    try {
+      State<T> current = this.state;
+      current.checkCell(row, col);
+      this.put(current, row * current.w + col, val);
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.state.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.state.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (row < 0 || row > current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int first = row * current.w;
+      int shift = current.w;
+      this.state = new State<T>(current.w, current.h + 1,
+          rekey(current, (key) -> (key >= first) ? key + shift : key));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values. Other threads see either no new row or the
+   * whole new row.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (row < 0 || row > current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != current.w) {
+        throw new ArraySizeException();
+      } // if
+      int first = row * current.w;
+      int shift = current.w;
+      State<T> updated = new State<T>(current.w, current.h + 1,
+          rekey(current, (key) -> (key >= first) ? key + shift : key));
+      for (int col = 0; col < vals.length; col++) {
+        this.put(updated, first + col, vals[col]);
+      } // for
+      this.state = updated;
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (col < 0 || col > current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      this.state = new State<T>(current.w + 1, current.h, rekey(current, shiftCols(current, col)));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values. Other threads see either no new column
+   * or the whole new column.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (col < 0 || col > current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != current.h) {
+        throw new ArraySizeException();
+      } // if
+      State<T> updated =
+          new State<T>(current.w + 1, current.h, rekey(current, shiftCols(current, col)));
+      for (int row = 0; row < vals.length; row++) {
+        this.put(updated, row * updated.w + col, vals[row]);
+      } // for
+      this.state = updated;
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (row < 0 || row >= current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int first = row * current.w;
+      int shift = current.w;
+      this.state = new State<T>(current.w, current.h - 1, rekey(current,
+          (key) -> (key < first) ? key : (key < first + shift) ? -1 : key - shift));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      if (col < 0 || col >= current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int oldW = current.w;
+      this.state = new State<T>(current.w - 1, current.h, rekey(current, (key) -> {
+        int c = key % oldW;
+        return (c == col) ? -1 : key - (key / oldW) - ((c > col) ? 1 : 0);
+      }));
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    int slot = this.gate.enter();
+    try {
+      State<T> current = this.state;
+      if (startCol < 0 || startCol > current.w || startRow < 0 || startRow > current.h
+          || endRow > current.h || endCol > current.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      for (int r = startRow; r < endRow; r++) {
+        for (int c = startCol; c < endCol; c++) {
+          this.put(current, r * current.w + c, val);
+        } // for
+      } // for
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    int slot = this.gate.enter();
+    try {
+      State<T> current = this.state;
+      if (startCol < 0 || startCol > current.w || startRow < 0 || startRow > current.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int r = startRow;
+      int c = startCol;
+      while (r < endRow && c < endCol) {
+        current.checkCell(r, c);
+        this.put(current, r * current.w + c, val);
+        r += deltaRow;
+        c += deltaCol;
+      } // while
+    } finally {
+      this.gate.leave(slot);
+    } // try/finally
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Visit the cells that hold something other than the default value, in no particular order.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachStored(CellConsumer<? super T> action) {
+    State<T> current = this.state;
+    int width = current.w;
+    current.cells.forEach((key, val) -> action.accept(key / width, key % width, val));
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells in a band of rows that hold something other than the default value, in no
+   * particular order. Has to look at every stored cell, whatever the size of the band.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    State<T> current = this.state;
+    if (startRow < 0 || startRow > endRow || endRow > current.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int width = current.w;
+    long first = (long) startRow * width;
+    long last = (long) endRow * width;
+    current.cells.forEach((key, val) -> {
+      if (key >= first && key < last) {
+        action.accept(key / width, key % width, val);
+      } // if
+    });
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Get a spliterator over a snapshot of the cells that hold something other than the default
+   * value. Copies the cells into an IntObjectMap first (taking time proportional to their
+   * number), then splits its hash table. Cells changed during the copy may be seen with either
+   * value.
+   *
+   * @return the spliterator.
+   */
+  public CellSpliterator<T> cellSpliterator() {
+    State<T> current = this.state;
+    IntObjectMap<T> snapshot = new IntObjectMap<T>(current.cells.size());
+    current.cells.forEach(snapshot::set);
+    return new SlotCellSpliterator<T>(snapshot, current.w);
+  } // cellSpliterator()
+
+  /**
+   * Determine how many cells hold something other than the default value.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    return this.state.cells.size();
+  } // storedCount()
+
+  /**
+   * Make a copy of the matrix. The copy is a snapshot: no writes are in progress while it is
+   * made.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    this.gate.beginEdit();
+    try {
+      State<T> current = this.state;
+      ConcurrentSparseMatrix<T> cloned = new ConcurrentSparseMatrix<T>(0, 0, this.defaultVal);
+      cloned.state = new State<T>(current.w, current.h, rekey(current, (key) -> key));
+      return cloned;
+    } finally {
+      this.gate.endEdit();
+    } // try/finally
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix from the cells it stores. Uses Matrix.cellsHashCode, so
+   * that equal matrices of any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Store a cell, or forget it if it holds the default value.
+   *
+   * @param current The state to store it in.
+   * @param key The index of the cell, row * w + col.
+   * @param val The value of the cell.
+   */
+  private void put(State<T> current, int key, T val) {
+    if (Objects.equals(val, this.defaultVal)) {
+      current.cells.remove(key);
+    } else {
+      current.cells.set(key, val);
+    } // if/else
+  } // put(State<T>, int, T)
+
+  /**
+   * Copy every stored cell of a state to a new index in a new map.
+   *
+   * @param current The state.
+   * @param move Maps each old index to its new index, or to -1 if the cell should be dropped.
+   *
+   * @return the new map.
+   */
+  private static <T> ConcurrentIntObjectMap<T> rekey(State<T> current, IntUnaryOperator move) {
+    ConcurrentIntObjectMap<T> cells = new ConcurrentIntObjectMap<T>(current.cells.size());
+    current.cells.forEach((key, val) -> {
+      int newKey = move.applyAsInt(key);
+      if (newKey >= 0) {
+        cells.set(newKey, val);
+      } // if
+    });
+    return cells;
+  } // rekey(State<T>, IntUnaryOperator)
+
+  /**
+   * Build the function that moves cells to make room for a new column.
+   *
+   * @param current The state before the new column.
+   * @param col Where the new column goes.
+   *
+   * @return the function.
+   */
+  private static IntUnaryOperator shiftCols(State<?> current, int col) {
+    int oldW = current.w;
+    return (key) -> {
+      int c = key % oldW;
+      return key + (key / oldW) + ((c >= col) ? 1 : 0);
+    };
+  } // shiftCols(State<?>, int)
+
+  // +--------------+------------------------------------------------
+  // | Nested class |
+  // +--------------+
+
+  /**
+   * The dimensions and cells of the matrix at some moment.
+   *
+   * @param <T> The type of values stored in the matrix.
+   */
+  private static class State<T> {
+    /**
+     * The width.
+     */
+    final int w;
+
+    /**
+     * The height.
+     */
+    final int h;
+
+    /**
+     * The cells that hold something other than the default, keyed by row * w + col.
+     */
+    final ConcurrentIntObjectMap<T> cells;
+
+    /**
+     * Create a state.
+     *
+     * @param width The width.
+     * @param height The height.
+     * @param stored The stored cells.
+     */
+    State(int width, int height, ConcurrentIntObjectMap<T> stored) {
+      this.w = width;
+      this.h = height;
+      this.cells = stored;
+    } // State(int, int, ConcurrentIntObjectMap<T>)
+
+    /**
+     * Make sure that a cell is in the matrix.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     *
+     * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+     */
+    void checkCell(int row, int col) {
+      if (row < 0 || row >= this.h || col < 0 || col >= this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+    } // checkCell(int, int)
+  } // class State
+} // class ConcurrentSparseMatrix
@@ -0,0 +1,95 @@
+package edu.grinnell.csc207.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Frees the memory of direct buffers right away, rather than when the garbage collector
+ * notices that they are unreachable. The JDK has no public way to do this, so we use
+ * sun.misc.Unsafe.invokeCleaner from the jdk.unsupported module, which we reach by reflection
+ * so that the code still compiles and runs where it is missing.
+ *
+ * <p>When invokeCleaner cannot be found, or refuses a buffer (for example, a slice or a
+ * duplicate), free does nothing and says so; the buffer stays usable, and its memory goes back
+ * when the garbage collector collects it, as for any other direct buffer.</p>
+ *
+ * @author Alexander Pollock
+ */
+final class DirectBuffers {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The Unsafe instance, or null if we could not get it.
+   */
+  private static final Object UNSAFE;
+
+  /**
+   * The invokeCleaner method, or null if we could not get it.
+   */
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invoke = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invoke = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      unsafe = null;
+      invoke = null;
+    } // try/catch
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invoke;
+  } // static
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * DirectBuffers only has static methods.
+   */
+  private DirectBuffers() {
+  } // DirectBuffers()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine whether free can give memory back right away.
+   *
+   * @return true if invokeCleaner was found and false otherwise.
+   */
+  static boolean canFree() {
+    return INVOKE_CLEANER != null;
+  } // canFree()
+
+  /**
+   * Give the memory of a direct buffer back right away. The caller must make sure that
+   * nothing uses the buffer afterwards, since using freed memory may crash the JVM.
+   *
+   * @param buf The buffer.
+   *
+   * @return true if the memory was given back, and false if the buffer was left for the
+   *         garbage collector (because it is not direct, is a slice or duplicate, or
+   *         invokeCleaner is not available).
+   */
+  static boolean free(ByteBuffer buf) {
+    if (INVOKE_CLEANER == null || !buf.isDirect()) {
+      return false;
+    } // if
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buf);
+      return true;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return false;
+    } // try/catch
+  } // free(ByteBuffer)
+} // class DirectBuffers
@@ -0,0 +1,433 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of two-dimensional matrices of doubles that stores every cell in one
+ * double array, in row-major order. No cell is ever boxed.
+ *
+ * @author Alexander Pollock
+ */
+public class DoubleMatrixDense implements DoubleMatrix {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width. Also the distance between the starts of consecutive rows in cells.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private double defaultVal;
+
+  /**
+   * The cells. Cell (row,col) is at index row * w + col.
+   */
+  private double[] cells;
+
+  /**
+   * Whether cells may also be in use by a clone (or by the matrix we were cloned from).
+   */
+  private boolean shared;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public DoubleMatrixDense(int width, int height, double def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.cells = new double[Math.multiplyExact(width, height)];
+    if (Double.compare(def, 0) != 0) {
+      Arrays.fill(this.cells, def);
+    } // if
+  } // DoubleMatrixDense(int, int, double)
+
+  /**
+   * Create a new matrix of the specified width and height with 0 as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public DoubleMatrixDense(int width, int height) {
+    this(width, height, 0);
+  } // DoubleMatrixDense(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public double getDouble(int row, int col) {
+    this.checkCell(row, col);
+    return this.cells[row * this.w + col];
+  } // getDouble(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void setDouble(int row, int col, double val) {
+    this.checkCell(row, col);
+    this.unshare();
+    this.cells[row * this.w + col] = val;
+  } // setDouble(int, int, double)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public double getDefaultDouble() {
+    return this.defaultVal;
+  } // getDefaultDouble()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.openRow(row);
+    Arrays.fill(this.cells, row * this.w, (row + 1) * this.w, this.defaultVal);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, double[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.openRow(row);
+    System.arraycopy(vals, 0, this.cells, row * this.w, this.w);
+  } // insertRow(int, double[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.cells[r * this.w + col] = this.defaultVal;
+    } // for
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, double[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.cells[r * this.w + col] = vals[r];
+    } // for
+  } // insertCol(int, double[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    double[] newCells = new double[(this.h - 1) * this.w];
+    System.arraycopy(this.cells, 0, newCells, 0, row * this.w);
+    System.arraycopy(this.cells, (row + 1) * this.w, newCells, row * this.w,
+        (this.h - row - 1) * this.w);
+    this.cells = newCells;
+    this.shared = false;
+    this.h--;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w - 1;
+    double[] newCells = new double[this.h * newW];
+    for (int r = 0; r < this.h; r++) {
+      System.arraycopy(this.cells, r * this.w, newCells, r * newW, col);
+      System.arraycopy(this.cells, r * this.w + col + 1, newCells, r * newW + col, newW - col);
+    } // for
+    this.cells = newCells;
+    this.shared = false;
+    this.w = newW;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, double val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    for (int r = startRow; r < endRow; r++) {
+      Arrays.fill(this.cells, r * this.w + startCol, r * this.w + endCol, val);
+    } // for
+  } // fillRegion(int, int, int, int, double)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, double val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.setDouble(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, double)
+
+  /**
+   * Make a copy of the matrix. Takes constant time: the two matrices share one array until
+   * one of them changes a cell.
+   *
+   * @return a copy of the matrix.
+   */
+  public DoubleMatrixDense clone() {
+    DoubleMatrixDense cloned = new DoubleMatrixDense(0, 0, this.defaultVal);
+    cloned.w = this.w;
+    cloned.h = this.h;
+    cloned.cells = this.cells;
+    cloned.shared = true;
+    this.shared = true;
+    return cloned;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a DoubleMatrix with the same width, height, and equal
+   *         elements; false otherwise.
+   */
+  public boolean equals(Object other) {
+    if (!(other instanceof DoubleMatrix)) {
+      return false;
+    } // if
+    DoubleMatrix otherMatrix = (DoubleMatrix) other;
+    if (otherMatrix.height() != this.h || otherMatrix.width() != this.w) {
+      return false;
+    } // if
+    for (int r = 0; r < this.h; r++) {
+      for (int c = 0; c < this.w; c++) {
+        if (Double.compare(this.cells[r * this.w + c], otherMatrix.getDouble(r, c)) != 0) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. Uses the same computation as Matrix.cellsHashCode, so
+   * that the matrix and an equal Matrix<Double> have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    int code = 0;
+    for (int r = 0; r < this.h; r++) {
+      for (int c = 0; c < this.w; c++) {
+        code += Double.hashCode(this.cells[r * this.w + c]) * (31 * r + c + 1);
+      } // for
+    } // for
+    return 31 * (this.w + 7 * this.h) + code;
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a cell is in the matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  private void checkCell(int row, int col) {
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Stop sharing the cells with any clone, by copying them if necessary. Called before every
+   * change to a cell. (Structural edits build new arrays, and so stop sharing on their own.)
+   */
+  private void unshare() {
+    if (this.shared) {
+      this.cells = this.cells.clone();
+      this.shared = false;
+    } // if
+  } // unshare()
+
+  /**
+   * Make room for a new row, leaving its cells unfilled.
+   *
+   * @param row The number of the new row.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  private void openRow(int row) {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    double[] newCells = new double[(this.h + 1) * this.w];
+    System.arraycopy(this.cells, 0, newCells, 0, row * this.w);
+    System.arraycopy(this.cells, row * this.w, newCells, (row + 1) * this.w,
+        (this.h - row) * this.w);
+    this.cells = newCells;
+    this.shared = false;
+    this.h++;
+  } // openRow(int)
+
+  /**
+   * Make room for a new column, leaving its cells unfilled.
+   *
+   * @param col The number of the new column.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  private void openCol(int col) {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w + 1;
+    double[] newCells = new double[this.h * newW];
+    for (int r = 0; r < this.h; r++) {
+      System.arraycopy(this.cells, r * this.w, newCells, r * newW, col);
+      System.arraycopy(this.cells, r * this.w + col, newCells, r * newW + col + 1,
+          this.w - col);
+    } // for
+    this.cells = newCells;
+    this.shared = false;
+    this.w = newW;
+  } // openCol(int)
+} // class DoubleMatrixDense
@@ -0,0 +1,183 @@
+package edu.grinnell.csc207.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A way of storing values of one type in a fixed number of bytes, for matrices whose cells
+ * live in ByteBuffers rather than on the Java heap.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T>
+ *   The type of values that the codec stores.
+ */
+public interface ElementCodec<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Stores Integers in four bytes.
+   */
+  public static final ElementCodec<Integer> INT = new ElementCodec<Integer>() {
+    public int width() {
+      return Integer.BYTES;
+    } // width()
+
+    public Integer read(ByteBuffer buf, int offset) {
+      return buf.getInt(offset);
+    } // read(ByteBuffer, int)
+
+    public void write(ByteBuffer buf, int offset, Integer val) {
+      buf.putInt(offset, val);
+    } // write(ByteBuffer, int, Integer)
+  }; // INT
+
+  /**
+   * Stores Longs in eight bytes.
+   */
+  public static final ElementCodec<Long> LONG = new ElementCodec<Long>() {
+    public int width() {
+      return Long.BYTES;
+    } // width()
+
+    public Long read(ByteBuffer buf, int offset) {
+      return buf.getLong(offset);
+    } // read(ByteBuffer, int)
+
+    public void write(ByteBuffer buf, int offset, Long val) {
+      buf.putLong(offset, val);
+    } // write(ByteBuffer, int, Long)
+  }; // LONG
+
+  /**
+   * Stores Doubles in eight bytes.
+   */
+  public static final ElementCodec<Double> DOUBLE = new ElementCodec<Double>() {
+    public int width() {
+      return Double.BYTES;
+    } // width()
+
+    public Double read(ByteBuffer buf, int offset) {
+      return buf.getDouble(offset);
+    } // read(ByteBuffer, int)
+
+    public void write(ByteBuffer buf, int offset, Double val) {
+      buf.putDouble(offset, val);
+    } // write(ByteBuffer, int, Double)
+  }; // DOUBLE
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get a codec for byte records of a fixed length. Reading a cell gives a fresh array.
+   *
+   * @param length
+   *   The number of bytes in each record.
+   *
+   * @return the codec.
+   *
+   * @throws IllegalArgumentException
+   *   If the length is not positive.
+   */
+  public static ElementCodec<byte[]> bytes(int length) {
+    if (length <= 0) {
+      throw new IllegalArgumentException("Record length must be positive: " + length);
+    } // if
+    return new ElementCodec<byte[]>() {
+      public int width() {
+        return length;
+      } // width()
+
+      public byte[] read(ByteBuffer buf, int offset) {
+        byte[] record = new byte[length];
+        buf.get(offset, record);
+        return record;
+      } // read(ByteBuffer, int)
+
+      public void write(ByteBuffer buf, int offset, byte[] val) {
+        if (val.length != length) {
+          throw new IllegalArgumentException("Expected a record of " + length + " bytes, got "
+              + val.length);
+        } // if
+        buf.put(offset, val);
+      } // write(ByteBuffer, int, byte[])
+
+      public boolean same(byte[] a, byte[] b) {
+        return Arrays.equals(a, b);
+      } // same(byte[], byte[])
+
+      public int hash(byte[] val) {
+        return Arrays.hashCode(val);
+      } // hash(byte[])
+    }; // new ElementCodec<byte[]>
+  } // bytes(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine how many bytes each value takes.
+   *
+   * @return the number of bytes.
+   */
+  public int width();
+
+  /**
+   * Read a value.
+   *
+   * @param buf
+   *   The buffer to read from.
+   * @param offset
+   *   The position of the first byte of the value.
+   *
+   * @return the value.
+   */
+  public T read(ByteBuffer buf, int offset);
+
+  /**
+   * Write a value.
+   *
+   * @param buf
+   *   The buffer to write to.
+   * @param offset
+   *   The position of the first byte of the value.
+   * @param val
+   *   The value.
+   *
+   * @throws NullPointerException
+   *   If val is null; codecs have no way to store null.
+   */
+  public void write(ByteBuffer buf, int offset, T val);
+
+  /**
+   * Determine whether two values are the same, as far as a matrix is concerned.
+   *
+   * @param a
+   *   One value.
+   * @param b
+   *   Another value.
+   *
+   * @return true if they are the same and false otherwise.
+   */
+  public default boolean same(T a, T b) {
+    return Objects.equals(a, b);
+  } // same(T, T)
+
+  /**
+   * Compute a hash code for a value that agrees with same.
+   *
+   * @param val
+   *   The value.
+   *
+   * @return the hash code.
+   */
+  public default int hash(T val) {
+    return Objects.hashCode(val);
+  } // hash(T)
+} // interface ElementCodec<T>
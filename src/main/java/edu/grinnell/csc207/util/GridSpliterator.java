@@ -0,0 +1,146 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over every cell of a matrix, in row-major order. Keeps a range of positions
+ * (row * width + col) and splits it in half at a row boundary, or in the middle of a row once
+ * only one row is left, so every part knows exactly how many cells it holds.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class GridSpliterator<T> implements Spliterator<Cell<T>> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The matrix.
+   */
+  private final Matrix<T> matrix;
+
+  /**
+   * The width of the matrix.
+   */
+  private final int width;
+
+  /**
+   * The position of the next cell.
+   */
+  private long pos;
+
+  /**
+   * The position after the last cell.
+   */
+  private final long end;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over every cell of a matrix.
+   *
+   * @param matrix The matrix.
+   */
+  GridSpliterator(Matrix<T> matrix) {
+    this(matrix, 0, (long) matrix.width() * matrix.height());
+  } // GridSpliterator(Matrix<T>)
+
+  /**
+   * Create a spliterator over a range of positions.
+   *
+   * @param matrix The matrix.
+   * @param pos The position of the first cell (inclusive).
+   * @param end The position after the last cell (exclusive).
+   */
+  private GridSpliterator(Matrix<T> matrix, long pos, long end) {
+    this.matrix = matrix;
+    this.width = matrix.width();
+    this.pos = pos;
+    this.end = end;
+  } // GridSpliterator(Matrix<T>, long, long)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the next cell, if there is one.
+   *
+   * @param action What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  public boolean tryAdvance(Consumer<? super Cell<T>> action) {
+    if (this.pos >= this.end) {
+      return false;
+    } // if
+    int row = (int) (this.pos / this.width);
+    int col = (int) (this.pos % this.width);
+    this.pos++;
+    action.accept(new Cell<T>(row, col, this.matrix.get(row, col)));
+    return true;
+  } // tryAdvance(Consumer<? super Cell<T>>)
+
+  /**
+   * Do something with each remaining cell, row by row.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachRemaining(Consumer<? super Cell<T>> action) {
+    long p = this.pos;
+    this.pos = this.end;
+    while (p < this.end) {
+      int row = (int) (p / this.width);
+      int col = (int) (p % this.width);
+      int stop = (int) Math.min(this.width, col + (this.end - p));
+      for (int c = col; c < stop; c++) {
+        action.accept(new Cell<T>(row, c, this.matrix.get(row, c)));
+      } // for
+      p += stop - col;
+    } // while
+  } // forEachRemaining(Consumer<? super Cell<T>>)
+
+  /**
+   * Split off the first half of the remaining cells, ending at a row boundary if more than one
+   * row remains.
+   *
+   * @return a spliterator over those cells, or null if there are too few to split.
+   */
+  public Spliterator<Cell<T>> trySplit() {
+    long mid = this.pos + (this.end - this.pos) / 2;
+    if (this.end - this.pos > this.width) {
+      long boundary = mid - mid % this.width;
+      mid = (boundary > this.pos) ? boundary : boundary + this.width;
+    } // if
+    if (mid <= this.pos || mid >= this.end) {
+      return null;
+    } // if
+    GridSpliterator<T> prefix = new GridSpliterator<T>(this.matrix, this.pos, mid);
+    this.pos = mid;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Determine how many cells are left.
+   *
+   * @return the number of cells.
+   */
+  public long estimateSize() {
+    return this.end - this.pos;
+  } // estimateSize()
+
+  /**
+   * Describe the cells.
+   *
+   * @return ORDERED, SIZED, SUBSIZED, NONNULL, and DISTINCT, since each cell is a new object
+   *         with its own position.
+   */
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+  } // characteristics()
+} // class GridSpliterator
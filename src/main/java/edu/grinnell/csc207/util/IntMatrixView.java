@@ -0,0 +1,282 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Objects;
+
+/**
+ * A view of a {@link IntMatrix} as a Matrix<Integer>. Values are boxed on the way out and
+ * unboxed on the way in; null cannot be stored.
+ *
+ * @author Alexander Pollock
+ */
+class IntMatrixView implements Matrix<Integer> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying matrix.
+   */
+  private final IntMatrix base;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a view of a matrix.
+   *
+   * @param matrix The matrix to view.
+   */
+  IntMatrixView(IntMatrix matrix) {
+    this.base = matrix;
+  } // IntMatrixView(IntMatrix)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public Integer get(int row, int col) {
+    return this.base.getInt(row, col);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws NullPointerException If val is null.
+   */
+  public void set(int row, int col, Integer val) {
+    this.base.setInt(row, col, unbox(val));
+  } // set(int, int, Integer)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.base.height();
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.base.width();
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public Integer getDefaultVal() {
+    return this.base.getDefaultInt();
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.base.insertRow(row);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   * @throws NullPointerException If any of the values is null.
+   */
+  public void insertRow(int row, Integer[] vals) throws ArraySizeException {
+    this.base.insertRow(row, unbox(vals));
+  } // insertRow(int, Integer[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.base.insertCol(col);
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   * @throws NullPointerException If any of the values is null.
+   */
+  public void insertCol(int col, Integer[] vals) throws ArraySizeException {
+    this.base.insertCol(col, unbox(vals));
+  } // insertCol(int, Integer[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    this.base.deleteRow(row);
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    this.base.deleteCol(col);
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, Integer val) {
+    this.base.fillRegion(startRow, startCol, endRow, endCol, unbox(val));
+  } // fillRegion(int, int, int, int, Integer)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, Integer val) {
+    this.base.fillLine(startRow, startCol, deltaRow, deltaCol, endRow, endCol, unbox(val));
+  } // fillLine(int, int, int, int, int, int, Integer)
+
+  /**
+   * Make a copy of the matrix: a view of a copy of the underlying matrix.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    return new IntMatrixView(this.base.clone());
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  @SuppressWarnings("rawtypes")
+  public boolean equals(Object other) {
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix otherMatrix = (Matrix) other;
+    if (otherMatrix.height() != this.height() || otherMatrix.width() != this.width()) {
+      return false;
+    } // if
+    for (int r = 0; r < this.height(); r++) {
+      for (int c = 0; c < this.width(); c++) {
+        if (!Objects.equals(this.get(r, c), otherMatrix.get(r, c))) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. The same as the hash code of the underlying matrix,
+   * which is computed in the same way as Matrix.cellsHashCode.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return this.base.hashCode();
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Unbox a value.
+   *
+   * @param val The value.
+   *
+   * @return the int.
+   *
+   * @throws NullPointerException If val is null.
+   */
+  private static int unbox(Integer val) {
+    return Objects.requireNonNull(val, "IntMatrix cells cannot hold null");
+  } // unbox(Integer)
+
+  /**
+   * Unbox an array of values.
+   *
+   * @param vals The values.
+   *
+   * @return the ints.
+   *
+   * @throws NullPointerException If any of the values is null.
+   */
+  private static int[] unbox(Integer[] vals) {
+    int[] result = new int[vals.length];
+    for (int i = 0; i < vals.length; i++) {
+      result[i] = unbox(vals[i]);
+    } // for
+    return result;
+  } // unbox(Integer[])
+} // class IntMatrixView
@@ -0,0 +1,364 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive int keys to values of type V. Uses open addressing with linear
+ * probing over a power-of-two table, so there is no boxing of keys and no per-entry object.
+ *
+ * @param <V> the value type
+ *
+ * @author Alexander Pollock
+ */
+public class IntObjectMap<V> {
+  // +-------+-------------------------------------------------------
+  // | Types |
+  // +-------+
+
+  /**
+   * Something that can be applied to each key/value pair in the map.
+   *
+   * @param <V> the value type
+   */
+  @FunctionalInterface
+  public interface EntryVisitor<V> {
+    /**
+     * Visit one key/value pair.
+     *
+     * @param key The key.
+     * @param val The value associated with the key.
+     */
+    void visit(int key, V val);
+  } // interface EntryVisitor<V>
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default capacity of the initial table. Must be a power of two.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The largest permitted table size.
+   */
+  static final int MAX_CAPACITY = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of key/value pairs in the map.
+   */
+  int size;
+
+  /**
+   * The keys, indexed by slot.
+   */
+  int[] keys;
+
+  /**
+   * The values, indexed by slot.
+   */
+  Object[] vals;
+
+  /**
+   * Which slots are in use.
+   */
+  boolean[] used;
+
+  /**
+   * The number of pairs at which we grow the table.
+   */
+  int threshold;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty map.
+   */
+  public IntObjectMap() {
+    this(DEFAULT_CAPACITY);
+  } // IntObjectMap()
+
+  /**
+   * Create a new, empty map with room for roughly the given number of pairs before it has to
+   * grow.
+   *
+   * @param expected The number of pairs we expect to store.
+   */
+  public IntObjectMap(int expected) {
+    this.allocate(tableSizeFor(expected));
+  } // IntObjectMap(int)
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Create a copy of this map. The keys and values are shared with the copy, but the tables are
+   * not.
+   *
+   * @return a new copy of the map
+   */
+  public IntObjectMap<V> clone() {
+    IntObjectMap<V> cloned = new IntObjectMap<V>(0);
+    cloned.keys = this.keys.clone();
+    cloned.vals = this.vals.clone();
+    cloned.used = this.used.clone();
+    cloned.size = this.size;
+    cloned.threshold = this.threshold;
+    return cloned;
+  } // clone()
+
+  /**
+   * Convert the map to a string.
+   *
+   * @return a string of the form "{Key0:Value0, Key1:Value1, ... KeyN:ValueN}"
+   */
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    for (int i = 0; i < this.keys.length; i++) {
+      if (this.used[i]) {
+        if (result.length() > 1) {
+          result.append(", ");
+        } // if
+        result.append(this.keys[i]).append(':').append(this.vals[i]);
+      } // if
+    } // for
+    return result.append('}').toString();
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Set the value associated with key to value. Future calls to get(key) will return value.
+   *
+   * @param key The key whose value we are setting.
+   * @param value The value of that key.
+   *
+   * @throws IllegalStateException If key is new and the table is already as large as it can
+   *         grow and full.
+   */
+  public void set(int key, V value) {
+    int mask = this.keys.length - 1;
+    int i = hash(key) & mask;
+    while (this.used[i]) {
+      if (this.keys[i] == key) {
+        this.vals[i] = value;
+        return;
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    if (this.size >= this.threshold && this.keys.length >= MAX_CAPACITY) {
+      throw new IllegalStateException("IntObjectMap is full");
+    } // if
+    this.keys[i] = key;
+    this.vals[i] = value;
+    this.used[i] = true;
+    if (++this.size > this.threshold) {
+      this.resize(this.keys.length * 2);
+    } // if
+  } // set(int, V)
+
+  /**
+   * Get the value associated with key.
+   *
+   * @param key A key
+   *
+   * @return The corresponding value
+   *
+   * @throws KeyNotFoundException when the key does not appear in the map.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) throws KeyNotFoundException {
+    int slot = this.find(key);
+    if (slot < 0) {
+      throw new KeyNotFoundException();
+    } // if
+    return (V) this.vals[slot];
+  } // get(int)
+
+  /**
+   * Get the value associated with key, or a fallback if there is none. Never throws.
+   *
+   * @param key A key
+   * @param fallback The value to return if the key does not appear.
+   *
+   * @return The corresponding value, or fallback.
+   */
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(int key, V fallback) {
+    int slot = this.find(key);
+    return (slot < 0) ? fallback : (V) this.vals[slot];
+  } // getOrDefault(int, V)
+
+  /**
+   * Determine if key appears in the map.
+   *
+   * @param key The key we're looking for.
+   *
+   * @return true if the key appears and false otherwise.
+   */
+  public boolean hasKey(int key) {
+    return this.find(key) >= 0;
+  } // hasKey(int)
+
+  /**
+   * Remove the key/value pair associated with a key. If the key does not appear in the map, does
+   * nothing.
+   *
+   * @param key The key to remove.
+   */
+  public void remove(int key) {
+    int slot = this.find(key);
+    if (slot < 0) {
+      return;
+    } // if
+    // Shift later members of the probe sequence back so that we never need tombstones.
+    int mask = this.keys.length - 1;
+    int hole = slot;
+    int i = (hole + 1) & mask;
+    while (this.used[i]) {
+      int home = hash(this.keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        this.keys[hole] = this.keys[i];
+        this.vals[hole] = this.vals[i];
+        hole = i;
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    this.used[hole] = false;
+    this.vals[hole] = null;
+    this.size--;
+  } // remove(int)
+
+  /**
+   * Visit every key/value pair in the map, in no particular order. The visitor must not change
+   * the map.
+   *
+   * @param visitor What to do with each pair.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(EntryVisitor<? super V> visitor) {
+    for (int i = 0; i < this.keys.length; i++) {
+      if (this.used[i]) {
+        visitor.visit(this.keys[i], (V) this.vals[i]);
+      } // if
+    } // for
+  } // forEach(EntryVisitor<? super V>)
+
+  /**
+   * Remove all of the pairs in the map.
+   */
+  public void clear() {
+    Arrays.fill(this.used, false);
+    Arrays.fill(this.vals, null);
+    this.size = 0;
+  } // clear()
+
+  /**
+   * Determine how many key/value pairs are in the map.
+   *
+   * @return The number of key/value pairs in the map.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find the slot that holds key.
+   *
+   * @param key The key of the entry.
+   *
+   * @return The slot of the key, or -1 if it does not appear.
+   */
+  int find(int key) {
+    int mask = this.keys.length - 1;
+    int i = hash(key) & mask;
+    while (this.used[i]) {
+      if (this.keys[i] == key) {
+        return i;
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    return -1;
+  } // find(int)
+
+  /**
+   * Set up empty tables of the given size.
+   *
+   * @param capacity The new table size, a power of two.
+   */
+  void allocate(int capacity) {
+    this.keys = new int[capacity];
+    this.vals = new Object[capacity];
+    this.used = new boolean[capacity];
+    this.threshold = (capacity >>> 1) + (capacity >>> 2);
+  } // allocate(int)
+
+  /**
+   * Move every pair into a table of a new size.
+   *
+   * @param capacity The new table size, a power of two.
+   */
+  void resize(int capacity) {
+    if (capacity > MAX_CAPACITY) {
+      throw new IllegalStateException("IntObjectMap is full");
+    } // if
+    int[] oldKeys = this.keys;
+    Object[] oldVals = this.vals;
+    boolean[] oldUsed = this.used;
+    this.allocate(capacity);
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = hash(oldKeys[j]) & mask;
+        while (this.used[i]) {
+          i = (i + 1) & mask;
+        } // while
+        this.keys[i] = oldKeys[j];
+        this.vals[i] = oldVals[j];
+        this.used[i] = true;
+      } // if
+    } // for
+  } // resize(int)
+
+  /**
+   * Scramble a key so that regular patterns of keys (such as the cells of one column) spread
+   * across the table.
+   *
+   * @param key The key to scramble.
+   *
+   * @return the scrambled key.
+   */
+  static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  } // hash(int)
+
+  /**
+   * Find the table size needed to hold the given number of pairs.
+   *
+   * @param expected The number of pairs.
+   *
+   * @return a power of two that can hold that many pairs at our load factor.
+   */
+  static int tableSizeFor(int expected) {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity < MAX_CAPACITY && (capacity >>> 1) + (capacity >>> 2) < expected) {
+      capacity <<= 1;
+    } // while
+    return capacity;
+  } // tableSizeFor(int)
+} // class IntObjectMap
@@ -0,0 +1,380 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * The nodes of a persistent 32-way trie keyed by non-negative ints, and the operations on
+ * them. Each node keeps a bitmap of which of its 32 children are present and an array holding
+ * just those children, so sparse tries stay small. The nodes at the bottom level hold values
+ * rather than children.
+ *
+ * <p>Every update returns a new root and copies only the nodes on the path to the key; the rest
+ * of the trie is shared with the old version. A node created with an edit token may instead be
+ * changed in place by later updates that pass the same token, which is what makes batched
+ * (transient) updates cheap.</p>
+ *
+ * @author Alexander Pollock
+ */
+final class IntTrie {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of key bits consumed at each level.
+   */
+  static final int BITS = 5;
+
+  /**
+   * The mask for the key bits at one level.
+   */
+  static final int MASK = (1 << BITS) - 1;
+
+  /**
+   * The shift for the key bits at the top level. Levels go down in steps of BITS to zero.
+   */
+  static final int TOP_SHIFT = 30;
+
+  // +-------+-------------------------------------------------------
+  // | Types |
+  // +-------+
+
+  /**
+   * One node of the trie.
+   */
+  static final class Node {
+    /**
+     * Which of the 32 possible children are present.
+     */
+    int bitmap;
+
+    /**
+     * The children that are present, in bit order. Nodes above the bottom level; values at the
+     * bottom level.
+     */
+    Object[] slots;
+
+    /**
+     * The token of the batch of updates that may change this node in place, or null.
+     */
+    final Object edit;
+
+    /**
+     * Create a new node.
+     *
+     * @param edit The edit token, or null.
+     * @param bitmap Which children are present.
+     * @param slots The children.
+     */
+    Node(Object edit, int bitmap, Object[] slots) {
+      this.edit = edit;
+      this.bitmap = bitmap;
+      this.slots = slots;
+    } // Node(Object, int, Object[])
+  } // class Node
+
+  /**
+   * Something that can be applied to each key/value pair in a trie.
+   */
+  @FunctionalInterface
+  interface EntryVisitor {
+    /**
+     * Visit one key/value pair.
+     *
+     * @param key The key.
+     * @param val The value.
+     */
+    void visit(int key, Object val);
+  } // interface EntryVisitor
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * IntTrie only has static methods.
+   */
+  private IntTrie() {
+  } // IntTrie()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Find the slot index of a child in a node.
+   *
+   * @param bitmap The node's bitmap.
+   * @param bit The bit for the child.
+   *
+   * @return the index of the child in the node's slots.
+   */
+  static int index(int bitmap, int bit) {
+    return Integer.bitCount(bitmap & (bit - 1));
+  } // index(int, int)
+
+  /**
+   * Determine whether a key is in the trie.
+   *
+   * @param root The root, or null for the empty trie.
+   * @param key The key.
+   *
+   * @return true if the key has a value and false otherwise.
+   */
+  static boolean contains(Node root, int key) {
+    Node node = root;
+    for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+      int bit = 1 << ((key >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return false;
+      } // if
+      if (shift == 0) {
+        return true;
+      } // if
+      node = (Node) node.slots[index(node.bitmap, bit)];
+    } // for
+    return false;
+  } // contains(Node, int)
+
+  /**
+   * Look up a key.
+   *
+   * @param root The root, or null for the empty trie.
+   * @param key The key.
+   * @param fallback What to return if the key is not present.
+   *
+   * @return the value for the key, or fallback.
+   */
+  static Object get(Node root, int key, Object fallback) {
+    Node node = root;
+    for (int shift = TOP_SHIFT; node != null; shift -= BITS) {
+      int bit = 1 << ((key >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return fallback;
+      } // if
+      Object slot = node.slots[index(node.bitmap, bit)];
+      if (shift == 0) {
+        return slot;
+      } // if
+      node = (Node) slot;
+    } // for
+    return fallback;
+  } // get(Node, int, Object)
+
+  /**
+   * Associate a value with a key.
+   *
+   * @param node The root of the (sub)trie, or null if it is empty.
+   * @param shift The shift for this level.
+   * @param key The key.
+   * @param val The value.
+   * @param edit The edit token, or null for a purely persistent update.
+   *
+   * @return the new root of the (sub)trie.
+   */
+  static Node put(Node node, int shift, int key, Object val, Object edit) {
+    int bit = 1 << ((key >>> shift) & MASK);
+    if (node == null) {
+      Object child = (shift == 0) ? val : put(null, shift - BITS, key, val, edit);
+      return new Node(edit, bit, new Object[] {child});
+    } // if
+    int i = index(node.bitmap, bit);
+    if ((node.bitmap & bit) != 0) {
+      Object old = node.slots[i];
+      Object child = (shift == 0) ? val : put((Node) old, shift - BITS, key, val, edit);
+      if (child == old) {
+        return node;
+      } // if
+      Node result = editable(node, edit);
+      result.slots[i] = child;
+      return result;
+    } // if
+    Object child = (shift == 0) ? val : put(null, shift - BITS, key, val, edit);
+    Object[] slots = new Object[node.slots.length + 1];
+    System.arraycopy(node.slots, 0, slots, 0, i);
+    slots[i] = child;
+    System.arraycopy(node.slots, i, slots, i + 1, node.slots.length - i);
+    if (edit != null && node.edit == edit) {
+      node.bitmap |= bit;
+      node.slots = slots;
+      return node;
+    } // if
+    return new Node(edit, node.bitmap | bit, slots);
+  } // put(Node, int, int, Object, Object)
+
+  /**
+   * Remove a key.
+   *
+   * @param node The root of the (sub)trie, or null if it is empty.
+   * @param shift The shift for this level.
+   * @param key The key.
+   * @param edit The edit token, or null for a purely persistent update.
+   *
+   * @return the new root of the (sub)trie, or null if it is now empty.
+   */
+  static Node remove(Node node, int shift, int key, Object edit) {
+    if (node == null) {
+      return null;
+    } // if
+    int bit = 1 << ((key >>> shift) & MASK);
+    if ((node.bitmap & bit) == 0) {
+      return node;
+    } // if
+    int i = index(node.bitmap, bit);
+    if (shift != 0) {
+      Node old = (Node) node.slots[i];
+      Node child = remove(old, shift - BITS, key, edit);
+      if (child == old) {
+        return node;
+      } // if
+      if (child != null) {
+        Node result = editable(node, edit);
+        result.slots[i] = child;
+        return result;
+      } // if
+    } // if
+    // The child at i goes away entirely.
+    if (node.bitmap == bit) {
+      return null;
+    } // if
+    Object[] slots = new Object[node.slots.length - 1];
+    System.arraycopy(node.slots, 0, slots, 0, i);
+    System.arraycopy(node.slots, i + 1, slots, i, slots.length - i);
+    if (edit != null && node.edit == edit) {
+      node.bitmap &= ~bit;
+      node.slots = slots;
+      return node;
+    } // if
+    return new Node(edit, node.bitmap & ~bit, slots);
+  } // remove(Node, int, int, Object)
+
+  /**
+   * Remove every key from some key on. Subtries that hold only smaller keys are kept as they
+   * are, so only the nodes on the path to that key are copied.
+   *
+   * @param node The root of the (sub)trie, or null if it is empty.
+   * @param shift The shift for this level.
+   * @param prefix The key bits above this level.
+   * @param from The smallest key to remove.
+   * @param edit The edit token, or null for a purely persistent update.
+   *
+   * @return the new root of the (sub)trie, or null if it is now empty.
+   */
+  static Node truncate(Node node, int shift, int prefix, long from, Object edit) {
+    if (node == null) {
+      return null;
+    } // if
+    Object[] slots = new Object[node.slots.length];
+    int bitmap = 0;
+    int kept = 0;
+    boolean changed = false;
+    int rest = node.bitmap;
+    for (int i = 0; rest != 0; i++) {
+      int low = Integer.numberOfTrailingZeros(rest);
+      rest &= rest - 1;
+      int key = prefix | (low << shift);
+      if (key >= from) {
+        changed = true;
+        break;
+      } // if
+      Object child = node.slots[i];
+      if (shift != 0 && key + (1L << shift) > from) {
+        child = truncate((Node) child, shift - BITS, key, from, edit);
+        changed |= (child != node.slots[i]);
+      } // if
+      // At the bottom level the slots are values, which may be null; only an emptied subtrie
+      // is dropped.
+      if (shift == 0 || child != null) {
+        slots[kept++] = child;
+        bitmap |= 1 << low;
+      } // if
+    } // for
+    if (!changed) {
+      return node;
+    } // if
+    if (kept == 0) {
+      return null;
+    } // if
+    slots = Arrays.copyOf(slots, kept);
+    if (edit != null && node.edit == edit) {
+      node.bitmap = bitmap;
+      node.slots = slots;
+      return node;
+    } // if
+    return new Node(edit, bitmap, slots);
+  } // truncate(Node, int, int, long, Object)
+
+  /**
+   * Visit every key/value pair in a trie, in increasing order of key.
+   *
+   * @param node The root of the (sub)trie, or null if it is empty.
+   * @param shift The shift for this level.
+   * @param prefix The key bits above this level.
+   * @param visitor What to do with each pair.
+   */
+  static void forEach(Node node, int shift, int prefix, EntryVisitor visitor) {
+    if (node == null) {
+      return;
+    } // if
+    int bitmap = node.bitmap;
+    for (int i = 0; bitmap != 0; i++) {
+      int low = Integer.numberOfTrailingZeros(bitmap);
+      bitmap &= bitmap - 1;
+      int key = prefix | (low << shift);
+      if (shift == 0) {
+        visitor.visit(key, node.slots[i]);
+      } else {
+        forEach((Node) node.slots[i], shift - BITS, key, visitor);
+      } // if/else
+    } // for
+  } // forEach(Node, int, int, EntryVisitor)
+
+  /**
+   * Visit the key/value pairs in a trie whose keys are in a range, in increasing order of key.
+   * Skips the subtries that hold no keys in the range.
+   *
+   * @param node The root of the (sub)trie, or null if it is empty.
+   * @param shift The shift for this level.
+   * @param prefix The key bits above this level.
+   * @param from The smallest key to visit (inclusive).
+   * @param to The largest key to visit (exclusive).
+   * @param visitor What to do with each pair.
+   */
+  static void forEach(Node node, int shift, int prefix, long from, long to,
+      EntryVisitor visitor) {
+    if (node == null) {
+      return;
+    } // if
+    int bitmap = node.bitmap;
+    for (int i = 0; bitmap != 0; i++) {
+      int low = Integer.numberOfTrailingZeros(bitmap);
+      bitmap &= bitmap - 1;
+      int key = prefix | (low << shift);
+      if (key >= to) {
+        return;
+      } // if
+      if (shift == 0) {
+        if (key >= from) {
+          visitor.visit(key, node.slots[i]);
+        } // if
+      } else if (key + (1L << shift) > from) {
+        forEach((Node) node.slots[i], shift - BITS, key, from, to, visitor);
+      } // if/else
+    } // for
+  } // forEach(Node, int, int, long, long, EntryVisitor)
+
+  /**
+   * Get a version of a node that we may change in place.
+   *
+   * @param node The node.
+   * @param edit The edit token, or null.
+   *
+   * @return node itself if it belongs to the edit, otherwise a copy that does.
+   */
+  private static Node editable(Node node, Object edit) {
+    if (edit != null && node.edit == edit) {
+      return node;
+    } // if
+    return new Node(edit, node.bitmap, node.slots.clone());
+  } // editable(Node, Object)
+} // class IntTrie
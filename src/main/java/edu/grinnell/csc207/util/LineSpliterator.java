@@ -0,0 +1,133 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the rows or the columns of a matrix, each given as an unmodifiable list
+ * of its values. Splits the range of rows (or columns) in half.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class LineSpliterator<T> implements Spliterator<List<T>> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The matrix.
+   */
+  private final Matrix<T> matrix;
+
+  /**
+   * Whether the lines are columns rather than rows.
+   */
+  private final boolean cols;
+
+  /**
+   * The next line.
+   */
+  private int line;
+
+  /**
+   * The line after the last one (exclusive).
+   */
+  private final int end;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over a range of the rows or columns of a matrix.
+   *
+   * @param matrix The matrix.
+   * @param cols Whether the lines are columns rather than rows.
+   * @param start The first line (inclusive).
+   * @param end The last line (exclusive).
+   */
+  LineSpliterator(Matrix<T> matrix, boolean cols, int start, int end) {
+    this.matrix = matrix;
+    this.cols = cols;
+    this.line = start;
+    this.end = end;
+  } // LineSpliterator(Matrix<T>, boolean, int, int)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the next line, if there is one.
+   *
+   * @param action What to do with the line.
+   *
+   * @return true if there was a line, and false otherwise.
+   */
+  public boolean tryAdvance(Consumer<? super List<T>> action) {
+    if (this.line >= this.end) {
+      return false;
+    } // if
+    action.accept(this.read(this.line++));
+    return true;
+  } // tryAdvance(Consumer<? super List<T>>)
+
+  /**
+   * Split off the first half of the remaining lines.
+   *
+   * @return a spliterator over those lines, or null if fewer than two are left.
+   */
+  public Spliterator<List<T>> trySplit() {
+    int mid = this.line + (this.end - this.line) / 2;
+    if (mid <= this.line) {
+      return null;
+    } // if
+    LineSpliterator<T> prefix = new LineSpliterator<T>(this.matrix, this.cols, this.line, mid);
+    this.line = mid;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Determine how many lines are left.
+   *
+   * @return the number of lines.
+   */
+  public long estimateSize() {
+    return this.end - this.line;
+  } // estimateSize()
+
+  /**
+   * Describe the lines.
+   *
+   * @return ORDERED, SIZED, SUBSIZED, and NONNULL.
+   */
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | NONNULL;
+  } // characteristics()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Read one line of the matrix.
+   *
+   * @param i The number of the row or column.
+   *
+   * @return its values.
+   */
+  @SuppressWarnings("unchecked")
+  private List<T> read(int i) {
+    int length = this.cols ? this.matrix.height() : this.matrix.width();
+    Object[] vals = new Object[length];
+    for (int j = 0; j < length; j++) {
+      vals[j] = this.cols ? this.matrix.get(j, i) : this.matrix.get(i, j);
+    } // for
+    return Collections.unmodifiableList((List<T>) Arrays.asList(vals));
+  } // read(int)
+} // class LineSpliterator
@@ -0,0 +1,282 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Objects;
+
+/**
+ * A view of a {@link LongMatrix} as a Matrix<Long>. Values are boxed on the way out and
+ * unboxed on the way in; null cannot be stored.
+ *
+ * @author Alexander Pollock
+ */
+class LongMatrixView implements Matrix<Long> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying matrix.
+   */
+  private final LongMatrix base;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a view of a matrix.
+   *
+   * @param matrix The matrix to view.
+   */
+  LongMatrixView(LongMatrix matrix) {
+    this.base = matrix;
+  } // LongMatrixView(LongMatrix)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public Long get(int row, int col) {
+    return this.base.getLong(row, col);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws NullPointerException If val is null.
+   */
+  public void set(int row, int col, Long val) {
+    this.base.setLong(row, col, unbox(val));
+  } // set(int, int, Long)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.base.height();
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.base.width();
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public Long getDefaultVal() {
+    return this.base.getDefaultLong();
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.base.insertRow(row);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   * @throws NullPointerException If any of the values is null.
+   */
+  public void insertRow(int row, Long[] vals) throws ArraySizeException {
+    this.base.insertRow(row, unbox(vals));
+  } // insertRow(int, Long[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.base.insertCol(col);
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   * @throws NullPointerException If any of the values is null.
+   */
+  public void insertCol(int col, Long[] vals) throws ArraySizeException {
+    this.base.insertCol(col, unbox(vals));
+  } // insertCol(int, Long[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    this.base.deleteRow(row);
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    this.base.deleteCol(col);
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, Long val) {
+    this.base.fillRegion(startRow, startCol, endRow, endCol, unbox(val));
+  } // fillRegion(int, int, int, int, Long)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, Long val) {
+    this.base.fillLine(startRow, startCol, deltaRow, deltaCol, endRow, endCol, unbox(val));
+  } // fillLine(int, int, int, int, int, int, Long)
+
+  /**
+   * Make a copy of the matrix: a view of a copy of the underlying matrix.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    return new LongMatrixView(this.base.clone());
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  @SuppressWarnings("rawtypes")
+  public boolean equals(Object other) {
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix otherMatrix = (Matrix) other;
+    if (otherMatrix.height() != this.height() || otherMatrix.width() != this.width()) {
+      return false;
+    } // if
+    for (int r = 0; r < this.height(); r++) {
+      for (int c = 0; c < this.width(); c++) {
+        if (!Objects.equals(this.get(r, c), otherMatrix.get(r, c))) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. The same as the hash code of the underlying matrix,
+   * which is computed in the same way as Matrix.cellsHashCode.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return this.base.hashCode();
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Unbox a value.
+   *
+   * @param val The value.
+   *
+   * @return the long.
+   *
+   * @throws NullPointerException If val is null.
+   */
+  private static long unbox(Long val) {
+    return Objects.requireNonNull(val, "LongMatrix cells cannot hold null");
+  } // unbox(Long)
+
+  /**
+   * Unbox an array of values.
+   *
+   * @param vals The values.
+   *
+   * @return the longs.
+   *
+   * @throws NullPointerException If any of the values is null.
+   */
+  private static long[] unbox(Long[] vals) {
+    long[] result = new long[vals.length];
+    for (int i = 0; i < vals.length; i++) {
+      result[i] = unbox(vals[i]);
+    } // for
+    return result;
+  } // unbox(Long[])
+} // class LongMatrixView
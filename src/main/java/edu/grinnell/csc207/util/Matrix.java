@@ -1,10 +1,26 @@
 package edu.grinnell.csc207.util;
 
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Two-dimensional matrices.
  *
+ * <p>Some matrices are immutable (PersistentMatrix is). Their mutators
+ * (set, the insert and delete methods, fillRegion, and fillLine) throw
+ * UnsupportedOperationException, and so do the default methods that
+ * change cells through those mutators: setRow, setCol, setRegion,
+ * mapInPlace, mapInPlaceParallel, and fillRegionParallel.</p>
+ *
  * @author Samuel A. Rebelsky
  *
  * @param <T>
@@ -34,44 +50,6 @@ public interface Matrix<T> extends Cloneable {
     } // if/else
   } // toString(Object)
 
-  /**
-   * Print the row separator in a matrix.
-   *
-   * @param pen
-   *   What we use for printing.
-   * @param cellWidth
-   *   The width of a cell.
-   * @param width
-   *   The width of the matrix.
-   */
-  static void printRowSeparator(PrintWriter pen, int cellWidth, int width) {
-    for (int i = 0; i < width; i++) {
-      pen.print("+" + "-".repeat(cellWidth));
-    } // for
-    pen.println("+");
-  } // printRowSeparator(PrintWriter, int, int)
-
-  /**
-   * Print a string centered in a cellWidth box.
-   *
-   * @param pen
-   *   What we use for printing.
-   * @param str
-   *   The string to print.
-   * @param cellWidth
-   *   The width of the box.
-   */
-  static void printCell(PrintWriter pen, String str, int cellWidth) {
-    int len = str.length();
-    if (len > cellWidth) {
-      pen.println(str.substring(0, cellWidth));
-    } else {
-      int left = (cellWidth - len) / 2;
-      int right = cellWidth - left - len;
-      pen.print(" ".repeat(left) + str + " ".repeat(right));
-    } // if/else
-  } // printCell
-
   /**
    * Print a matrix (without labels).
    *
@@ -88,6 +66,7 @@ public interface Matrix<T> extends Cloneable {
 
   /**
    * Print a matrix, with or without labels.
+   *
    * @param <T>
    *   The type of values stored in the matrix.
    * @param pen
@@ -99,50 +78,41 @@ public interface Matrix<T> extends Cloneable {
    */
   public static <T> void print(PrintWriter pen, Matrix<T> matrix,
       boolean includeLabels) {
-    int width = matrix.width();
-    int height = matrix.height();
-
-    // Find the maximum width of cells.
-    int cellWidth = 0;
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        T val = matrix.get(row, col);
-        int valWidth = toString(val).length();
-        cellWidth = Math.max(cellWidth, valWidth);
-      } // for col
-    } // for row
-
-    // Add some space on the sides
-    cellWidth += 2;
-
-    // Print everything out
-    if (includeLabels) {
-      pen.print(" ".repeat(4));
-      for (int col = 0; col < width; col++) {
-        printCell(pen, String.format("%2d", col), cellWidth + 1);
-      } // for
-      pen.println();
-    } // if
+    new MatrixRenderer(includeLabels, false).render(pen, matrix);
+  } // print(PrintWriter, Matrix, boolean)
 
-    for (int row = 0; row < height; row++) {
-      if (includeLabels) {
-        pen.print(" ".repeat(4));
-      } // if
-      printRowSeparator(pen, cellWidth, width);
-      if (includeLabels) {
-        pen.printf(" %2d ", row);
-      } // if
-      for (int col = 0; col < width; col++) {
-        pen.print("|");
-        printCell(pen, toString(matrix.get(row, col)), cellWidth);
-      } // for col
-      pen.println("|");
-    } // for row
-    if (includeLabels) {
-      pen.print(" ".repeat(4));
-    } // if
-    printRowSeparator(pen, cellWidth, width);
-  } // print(PrintWriter, Matrix)
+  /**
+   * Print a window of a matrix, with or without labels. The labels are the real row and
+   * column numbers, and only the cells in the window are looked up, so printing a window
+   * of a huge matrix costs about as much as printing a matrix the size of the window.
+   *
+   * @param <T>
+   *   The type of values stored in the matrix.
+   * @param pen
+   *   The PrintWriter to use for printing.
+   * @param matrix
+   *   The matrix to print.
+   * @param startRow
+   *   The top row of the window (inclusive).
+   * @param startCol
+   *   The left column of the window (inclusive).
+   * @param endRow
+   *   The bottom row of the window (exclusive). Windows that extend past the bottom of the
+   *   matrix are cut off.
+   * @param endCol
+   *   The right column of the window (exclusive). Windows that extend past the right of the
+   *   matrix are cut off.
+   * @param includeLabels
+   *   Set to true if you want labels and false otherwise.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the start of the window is outside the matrix or after its end.
+   */
+  public static <T> void print(PrintWriter pen, Matrix<T> matrix, int startRow, int startCol,
+      int endRow, int endCol, boolean includeLabels) {
+    new MatrixRenderer(includeLabels, false).render(pen, matrix, startRow, startCol,
+        Math.min(endRow, matrix.height()), Math.min(endCol, matrix.width()));
+  } // print(PrintWriter, Matrix, int, int, int, int, boolean)
 
   // +--------------+------------------------------------------------
   // | Core methods |
@@ -192,6 +162,17 @@ public interface Matrix<T> extends Cloneable {
    */
   public int width();
 
+  /**
+   * Get the default value, which fills the cells that have not been set.
+   * Implementations that have a default value should override this method;
+   * this version returns null.
+   *
+   * @return the default value.
+   */
+  public default T getDefaultVal() {
+    return null;
+  } // getDefaultVal()
+
   /**
    * Insert a row filled with the default value.
    *
@@ -310,6 +291,587 @@ public interface Matrix<T> extends Cloneable {
   public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol,
       int endRow, int endCol, T val);
 
+  // +--------------+------------------------------------------------
+  // | Bulk methods |
+  // +--------------+
+
+  /**
+   * Copy a row into an array.
+   *
+   * @param row
+   *   The number of the row.
+   * @param vals
+   *   Where to put the values of the row.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the row is negative or greater than or equal to the height.
+   * @throws ArraySizeException
+   *   If the size of vals is not the same as the width of the matrix.
+   */
+  public default void getRow(int row, T[] vals) throws ArraySizeException {
+    this.getRegion(checkIndex(row, this.height()), 0, row + 1, this.width(), vals);
+  } // getRow(int, T[])
+
+  /**
+   * Copy a column into an array.
+   *
+   * @param col
+   *   The number of the column.
+   * @param vals
+   *   Where to put the values of the column.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the column is negative or greater than or equal to the width.
+   * @throws ArraySizeException
+   *   If the size of vals is not the same as the height of the matrix.
+   */
+  public default void getCol(int col, T[] vals) throws ArraySizeException {
+    this.getRegion(0, checkIndex(col, this.width()), this.height(), col + 1, vals);
+  } // getCol(int, T[])
+
+  /**
+   * Set every cell of a row.
+   *
+   * @param row
+   *   The number of the row.
+   * @param vals
+   *   The new values of the row.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the row is negative or greater than or equal to the height.
+   * @throws ArraySizeException
+   *   If the size of vals is not the same as the width of the matrix.
+   */
+  public default void setRow(int row, T[] vals) throws ArraySizeException {
+    this.setRegion(checkIndex(row, this.height()), 0, row + 1, this.width(), vals);
+  } // setRow(int, T[])
+
+  /**
+   * Set every cell of a column.
+   *
+   * @param col
+   *   The number of the column.
+   * @param vals
+   *   The new values of the column.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the column is negative or greater than or equal to the width.
+   * @throws ArraySizeException
+   *   If the size of vals is not the same as the height of the matrix.
+   */
+  public default void setCol(int col, T[] vals) throws ArraySizeException {
+    this.setRegion(0, checkIndex(col, this.width()), this.height(), col + 1, vals);
+  } // setCol(int, T[])
+
+  /**
+   * Copy a rectangular region of the matrix into an array, row by row.
+   *
+   * @param startRow
+   *   The top edge / row to start with (inclusive).
+   * @param startCol
+   *   The left edge / column to start with (inclusive).
+   * @param endRow
+   *   The bottom edge / row to stop with (exclusive).
+   * @param endCol
+   *   The right edge / column to stop with (exclusive).
+   * @param vals
+   *   Where to put the values; the value of row r and column c of the matrix goes in
+   *   vals[(r - startRow) * (endCol - startCol) + (c - startCol)].
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the region is not within the matrix.
+   * @throws ArraySizeException
+   *   If the size of vals is not the number of cells in the region.
+   */
+  public default void getRegion(int startRow, int startCol, int endRow, int endCol,
+      T[] vals) throws ArraySizeException {
+    checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int i = 0;
+    for (int row = startRow; row < endRow; row++) {
+      for (int col = startCol; col < endCol; col++) {
+        vals[i++] = this.get(row, col);
+      } // for
+    } // for
+  } // getRegion(int, int, int, int, T[])
+
+  /**
+   * Set every cell of a rectangular region of the matrix from an array, row by row.
+   *
+   * @param startRow
+   *   The top edge / row to start with (inclusive).
+   * @param startCol
+   *   The left edge / column to start with (inclusive).
+   * @param endRow
+   *   The bottom edge / row to stop with (exclusive).
+   * @param endCol
+   *   The right edge / column to stop with (exclusive).
+   * @param vals
+   *   The new values; row r and column c of the matrix gets
+   *   vals[(r - startRow) * (endCol - startCol) + (c - startCol)].
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the region is not within the matrix.
+   * @throws ArraySizeException
+   *   If the size of vals is not the number of cells in the region.
+   */
+  public default void setRegion(int startRow, int startCol, int endRow, int endCol,
+      T[] vals) throws ArraySizeException {
+    checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int i = 0;
+    for (int row = startRow; row < endRow; row++) {
+      for (int col = startCol; col < endCol; col++) {
+        this.set(row, col, vals[i++]);
+      } // for
+    } // for
+  } // setRegion(int, int, int, int, T[])
+
+  /**
+   * Make sure that a row or column number is in range.
+   *
+   * @param index
+   *   The row or column number.
+   * @param limit
+   *   The height or width.
+   *
+   * @return index.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the index is negative or greater than or equal to the limit.
+   */
+  static int checkIndex(int index, int limit) {
+    if (index < 0 || index >= limit) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    return index;
+  } // checkIndex(int, int)
+
+  /**
+   * Make sure that a region is within a matrix and that an array has one element for each
+   * cell of the region. Intended for implementations of getRegion and setRegion.
+   *
+   * @param matrix
+   *   The matrix.
+   * @param startRow
+   *   The top edge / row to start with (inclusive).
+   * @param startCol
+   *   The left edge / column to start with (inclusive).
+   * @param endRow
+   *   The bottom edge / row to stop with (exclusive).
+   * @param endCol
+   *   The right edge / column to stop with (exclusive).
+   * @param length
+   *   The size of the array.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the region is not within the matrix.
+   * @throws ArraySizeException
+   *   If the size of the array is not the number of cells in the region.
+   */
+  static void checkRegion(Matrix<?> matrix, int startRow, int startCol, int endRow,
+      int endCol, int length) throws ArraySizeException {
+    if (startRow < 0 || startCol < 0 || startRow > endRow || startCol > endCol
+        || endRow > matrix.height() || endCol > matrix.width()) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if ((long) (endRow - startRow) * (endCol - startCol) != length) {
+      throw new ArraySizeException();
+    } // if
+  } // checkRegion(Matrix<?>, int, int, int, int, int)
+
+  /**
+   * Make sure that a band of rows is within a matrix.
+   *
+   * @param matrix
+   *   The matrix.
+   * @param startRow
+   *   The first row of the band (inclusive).
+   * @param endRow
+   *   The last row of the band (exclusive).
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the band is not within the matrix.
+   */
+  static void checkRows(Matrix<?> matrix, int startRow, int endRow) {
+    if (startRow < 0 || startRow > endRow || endRow > matrix.height()) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkRows(Matrix<?>, int, int)
+
+  // +------------------+--------------------------------------------
+  // | Whole-matrix ops |
+  // +------------------+
+
+  /**
+   * Replace the value of every cell by the result of applying a function
+   * to it. This version gets and sets each cell in turn. Implementations
+   * that store only some of their cells may apply the function once to a
+   * group of cells that hold the same value, so the function should not
+   * have side effects.
+   *
+   * @param fun
+   *   The function to apply.
+   */
+  public default void mapInPlace(UnaryOperator<T> fun) {
+    for (int row = 0; row < this.height(); row++) {
+      for (int col = 0; col < this.width(); col++) {
+        this.set(row, col, fun.apply(this.get(row, col)));
+      } // for
+    } // for
+  } // mapInPlace(UnaryOperator<T>)
+
+  /**
+   * Replace the value of every cell by the result of applying a function
+   * to it, using several threads for large matrices. Stays on the calling
+   * thread when the matrix has no more than RowBands.DEFAULT_THRESHOLD
+   * (65536) cells.
+   *
+   * @param fun
+   *   The function to apply. Must be safe to call from several threads at
+   *   once.
+   */
+  public default void mapInPlaceParallel(UnaryOperator<T> fun) {
+    this.mapInPlaceParallel(fun, RowBands.DEFAULT_THRESHOLD);
+  } // mapInPlaceParallel(UnaryOperator<T>)
+
+  /**
+   * Replace the value of every cell by the result of applying a function
+   * to it, splitting the rows into bands of at most threshold cells and
+   * mapping the bands on the common fork/join pool. This version calls
+   * mapInPlace; implementations that can change disjoint rows from
+   * different threads should override it.
+   *
+   * @param fun
+   *   The function to apply. Must be safe to call from several threads at
+   *   once.
+   * @param threshold
+   *   The number of cells below which a band is not split further.
+   */
+  public default void mapInPlaceParallel(UnaryOperator<T> fun, int threshold) {
+    this.mapInPlace(fun);
+  } // mapInPlaceParallel(UnaryOperator<T>, int)
+
+  /**
+   * Fill a rectangular region of the matrix, using several threads for
+   * large regions. Stays on the calling thread when the region has no more
+   * than RowBands.DEFAULT_THRESHOLD (65536) cells.
+   *
+   * @param startRow
+   *   The top edge / row to start with (inclusive).
+   * @param startCol
+   *   The left edge / column to start with (inclusive).
+   * @param endRow
+   *   The bottom edge / row to stop with (exclusive).
+   * @param endCol
+   *   The right edge / column to stop with (exclusive).
+   * @param val
+   *   The value to store.
+   *
+   * @throw IndexOutOfBoundsException
+   *   If the rows or columns are inappropriate.
+   */
+  public default void fillRegionParallel(int startRow, int startCol,
+      int endRow, int endCol, T val) {
+    this.fillRegionParallel(startRow, startCol, endRow, endCol, val,
+        RowBands.DEFAULT_THRESHOLD);
+  } // fillRegionParallel(int, int, int, int, T)
+
+  /**
+   * Fill a rectangular region of the matrix, splitting its rows into bands
+   * of at most threshold cells and filling the bands on the common
+   * fork/join pool. This version calls fillRegion; implementations that can
+   * change disjoint rows from different threads should override it.
+   *
+   * @param startRow
+   *   The top edge / row to start with (inclusive).
+   * @param startCol
+   *   The left edge / column to start with (inclusive).
+   * @param endRow
+   *   The bottom edge / row to stop with (exclusive).
+   * @param endCol
+   *   The right edge / column to stop with (exclusive).
+   * @param val
+   *   The value to store.
+   * @param threshold
+   *   The number of cells below which a band is not split further.
+   *
+   * @throw IndexOutOfBoundsException
+   *   If the rows or columns are inappropriate.
+   */
+  public default void fillRegionParallel(int startRow, int startCol,
+      int endRow, int endCol, T val, int threshold) {
+    this.fillRegion(startRow, startCol, endRow, endCol, val);
+  } // fillRegionParallel(int, int, int, int, T, int)
+
+  /**
+   * Apply a function to every cell, giving a new matrix of the same size.
+   * The function is applied to each cell that forEachStored visits, so it
+   * takes time proportional to the number of stored cells, and once to the
+   * default value if some cell holds it, which gives the default of the new
+   * matrix. If no cell holds the old default, the new default is the new
+   * value of the cell in row 0, column 0 (or null if there are no cells), so
+   * every kind of matrix picks the same one. This version makes a
+   * MatrixTiled.
+   *
+   * @param fun
+   *   The function to apply. Should not have side effects.
+   *
+   * @return the new matrix.
+   */
+  public default <U> Matrix<U> map(Function<? super T, ? extends U> fun) {
+    return CellTasks.map(this, fun, false);
+  } // map(Function<? super T, ? extends U>)
+
+  /**
+   * Apply a function to every cell, giving a new matrix of the same size,
+   * with the function applied on several threads.
+   *
+   * @param fun
+   *   The function to apply. Should not have side effects, and must be safe
+   *   to call from several threads at once.
+   *
+   * @return the new matrix.
+   */
+  public default <U> Matrix<U> mapParallel(Function<? super T, ? extends U> fun) {
+    return CellTasks.map(this, fun, true);
+  } // mapParallel(Function<? super T, ? extends U>)
+
+  /**
+   * Combine each cell with the corresponding cell of another matrix of the
+   * same size, giving a new matrix. The function is applied once to each
+   * cell that either matrix stores, and once to the two defaults if some
+   * cell holds both of them, which gives the default of the new matrix.
+   * Otherwise the new default is the new value of the cell in row 0,
+   * column 0, as for map.
+   *
+   * @param other
+   *   The other matrix.
+   * @param fun
+   *   Combines a cell of this matrix with a cell of the other. Should not
+   *   have side effects.
+   *
+   * @return the new matrix.
+   *
+   * @throws ArraySizeException
+   *   If the other matrix is not the same size as this one.
+   */
+  public default <U, R> Matrix<R> zipWith(Matrix<U> other,
+      BiFunction<? super T, ? super U, ? extends R> fun) throws ArraySizeException {
+    return CellTasks.zipWith(this, other, fun, false);
+  } // zipWith(Matrix<U>, BiFunction<? super T, ? super U, ? extends R>)
+
+  /**
+   * Combine each cell with the corresponding cell of another matrix of the
+   * same size, giving a new matrix, with the function applied on several
+   * threads.
+   *
+   * @param other
+   *   The other matrix.
+   * @param fun
+   *   Combines a cell of this matrix with a cell of the other. Should not
+   *   have side effects, and must be safe to call from several threads at
+   *   once.
+   *
+   * @return the new matrix.
+   *
+   * @throws ArraySizeException
+   *   If the other matrix is not the same size as this one.
+   */
+  public default <U, R> Matrix<R> zipWithParallel(Matrix<U> other,
+      BiFunction<? super T, ? super U, ? extends R> fun) throws ArraySizeException {
+    return CellTasks.zipWith(this, other, fun, true);
+  } // zipWithParallel(Matrix<U>, BiFunction<? super T, ? super U, ? extends R>)
+
+  /**
+   * Fold every cell into one result, as Stream.reduce does. The cells that
+   * forEachStored does not visit all hold the default; they are folded in
+   * together, with O(log n) calls of combiner. So identity must be an
+   * identity for combiner, combiner must be associative, and, since the
+   * cells are visited in no particular order, both acc and combiner should
+   * be commutative.
+   *
+   * @param identity
+   *   The result for no cells.
+   * @param acc
+   *   Folds one more cell into a result.
+   * @param combiner
+   *   Combines two results.
+   *
+   * @return the result.
+   */
+  public default <R> R fold(R identity, BiFunction<R, ? super T, R> acc,
+      BinaryOperator<R> combiner) {
+    return CellTasks.fold(this, identity, acc, combiner, false);
+  } // fold(R, BiFunction<R, ? super T, R>, BinaryOperator<R>)
+
+  /**
+   * Fold every cell into one result, working on several threads.
+   *
+   * @param identity
+   *   The result for no cells.
+   * @param acc
+   *   Folds one more cell into a result.
+   * @param combiner
+   *   Combines two results.
+   *
+   * @return the result.
+   */
+  public default <R> R foldParallel(R identity, BiFunction<R, ? super T, R> acc,
+      BinaryOperator<R> combiner) {
+    return CellTasks.fold(this, identity, acc, combiner, true);
+  } // foldParallel(R, BiFunction<R, ? super T, R>, BinaryOperator<R>)
+
+  /**
+   * Combine every cell into one value, e.g., the sum or the largest. The
+   * operator must be associative and commutative, and identity must be an
+   * identity for it.
+   *
+   * @param identity
+   *   The result for no cells.
+   * @param op
+   *   Combines two values.
+   *
+   * @return the result.
+   */
+  public default T reduce(T identity, BinaryOperator<T> op) {
+    return CellTasks.fold(this, identity, op, op, false);
+  } // reduce(T, BinaryOperator<T>)
+
+  /**
+   * Combine every cell into one value, working on several threads.
+   *
+   * @param identity
+   *   The result for no cells.
+   * @param op
+   *   Combines two values.
+   *
+   * @return the result.
+   */
+  public default T reduceParallel(T identity, BinaryOperator<T> op) {
+    return CellTasks.fold(this, identity, op, op, true);
+  } // reduceParallel(T, BinaryOperator<T>)
+
+  /**
+   * Count the cells that hold values that meet a predicate. Tests the
+   * default at most once, however many cells hold it.
+   *
+   * @param pred
+   *   The predicate.
+   *
+   * @return the number of cells.
+   */
+  public default long count(Predicate<? super T> pred) {
+    return CellTasks.count(this, pred, false);
+  } // count(Predicate<? super T>)
+
+  /**
+   * Count the cells that hold values that meet a predicate, working on
+   * several threads.
+   *
+   * @param pred
+   *   The predicate. Must be safe to call from several threads at once.
+   *
+   * @return the number of cells.
+   */
+  public default long countParallel(Predicate<? super T> pred) {
+    return CellTasks.count(this, pred, true);
+  } // countParallel(Predicate<? super T>)
+
+  /**
+   * Determine whether any cell holds a value that meets a predicate. Stops
+   * at the first one found.
+   *
+   * @param pred
+   *   The predicate.
+   *
+   * @return true if some cell meets the predicate, and false otherwise.
+   */
+  public default boolean anyMatch(Predicate<? super T> pred) {
+    return CellTasks.anyMatch(this, pred, false);
+  } // anyMatch(Predicate<? super T>)
+
+  /**
+   * Determine whether any cell holds a value that meets a predicate,
+   * working on several threads.
+   *
+   * @param pred
+   *   The predicate. Must be safe to call from several threads at once.
+   *
+   * @return true if some cell meets the predicate, and false otherwise.
+   */
+  public default boolean anyMatchParallel(Predicate<? super T> pred) {
+    return CellTasks.anyMatch(this, pred, true);
+  } // anyMatchParallel(Predicate<? super T>)
+
+  // +-----------+---------------------------------------------------
+  // | Iteration |
+  // +-----------+
+
+  /**
+   * Visit the cells that may hold something other than the default value,
+   * each exactly once and in no particular order. Implementations that store
+   * only some of their cells visit just those, so whole-matrix computations
+   * take time proportional to the number of stored cells; cells that hold the
+   * default may also be visited. This version visits every cell, row by row.
+   * The matrix must not change during the visit.
+   *
+   * @param action
+   *   What to do with each cell.
+   */
+  public default void forEachStored(CellConsumer<? super T> action) {
+    for (int row = 0; row < this.height(); row++) {
+      for (int col = 0; col < this.width(); col++) {
+        action.accept(row, col, this.get(row, col));
+      } // for
+    } // for
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Determine how many cells forEachStored visits.
+   *
+   * @return the number of cells.
+   */
+  public default long storedCount() {
+    return (long) this.height() * this.width();
+  } // storedCount()
+
+  /**
+   * Visit the cells in a band of rows that may hold something other than
+   * the default value, as forEachStored does for the whole matrix. This
+   * version visits every cell in the band, row by row.
+   *
+   * @param startRow
+   *   The first row to visit (inclusive).
+   * @param endRow
+   *   The last row to visit (exclusive).
+   * @param action
+   *   What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException
+   *   If the rows are not within the matrix.
+   */
+  public default void forEachStored(int startRow, int endRow,
+      CellConsumer<? super T> action) {
+    checkRows(this, startRow, endRow);
+    for (int row = startRow; row < endRow; row++) {
+      for (int col = 0; col < this.width(); col++) {
+        action.accept(row, col, this.get(row, col));
+      } // for
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Get a spliterator over the cells that forEachStored visits, which the
+   * element-wise operations split to work in parallel. This version splits
+   * bands of rows and visits them with the ranged forEachStored.
+   * Implementations that cannot find the cells of a row quickly should
+   * override it. The matrix must not change while the spliterator is in use.
+   *
+   * @return the spliterator.
+   */
+  public default CellSpliterator<T> cellSpliterator() {
+    return new RowCellSpliterator<T>(this, 0, this.height(), 1);
+  } // cellSpliterator()
+
   /**
    * A make a copy of the matrix. May share references (e.g., if individual
    * elements are mutable, mutating them in one matrix may affect the other
@@ -329,4 +891,166 @@ public interface Matrix<T> extends Cloneable {
    * height, and equal elements; false otherwise.
    */
   public boolean equals(Object other);
+
+  /**
+   * Compute a hash code for the matrix. Implementations should use
+   * cellsHashCode, so that equal matrices of different classes have equal
+   * hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode();
+
+  // +---------+-----------------------------------------------------
+  // | Streams |
+  // +---------+
+
+  /**
+   * Get a stream of every cell, in row-major order. The stream is SIZED,
+   * and splits (for parallel streams) into bands of whole rows, so every
+   * part knows exactly how many cells it holds. The matrix must not change
+   * while the stream is in use.
+   *
+   * @return the stream.
+   */
+  public default Stream<Cell<T>> cells() {
+    return StreamSupport.stream(new GridSpliterator<T>(this), false);
+  } // cells()
+
+  /**
+   * Get a stream of the cells that forEachStored visits, in no particular
+   * order. Splits (for parallel streams) the same way as cellSpliterator:
+   * by bands of rows, or by ranges of entries for matrices that keep their
+   * cells in a hash table. The matrix must not change while the stream is
+   * in use.
+   *
+   * @return the stream.
+   */
+  public default Stream<Cell<T>> storedCells() {
+    return StreamSupport.stream(new StoredSpliterator<T>(this.cellSpliterator()), false);
+  } // storedCells()
+
+  /**
+   * Get a stream of the rows, from top to bottom, each as an unmodifiable
+   * list of its values. The stream is SIZED, and splits the range of rows
+   * in half. The matrix must not change while the stream is in use.
+   *
+   * @return the stream.
+   */
+  public default Stream<List<T>> rows() {
+    return StreamSupport.stream(new LineSpliterator<T>(this, false, 0, this.height()), false);
+  } // rows()
+
+  /**
+   * Get a stream of the columns, from left to right, each as an
+   * unmodifiable list of its values. The stream is SIZED, and splits the
+   * range of columns in half. The matrix must not change while the stream
+   * is in use.
+   *
+   * @return the stream.
+   */
+  public default Stream<List<T>> cols() {
+    return StreamSupport.stream(new LineSpliterator<T>(this, true, 0, this.width()), false);
+  } // cols()
+
+  // +------------+--------------------------------------------------
+  // | Comparison |
+  // +------------+
+
+  /**
+   * Determine if a matrix is equal to another object, cell by cell. When the
+   * two matrices have the same default value, only the cells that either one
+   * stores are compared, so comparing sparse matrices takes time proportional
+   * to the number of stored cells rather than to the size of the matrices.
+   * Null cells are equal to each other.
+   *
+   * @param matrix
+   *   The matrix.
+   * @param other
+   *   The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width,
+   * height, and equal elements; false otherwise.
+   */
+  static boolean cellsEqual(Matrix<?> matrix, Object other) {
+    if (matrix == other) {
+      return true;
+    } // if
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix<?> otherMatrix = (Matrix<?>) other;
+    if (otherMatrix.height() != matrix.height() || otherMatrix.width() != matrix.width()) {
+      return false;
+    } // if
+    if (!Objects.equals(matrix.getDefaultVal(), otherMatrix.getDefaultVal())) {
+      for (int r = 0; r < matrix.height(); r++) {
+        for (int c = 0; c < matrix.width(); c++) {
+          if (!Objects.equals(matrix.get(r, c), otherMatrix.get(r, c))) {
+            return false;
+          } // if
+        } // for
+      } // for
+      return true;
+    } // if
+    // Cells that neither matrix stores hold the (shared) default in both.
+    boolean[] same = {true};
+    matrix.forEachStored((row, col, val) -> {
+      if (same[0] && !Objects.equals(val, otherMatrix.get(row, col))) {
+        same[0] = false;
+      } // if
+    });
+    if (same[0]) {
+      otherMatrix.forEachStored((row, col, val) -> {
+        if (same[0] && !Objects.equals(val, matrix.get(row, col))) {
+          same[0] = false;
+        } // if
+      });
+    } // if
+    return same[0];
+  } // cellsEqual(Matrix<?>, Object)
+
+  /**
+   * Compute the hash code of a matrix from its width, height, and cells,
+   * using the hash codes of the values (zero for null).
+   *
+   * @param matrix
+   *   The matrix.
+   *
+   * @return the hash code.
+   */
+  static int cellsHashCode(Matrix<?> matrix) {
+    return cellsHashCode(matrix, Objects::hashCode);
+  } // cellsHashCode(Matrix<?>)
+
+  /**
+   * Compute the hash code of a matrix from its width, height, and cells.
+   * The code is a weighted sum of the hash codes of all the cells, in which
+   * the cell at (row, col) has weight 31 * row + col + 1. Since the weights
+   * of all the cells add up to a closed form, the sum is the hash of the
+   * default times the total weight plus a correction for each stored cell,
+   * which takes time proportional to the number of stored cells, and is the
+   * same however the cells are stored.
+   *
+   * @param <T>
+   *   The type of values stored in the matrix.
+   * @param matrix
+   *   The matrix.
+   * @param hash
+   *   How to compute the hash code of a value, which may be null.
+   *
+   * @return the hash code.
+   */
+  static <T> int cellsHashCode(Matrix<T> matrix, ToIntFunction<? super T> hash) {
+    long h = matrix.height();
+    long w = matrix.width();
+    int defHash = hash.applyAsInt(matrix.getDefaultVal());
+    // Sum of 31 * row + col + 1 over every cell, wrapping like int arithmetic.
+    long weights = 31 * w * (h * (h - 1) / 2) + h * (w * (w + 1) / 2);
+    int[] code = {defHash * (int) weights};
+    matrix.forEachStored((row, col, val) -> {
+      code[0] += (hash.applyAsInt(val) - defHash) * (31 * row + col + 1);
+    });
+    return 31 * (int) (w + 7 * h) + code[0];
+  } // cellsHashCode(Matrix<T>, ToIntFunction<? super T>)
 } // interface Matrix<T>
@@ -0,0 +1,811 @@
+package edu.grinnell.csc207.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Reading and writing matrices in a compact binary format, through NIO channels. Values are
+ * stored with an {@link ElementCodec}, and everything goes through one fixed-size buffer, so
+ * that matrices of any size can be written and read without building strings or arrays
+ * proportional to the matrix.
+ *
+ * <p>The format (all numbers little-endian) is a header</p>
+ *
+ * <pre>
+ *   int   MAGIC ("MTXB")
+ *   byte  VERSION
+ *   byte  layout (DENSE or SPARSE)
+ *   byte  flags (DEFAULT_NULL, HAS_NULLS)
+ *   byte  0
+ *   int   bytes per value
+ *   int   width
+ *   int   height
+ *   ...   the default value (all zeros if it is null)
+ * </pre>
+ *
+ * <p>followed by the cells. In the DENSE layout, each row is its values, in order, preceded
+ * (if HAS_NULLS is set) by a bitmap of the cells in the row that are null; null cells still
+ * take up room for a value. In the SPARSE layout, the cells that differ from the default are
+ * grouped into runs of equal values that are next to each other in row-major order, and each
+ * run is stored as</p>
+ *
+ * <pre>
+ *   long  the row-major index of the first cell
+ *   int   the number of cells
+ *   byte  1 if the cells are null and 0 otherwise
+ *   ...   the value (only if the cells are not null)
+ * </pre>
+ *
+ * <p>ending with a run whose index is END.</p>
+ *
+ * @author Alexander Pollock
+ */
+public class MatrixBinary {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The first four bytes of every matrix ("MTXB").
+   */
+  static final int MAGIC = 0x4D545842;
+
+  /**
+   * The version of the format.
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * The layout that stores every cell.
+   */
+  public static final int DENSE = 0;
+
+  /**
+   * The layout that stores runs of cells that differ from the default.
+   */
+  public static final int SPARSE = 1;
+
+  /**
+   * Flag: the default value is null.
+   */
+  static final int DEFAULT_NULL = 1;
+
+  /**
+   * Flag: rows in the dense layout start with a bitmap of null cells.
+   */
+  static final int HAS_NULLS = 2;
+
+  /**
+   * The index that ends the runs in the sparse layout.
+   */
+  static final long END = -1;
+
+  /**
+   * The number of bytes in a header, not counting the default value.
+   */
+  static final int HEADER_BYTES = 20;
+
+  /**
+   * The number of bytes in a run, not counting the value.
+   */
+  static final int RUN_BYTES = Long.BYTES + Integer.BYTES + 1;
+
+  /**
+   * The size of the buffer used for reading and writing.
+   */
+  static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The number of cells in each band of rows that the sparse layout gathers at a time.
+   */
+  static final int BAND_CELLS = 1 << 12;
+
+  // +------------+--------------------------------------------------
+  // | Interfaces |
+  // +------------+
+
+  /**
+   * A way of making the matrix that read() fills in. Constructors of the Matrix
+   * implementations, such as MatrixV0::new, work.
+   *
+   * @param <T> The type of values stored in the matrix.
+   */
+  public interface Factory<T> {
+    /**
+     * Make a matrix.
+     *
+     * @param width The width of the matrix.
+     * @param height The height of the matrix.
+     * @param def The default value.
+     *
+     * @return a matrix of the given size, holding only the default value.
+     */
+    Matrix<T> newMatrix(int width, int height, T def);
+  } // interface Factory<T>
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Write a matrix, choosing whichever layout is smaller, with the matrix's own default value.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param channel Where to write the matrix.
+   * @param codec How to write values.
+   * @param matrix The matrix to write.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  public static <T> void write(WritableByteChannel channel, ElementCodec<T> codec,
+      Matrix<T> matrix) throws IOException {
+    write(channel, codec, matrix, matrix.getDefaultVal());
+  } // write(WritableByteChannel, ElementCodec<T>, Matrix<T>)
+
+  /**
+   * Write a matrix, choosing whichever layout is smaller.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param channel Where to write the matrix.
+   * @param codec How to write values.
+   * @param matrix The matrix to write.
+   * @param def The default value of the matrix, which the sparse layout leaves out.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  public static <T> void write(WritableByteChannel channel, ElementCodec<T> codec,
+      Matrix<T> matrix, T def) throws IOException {
+    Summary summary = summarize(codec, matrix, def);
+    long cells = (long) matrix.height() * matrix.width();
+    long dense = cells * codec.width();
+    if (summary.nulls > 0) {
+      dense += (long) matrix.height() * bitmapBytes(matrix.width());
+    } // if
+    long sparse = summary.runs * (RUN_BYTES + codec.width()) + Long.BYTES;
+    write(channel, codec, matrix, def, sparse < dense ? SPARSE : DENSE, summary.nulls > 0);
+  } // write(WritableByteChannel, ElementCodec<T>, Matrix<T>, T)
+
+  /**
+   * Write a matrix in a given layout.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param channel Where to write the matrix.
+   * @param codec How to write values.
+   * @param matrix The matrix to write.
+   * @param def The default value of the matrix, which the sparse layout leaves out.
+   * @param layout DENSE or SPARSE.
+   *
+   * @throws IOException If the channel cannot be written.
+   * @throws IllegalArgumentException If the layout is neither DENSE nor SPARSE.
+   */
+  public static <T> void write(WritableByteChannel channel, ElementCodec<T> codec,
+      Matrix<T> matrix, T def, int layout) throws IOException {
+    if (layout != DENSE && layout != SPARSE) {
+      throw new IllegalArgumentException("Unknown layout: " + layout);
+    } // if
+    boolean nulls = layout == DENSE && summarize(codec, matrix, def).nulls > 0;
+    write(channel, codec, matrix, def, layout, nulls);
+  } // write(WritableByteChannel, ElementCodec<T>, Matrix<T>, T, int)
+
+  /**
+   * Read a matrix.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param channel Where to read the matrix from.
+   * @param codec How to read values. Must store values in as many bytes as the codec that
+   *        wrote the matrix.
+   * @param factory How to make the matrix.
+   *
+   * @return the matrix.
+   *
+   * @throws EOFException If the channel ends before the matrix does.
+   * @throws IOException If the channel cannot be read or does not hold a matrix in this format.
+   */
+  public static <T> Matrix<T> read(ReadableByteChannel channel, ElementCodec<T> codec,
+      Factory<T> factory) throws IOException {
+    Input in = new Input(channel, codec.width());
+    ByteBuffer buf = in.need(HEADER_BYTES + codec.width());
+    if (buf.getInt() != MAGIC || buf.get() != VERSION) {
+      throw new IOException("Not a binary matrix");
+    } // if
+    int layout = buf.get();
+    int flags = buf.get();
+    buf.get();
+    int cellBytes = buf.getInt();
+    int width = buf.getInt();
+    int height = buf.getInt();
+    if (cellBytes != codec.width() || width < 0 || height < 0
+        || (layout != DENSE && layout != SPARSE)) {
+      throw new IOException("Bad binary matrix header");
+    } // if
+    T def = readValue(buf, codec, (flags & DEFAULT_NULL) != 0);
+    Matrix<T> matrix = factory.newMatrix(width, height, def);
+    if (layout == DENSE) {
+      readDense(in, codec, matrix, def, (flags & HAS_NULLS) != 0);
+    } else {
+      readSparse(in, codec, matrix);
+    } // if/else
+    return matrix;
+  } // read(ReadableByteChannel, ElementCodec<T>, Factory<T>)
+
+  // +-----------------+---------------------------------------------
+  // | Private methods |
+  // +-----------------+
+
+  /**
+   * Write a matrix.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param channel Where to write the matrix.
+   * @param codec How to write values.
+   * @param matrix The matrix to write.
+   * @param def The default value of the matrix.
+   * @param layout DENSE or SPARSE.
+   * @param nulls Whether dense rows need null bitmaps.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  private static <T> void write(WritableByteChannel channel, ElementCodec<T> codec,
+      Matrix<T> matrix, T def, int layout, boolean nulls) throws IOException {
+    Output out = new Output(channel, codec.width());
+    ByteBuffer buf = out.room(HEADER_BYTES + codec.width());
+    buf.putInt(MAGIC);
+    buf.put(VERSION);
+    buf.put((byte) layout);
+    buf.put((byte) ((def == null ? DEFAULT_NULL : 0) | (nulls ? HAS_NULLS : 0)));
+    buf.put((byte) 0);
+    buf.putInt(codec.width());
+    buf.putInt(matrix.width());
+    buf.putInt(matrix.height());
+    writeValue(buf, codec, def);
+    if (layout == DENSE) {
+      writeDense(out, codec, matrix, nulls);
+    } else {
+      writeSparse(out, codec, matrix, def);
+    } // if/else
+    out.finish();
+  } // write(WritableByteChannel, ElementCodec<T>, Matrix<T>, T, int, boolean)
+
+  /**
+   * Write the cells of a matrix in the dense layout.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param out Where to write the cells.
+   * @param codec How to write values.
+   * @param matrix The matrix.
+   * @param nulls Whether to start each row with a bitmap of null cells.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  private static <T> void writeDense(Output out, ElementCodec<T> codec, Matrix<T> matrix,
+      boolean nulls) throws IOException {
+    int width = matrix.width();
+    for (int row = 0; row < matrix.height(); row++) {
+      if (nulls) {
+        byte bits = 0;
+        for (int col = 0; col < width; col++) {
+          if (matrix.get(row, col) == null) {
+            bits |= (byte) (1 << (col & 7));
+          } // if
+          if ((col & 7) == 7 || col == width - 1) {
+            out.room(1).put(bits);
+            bits = 0;
+          } // if
+        } // for
+      } // if
+      for (int col = 0; col < width; col++) {
+        writeValue(out.room(codec.width()), codec, matrix.get(row, col));
+      } // for
+    } // for
+  } // writeDense(Output, ElementCodec<T>, Matrix<T>, boolean)
+
+  /**
+   * Write the cells of a matrix in the sparse layout. When def is the matrix's own default,
+   * only the cells that forEachStored visits are read.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param out Where to write the cells.
+   * @param codec How to write values.
+   * @param matrix The matrix.
+   * @param def The default value, which is left out.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  private static <T> void writeSparse(Output out, ElementCodec<T> codec, Matrix<T> matrix,
+      T def) throws IOException {
+    Band<T> band = new Band<T>(matrix, same(codec, def, matrix.getDefaultVal()));
+    long start = END;
+    int count = 0;
+    T runVal = null;
+    for (int row = 0; row < matrix.height(); row += band.rows) {
+      band.load(row, Math.min(row + band.rows, matrix.height()));
+      for (int i = 0; i < band.size; i++) {
+        long key = band.keys[i];
+        T val = band.val(i);
+        if (start != END && key == start + count && count < Integer.MAX_VALUE
+            && same(codec, val, runVal)) {
+          count++;
+          continue;
+        } // if
+        if (start != END) {
+          writeRun(out, codec, start, count, runVal);
+          start = END;
+        } // if
+        if (!same(codec, val, def)) {
+          start = key;
+          count = 1;
+          runVal = val;
+        } // if
+      } // for
+      // Runs may continue into the next band, so we do not end them here.
+    } // for
+    if (start != END) {
+      writeRun(out, codec, start, count, runVal);
+    } // if
+    out.room(Long.BYTES).putLong(END);
+  } // writeSparse(Output, ElementCodec<T>, Matrix<T>, T)
+
+  /**
+   * Write one run of the sparse layout.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param out Where to write the run.
+   * @param codec How to write values.
+   * @param start The row-major index of the first cell.
+   * @param count The number of cells.
+   * @param val The value of the cells.
+   *
+   * @throws IOException If the channel cannot be written.
+   */
+  private static <T> void writeRun(Output out, ElementCodec<T> codec, long start, int count,
+      T val) throws IOException {
+    ByteBuffer buf = out.room(RUN_BYTES + codec.width());
+    buf.putLong(start);
+    buf.putInt(count);
+    buf.put((byte) (val == null ? 1 : 0));
+    if (val != null) {
+      writeValue(buf, codec, val);
+    } // if
+  } // writeRun(Output, ElementCodec<T>, long, int, T)
+
+  /**
+   * Read the cells of a matrix in the dense layout. Cells that hold the default are left alone.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param in Where to read the cells from.
+   * @param codec How to read values.
+   * @param matrix The matrix, which holds only the default.
+   * @param def The default value.
+   * @param nulls Whether each row starts with a bitmap of null cells.
+   *
+   * @throws IOException If the channel cannot be read.
+   */
+  private static <T> void readDense(Input in, ElementCodec<T> codec, Matrix<T> matrix, T def,
+      boolean nulls) throws IOException {
+    int width = matrix.width();
+    byte[] bitmap = new byte[nulls ? bitmapBytes(width) : 0];
+    for (int row = 0; row < matrix.height(); row++) {
+      for (int i = 0; i < bitmap.length; i += BUFFER_SIZE) {
+        int n = Math.min(BUFFER_SIZE, bitmap.length - i);
+        in.need(n).get(bitmap, i, n);
+      } // for
+      for (int col = 0; col < width; col++) {
+        boolean isNull = nulls && (bitmap[col >>> 3] & (1 << (col & 7))) != 0;
+        T val = readValue(in.need(codec.width()), codec, isNull);
+        if (!same(codec, val, def)) {
+          matrix.set(row, col, val);
+        } // if
+      } // for
+    } // for
+  } // readDense(Input, ElementCodec<T>, Matrix<T>, T, boolean)
+
+  /**
+   * Read the cells of a matrix in the sparse layout, filling each run a row at a time.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param in Where to read the cells from.
+   * @param codec How to read values.
+   * @param matrix The matrix, which holds only the default.
+   *
+   * @throws IOException If the channel cannot be read or a run is outside the matrix.
+   */
+  private static <T> void readSparse(Input in, ElementCodec<T> codec, Matrix<T> matrix)
+      throws IOException {
+    int width = matrix.width();
+    long cells = (long) matrix.height() * width;
+    long start = in.need(Long.BYTES).getLong();
+    while (start != END) {
+      ByteBuffer buf = in.need(Integer.BYTES + 1);
+      int count = buf.getInt();
+      boolean isNull = buf.get() != 0;
+      T val = isNull ? null : readValue(in.need(codec.width()), codec, false);
+      if (start < 0 || count <= 0 || start + count > cells) {
+        throw new IOException("Run outside the matrix: " + start + "+" + count);
+      } // if
+      long end = start + count;
+      while (start < end) {
+        int row = (int) (start / width);
+        int col = (int) (start % width);
+        int stop = (int) Math.min(width, col + end - start);
+        matrix.fillRegion(row, col, row + 1, stop, val);
+        start += stop - col;
+      } // while
+      start = in.need(Long.BYTES).getLong();
+    } // while
+  } // readSparse(Input, ElementCodec<T>, Matrix<T>)
+
+  /**
+   * Write a value, or zeros in its place if it is null.
+   *
+   * @param <T> The type of the value.
+   * @param buf Where to write the value.
+   * @param codec How to write values.
+   * @param val The value.
+   */
+  private static <T> void writeValue(ByteBuffer buf, ElementCodec<T> codec, T val) {
+    int pos = buf.position();
+    if (val == null) {
+      for (int i = 0; i < codec.width(); i++) {
+        buf.put(pos + i, (byte) 0);
+      } // for
+    } else {
+      codec.write(buf, pos, val);
+    } // if/else
+    buf.position(pos + codec.width());
+  } // writeValue(ByteBuffer, ElementCodec<T>, T)
+
+  /**
+   * Read a value written by writeValue.
+   *
+   * @param <T> The type of the value.
+   * @param buf Where to read the value from.
+   * @param codec How to read values.
+   * @param isNull Whether the value is null.
+   *
+   * @return the value.
+   */
+  private static <T> T readValue(ByteBuffer buf, ElementCodec<T> codec, boolean isNull) {
+    int pos = buf.position();
+    buf.position(pos + codec.width());
+    return isNull ? null : codec.read(buf, pos);
+  } // readValue(ByteBuffer, ElementCodec<T>, boolean)
+
+  /**
+   * Determine whether two values, either of which may be null, are the same.
+   *
+   * @param <T> The type of the values.
+   * @param codec The codec that says which values are the same.
+   * @param a One value.
+   * @param b Another value.
+   *
+   * @return true if both are null or the codec says they are the same, and false otherwise.
+   */
+  private static <T> boolean same(ElementCodec<T> codec, T a, T b) {
+    if (a == null || b == null) {
+      return a == b;
+    } // if
+    return codec.same(a, b);
+  } // same(ElementCodec<T>, T, T)
+
+  /**
+   * Determine the number of bytes in the null bitmap of a row.
+   *
+   * @param width The width of the matrix.
+   *
+   * @return the number of bytes.
+   */
+  private static int bitmapBytes(int width) {
+    return (width + 7) >>> 3;
+  } // bitmapBytes(int)
+
+  /**
+   * Count the runs and the null cells in a matrix, for choosing a layout. When def is the
+   * matrix's own default, only the cells that forEachStored visits are read.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param codec The codec that says which values are the same.
+   * @param matrix The matrix.
+   * @param def The default value.
+   *
+   * @return the counts.
+   */
+  private static <T> Summary summarize(ElementCodec<T> codec, Matrix<T> matrix, T def) {
+    Summary summary = new Summary();
+    Band<T> band = new Band<T>(matrix, same(codec, def, matrix.getDefaultVal()));
+    long visited = 0;
+    long next = END;
+    T runVal = null;
+    for (int row = 0; row < matrix.height(); row += band.rows) {
+      band.load(row, Math.min(row + band.rows, matrix.height()));
+      visited += band.size;
+      for (int i = 0; i < band.size; i++) {
+        long key = band.keys[i];
+        T val = band.val(i);
+        if (val == null) {
+          summary.nulls++;
+        } // if
+        if (key == next && same(codec, val, runVal)) {
+          next++;
+          continue;
+        } // if
+        next = END;
+        if (!same(codec, val, def)) {
+          summary.runs++;
+          runVal = val;
+          next = key + 1;
+        } // if
+      } // for
+    } // for
+    if (def == null) {
+      // The cells we did not visit hold the default.
+      summary.nulls += (long) matrix.height() * matrix.width() - visited;
+    } // if
+    return summary;
+  } // summarize(ElementCodec<T>, Matrix<T>, T)
+
+  // +---------------+-----------------------------------------------
+  // | Local classes |
+  // +---------------+
+
+  /**
+   * The counts that decide which layout to write.
+   */
+  private static class Summary {
+    /**
+     * The number of runs in the sparse layout.
+     */
+    long runs;
+
+    /**
+     * The number of null cells.
+     */
+    long nulls;
+  } // class Summary
+
+  /**
+   * The cells of a band of rows, in row-major order: either just the cells that forEachStored
+   * visits, or every cell.
+   *
+   * @param <T> The type of values stored in the matrix.
+   */
+  private static class Band<T> {
+    /**
+     * The matrix.
+     */
+    final Matrix<T> matrix;
+
+    /**
+     * Whether to gather only the cells that forEachStored visits.
+     */
+    final boolean stored;
+
+    /**
+     * The number of rows to load at a time.
+     */
+    final int rows;
+
+    /**
+     * The row-major indices of the cells.
+     */
+    long[] keys;
+
+    /**
+     * The values of the cells.
+     */
+    Object[] vals;
+
+    /**
+     * The number of cells.
+     */
+    int size;
+
+    /**
+     * Whether the cells were gathered in row-major order.
+     */
+    boolean sorted;
+
+    /**
+     * Set up the bands of a matrix.
+     *
+     * @param source The matrix.
+     * @param onlyStored Whether to gather only the cells that forEachStored visits.
+     */
+    Band(Matrix<T> source, boolean onlyStored) {
+      this.matrix = source;
+      this.stored = onlyStored;
+      this.rows = Math.max(1, BAND_CELLS / Math.max(1, source.width()));
+      this.keys = new long[16];
+      this.vals = new Object[16];
+    } // Band(Matrix<T>, boolean)
+
+    /**
+     * Gather the cells of some rows.
+     *
+     * @param startRow The first row (inclusive).
+     * @param endRow The last row (exclusive).
+     */
+    void load(int startRow, int endRow) {
+      int width = this.matrix.width();
+      this.size = 0;
+      this.sorted = true;
+      if (this.stored) {
+        this.matrix.forEachStored(startRow, endRow,
+            (row, col, val) -> this.add((long) row * width + col, val));
+      } else {
+        for (int row = startRow; row < endRow; row++) {
+          for (int col = 0; col < width; col++) {
+            this.add((long) row * width + col, this.matrix.get(row, col));
+          } // for
+        } // for
+      } // if/else
+      if (!this.sorted) {
+        this.sort((long) startRow * width);
+      } // if
+    } // load(int, int)
+
+    /**
+     * Get the value of a cell.
+     *
+     * @param i The position of the cell in the band.
+     *
+     * @return the value.
+     */
+    @SuppressWarnings("unchecked")
+    T val(int i) {
+      return (T) this.vals[i];
+    } // val(int)
+
+    /**
+     * Add a cell to the band.
+     *
+     * @param key The row-major index of the cell.
+     * @param val The value of the cell.
+     */
+    private void add(long key, Object val) {
+      if (this.size == this.keys.length) {
+        this.keys = Arrays.copyOf(this.keys, this.size * 2);
+        this.vals = Arrays.copyOf(this.vals, this.size * 2);
+      } // if
+      if (this.size > 0 && key < this.keys[this.size - 1]) {
+        this.sorted = false;
+      } // if
+      this.keys[this.size] = key;
+      this.vals[this.size++] = val;
+    } // add(long, Object)
+
+    /**
+     * Put the cells in row-major order. A band covers fewer than 2^31 cells, so each cell's
+     * offset in the band and its position fit together in one long, and we sort those.
+     *
+     * @param base The row-major index of the first cell of the band.
+     */
+    private void sort(long base) {
+      long[] order = new long[this.size];
+      for (int i = 0; i < this.size; i++) {
+        order[i] = ((this.keys[i] - base) << 32) | i;
+      } // for
+      Arrays.sort(order);
+      long[] sortedKeys = new long[this.keys.length];
+      Object[] sortedVals = new Object[this.vals.length];
+      for (int i = 0; i < this.size; i++) {
+        int j = (int) order[i];
+        sortedKeys[i] = this.keys[j];
+        sortedVals[i] = this.vals[j];
+      } // for
+      this.keys = sortedKeys;
+      this.vals = sortedVals;
+    } // sort(long)
+  } // class Band
+
+  /**
+   * A buffer that is written to a channel whenever it fills up.
+   */
+  private static class Output {
+    /**
+     * Where the bytes go.
+     */
+    final WritableByteChannel channel;
+
+    /**
+     * The bytes not yet written.
+     */
+    final ByteBuffer buf;
+
+    /**
+     * Set up a buffer for a channel.
+     *
+     * @param out Where the bytes go.
+     * @param cellBytes The number of bytes in a value, which must fit in the buffer.
+     */
+    Output(WritableByteChannel out, int cellBytes) {
+      this.channel = out;
+      this.buf = ByteBuffer.allocate(Math.max(BUFFER_SIZE, cellBytes + HEADER_BYTES + RUN_BYTES))
+          .order(ByteOrder.LITTLE_ENDIAN);
+    } // Output(WritableByteChannel, int)
+
+    /**
+     * Make room for some bytes, writing out what is in the buffer if necessary.
+     *
+     * @param n The number of bytes.
+     *
+     * @return the buffer, with room for n bytes at its position.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    ByteBuffer room(int n) throws IOException {
+      if (this.buf.remaining() < n) {
+        this.finish();
+      } // if
+      return this.buf;
+    } // room(int)
+
+    /**
+     * Write out what is in the buffer.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    void finish() throws IOException {
+      this.buf.flip();
+      while (this.buf.hasRemaining()) {
+        this.channel.write(this.buf);
+      } // while
+      this.buf.clear();
+    } // finish()
+  } // class Output
+
+  /**
+   * A buffer that is refilled from a channel whenever it runs out.
+   */
+  private static class Input {
+    /**
+     * Where the bytes come from.
+     */
+    final ReadableByteChannel channel;
+
+    /**
+     * The bytes read but not yet used.
+     */
+    final ByteBuffer buf;
+
+    /**
+     * Set up a buffer for a channel.
+     *
+     * @param in Where the bytes come from.
+     * @param cellBytes The number of bytes in a value, which must fit in the buffer.
+     */
+    Input(ReadableByteChannel in, int cellBytes) {
+      this.channel = in;
+      this.buf = ByteBuffer.allocate(Math.max(BUFFER_SIZE, cellBytes + HEADER_BYTES + RUN_BYTES))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      this.buf.flip();
+    } // Input(ReadableByteChannel, int)
+
+    /**
+     * Make sure that some bytes are available, reading from the channel if necessary.
+     *
+     * @param n The number of bytes.
+     *
+     * @return the buffer, with at least n bytes at its position.
+     *
+     * @throws EOFException If the channel ends first.
+     * @throws IOException If the channel cannot be read.
+     */
+    ByteBuffer need(int n) throws IOException {
+      if (this.buf.remaining() < n) {
+        this.buf.compact();
+        while (this.buf.position() < n) {
+          if (this.channel.read(this.buf) < 0) {
+            throw new EOFException("Binary matrix ends early");
+          } // if
+        } // while
+        this.buf.flip();
+      } // if
+      return this.buf;
+    } // need(int)
+  } // class Input
+} // class MatrixBinary
@@ -0,0 +1,414 @@
+package edu.grinnell.csc207.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reading and writing matrices as comma- or tab-separated text, one row per line. Both
+ * directions stream: reading holds one row of values and one cell of text at a time, and
+ * writing builds each line in a buffer that is reused from line to line.
+ *
+ * <p>As in {@link Matrix#toString(Object)}, a cell that holds null is written as a slash.
+ * Cells that contain the separator, quotation marks, or line breaks, and non-null cells
+ * whose text is a slash, are written in quotation marks, with quotation marks inside doubled.
+ * </p>
+ *
+ * @author Alexander Pollock
+ */
+public class MatrixCsv {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The separator of comma-separated values.
+   */
+  public static final char COMMA = ',';
+
+  /**
+   * The separator of tab-separated values.
+   */
+  public static final char TAB = '\t';
+
+  /**
+   * The text of a null cell.
+   */
+  static final String NULL = "/";
+
+  /**
+   * The number of characters read from the input at a time.
+   */
+  static final int BUFFER_SIZE = 8192;
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Read rows of values into a matrix. Line i of the input replaces row i of the matrix;
+   * lines past the last row are added to the bottom of the matrix with insertRow. If the
+   * matrix has no rows, columns are added to match the first line. Blank lines are skipped.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param in Where to read the text.
+   * @param separator The character between cells, such as COMMA or TAB.
+   * @param parser How to turn the text of a cell into a value.
+   * @param matrix The matrix to fill in.
+   *
+   * @return the number of rows read.
+   *
+   * @throws IOException If the input cannot be read, a quotation is not closed, or a cell
+   *         cannot be parsed.
+   * @throws ArraySizeException If a line does not have one cell for each column.
+   */
+  public static <T> int read(Reader in, char separator, CellParser<T> parser, Matrix<T> matrix)
+      throws IOException, ArraySizeException {
+    return new Parser<T>(in, separator, parser, matrix).run();
+  } // read(Reader, char, CellParser<T>, Matrix<T>)
+
+  /**
+   * Read rows of UTF-8 text into a matrix, as read(Reader, ...) does.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param in Where to read the text.
+   * @param separator The character between cells, such as COMMA or TAB.
+   * @param parser How to turn the text of a cell into a value.
+   * @param matrix The matrix to fill in.
+   *
+   * @return the number of rows read.
+   *
+   * @throws IOException If the input cannot be read, a quotation is not closed, or a cell
+   *         cannot be parsed.
+   * @throws ArraySizeException If a line does not have one cell for each column.
+   */
+  public static <T> int read(ReadableByteChannel in, char separator, CellParser<T> parser,
+      Matrix<T> matrix) throws IOException, ArraySizeException {
+    return read(Channels.newReader(in, StandardCharsets.UTF_8), separator, parser, matrix);
+  } // read(ReadableByteChannel, char, CellParser<T>, Matrix<T>)
+
+  /**
+   * Write a matrix, one line per row.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param out Where to write the text. Not flushed or closed.
+   * @param separator The character between cells, such as COMMA or TAB.
+   * @param matrix The matrix to write.
+   *
+   * @throws IOException If the output cannot be written.
+   */
+  public static <T> void write(Writer out, char separator, Matrix<T> matrix)
+      throws IOException {
+    StringBuilder line = new StringBuilder();
+    char[] chars = new char[BUFFER_SIZE];
+    for (int row = 0; row < matrix.height(); row++) {
+      line.setLength(0);
+      for (int col = 0; col < matrix.width(); col++) {
+        if (col > 0) {
+          line.append(separator);
+        } // if
+        T val = matrix.get(row, col);
+        appendCell(line, separator, Matrix.toString(val), val != null);
+      } // for
+      line.append('\n');
+      if (chars.length < line.length()) {
+        chars = new char[Math.max(line.length(), chars.length * 2)];
+      } // if
+      line.getChars(0, line.length(), chars, 0);
+      out.write(chars, 0, line.length());
+    } // for
+  } // write(Writer, char, Matrix<T>)
+
+  /**
+   * Write a matrix as UTF-8 text, as write(Writer, ...) does.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param out Where to write the text.
+   * @param separator The character between cells, such as COMMA or TAB.
+   * @param matrix The matrix to write.
+   *
+   * @throws IOException If the output cannot be written.
+   */
+  public static <T> void write(WritableByteChannel out, char separator, Matrix<T> matrix)
+      throws IOException {
+    Writer writer = Channels.newWriter(out, StandardCharsets.UTF_8);
+    write(writer, separator, matrix);
+    writer.flush();
+  } // write(WritableByteChannel, char, Matrix<T>)
+
+  // +-----------------+---------------------------------------------
+  // | Private methods |
+  // +-----------------+
+
+  /**
+   * Add the text of a cell to a line, in quotation marks if necessary.
+   *
+   * @param line The line.
+   * @param separator The character between cells.
+   * @param text The text of the cell.
+   * @param quoteSlash Whether a lone slash needs quotation marks (because it is not null).
+   */
+  private static void appendCell(StringBuilder line, char separator, String text,
+      boolean quoteSlash) {
+    boolean quote = quoteSlash && text.equals(NULL);
+    for (int i = 0; i < text.length() && !quote; i++) {
+      char ch = text.charAt(i);
+      quote = ch == separator || ch == '"' || ch == '\n' || ch == '\r';
+    } // for
+    if (!quote) {
+      line.append(text);
+      return;
+    } // if
+    line.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char ch = text.charAt(i);
+      if (ch == '"') {
+        line.append('"');
+      } // if
+      line.append(ch);
+    } // for
+    line.append('"');
+  } // appendCell(StringBuilder, char, String, boolean)
+
+  // +---------------+-----------------------------------------------
+  // | Local classes |
+  // +---------------+
+
+  /**
+   * The state of one read: the input, the cell being read, and the row being read.
+   *
+   * @param <T> The type of values stored in the matrix.
+   */
+  private static class Parser<T> {
+    /**
+     * Where the text comes from.
+     */
+    final Reader in;
+
+    /**
+     * The character between cells.
+     */
+    final char separator;
+
+    /**
+     * How to turn text into values.
+     */
+    final CellParser<T> parser;
+
+    /**
+     * The matrix being filled in.
+     */
+    final Matrix<T> matrix;
+
+    /**
+     * Characters read but not yet used.
+     */
+    final char[] chars = new char[BUFFER_SIZE];
+
+    /**
+     * The next character of chars to use.
+     */
+    int pos;
+
+    /**
+     * The number of characters in chars.
+     */
+    int limit;
+
+    /**
+     * The text of the current cell.
+     */
+    final StringBuilder cell = new StringBuilder();
+
+    /**
+     * The values of the current row, reused from row to row. (Matrix implementations copy
+     * the values they are given.)
+     */
+    T[] vals;
+
+    /**
+     * The number of values in the current row.
+     */
+    int count;
+
+    /**
+     * The number of rows read so far.
+     */
+    int rows;
+
+    /**
+     * Set up a read.
+     *
+     * @param reader Where the text comes from.
+     * @param sep The character between cells.
+     * @param cellParser How to turn text into values.
+     * @param target The matrix to fill in.
+     */
+    @SuppressWarnings("unchecked")
+    Parser(Reader reader, char sep, CellParser<T> cellParser, Matrix<T> target) {
+      this.in = reader;
+      this.separator = sep;
+      this.parser = cellParser;
+      this.matrix = target;
+      this.vals = (T[]) new Object[Math.max(1, target.width())];
+    } // Parser(Reader, char, CellParser<T>, Matrix<T>)
+
+    /**
+     * Read everything.
+     *
+     * @return the number of rows read.
+     *
+     * @throws IOException If the input cannot be read or is malformed.
+     * @throws ArraySizeException If a line does not have one cell for each column.
+     */
+    int run() throws IOException, ArraySizeException {
+      int ch = this.next();
+      while (ch >= 0) {
+        if (ch == '\n' || ch == '\r') {
+          ch = this.next();
+          continue;
+        } // if
+        ch = this.readRow(ch);
+      } // while
+      return this.rows;
+    } // run()
+
+    /**
+     * Read one line and store it in the matrix.
+     *
+     * @param first The first character of the line.
+     *
+     * @return the character after the line, or -1 at the end of the input.
+     *
+     * @throws IOException If the input cannot be read or is malformed.
+     * @throws ArraySizeException If the line does not have one cell for each column.
+     */
+    int readRow(int first) throws IOException, ArraySizeException {
+      this.count = 0;
+      int ch = first;
+      while (true) {
+        ch = this.readCell(ch);
+        if (ch != this.separator) {
+          break;
+        } // if
+        ch = this.next();
+      } // while
+      this.storeRow();
+      return ch;
+    } // readRow(int)
+
+    /**
+     * Read one cell and add its value to the row.
+     *
+     * @param first The first character of the cell.
+     *
+     * @return the character after the cell: a separator, a line break, or -1.
+     *
+     * @throws IOException If the input cannot be read or is malformed.
+     */
+    int readCell(int first) throws IOException {
+      this.cell.setLength(0);
+      boolean quoted = first == '"';
+      int ch = first;
+      if (quoted) {
+        ch = this.next();
+        while (true) {
+          if (ch < 0) {
+            throw new IOException("Line " + (this.rows + 1) + ": unclosed quotation");
+          } // if
+          if (ch == '"') {
+            ch = this.next();
+            if (ch != '"') {
+              break;
+            } // if
+          } // if
+          this.cell.append((char) ch);
+          ch = this.next();
+        } // while
+      } // if
+      while (ch >= 0 && ch != this.separator && ch != '\n' && ch != '\r') {
+        this.cell.append((char) ch);
+        ch = this.next();
+      } // while
+      this.addValue(quoted);
+      return ch;
+    } // readCell(int)
+
+    /**
+     * Parse the current cell and add its value to the row.
+     *
+     * @param quoted Whether the cell was in quotation marks, so cannot be null.
+     *
+     * @throws IOException If the cell cannot be parsed.
+     */
+    void addValue(boolean quoted) throws IOException {
+      T val;
+      if (!quoted && this.cell.length() == 1 && this.cell.charAt(0) == '/') {
+        val = null;
+      } else {
+        try {
+          val = this.parser.parse(this.cell);
+        } catch (RuntimeException e) {
+          throw new IOException("Line " + (this.rows + 1) + ", cell " + (this.count + 1)
+              + ": cannot parse \"" + this.cell + "\"", e);
+        } // try/catch
+      } // if/else
+      if (this.count == this.vals.length) {
+        this.vals = Arrays.copyOf(this.vals, this.count * 2);
+      } // if
+      this.vals[this.count++] = val;
+    } // addValue(boolean)
+
+    /**
+     * Store the current row in the matrix.
+     *
+     * @throws ArraySizeException If the row does not have one value for each column.
+     */
+    void storeRow() throws ArraySizeException {
+      if (this.matrix.height() == 0) {
+        while (this.matrix.width() < this.count) {
+          this.matrix.insertCol(this.matrix.width());
+        } // while
+      } // if
+      if (this.count != this.matrix.width()) {
+        throw new ArraySizeException("Line " + (this.rows + 1) + " has " + this.count
+            + " cells, not " + this.matrix.width());
+      } // if
+      if (this.rows < this.matrix.height()) {
+        for (int col = 0; col < this.count; col++) {
+          this.matrix.set(this.rows, col, this.vals[col]);
+        } // for
+      } else {
+        T[] row = (this.vals.length == this.count) ? this.vals : Arrays.copyOf(this.vals,
+            this.count);
+        this.matrix.insertRow(this.matrix.height(), row);
+        this.vals = row;
+      } // if/else
+      this.rows++;
+    } // storeRow()
+
+    /**
+     * Get the next character of the input.
+     *
+     * @return the character, or -1 at the end of the input.
+     *
+     * @throws IOException If the input cannot be read.
+     */
+    int next() throws IOException {
+      if (this.pos == this.limit) {
+        this.limit = this.in.read(this.chars, 0, this.chars.length);
+        this.pos = 0;
+        if (this.limit <= 0) {
+          this.limit = 0;
+          return -1;
+        } // if
+      } // if
+      return this.chars[this.pos++];
+    } // next()
+  } // class Parser<T>
+} // class MatrixCsv
@@ -0,0 +1,677 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * An implementation of two-dimensional matrices that stores every cell in one array, in
+ * row-major order. Intended for matrices in which most cells hold something other than the
+ * default value.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixDense<T> implements Matrix<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width. Also the distance between the starts of consecutive rows in cells.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * The cells. Cell (row,col) is at index row * w + col.
+   */
+  private Object[] cells;
+
+  /**
+   * The number of matrices (this one, its clones, and the matrix it was cloned from) that use
+   * the array of cells, or null if no other matrix has used it. Shared by all of those
+   * matrices, so the last one left can change the cells without copying them.
+   */
+  private AtomicInteger holders;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixDense(int width, int height, T def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.cells = new Object[Math.multiplyExact(width, height)];
+    if (def != null) {
+      Arrays.fill(this.cells, def);
+    } // if
+  } // MatrixDense(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixDense(int width, int height) {
+    this(width, height, null);
+  } // MatrixDense(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    return (T) this.cells[row * this.w + col];
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    this.unshare();
+    this.cells[row * this.w + col] = val;
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    this.openRow(row);
+    Arrays.fill(this.cells, row * this.w, (row + 1) * this.w, this.defaultVal);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.openRow(row);
+    System.arraycopy(vals, 0, this.cells, row * this.w, this.w);
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.cells[r * this.w + col] = this.defaultVal;
+    } // for
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.cells[r * this.w + col] = vals[r];
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    Object[] newCells = new Object[(this.h - 1) * this.w];
+    System.arraycopy(this.cells, 0, newCells, 0, row * this.w);
+    System.arraycopy(this.cells, (row + 1) * this.w, newCells, row * this.w,
+        (this.h - row - 1) * this.w);
+    this.cells = newCells;
+    this.release();
+    this.h--;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w - 1;
+    Object[] newCells = new Object[this.h * newW];
+    for (int r = 0; r < this.h; r++) {
+      System.arraycopy(this.cells, r * this.w, newCells, r * newW, col);
+      System.arraycopy(this.cells, r * this.w + col + 1, newCells, r * newW + col, newW - col);
+    } // for
+    this.cells = newCells;
+    this.release();
+    this.w = newW;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    for (int r = startRow; r < endRow; r++) {
+      Arrays.fill(this.cells, r * this.w + startCol, r * this.w + endCol, val);
+    } // for
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Copy a rectangular region of the matrix into an array, row by row.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals Where to put the values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void getRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int cols = endCol - startCol;
+    for (int r = startRow; r < endRow; r++) {
+      System.arraycopy(this.cells, r * this.w + startCol, vals, (r - startRow) * cols, cols);
+    } // for
+  } // getRegion(int, int, int, int, T[])
+
+  /**
+   * Set every cell of a rectangular region of the matrix from an array, row by row.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals The new values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void setRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    this.unshare();
+    int cols = endCol - startCol;
+    for (int r = startRow; r < endRow; r++) {
+      System.arraycopy(vals, (r - startRow) * cols, this.cells, r * this.w + startCol, cols);
+    } // for
+  } // setRegion(int, int, int, int, T[])
+
+  /**
+   * Fill a rectangular region of the matrix, splitting its rows into bands of at most threshold
+   * cells and filling the bands on the common fork/join pool.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   * @param threshold The number of cells below which a band is not split further.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegionParallel(int startRow, int startCol, int endRow, int endCol, T val,
+      int threshold) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startRow >= endRow || startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    Object[] cells = this.cells;
+    int width = this.w;
+    RowBands.run(startRow, endRow, endCol - startCol, threshold, 1, (r0, r1) -> {
+      for (int r = r0; r < r1; r++) {
+        Arrays.fill(cells, r * width + startCol, r * width + endCol, val);
+      } // for
+    });
+  } // fillRegionParallel(int, int, int, int, T, int)
+
+  /**
+   * Replace the value of every cell by the result of applying a function to it.
+   *
+   * @param fun The function to apply.
+   */
+  public void mapInPlace(UnaryOperator<T> fun) {
+    this.unshare();
+    mapCells(this.cells, 0, this.cells.length, fun);
+  } // mapInPlace(UnaryOperator<T>)
+
+  /**
+   * Replace the value of every cell by the result of applying a function to it, splitting the
+   * rows into bands of at most threshold cells and mapping the bands on the common fork/join
+   * pool.
+   *
+   * @param fun The function to apply. Must be safe to call from several threads at once.
+   * @param threshold The number of cells below which a band is not split further.
+   */
+  public void mapInPlaceParallel(UnaryOperator<T> fun, int threshold) {
+    this.unshare();
+    Object[] cells = this.cells;
+    int width = this.w;
+    RowBands.run(0, this.h, width, threshold, 1,
+        (r0, r1) -> mapCells(cells, r0 * width, r1 * width, fun));
+  } // mapInPlaceParallel(UnaryOperator<T>, int)
+
+  /**
+   * Apply a function to every cell, giving a new MatrixDense of the same size.
+   *
+   * @param fun The function to apply.
+   *
+   * @return the new matrix.
+   */
+  public <U> Matrix<U> map(Function<? super T, ? extends U> fun) {
+    MatrixDense<U> result = this.mapped();
+    mapCells(this.cells, result.cells, 0, this.cells.length, fun);
+    result.defaultVal = this.mappedDefault(result, fun);
+    return result;
+  } // map(Function<? super T, ? extends U>)
+
+  /**
+   * Apply a function to every cell, giving a new MatrixDense of the same size, with bands of
+   * rows mapped on the common fork/join pool.
+   *
+   * @param fun The function to apply. Must be safe to call from several threads at once.
+   *
+   * @return the new matrix.
+   */
+  public <U> Matrix<U> mapParallel(Function<? super T, ? extends U> fun) {
+    MatrixDense<U> result = this.mapped();
+    Object[] from = this.cells;
+    int width = this.w;
+    RowBands.run(0, this.h, width, RowBands.DEFAULT_THRESHOLD, 1,
+        (r0, r1) -> mapCells(from, result.cells, r0 * width, r1 * width, fun));
+    result.defaultVal = this.mappedDefault(result, fun);
+    return result;
+  } // mapParallel(Function<? super T, ? extends U>)
+
+  /**
+   * Visit every cell in a band of rows, row by row.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    for (int r = startRow; r < endRow; r++) {
+      for (int c = 0; c < this.w; c++) {
+        action.accept(r, c, (T) this.cells[r * this.w + c]);
+      } // for
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * A make a copy of the matrix. The copy shares the values with this matrix. Takes constant
+   * time: the two matrices share one array until one of them changes a cell. Since the cells
+   * must stay in one array, the first change copies all of them, but only in matrices that
+   * still share the array with another.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    MatrixDense<T> cloned = new MatrixDense<T>(0, 0, this.defaultVal);
+    cloned.w = this.w;
+    cloned.h = this.h;
+    cloned.cells = this.cells;
+    if (this.holders == null) {
+      this.holders = new AtomicInteger(1);
+    } // if
+    this.holders.incrementAndGet();
+    cloned.holders = this.holders;
+    return cloned;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  @SuppressWarnings("rawtypes")
+  public boolean equals(Object other) {
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix otherMatrix = (Matrix) other;
+    if (otherMatrix.height() != this.h || otherMatrix.width() != this.w) {
+      return false;
+    } // if
+    for (int r = 0; r < this.h; r++) {
+      for (int c = 0; c < this.w; c++) {
+        if (!Objects.equals(this.cells[r * this.w + c], otherMatrix.get(r, c))) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. Uses Matrix.cellsHashCode, so that equal matrices of
+   * any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a cell is in the matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  private void checkCell(int row, int col) {
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Make a matrix of the same size to hold the results of mapping a function over this one,
+   * without filling in its cells or choosing its default.
+   *
+   * @return the new matrix.
+   */
+  private <U> MatrixDense<U> mapped() {
+    MatrixDense<U> result = new MatrixDense<U>(0, 0, null);
+    result.w = this.w;
+    result.h = this.h;
+    result.cells = new Object[this.cells.length];
+    return result;
+  } // mapped()
+
+  /**
+   * Choose the default of a matrix that holds the results of mapping a function over this one.
+   * If some cell holds our default, the new default is the function applied to it. Otherwise
+   * we never apply the function to the default (it may be a value, such as null, that the
+   * function cannot take), and use the new value of the cell in row 0, column 0 instead.
+   *
+   * @param result The filled-in results.
+   * @param fun The function.
+   *
+   * @return the new default, or null if there are no cells.
+   */
+  @SuppressWarnings("unchecked")
+  private <U> U mappedDefault(MatrixDense<U> result, Function<? super T, ? extends U> fun) {
+    for (int i = 0; i < this.cells.length; i++) {
+      if (Objects.equals(this.cells[i], this.defaultVal)) {
+        return fun.apply(this.defaultVal);
+      } // if
+    } // for
+    return (this.cells.length == 0) ? null : (U) result.cells[0];
+  } // mappedDefault(MatrixDense<U>, Function<? super T, ? extends U>)
+
+  /**
+   * Apply a function to a range of cells, putting the results in another array.
+   *
+   * @param from The cells.
+   * @param to Where to put the results.
+   * @param start The index of the first cell (inclusive).
+   * @param end The index of the last cell (exclusive).
+   * @param fun The function to apply.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T, U> void mapCells(Object[] from, Object[] to, int start, int end,
+      Function<? super T, ? extends U> fun) {
+    for (int i = start; i < end; i++) {
+      to[i] = fun.apply((T) from[i]);
+    } // for
+  } // mapCells(Object[], Object[], int, int, Function<? super T, ? extends U>)
+
+  /**
+   * Apply a function to a range of cells.
+   *
+   * @param cells The cells.
+   * @param from The index of the first cell (inclusive).
+   * @param to The index of the last cell (exclusive).
+   * @param fun The function to apply.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> void mapCells(Object[] cells, int from, int to, UnaryOperator<T> fun) {
+    for (int i = from; i < to; i++) {
+      cells[i] = fun.apply((T) cells[i]);
+    } // for
+  } // mapCells(Object[], int, int, UnaryOperator<T>)
+
+  /**
+   * Stop sharing the cells with any clone, by copying them if another matrix still uses them.
+   * Called before every change to a cell. (Structural edits build new arrays, and so stop
+   * sharing on their own.)
+   */
+  private void unshare() {
+    if (this.holders != null) {
+      if (this.holders.get() > 1) {
+        this.cells = this.cells.clone();
+        this.holders.decrementAndGet();
+      } // if
+      this.holders = null;
+    } // if
+  } // unshare()
+
+  /**
+   * Stop using an array of cells that may be shared, after replacing it with a new one.
+   */
+  private void release() {
+    if (this.holders != null) {
+      this.holders.decrementAndGet();
+      this.holders = null;
+    } // if
+  } // release()
+
+  /**
+   * Make room for a new row, leaving its cells unfilled.
+   *
+   * @param row The number of the new row.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  private void openRow(int row) {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    Object[] newCells = new Object[(this.h + 1) * this.w];
+    System.arraycopy(this.cells, 0, newCells, 0, row * this.w);
+    System.arraycopy(this.cells, row * this.w, newCells, (row + 1) * this.w,
+        (this.h - row) * this.w);
+    this.cells = newCells;
+    this.release();
+    this.h++;
+  } // openRow(int)
+
+  /**
+   * Make room for a new column, leaving its cells unfilled.
+   *
+   * @param col The number of the new column.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  private void openCol(int col) {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w + 1;
+    Object[] newCells = new Object[this.h * newW];
+    for (int r = 0; r < this.h; r++) {
+      System.arraycopy(this.cells, r * this.w, newCells, r * newW, col);
+      System.arraycopy(this.cells, r * this.w + col, newCells, r * newW + col + 1,
+          this.w - col);
+    } // for
+    this.cells = newCells;
+    this.release();
+    this.w = newW;
+  } // openCol(int)
+} // class MatrixDense
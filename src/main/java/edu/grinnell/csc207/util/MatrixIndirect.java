@@ -0,0 +1,684 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An implementation of two-dimensional matrices that reaches its cells through tables that map
+ * each row and column number to a physical row and column slot. Inserting or deleting a row or
+ * column only shifts one of those tables; the cells themselves never move. Slots freed by
+ * deletions are recycled by later insertions.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixIndirect<T> implements Matrix<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default capacity of the index tables.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * The physical row of each row. Only the first h entries are meaningful.
+   */
+  private int[] rowIndex;
+
+  /**
+   * The physical column of each column. Only the first w entries are meaningful.
+   */
+  private int[] colIndex;
+
+  /**
+   * The cells, indexed by physical row and then physical column. A null row holds only the
+   * default value, as do the cells past the end of a row.
+   */
+  private Object[][] rows;
+
+  /**
+   * The number of physical rows we have ever handed out.
+   */
+  private int physRows;
+
+  /**
+   * The number of physical columns we have ever handed out.
+   */
+  private int physCols;
+
+  /**
+   * Physical rows that are no longer in use.
+   */
+  private int[] freeRows;
+
+  /**
+   * The number of entries in freeRows.
+   */
+  private int freeRowCount;
+
+  /**
+   * Physical columns that are no longer in use.
+   */
+  private int[] freeCols;
+
+  /**
+   * The number of entries in freeCols.
+   */
+  private int freeColCount;
+
+  /**
+   * Whether our tables may also be in use by a clone (or by the matrix we were cloned from).
+   */
+  private boolean shared;
+
+  /**
+   * Which physical rows we may change in place, or null if we may change all of them. Rows we
+   * may not change in place are copied before their first change.
+   */
+  private boolean[] owned;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixIndirect(int width, int height, T def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.rowIndex = identity(height);
+    this.colIndex = identity(width);
+    this.rows = new Object[Math.max(height, DEFAULT_CAPACITY)][];
+    this.physRows = height;
+    this.physCols = width;
+    this.freeRows = new int[DEFAULT_CAPACITY];
+    this.freeCols = new int[DEFAULT_CAPACITY];
+  } // MatrixIndirect(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixIndirect(int width, int height) {
+    this(width, height, null);
+  } // MatrixIndirect(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    Object[] cells = this.rows[this.rowIndex[row]];
+    int pc = this.colIndex[col];
+    if (cells == null || pc >= cells.length) {
+      return this.defaultVal;
+    } // if
+    return (T) cells[pc];
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    this.unshare();
+    this.physicalRow(this.rowIndex[row])[this.colIndex[col]] = val;
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    int pr = this.allocateRow();
+    this.rowIndex = insertAt(this.rowIndex, this.h, row, pr);
+    this.h++;
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.insertRow(row);
+    Object[] cells = this.physicalRow(this.rowIndex[row]);
+    for (int c = 0; c < this.w; c++) {
+      cells[this.colIndex[c]] = vals[c];
+    } // for
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    int pc = this.allocateCol();
+    this.colIndex = insertAt(this.colIndex, this.w, col, pc);
+    this.w++;
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.insertCol(col);
+    int pc = this.colIndex[col];
+    for (int r = 0; r < this.h; r++) {
+      this.physicalRow(this.rowIndex[r])[pc] = vals[r];
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    int pr = this.rowIndex[row];
+    System.arraycopy(this.rowIndex, row + 1, this.rowIndex, row, this.h - row - 1);
+    this.h--;
+    this.rows[pr] = null;
+    this.freeRows = push(this.freeRows, this.freeRowCount, pr);
+    this.freeRowCount++;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    int pc = this.colIndex[col];
+    System.arraycopy(this.colIndex, col + 1, this.colIndex, col, this.w - col - 1);
+    this.w--;
+    // Reset the slot now, so that whichever column reuses it starts out with the default.
+    // Rows that already hold the default there are left alone, so shared rows stay shared.
+    for (int pr = 0; pr < this.physRows; pr++) {
+      Object[] cells = this.rows[pr];
+      if (cells != null && pc < cells.length && !Objects.equals(cells[pc], this.defaultVal)) {
+        this.physicalRow(pr)[pc] = this.defaultVal;
+      } // if
+    } // for
+    this.freeCols = push(this.freeCols, this.freeColCount, pc);
+    this.freeColCount++;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    for (int r = startRow; r < endRow; r++) {
+      Object[] cells = this.physicalRow(this.rowIndex[r]);
+      for (int c = startCol; c < endCol; c++) {
+        cells[this.colIndex[c]] = val;
+      } // for
+    } // for
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Copy a rectangular region of the matrix into an array, row by row, looking up each
+   * physical row once.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals Where to put the values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  @SuppressWarnings("unchecked")
+  public void getRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int i = 0;
+    for (int r = startRow; r < endRow; r++) {
+      Object[] cells = this.rows[this.rowIndex[r]];
+      for (int c = startCol; c < endCol; c++) {
+        int pc = this.colIndex[c];
+        vals[i++] = (cells == null || pc >= cells.length) ? this.defaultVal : (T) cells[pc];
+      } // for
+    } // for
+  } // getRegion(int, int, int, int, T[])
+
+  /**
+   * Set every cell of a rectangular region of the matrix from an array, row by row, looking
+   * up (and, if shared, copying) each physical row once.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals The new values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void setRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    this.unshare();
+    int i = 0;
+    for (int r = startRow; r < endRow; r++) {
+      Object[] cells = this.physicalRow(this.rowIndex[r]);
+      for (int c = startCol; c < endCol; c++) {
+        cells[this.colIndex[c]] = vals[i++];
+      } // for
+    } // for
+  } // setRegion(int, int, int, int, T[])
+
+  /**
+   * Visit the cells of the rows that have been written to, in no particular order. Rows
+   * that hold only the default have no cells and are skipped.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachStored(CellConsumer<? super T> action) {
+    this.forEachStored(0, this.h, action);
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells of the rows in a band that have been written to.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    for (int r = startRow; r < endRow; r++) {
+      Object[] cells = this.rows[this.rowIndex[r]];
+      if (cells != null) {
+        for (int c = 0; c < this.w; c++) {
+          int pc = this.colIndex[c];
+          action.accept(r, c, (pc >= cells.length) ? this.defaultVal : (T) cells[pc]);
+        } // for
+      } // if
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Determine how many cells forEachStored visits.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    long rowCount = 0;
+    for (int r = 0; r < this.h; r++) {
+      if (this.rows[this.rowIndex[r]] != null) {
+        rowCount++;
+      } // if
+    } // for
+    return rowCount * this.w;
+  } // storedCount()
+
+  /**
+   * A make a copy of the matrix. The copy shares the values with this matrix. Takes constant
+   * time: the two matrices share their tables until one of them changes, and after that a row
+   * is only copied the first time it changes.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    MatrixIndirect<T> cloned = new MatrixIndirect<T>(0, 0, this.defaultVal);
+    cloned.h = this.h;
+    cloned.w = this.w;
+    cloned.rowIndex = this.rowIndex;
+    cloned.colIndex = this.colIndex;
+    cloned.rows = this.rows;
+    cloned.physRows = this.physRows;
+    cloned.physCols = this.physCols;
+    cloned.freeRows = this.freeRows;
+    cloned.freeRowCount = this.freeRowCount;
+    cloned.freeCols = this.freeCols;
+    cloned.freeColCount = this.freeColCount;
+    cloned.shared = true;
+    this.shared = true;
+    return cloned;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object. Compares only the cells that either
+   * matrix stores when the two have the same default value.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix from the cells it stores. Uses Matrix.cellsHashCode, so
+   * that equal matrices of any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a cell is in the matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  private void checkCell(int row, int col) {
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Get the cells of a physical row, creating or lengthening the row so that it has a cell for
+   * every physical column.
+   *
+   * @param pr The physical row.
+   *
+   * @return the cells of that row.
+   */
+  private Object[] physicalRow(int pr) {
+    Object[] cells = this.rows[pr];
+    if (cells == null || cells.length < this.physCols) {
+      int oldLength = (cells == null) ? 0 : cells.length;
+      cells = (cells == null) ? new Object[this.physCols] : Arrays.copyOf(cells, this.physCols);
+      if (this.defaultVal != null) {
+        Arrays.fill(cells, oldLength, cells.length, this.defaultVal);
+      } // if
+      this.rows[pr] = cells;
+      if (this.owned != null) {
+        this.owned[pr] = true;
+      } // if
+    } else if (this.owned != null && !this.owned[pr]) {
+      cells = cells.clone();
+      this.rows[pr] = cells;
+      this.owned[pr] = true;
+    } // if/else
+    return cells;
+  } // physicalRow(int)
+
+  /**
+   * Stop sharing our tables with any clone. Copies the tables, but not the rows; from now on,
+   * each row is copied the first time it changes.
+   */
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    } // if
+    this.rowIndex = this.rowIndex.clone();
+    this.colIndex = this.colIndex.clone();
+    this.rows = this.rows.clone();
+    this.freeRows = this.freeRows.clone();
+    this.freeCols = this.freeCols.clone();
+    this.owned = new boolean[this.rows.length];
+    this.shared = false;
+  } // unshare()
+
+  /**
+   * Get an unused physical row, which holds only the default value.
+   *
+   * @return the physical row.
+   */
+  private int allocateRow() {
+    if (this.freeRowCount > 0) {
+      return this.freeRows[--this.freeRowCount];
+    } // if
+    if (this.physRows == this.rows.length) {
+      this.rows = Arrays.copyOf(this.rows, this.rows.length * 2);
+      if (this.owned != null) {
+        this.owned = Arrays.copyOf(this.owned, this.rows.length);
+      } // if
+    } // if
+    return this.physRows++;
+  } // allocateRow()
+
+  /**
+   * Get an unused physical column, which holds only the default value.
+   *
+   * @return the physical column.
+   */
+  private int allocateCol() {
+    if (this.freeColCount > 0) {
+      return this.freeCols[--this.freeColCount];
+    } // if
+    return this.physCols++;
+  } // allocateCol()
+
+  /**
+   * Build the identity index table.
+   *
+   * @param n The number of entries.
+   *
+   * @return a table in which entry i is i.
+   */
+  private static int[] identity(int n) {
+    int[] table = new int[Math.max(n, DEFAULT_CAPACITY)];
+    for (int i = 0; i < n; i++) {
+      table[i] = i;
+    } // for
+    return table;
+  } // identity(int)
+
+  /**
+   * Insert a value into the first n entries of a table, growing the table if necessary.
+   *
+   * @param table The table.
+   * @param n The number of entries in use.
+   * @param index Where to put the value.
+   * @param val The value.
+   *
+   * @return the table, which may be a new array.
+   */
+  private static int[] insertAt(int[] table, int n, int index, int val) {
+    if (n == table.length) {
+      table = Arrays.copyOf(table, table.length * 2);
+    } // if
+    System.arraycopy(table, index, table, index + 1, n - index);
+    table[index] = val;
+    return table;
+  } // insertAt(int[], int, int, int)
+
+  /**
+   * Add a value to the end of the first n entries of a stack, growing it if necessary.
+   *
+   * @param stack The stack.
+   * @param n The number of entries in use.
+   * @param val The value.
+   *
+   * @return the stack, which may be a new array.
+   */
+  private static int[] push(int[] stack, int n, int val) {
+    if (n == stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    } // if
+    stack[n] = val;
+    return stack;
+  } // push(int[], int, int)
+} // class MatrixIndirect
@@ -0,0 +1,1081 @@
+package edu.grinnell.csc207.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An implementation of two-dimensional matrices whose cells live in a file, for matrices that
+ * do not fit in memory. The file is divided into square tiles of TILE_SIZE by TILE_SIZE cells,
+ * and each tile is mapped into memory (with FileChannel.map) only when a cell in it is first
+ * read or written; tiles that only hold the default are never written to the file at all.
+ *
+ * <p>Like {@link MatrixIndirect}, the matrix reaches its cells through tables that map each row
+ * and column to a physical row and column, so inserting or deleting a row or column changes
+ * only those tables and never moves cells around in the file.</p>
+ *
+ * <p>The file starts with a header (the dimensions, the size of each cell, and the default
+ * value), followed by the tiles, followed by a metadata block holding the row and column
+ * tables and the file offset of each tile. The header and metadata are written by flush()
+ * and close(); force() also makes sure that everything has reached the disk. Changes made
+ * since the last flush() are lost if the program stops without closing the matrix.</p>
+ *
+ * <p>Methods of the Matrix interface report I/O errors with UncheckedIOException.</p>
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixMapped<T> implements Matrix<T>, Flushable, AutoCloseable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The first four bytes of every matrix file ("MTX1").
+   */
+  static final int MAGIC = 0x4D545831;
+
+  /**
+   * The version of the file layout.
+   */
+  static final int VERSION = 1;
+
+  /**
+   * The base-two log of the tile size.
+   */
+  static final int TILE_BITS = 6;
+
+  /**
+   * The number of rows and columns in a tile.
+   */
+  static final int TILE_SIZE = 1 << TILE_BITS;
+
+  /**
+   * The mask for a row or column within a tile.
+   */
+  static final int TILE_MASK = TILE_SIZE - 1;
+
+  /**
+   * The number of bytes of header before the default value.
+   */
+  static final int HEADER_BYTES = 48;
+
+  /**
+   * The initial capacity of the index tables and free lists.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The byte order of everything in the file.
+   */
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The file.
+   */
+  private final Path path;
+
+  /**
+   * The open file. Null once the matrix is closed.
+   */
+  private FileChannel channel;
+
+  /**
+   * Whether to delete the file when the matrix is closed.
+   */
+  private boolean deleteOnClose;
+
+  /**
+   * How values are stored.
+   */
+  private final ElementCodec<T> codec;
+
+  /**
+   * The number of bytes in each cell.
+   */
+  private final int cellBytes;
+
+  /**
+   * The number of bytes in each tile.
+   */
+  private final int tileBytes;
+
+  /**
+   * The offset of the first tile in the file.
+   */
+  private final long dataStart;
+
+  /**
+   * The offset just past the last tile in the file, where the next tile goes.
+   */
+  private long dataEnd;
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * Whether the default value is stored as all zero bytes, in which case new tiles (which the
+   * operating system fills with zeros) need no filling.
+   */
+  private final boolean zeroDefault;
+
+  /**
+   * The physical row of each row.
+   */
+  private int[] rowIndex;
+
+  /**
+   * The physical column of each column.
+   */
+  private int[] colIndex;
+
+  /**
+   * The number of physical rows that have ever been used.
+   */
+  private int physRows;
+
+  /**
+   * The number of physical columns that have ever been used.
+   */
+  private int physCols;
+
+  /**
+   * Physical rows that are no longer in use.
+   */
+  private int[] freeRows;
+
+  /**
+   * The number of entries in freeRows.
+   */
+  private int freeRowCount;
+
+  /**
+   * Physical columns that are no longer in use.
+   */
+  private int[] freeCols;
+
+  /**
+   * The number of entries in freeCols.
+   */
+  private int freeColCount;
+
+  /**
+   * The number of tile columns that the tile tables have room for.
+   */
+  private int tileColsCap;
+
+  /**
+   * The file offset of each physical tile, row of tiles by row of tiles, or 0 for tiles that
+   * only hold the default and are not in the file.
+   */
+  private long[] tileOffsets;
+
+  /**
+   * The memory mapping of each tile, or null for tiles not yet touched.
+   */
+  private ByteBuffer[] tileBufs;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Set up a matrix on an open file. The caller fills in the tables.
+   *
+   * @param file The file.
+   * @param open The open file.
+   * @param valCodec How to store values.
+   * @param def The default value.
+   */
+  private MatrixMapped(Path file, FileChannel open, ElementCodec<T> valCodec, T def) {
+    this.path = file;
+    this.channel = open;
+    this.codec = valCodec;
+    this.cellBytes = valCodec.width();
+    this.tileBytes = this.cellBytes * TILE_SIZE * TILE_SIZE;
+    this.dataStart = align(HEADER_BYTES + this.cellBytes);
+    this.dataEnd = this.dataStart;
+    this.defaultVal = def;
+    ByteBuffer encoded = ByteBuffer.allocate(this.cellBytes).order(ORDER);
+    valCodec.write(encoded, 0, def);
+    boolean zeros = true;
+    for (int i = 0; i < this.cellBytes; i++) {
+      zeros = zeros && encoded.get(i) == 0;
+    } // for
+    this.zeroDefault = zeros;
+    this.freeRows = new int[DEFAULT_CAPACITY];
+    this.freeCols = new int[DEFAULT_CAPACITY];
+  } // MatrixMapped(Path, FileChannel, ElementCodec<T>, T)
+
+  /**
+   * Create a new matrix in a file, replacing the file if it exists.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param file The file.
+   * @param codec How to store values.
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @return the new matrix.
+   *
+   * @throws IOException If the file cannot be created.
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   * @throws NullPointerException If the default is null.
+   */
+  public static <T> MatrixMapped<T> create(Path file, ElementCodec<T> codec, int width,
+      int height, T def) throws IOException {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    if (def == null) {
+      throw new NullPointerException("MatrixMapped cannot hold null");
+    } // if
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MatrixMapped<T> matrix = new MatrixMapped<T>(file, channel, codec, def);
+    matrix.h = height;
+    matrix.w = width;
+    matrix.physRows = height;
+    matrix.physCols = width;
+    matrix.rowIndex = identity(height);
+    matrix.colIndex = identity(width);
+    matrix.tileColsCap = Math.max(1, tilesFor(width));
+    matrix.tileOffsets = new long[Math.max(1, tilesFor(height)) * matrix.tileColsCap];
+    matrix.tileBufs = new ByteBuffer[matrix.tileOffsets.length];
+    matrix.flush();
+    return matrix;
+  } // create(Path, ElementCodec<T>, int, int, T)
+
+  /**
+   * Open a matrix that was saved in a file.
+   *
+   * @param <T> The type of values stored in the matrix.
+   * @param file The file.
+   * @param codec How to store values. Must be the codec the file was created with.
+   *
+   * @return the matrix.
+   *
+   * @throws IOException If the file cannot be read, is not a matrix file, or was created with
+   *         a codec of a different width.
+   */
+  public static <T> MatrixMapped<T> open(Path file, ElementCodec<T> codec) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + codec.width()).order(ORDER);
+      readFully(channel, header, 0);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException(file + " is not a matrix file");
+      } // if
+      if (header.getInt(8) != codec.width() || header.getInt(12) != TILE_SIZE) {
+        throw new IOException(file + " holds cells of " + header.getInt(8) + " bytes, not "
+            + codec.width());
+      } // if
+      MatrixMapped<T> matrix =
+          new MatrixMapped<T>(file, channel, codec, codec.read(header, HEADER_BYTES));
+      matrix.h = header.getInt(16);
+      matrix.w = header.getInt(20);
+      matrix.physRows = header.getInt(24);
+      matrix.physCols = header.getInt(28);
+      matrix.dataEnd = header.getLong(32);
+      ByteBuffer meta = ByteBuffer.allocate(header.getInt(40)).order(ORDER);
+      readFully(channel, meta, matrix.dataEnd);
+      matrix.readMetadata(meta);
+      return matrix;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    } // try/catch
+  } // open(Path, ElementCodec<T>)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    int pr = this.rowIndex[row];
+    int pc = this.colIndex[col];
+    int t = this.tileOf(pr, pc);
+    if (this.tileOffsets[t] == 0) {
+      return this.defaultVal;
+    } // if
+    return this.codec.read(this.tile(t), this.offsetOf(pr, pc));
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws NullPointerException If val is null.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    if (val == null) {
+      throw new NullPointerException("MatrixMapped cannot hold null");
+    } // if
+    this.setPhysical(this.rowIndex[row], this.colIndex[col], val);
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertRow(int row) {
+    this.checkOpen();
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int pr = this.allocateRow();
+    this.rowIndex = insertAt(this.rowIndex, this.h, row, pr);
+    this.h++;
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.insertRow(row);
+    for (int c = 0; c < this.w; c++) {
+      this.set(row, c, vals[c]);
+    } // for
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertCol(int col) {
+    this.checkOpen();
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int pc = this.allocateCol();
+    this.colIndex = insertAt(this.colIndex, this.w, col, pc);
+    this.w++;
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.insertCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.set(r, col, vals[r]);
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void deleteRow(int row) {
+    this.checkOpen();
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int pr = this.rowIndex[row];
+    System.arraycopy(this.rowIndex, row + 1, this.rowIndex, row, this.h - row - 1);
+    this.h--;
+    this.freeRows = push(this.freeRows, this.freeRowCount, pr);
+    this.freeRowCount++;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void deleteCol(int col) {
+    this.checkOpen();
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int pc = this.colIndex[col];
+    System.arraycopy(this.colIndex, col + 1, this.colIndex, col, this.w - col - 1);
+    this.w--;
+    this.freeCols = push(this.freeCols, this.freeColCount, pc);
+    this.freeColCount++;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix. Only maps the tiles that the region touches.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    this.checkOpen();
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (val == null) {
+      throw new NullPointerException("MatrixMapped cannot hold null");
+    } // if
+    for (int r = startRow; r < endRow; r++) {
+      int pr = this.rowIndex[r];
+      for (int c = startCol; c < endCol; c++) {
+        this.setPhysical(pr, this.colIndex[c], val);
+      } // for
+    } // for
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws NullPointerException If val is null.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Make a copy of the matrix, in a temporary file next to this one that is deleted when the
+   * copy is closed.
+   *
+   * @return a copy of the matrix.
+   *
+   * @throws UncheckedIOException If the file cannot be copied.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    this.checkOpen();
+    try {
+      this.flush();
+      Path dir = this.path.toAbsolutePath().getParent();
+      Path copy = Files.createTempFile(dir, this.path.getFileName().toString(), ".clone");
+      Files.copy(this.path, copy, StandardCopyOption.REPLACE_EXISTING);
+      MatrixMapped<T> cloned = open(copy, this.codec);
+      cloned.deleteOnClose = true;
+      return cloned;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // clone()
+
+  /**
+   * Write the header and the metadata, so that the file describes the matrix as it is now.
+   * The operating system writes the tiles back on its own schedule; see force().
+   *
+   * @throws IOException If the file cannot be written.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void flush() throws IOException {
+    this.checkOpen();
+    ByteBuffer meta = this.writeMetadata();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + this.cellBytes).order(ORDER);
+    header.putInt(0, MAGIC);
+    header.putInt(4, VERSION);
+    header.putInt(8, this.cellBytes);
+    header.putInt(12, TILE_SIZE);
+    header.putInt(16, this.h);
+    header.putInt(20, this.w);
+    header.putInt(24, this.physRows);
+    header.putInt(28, this.physCols);
+    header.putLong(32, this.dataEnd);
+    header.putInt(40, meta.remaining());
+    this.codec.write(header, HEADER_BYTES, this.defaultVal);
+    this.channel.truncate(this.dataEnd);
+    writeFully(this.channel, meta, this.dataEnd);
+    writeFully(this.channel, header, 0);
+  } // flush()
+
+  /**
+   * Flush the matrix and make sure that everything, tiles included, has reached the disk.
+   *
+   * @throws IOException If the file cannot be written.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void force() throws IOException {
+    this.flush();
+    for (ByteBuffer buf : this.tileBufs) {
+      if (buf != null) {
+        ((MappedByteBuffer) buf).force();
+      } // if
+    } // for
+    this.channel.force(true);
+  } // force()
+
+  /**
+   * Flush the matrix, drop the mapped tiles, and close the file. The tiles are unmapped when the
+   * garbage collector finds them unreachable. Does nothing if the matrix is already closed.
+   *
+   * @throws IOException If the file cannot be written.
+   */
+  public void close() throws IOException {
+    if (this.channel == null) {
+      return;
+    } // if
+    try {
+      if (!this.deleteOnClose) {
+        this.flush();
+      } // if
+    } finally {
+      this.tileBufs = null;
+      this.channel.close();
+      this.channel = null;
+      if (this.deleteOnClose) {
+        Files.deleteIfExists(this.path);
+      } // if
+    } // try/finally
+  } // close()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public boolean equals(Object other) {
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix otherMatrix = (Matrix) other;
+    if (otherMatrix.height() != this.h || otherMatrix.width() != this.w) {
+      return false;
+    } // if
+    for (int r = 0; r < this.h; r++) {
+      for (int c = 0; c < this.w; c++) {
+        Object val = otherMatrix.get(r, c);
+        if (val == null || !this.codec.same(this.get(r, c), (T) val)) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. Uses Matrix.cellsHashCode with the codec's hash of each
+   * value, so that equal matrices of any kind have equal hash codes (for values whose codec uses
+   * their own hashCode).
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this, this.codec::hash);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that the matrix is still open.
+   *
+   * @throws IllegalStateException If it has been closed.
+   */
+  private void checkOpen() {
+    if (this.channel == null) {
+      throw new IllegalStateException("MatrixMapped used after close()");
+    } // if
+  } // checkOpen()
+
+  /**
+   * Make sure that a cell is in the matrix and that the matrix is still open.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  private void checkCell(int row, int col) {
+    this.checkOpen();
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Find the tile that holds a physical cell.
+   *
+   * @param pr The physical row.
+   * @param pc The physical column.
+   *
+   * @return the index of the tile in the tile tables.
+   */
+  private int tileOf(int pr, int pc) {
+    return (pr >>> TILE_BITS) * this.tileColsCap + (pc >>> TILE_BITS);
+  } // tileOf(int, int)
+
+  /**
+   * Find the offset of a physical cell within its tile.
+   *
+   * @param pr The physical row.
+   * @param pc The physical column.
+   *
+   * @return the offset, in bytes.
+   */
+  private int offsetOf(int pr, int pc) {
+    return (((pr & TILE_MASK) << TILE_BITS) | (pc & TILE_MASK)) * this.cellBytes;
+  } // offsetOf(int, int)
+
+  /**
+   * Get the mapping of a tile that is in the file, mapping it if this is the first use.
+   *
+   * @param t The index of the tile.
+   *
+   * @return the mapping.
+   *
+   * @throws UncheckedIOException If the tile cannot be mapped.
+   */
+  private ByteBuffer tile(int t) {
+    ByteBuffer buf = this.tileBufs[t];
+    if (buf == null) {
+      try {
+        buf = this.channel.map(FileChannel.MapMode.READ_WRITE, this.tileOffsets[t],
+            this.tileBytes).order(ORDER);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+      this.tileBufs[t] = buf;
+    } // if
+    return buf;
+  } // tile(int)
+
+  /**
+   * Store a value in a physical cell, adding its tile to the file if necessary. A new tile goes
+   * where flush() last wrote the metadata, so when the default is all zero bytes we still clear
+   * the part of the tile that the file already held.
+   *
+   * @param pr The physical row.
+   * @param pc The physical column.
+   * @param val The value.
+   *
+   * @throws UncheckedIOException If the file cannot be extended.
+   */
+  private void setPhysical(int pr, int pc, T val) {
+    int t = this.tileOf(pr, pc);
+    if (this.tileOffsets[t] == 0) {
+      if (this.codec.same(val, this.defaultVal)) {
+        return;
+      } // if
+      long stale;
+      try {
+        stale = Math.min(this.channel.size() - this.dataEnd, this.tileBytes);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+      this.tileOffsets[t] = this.dataEnd;
+      this.dataEnd += this.tileBytes;
+      ByteBuffer buf = this.tile(t);
+      if (!this.zeroDefault) {
+        for (int i = 0; i < this.tileBytes; i += this.cellBytes) {
+          this.codec.write(buf, i, this.defaultVal);
+        } // for
+      } else if (stale > 0) {
+        buf.put(0, new byte[(int) stale]);
+      } // if/else
+    } // if
+    this.codec.write(this.tile(t), this.offsetOf(pr, pc), val);
+  } // setPhysical(int, int, T)
+
+  /**
+   * Get an unused physical row, which holds only the default value.
+   *
+   * @return the physical row.
+   */
+  private int allocateRow() {
+    if (this.freeRowCount > 0) {
+      int pr = this.freeRows[--this.freeRowCount];
+      for (int pc = 0; pc < this.physCols; pc++) {
+        this.resetPhysical(pr, pc);
+      } // for
+      return pr;
+    } // if
+    this.ensureTiles(this.physRows + 1, this.physCols);
+    return this.physRows++;
+  } // allocateRow()
+
+  /**
+   * Get an unused physical column, which holds only the default value.
+   *
+   * @return the physical column.
+   */
+  private int allocateCol() {
+    if (this.freeColCount > 0) {
+      int pc = this.freeCols[--this.freeColCount];
+      for (int pr = 0; pr < this.physRows; pr++) {
+        this.resetPhysical(pr, pc);
+      } // for
+      return pc;
+    } // if
+    this.ensureTiles(this.physRows, this.physCols + 1);
+    return this.physCols++;
+  } // allocateCol()
+
+  /**
+   * Put the default back in a physical cell that is being reused, if its tile is in the file.
+   *
+   * @param pr The physical row.
+   * @param pc The physical column.
+   */
+  private void resetPhysical(int pr, int pc) {
+    int t = this.tileOf(pr, pc);
+    if (this.tileOffsets[t] != 0) {
+      this.codec.write(this.tile(t), this.offsetOf(pr, pc), this.defaultVal);
+    } // if
+  } // resetPhysical(int, int)
+
+  /**
+   * Make sure that the tile tables have room for the given number of physical rows and
+   * columns.
+   *
+   * @param rows The number of physical rows.
+   * @param cols The number of physical columns.
+   */
+  private void ensureTiles(int rows, int cols) {
+    int tileRows = tilesFor(rows);
+    int tileCols = tilesFor(cols);
+    int oldRows = this.tileOffsets.length / this.tileColsCap;
+    if (tileCols > this.tileColsCap) {
+      int newCap = Math.max(tileCols, this.tileColsCap * 2);
+      long[] offsets = new long[oldRows * newCap];
+      ByteBuffer[] bufs = new ByteBuffer[offsets.length];
+      for (int tr = 0; tr < oldRows; tr++) {
+        System.arraycopy(this.tileOffsets, tr * this.tileColsCap, offsets, tr * newCap,
+            this.tileColsCap);
+        System.arraycopy(this.tileBufs, tr * this.tileColsCap, bufs, tr * newCap,
+            this.tileColsCap);
+      } // for
+      this.tileOffsets = offsets;
+      this.tileBufs = bufs;
+      this.tileColsCap = newCap;
+    } // if
+    if (tileRows > oldRows) {
+      int newRows = Math.max(tileRows, oldRows * 2);
+      this.tileOffsets = Arrays.copyOf(this.tileOffsets, newRows * this.tileColsCap);
+      this.tileBufs = Arrays.copyOf(this.tileBufs, this.tileOffsets.length);
+    } // if
+  } // ensureTiles(int, int)
+
+  /**
+   * Build the metadata block: the row and column tables, the free lists, and the offsets of
+   * the tiles.
+   *
+   * @return the metadata, ready to write.
+   */
+  private ByteBuffer writeMetadata() {
+    int tileRows = this.tileOffsets.length / this.tileColsCap;
+    int ints = this.h + this.w + this.freeRowCount + this.freeColCount + 6;
+    ByteBuffer meta = ByteBuffer.allocate(ints * Integer.BYTES
+        + this.tileOffsets.length * Long.BYTES).order(ORDER);
+    meta.putInt(this.h);
+    meta.putInt(this.w);
+    for (int r = 0; r < this.h; r++) {
+      meta.putInt(this.rowIndex[r]);
+    } // for
+    for (int c = 0; c < this.w; c++) {
+      meta.putInt(this.colIndex[c]);
+    } // for
+    meta.putInt(this.freeRowCount);
+    for (int i = 0; i < this.freeRowCount; i++) {
+      meta.putInt(this.freeRows[i]);
+    } // for
+    meta.putInt(this.freeColCount);
+    for (int i = 0; i < this.freeColCount; i++) {
+      meta.putInt(this.freeCols[i]);
+    } // for
+    meta.putInt(tileRows);
+    meta.putInt(this.tileColsCap);
+    for (long offset : this.tileOffsets) {
+      meta.putLong(offset);
+    } // for
+    meta.flip();
+    return meta;
+  } // writeMetadata()
+
+  /**
+   * Fill in the tables from a metadata block written by writeMetadata.
+   *
+   * @param meta The metadata.
+   *
+   * @throws IOException If the metadata does not match the header.
+   */
+  private void readMetadata(ByteBuffer meta) throws IOException {
+    if (meta.getInt() != this.h || meta.getInt() != this.w) {
+      throw new IOException(this.path + " has inconsistent metadata");
+    } // if
+    this.rowIndex = new int[Math.max(this.h, DEFAULT_CAPACITY)];
+    for (int r = 0; r < this.h; r++) {
+      this.rowIndex[r] = meta.getInt();
+    } // for
+    this.colIndex = new int[Math.max(this.w, DEFAULT_CAPACITY)];
+    for (int c = 0; c < this.w; c++) {
+      this.colIndex[c] = meta.getInt();
+    } // for
+    this.freeRowCount = meta.getInt();
+    this.freeRows = new int[Math.max(this.freeRowCount, DEFAULT_CAPACITY)];
+    for (int i = 0; i < this.freeRowCount; i++) {
+      this.freeRows[i] = meta.getInt();
+    } // for
+    this.freeColCount = meta.getInt();
+    this.freeCols = new int[Math.max(this.freeColCount, DEFAULT_CAPACITY)];
+    for (int i = 0; i < this.freeColCount; i++) {
+      this.freeCols[i] = meta.getInt();
+    } // for
+    int tileRows = meta.getInt();
+    this.tileColsCap = meta.getInt();
+    this.tileOffsets = new long[tileRows * this.tileColsCap];
+    for (int t = 0; t < this.tileOffsets.length; t++) {
+      this.tileOffsets[t] = meta.getLong();
+    } // for
+    this.tileBufs = new ByteBuffer[this.tileOffsets.length];
+  } // readMetadata(ByteBuffer)
+
+  /**
+   * Read bytes from a file until the buffer is full.
+   *
+   * @param channel The file.
+   * @param buf The buffer.
+   * @param position Where in the file to start.
+   *
+   * @throws IOException If the file ends first, or cannot be read.
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, position);
+      if (n < 0) {
+        throw new IOException("Unexpected end of matrix file");
+      } // if
+      position += n;
+    } // while
+    buf.flip();
+  } // readFully(FileChannel, ByteBuffer, long)
+
+  /**
+   * Write all of a buffer to a file.
+   *
+   * @param channel The file.
+   * @param buf The buffer.
+   * @param position Where in the file to start.
+   *
+   * @throws IOException If the file cannot be written.
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      position += channel.write(buf, position);
+    } // while
+  } // writeFully(FileChannel, ByteBuffer, long)
+
+  /**
+   * Round a file offset up to a multiple of eight.
+   *
+   * @param offset The offset.
+   *
+   * @return the rounded offset.
+   */
+  private static long align(long offset) {
+    return (offset + 7) & ~7L;
+  } // align(long)
+
+  /**
+   * Determine how many tiles it takes to cover a number of rows or columns.
+   *
+   * @param n The number of rows or columns.
+   *
+   * @return the number of tiles.
+   */
+  private static int tilesFor(int n) {
+    return (n + TILE_MASK) >>> TILE_BITS;
+  } // tilesFor(int)
+
+  /**
+   * Build the identity index table.
+   *
+   * @param n The number of entries.
+   *
+   * @return a table in which entry i is i.
+   */
+  private static int[] identity(int n) {
+    int[] table = new int[Math.max(n, DEFAULT_CAPACITY)];
+    for (int i = 0; i < n; i++) {
+      table[i] = i;
+    } // for
+    return table;
+  } // identity(int)
+
+  /**
+   * Insert a value into the first n entries of a table, growing the table if necessary.
+   *
+   * @param table The table.
+   * @param n The number of entries in use.
+   * @param index Where to put the value.
+   * @param val The value.
+   *
+   * @return the table, which may be a new array.
+   */
+  private static int[] insertAt(int[] table, int n, int index, int val) {
+    if (n == table.length) {
+      table = Arrays.copyOf(table, table.length * 2);
+    } // if
+    System.arraycopy(table, index, table, index + 1, n - index);
+    table[index] = val;
+    return table;
+  } // insertAt(int[], int, int, int)
+
+  /**
+   * Add a value to the end of the first n entries of a stack, growing it if necessary.
+   *
+   * @param stack The stack.
+   * @param n The number of entries in use.
+   * @param val The value.
+   *
+   * @return the stack, which may be a new array.
+   */
+  private static int[] push(int[] stack, int n, int val) {
+    if (n == stack.length) {
+      stack = Arrays.copyOf(stack, stack.length * 2);
+    } // if
+    stack[n] = val;
+    return stack;
+  } // push(int[], int, int)
+} // class MatrixMapped
@@ -0,0 +1,639 @@
+package edu.grinnell.csc207.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An implementation of two-dimensional matrices that stores its cells outside the Java heap,
+ * in direct ByteBuffers, using an {@link ElementCodec} to turn values into a fixed number of
+ * bytes. The garbage collector never sees the cells, so even very large matrices add little
+ * to the heap. Cells are laid out in row-major order across a series of chunks, so a matrix
+ * may hold more bytes than one ByteBuffer can.
+ *
+ * <p>close() frees the buffers right away, without waiting for the garbage collector, and so
+ * do the row and column edits that move the cells to new buffers. Freeing goes through
+ * sun.misc.Unsafe.invokeCleaner (see DirectBuffers); on a JDK without it, the buffers are only
+ * dropped, and their memory comes back when the garbage collector finds them unreachable. Close
+ * every matrix, clone included, once it is no longer needed. A closed matrix throws
+ * IllegalStateException.</p>
+ *
+ * <p>Cells cannot hold null, since codecs have no way to store it.</p>
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixOffHeap<T> implements Matrix<T>, AutoCloseable {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The largest number of bytes in one chunk.
+   */
+  static final int MAX_CHUNK_BYTES = 1 << 30;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * How values are stored.
+   */
+  private final ElementCodec<T> codec;
+
+  /**
+   * The number of bytes in each cell.
+   */
+  private final int cellBytes;
+
+  /**
+   * The base-two log of the number of cells in each chunk.
+   */
+  private final int chunkShift;
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * The cells. Cell i (that is, row * w + col) is in chunk i >>> chunkShift. Null once the
+   * matrix is closed.
+   */
+  private ByteBuffer[] chunks;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param codec How to store values.
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   * @throws NullPointerException If the default is null.
+   */
+  public MatrixOffHeap(ElementCodec<T> codec, int width, int height, T def) {
+    this(codec, width, height, def, MAX_CHUNK_BYTES);
+  } // MatrixOffHeap(ElementCodec<T>, int, int, T)
+
+  /**
+   * Create a new matrix with chunks of at most the given size. Small chunks let us test the
+   * handling of cells that are split across chunks.
+   *
+   * @param codec How to store values.
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   * @param chunkBytes The largest number of bytes in one chunk.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   * @throws NullPointerException If the default is null.
+   */
+  MatrixOffHeap(ElementCodec<T> codec, int width, int height, T def, int chunkBytes) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    if (def == null) {
+      throw new NullPointerException("MatrixOffHeap cannot hold null");
+    } // if
+    this.codec = codec;
+    this.cellBytes = codec.width();
+    int perChunk = Math.max(1, chunkBytes / this.cellBytes);
+    this.chunkShift = 31 - Integer.numberOfLeadingZeros(perChunk);
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.chunks = this.allocate((long) width * height);
+    // New memory is zeroed, so a default that encodes as zeros needs no filling.
+    if (!this.encodesAsZeros(def)) {
+      this.fill(this.chunks, 0, (long) width * height, def);
+    } // if
+  } // MatrixOffHeap(ElementCodec<T>, int, int, T, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    long i = (long) row * this.w + col;
+    return this.codec.read(this.chunks[this.chunkOf(i)], this.offsetOf(i));
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   * @throws NullPointerException If val is null.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    long i = (long) row * this.w + col;
+    this.codec.write(this.chunks[this.chunkOf(i)], this.offsetOf(i), val);
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertRow(int row) {
+    this.openRow(row);
+    long first = (long) row * this.w;
+    this.fill(this.chunks, first, first + this.w, this.defaultVal);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.openRow(row);
+    for (int c = 0; c < this.w; c++) {
+      this.set(row, c, vals[c]);
+    } // for
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertCol(int col) {
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.set(r, col, this.defaultVal);
+    } // for
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.openCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.set(r, col, vals[r]);
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void deleteRow(int row) {
+    this.checkOpen();
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    long first = (long) row * this.w;
+    long cells = (long) this.h * this.w;
+    ByteBuffer[] newChunks = this.allocate(cells - this.w);
+    this.copy(this.chunks, 0, newChunks, 0, first);
+    this.copy(this.chunks, first + this.w, newChunks, first, cells - first - this.w);
+    this.replaceChunks(newChunks);
+    this.h--;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void deleteCol(int col) {
+    this.checkOpen();
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w - 1;
+    ByteBuffer[] newChunks = this.allocate((long) this.h * newW);
+    for (int r = 0; r < this.h; r++) {
+      long from = (long) r * this.w;
+      long to = (long) r * newW;
+      this.copy(this.chunks, from, newChunks, to, col);
+      this.copy(this.chunks, from + col + 1, newChunks, to + col, newW - col);
+    } // for
+    this.replaceChunks(newChunks);
+    this.w = newW;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    this.checkOpen();
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startCol >= endCol) {
+      return;
+    } // if
+    for (int r = startRow; r < endRow; r++) {
+      long first = (long) r * this.w;
+      this.fill(this.chunks, first + startCol, first + endCol, val);
+    } // for
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Make a copy of the matrix, in newly allocated memory. The copy must be closed separately.
+   *
+   * @return a copy of the matrix.
+   *
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    this.checkOpen();
+    MatrixOffHeap<T> cloned = new MatrixOffHeap<T>(this.codec, 0, 0, this.defaultVal,
+        this.cellBytes << this.chunkShift);
+    long cells = (long) this.h * this.w;
+    cloned.w = this.w;
+    cloned.h = this.h;
+    cloned.chunks = cloned.allocate(cells);
+    this.copy(this.chunks, 0, cloned.chunks, 0, cells);
+    return cloned;
+  } // clone()
+
+  /**
+   * Free the matrix's cells, or leave them to the garbage collector if the JDK cannot free
+   * them directly. Does nothing if the matrix is already closed.
+   */
+  public void close() {
+    ByteBuffer[] old = this.chunks;
+    this.chunks = null;
+    free(old);
+  } // close()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public boolean equals(Object other) {
+    if (!(other instanceof Matrix)) {
+      return false;
+    } // if
+    Matrix otherMatrix = (Matrix) other;
+    if (otherMatrix.height() != this.h || otherMatrix.width() != this.w) {
+      return false;
+    } // if
+    for (int r = 0; r < this.h; r++) {
+      for (int c = 0; c < this.w; c++) {
+        Object val = otherMatrix.get(r, c);
+        if (val == null || !this.codec.same(this.get(r, c), (T) val)) {
+          return false;
+        } // if
+      } // for
+    } // for
+    return true;
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix. Uses Matrix.cellsHashCode with the codec's hash of each
+   * value, so that equal matrices of any kind have equal hash codes (for values whose codec uses
+   * their own hashCode).
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this, this.codec::hash);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that the matrix is still open.
+   *
+   * @throws IllegalStateException If it has been closed.
+   */
+  private void checkOpen() {
+    if (this.chunks == null) {
+      throw new IllegalStateException("MatrixOffHeap used after close()");
+    } // if
+  } // checkOpen()
+
+  /**
+   * Make sure that a cell is in the matrix and that the matrix is still open.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  private void checkCell(int row, int col) {
+    this.checkOpen();
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Find the chunk that holds a cell.
+   *
+   * @param i The index of the cell.
+   *
+   * @return the index of the chunk.
+   */
+  private int chunkOf(long i) {
+    return (int) (i >>> this.chunkShift);
+  } // chunkOf(long)
+
+  /**
+   * Find the offset of a cell within its chunk.
+   *
+   * @param i The index of the cell.
+   *
+   * @return the offset, in bytes.
+   */
+  private int offsetOf(long i) {
+    return (int) (i & ((1L << this.chunkShift) - 1)) * this.cellBytes;
+  } // offsetOf(long)
+
+  /**
+   * Allocate memory for some cells. The memory is zeroed; the caller fills it in.
+   *
+   * @param cells The number of cells.
+   *
+   * @return the chunks.
+   */
+  private ByteBuffer[] allocate(long cells) {
+    long perChunk = 1L << this.chunkShift;
+    ByteBuffer[] result = new ByteBuffer[Math.toIntExact((cells + perChunk - 1) / perChunk)];
+    for (int i = 0; i < result.length; i++) {
+      long size = Math.min(perChunk, cells - i * perChunk);
+      result[i] = ByteBuffer.allocateDirect((int) size * this.cellBytes)
+          .order(ByteOrder.nativeOrder());
+    } // for
+    return result;
+  } // allocate(long)
+
+  /**
+   * Determine whether a value is stored as all zero bytes.
+   *
+   * @param val The value.
+   *
+   * @return true if every byte is zero and false otherwise.
+   */
+  private boolean encodesAsZeros(T val) {
+    ByteBuffer buf = ByteBuffer.allocate(this.cellBytes).order(ByteOrder.nativeOrder());
+    this.codec.write(buf, 0, val);
+    for (int i = 0; i < this.cellBytes; i++) {
+      if (buf.get(i) != 0) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // encodesAsZeros(T)
+
+  /**
+   * Store one value in a range of cells.
+   *
+   * @param dest The chunks to write.
+   * @param from The first cell (inclusive).
+   * @param to The last cell (exclusive).
+   * @param val The value.
+   */
+  private void fill(ByteBuffer[] dest, long from, long to, T val) {
+    for (long i = from; i < to; i++) {
+      this.codec.write(dest[this.chunkOf(i)], this.offsetOf(i), val);
+    } // for
+  } // fill(ByteBuffer[], long, long, T)
+
+  /**
+   * Copy a range of cells, which may cross chunk boundaries in both the source and the
+   * destination.
+   *
+   * @param src The chunks to read.
+   * @param srcCell The first cell to read.
+   * @param dest The chunks to write.
+   * @param destCell The first cell to write.
+   * @param count The number of cells.
+   */
+  private void copy(ByteBuffer[] src, long srcCell, ByteBuffer[] dest, long destCell,
+      long count) {
+    long perChunk = 1L << this.chunkShift;
+    while (count > 0) {
+      long n = Math.min(count, Math.min(perChunk - (srcCell & (perChunk - 1)),
+          perChunk - (destCell & (perChunk - 1))));
+      dest[this.chunkOf(destCell)].put(this.offsetOf(destCell), src[this.chunkOf(srcCell)],
+          this.offsetOf(srcCell), (int) n * this.cellBytes);
+      srcCell += n;
+      destCell += n;
+      count -= n;
+    } // while
+  } // copy(ByteBuffer[], long, ByteBuffer[], long, long)
+
+  /**
+   * Switch to new chunks, freeing the old ones.
+   *
+   * @param newChunks The new chunks.
+   */
+  private void replaceChunks(ByteBuffer[] newChunks) {
+    ByteBuffer[] old = this.chunks;
+    this.chunks = newChunks;
+    free(old);
+  } // replaceChunks(ByteBuffer[])
+
+  /**
+   * Free a set of chunks, if there are any.
+   *
+   * @param old The chunks, or null.
+   */
+  private static void free(ByteBuffer[] old) {
+    if (old != null) {
+      for (ByteBuffer chunk : old) {
+        DirectBuffers.free(chunk);
+      } // for
+    } // if
+  } // free(ByteBuffer[])
+
+  /**
+   * Make room for a new row, leaving its cells unfilled.
+   *
+   * @param row The number of the new row.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  private void openRow(int row) {
+    this.checkOpen();
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    long first = (long) row * this.w;
+    long cells = (long) this.h * this.w;
+    ByteBuffer[] newChunks = this.allocate(cells + this.w);
+    this.copy(this.chunks, 0, newChunks, 0, first);
+    this.copy(this.chunks, first, newChunks, first + this.w, cells - first);
+    this.replaceChunks(newChunks);
+    this.h++;
+  } // openRow(int)
+
+  /**
+   * Make room for a new column, leaving its cells unfilled.
+   *
+   * @param col The number of the new column.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws IllegalStateException If the matrix has been closed.
+   */
+  private void openCol(int col) {
+    this.checkOpen();
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int newW = this.w + 1;
+    ByteBuffer[] newChunks = this.allocate((long) this.h * newW);
+    for (int r = 0; r < this.h; r++) {
+      long from = (long) r * this.w;
+      long to = (long) r * newW;
+      this.copy(this.chunks, from, newChunks, to, col);
+      this.copy(this.chunks, from + col, newChunks, to + col + 1, this.w - col);
+    } // for
+    this.replaceChunks(newChunks);
+    this.w = newW;
+  } // openCol(int)
+} // class MatrixOffHeap
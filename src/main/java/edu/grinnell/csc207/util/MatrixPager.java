@@ -0,0 +1,127 @@
+package edu.grinnell.csc207.util;
+
+import java.io.PrintWriter;
+import java.util.NoSuchElementException;
+
+/**
+ * Prints a matrix one page (window of rows and columns) at a time, for looking through
+ * matrices too big to print at once. Pages go left to right across a band of rows, then
+ * on to the next band. Each page is only looked up when it is printed, and the size of the
+ * matrix is checked again each time, so the matrix may change between pages.
+ *
+ * @author Alexander Pollock
+ */
+public class MatrixPager {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The matrix being paged through.
+   */
+  private final Matrix<?> matrix;
+
+  /**
+   * The renderer, which keeps its buffers from page to page.
+   */
+  private final MatrixRenderer renderer;
+
+  /**
+   * The number of rows on a page.
+   */
+  private final int pageRows;
+
+  /**
+   * The number of columns on a page.
+   */
+  private final int pageCols;
+
+  /**
+   * The top row of the next page.
+   */
+  private int row;
+
+  /**
+   * The left column of the next page.
+   */
+  private int col;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a pager that starts at the top left of a matrix.
+   *
+   * @param source The matrix to page through.
+   * @param rows The number of rows on a page.
+   * @param cols The number of columns on a page.
+   * @param includeLabels Whether to label pages with row and column numbers.
+   *
+   * @throws IllegalArgumentException If rows or cols is not positive.
+   */
+  public MatrixPager(Matrix<?> source, int rows, int cols, boolean includeLabels) {
+    if (rows <= 0 || cols <= 0) {
+      throw new IllegalArgumentException("Pages must have rows and columns");
+    } // if
+    this.matrix = source;
+    this.renderer = new MatrixRenderer(includeLabels, false);
+    this.pageRows = rows;
+    this.pageCols = cols;
+  } // MatrixPager(Matrix<?>, int, int, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine whether there are more pages.
+   *
+   * @return true if there is another page to print and false otherwise.
+   */
+  public boolean hasNext() {
+    return this.row < this.matrix.height() && this.matrix.width() > 0;
+  } // hasNext()
+
+  /**
+   * Print the next page and move past it.
+   *
+   * @param pen Where to print the page.
+   *
+   * @throws NoSuchElementException If there are no more pages.
+   */
+  public void printNext(PrintWriter pen) {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    } // if
+    int width = this.matrix.width();
+    int startCol = Math.min(this.col, width - 1);
+    int endRow = (int) Math.min((long) this.row + this.pageRows, this.matrix.height());
+    int endCol = (int) Math.min((long) startCol + this.pageCols, width);
+    this.renderer.render(pen, this.matrix, this.row, startCol, endRow, endCol);
+    if (endCol < width) {
+      this.col = endCol;
+    } else {
+      this.col = 0;
+      this.row = endRow;
+    } // if/else
+  } // printNext(PrintWriter)
+
+  /**
+   * Move to the page that starts at a given cell, so that the next page printed has that
+   * cell at its top left.
+   *
+   * @param startRow The top row of the page.
+   * @param startCol The left column of the page.
+   *
+   * @throws IndexOutOfBoundsException If the cell is not in the matrix.
+   */
+  public void seek(int startRow, int startCol) {
+    if (startRow < 0 || startRow >= this.matrix.height() || startCol < 0
+        || startCol >= this.matrix.width()) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.row = startRow;
+    this.col = startCol;
+  } // seek(int, int)
+} // class MatrixPager
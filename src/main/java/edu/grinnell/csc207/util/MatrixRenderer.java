@@ -0,0 +1,254 @@
+package edu.grinnell.csc207.util;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Draws matrices as ASCII tables, in the format of {@link Matrix#print}. Each cell is looked
+ * up and converted to a string once, the widths are computed from those strings, and every
+ * line is assembled in a buffer that the renderer reuses, so a renderer that draws many
+ * matrices (or many windows of one matrix) allocates little beyond the cell strings.
+ *
+ * <p>A renderer can draw every column with the same width, as Matrix.print does, or give
+ * each column the width of its own widest cell; and it can draw just a window of a matrix,
+ * in which case the labels are the real row and column numbers.</p>
+ *
+ * @author Alexander Pollock
+ */
+public class MatrixRenderer {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Whether to draw row and column numbers.
+   */
+  private final boolean labels;
+
+  /**
+   * Whether each column gets its own width.
+   */
+  private final boolean perColumn;
+
+  /**
+   * The strings of the cells being drawn, row by row.
+   */
+  private String[] cells = new String[0];
+
+  /**
+   * The width of each column being drawn, not counting the bar to its left.
+   */
+  private int[] widths = new int[0];
+
+  /**
+   * The line being assembled.
+   */
+  private final StringBuilder line = new StringBuilder();
+
+  /**
+   * The row separator, assembled once per drawing.
+   */
+  private final StringBuilder separator = new StringBuilder();
+
+  /**
+   * Where lines are copied to be written.
+   */
+  private char[] chars = new char[256];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a renderer that draws like Matrix.print, without labels.
+   */
+  public MatrixRenderer() {
+    this(false, false);
+  } // MatrixRenderer()
+
+  /**
+   * Create a renderer.
+   *
+   * @param includeLabels Whether to draw row and column numbers.
+   * @param perColumnWidths Whether each column gets the width of its own widest cell, rather
+   *        than every column getting the width of the widest cell.
+   */
+  public MatrixRenderer(boolean includeLabels, boolean perColumnWidths) {
+    this.labels = includeLabels;
+    this.perColumn = perColumnWidths;
+  } // MatrixRenderer(boolean, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Draw a whole matrix.
+   *
+   * @param pen Where to draw the matrix.
+   * @param matrix The matrix.
+   */
+  public void render(PrintWriter pen, Matrix<?> matrix) {
+    this.render(pen, matrix, 0, 0, matrix.height(), matrix.width());
+  } // render(PrintWriter, Matrix<?>)
+
+  /**
+   * Draw a window of a matrix. Only the cells in the window are looked up.
+   *
+   * @param pen Where to draw the window.
+   * @param matrix The matrix.
+   * @param startRow The top row of the window (inclusive).
+   * @param startCol The left column of the window (inclusive).
+   * @param endRow The bottom row of the window (exclusive).
+   * @param endCol The right column of the window (exclusive).
+   *
+   * @throws IndexOutOfBoundsException If the window does not fit in the matrix.
+   */
+  public void render(PrintWriter pen, Matrix<?> matrix, int startRow, int startCol,
+      int endRow, int endCol) {
+    if (startRow < 0 || startCol < 0 || endRow > matrix.height() || endCol > matrix.width()
+        || startRow > endRow || startCol > endCol) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int rows = endRow - startRow;
+    int cols = endCol - startCol;
+    this.measure(matrix, startRow, startCol, rows, cols);
+    String newline = System.lineSeparator();
+    int gutter = Math.max(2, Integer.toString(Math.max(0, endRow - 1)).length()) + 2;
+
+    // The separator is the same for every row.
+    this.separator.setLength(0);
+    if (this.labels) {
+      pad(this.separator, gutter);
+    } // if
+    for (int c = 0; c < cols; c++) {
+      this.separator.append('+');
+      for (int i = 0; i < this.widths[c]; i++) {
+        this.separator.append('-');
+      } // for
+    } // for
+    this.separator.append('+').append(newline);
+
+    if (this.labels) {
+      this.line.setLength(0);
+      pad(this.line, gutter);
+      for (int c = 0; c < cols; c++) {
+        center(this.line, label(startCol + c), this.widths[c] + 1);
+      } // for
+      this.emit(pen, this.line.append(newline));
+    } // if
+
+    for (int r = 0; r < rows; r++) {
+      this.emit(pen, this.separator);
+      this.line.setLength(0);
+      if (this.labels) {
+        String label = label(startRow + r);
+        this.line.append(' ');
+        pad(this.line, gutter - 2 - label.length());
+        this.line.append(label).append(' ');
+      } // if
+      for (int c = 0; c < cols; c++) {
+        this.line.append('|');
+        center(this.line, this.cells[r * cols + c], this.widths[c]);
+      } // for
+      this.emit(pen, this.line.append('|').append(newline));
+    } // for
+    this.emit(pen, this.separator);
+    Arrays.fill(this.cells, 0, rows * cols, null);
+  } // render(PrintWriter, Matrix<?>, int, int, int, int)
+
+  // +-----------------+---------------------------------------------
+  // | Private methods |
+  // +-----------------+
+
+  /**
+   * Convert the cells of a window to strings and compute the column widths.
+   *
+   * @param matrix The matrix.
+   * @param startRow The top row of the window.
+   * @param startCol The left column of the window.
+   * @param rows The number of rows in the window.
+   * @param cols The number of columns in the window.
+   */
+  private void measure(Matrix<?> matrix, int startRow, int startCol, int rows, int cols) {
+    int n = rows * cols;
+    if (this.cells.length < n) {
+      this.cells = new String[n];
+    } // if
+    if (this.widths.length < cols) {
+      this.widths = new int[cols];
+    } // if
+    Arrays.fill(this.widths, 0, cols, 0);
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < cols; c++) {
+        String str = Matrix.toString(matrix.get(startRow + r, startCol + c));
+        this.cells[r * cols + c] = str;
+        this.widths[c] = Math.max(this.widths[c], str.length());
+      } // for
+    } // for
+    int widest = 0;
+    for (int c = 0; c < cols; c++) {
+      widest = Math.max(widest, this.widths[c]);
+    } // for
+    for (int c = 0; c < cols; c++) {
+      // Add some space on the sides, and make sure the label fits above the column.
+      int width = (this.perColumn ? this.widths[c] : widest) + 2;
+      if (this.labels) {
+        width = Math.max(width, label(startCol + c).length() - 1);
+      } // if
+      this.widths[c] = width;
+    } // for
+  } // measure(Matrix<?>, int, int, int, int)
+
+  /**
+   * Write a line.
+   *
+   * @param pen Where to write the line.
+   * @param text The line.
+   */
+  private void emit(PrintWriter pen, StringBuilder text) {
+    int len = text.length();
+    if (this.chars.length < len) {
+      this.chars = new char[Math.max(len, this.chars.length * 2)];
+    } // if
+    text.getChars(0, len, this.chars, 0);
+    pen.write(this.chars, 0, len);
+  } // emit(PrintWriter, StringBuilder)
+
+  /**
+   * Format a row or column number.
+   *
+   * @param index The number.
+   *
+   * @return the number, at least two characters wide.
+   */
+  private static String label(int index) {
+    return (index < 10) ? " " + index : Integer.toString(index);
+  } // label(int)
+
+  /**
+   * Add a string centered in a box of the given width.
+   *
+   * @param buf Where to add the string.
+   * @param str The string.
+   * @param width The width of the box, which is at least the length of the string.
+   */
+  private static void center(StringBuilder buf, String str, int width) {
+    int left = (width - str.length()) / 2;
+    pad(buf, left);
+    buf.append(str);
+    pad(buf, width - left - str.length());
+  } // center(StringBuilder, String, int)
+
+  /**
+   * Add spaces.
+   *
+   * @param buf Where to add the spaces.
+   * @param n The number of spaces.
+   */
+  private static void pad(StringBuilder buf, int n) {
+    for (int i = 0; i < n; i++) {
+      buf.append(' ');
+    } // for
+  } // pad(StringBuilder, int)
+} // class MatrixRenderer
@@ -0,0 +1,776 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An implementation of two-dimensional matrices that stores each row as a sorted list of runs,
+ * where a run is a range of columns that all hold the same value. Cells outside every run hold
+ * the default. Filling a region adds one run per row, no matter how wide the region is, and
+ * setting a single cell splits the run that holds it. Intended for matrices that are mostly
+ * built with fillRegion and fillLine.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixRuns<T> implements Matrix<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The initial capacity of the table of rows and of each row's list of runs.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * The runs of each row. Null for rows that only hold the default.
+   */
+  private RunList[] rows;
+
+  /**
+   * Whether the table of rows may be shared with a clone.
+   */
+  private boolean shared;
+
+  /**
+   * Which rows belong to this matrix alone, so that we may change them in place. Null if all
+   * of them do.
+   */
+  private boolean[] owned;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixRuns(int width, int height, T def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.rows = new RunList[Math.max(height, DEFAULT_CAPACITY)];
+  } // MatrixRuns(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixRuns(int width, int height) {
+    this(width, height, null);
+  } // MatrixRuns(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    RunList runs = this.rows[row];
+    if (runs == null) {
+      return this.defaultVal;
+    } // if
+    return (T) runs.get(col, this.defaultVal);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    this.unshare();
+    this.assign(row, col, col + 1, val);
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    if (this.h == this.rows.length) {
+      this.rows = Arrays.copyOf(this.rows, this.rows.length * 2);
+      if (this.owned != null) {
+        this.owned = Arrays.copyOf(this.owned, this.rows.length);
+      } // if
+    } // if
+    System.arraycopy(this.rows, row, this.rows, row + 1, this.h - row);
+    this.rows[row] = null;
+    if (this.owned != null) {
+      System.arraycopy(this.owned, row, this.owned, row + 1, this.h - row);
+    } // if
+    this.h++;
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.insertRow(row);
+    for (int c = 0; c < this.w; c++) {
+      this.assign(row, c, c + 1, vals[c]);
+    } // for
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value. Moves the later run boundaries in every row.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    for (int r = 0; r < this.h; r++) {
+      if (this.rows[r] != null) {
+        this.writableRow(r).insertCol(col);
+      } // if
+    } // for
+    this.w++;
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.insertCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.assign(r, col, col + 1, vals[r]);
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    System.arraycopy(this.rows, row + 1, this.rows, row, this.h - row - 1);
+    if (this.owned != null) {
+      System.arraycopy(this.owned, row + 1, this.owned, row, this.h - row - 1);
+    } // if
+    this.h--;
+    this.rows[this.h] = null;
+  } // deleteRow(int)
+
+  /**
+   * Delete a column. Moves the later run boundaries in every row.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.unshare();
+    for (int r = 0; r < this.h; r++) {
+      if (this.rows[r] != null) {
+        RunList runs = this.writableRow(r);
+        runs.deleteCol(col);
+        if (runs.n == 0) {
+          this.rows[r] = null;
+        } // if
+      } // if
+    } // for
+    this.w--;
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix. Adds (at most) one run to each row of the region.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    for (int r = startRow; r < endRow; r++) {
+      this.assign(r, startCol, endCol, val);
+    } // for
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal). A horizontal line becomes a single run.
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (deltaRow == 0 && deltaCol == 1 && startRow < endRow && startCol < endCol) {
+      if (startRow >= this.h || endCol > this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      this.unshare();
+      this.assign(startRow, startCol, endCol, val);
+      return;
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Visit the cells that do not hold the default, run by run.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachStored(CellConsumer<? super T> action) {
+    this.forEachStored(0, this.h, action);
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells in a band of rows that do not hold the default, run by run.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    for (int r = startRow; r < this.rows.length && r < endRow; r++) {
+      RunList runs = this.rows[r];
+      if (runs != null) {
+        for (int i = 0; i < runs.n; i++) {
+          T val = (T) runs.vals[i];
+          for (int c = runs.starts[i]; c < runs.ends[i]; c++) {
+            action.accept(r, c, val);
+          } // for
+        } // for
+      } // if
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Determine how many cells do not hold the default.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    long count = 0;
+    for (int r = 0; r < this.rows.length && r < this.h; r++) {
+      RunList runs = this.rows[r];
+      if (runs != null) {
+        for (int i = 0; i < runs.n; i++) {
+          count += runs.ends[i] - runs.starts[i];
+        } // for
+      } // if
+    } // for
+    return count;
+  } // storedCount()
+
+  /**
+   * A make a copy of the matrix. The copy shares the values with this matrix. Takes constant
+   * time: the two matrices share their rows until one of them changes, and after that a row
+   * is only copied the first time it changes.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    MatrixRuns<T> cloned = new MatrixRuns<T>(0, 0, this.defaultVal);
+    cloned.h = this.h;
+    cloned.w = this.w;
+    cloned.rows = this.rows;
+    cloned.shared = true;
+    this.shared = true;
+    return cloned;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object. Compares only the cells that either
+   * matrix stores when the two have the same default value.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix from the cells it stores. Uses Matrix.cellsHashCode, so
+   * that equal matrices of any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a cell is in the matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  private void checkCell(int row, int col) {
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Store one value in a range of columns of a row. The caller must already have called
+   * unshare().
+   *
+   * @param row The row.
+   * @param from The first column (inclusive).
+   * @param to The last column (exclusive).
+   * @param val The value.
+   */
+  private void assign(int row, int from, int to, Object val) {
+    boolean isDefault = Objects.equals(val, this.defaultVal);
+    if (this.rows[row] == null) {
+      if (isDefault) {
+        return;
+      } // if
+      this.rows[row] = new RunList();
+      if (this.owned != null) {
+        this.owned[row] = true;
+      } // if
+    } // if
+    RunList runs = this.writableRow(row);
+    runs.assign(from, to, val, isDefault);
+    if (runs.n == 0) {
+      this.rows[row] = null;
+    } // if
+  } // assign(int, int, int, Object)
+
+  /**
+   * Get the runs of a row that is not null, copying them first if a clone shares them.
+   *
+   * @param row The row.
+   *
+   * @return the runs.
+   */
+  private RunList writableRow(int row) {
+    RunList runs = this.rows[row];
+    if (this.owned != null && !this.owned[row]) {
+      runs = runs.copy();
+      this.rows[row] = runs;
+      this.owned[row] = true;
+    } // if
+    return runs;
+  } // writableRow(int)
+
+  /**
+   * Stop sharing our table of rows with any clone. Copies the table, but not the rows; from
+   * now on, each row is copied the first time it changes.
+   */
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    } // if
+    this.rows = this.rows.clone();
+    this.owned = new boolean[this.rows.length];
+    this.shared = false;
+  } // unshare()
+
+  // +-------------+-------------------------------------------------
+  // | Inner class |
+  // +-------------+
+
+  /**
+   * The runs of one row, sorted by column. Runs never overlap, and two runs that touch never
+   * hold equal values.
+   */
+  private static final class RunList {
+    /**
+     * The first column of each run (inclusive).
+     */
+    int[] starts;
+
+    /**
+     * The last column of each run (exclusive).
+     */
+    int[] ends;
+
+    /**
+     * The value of each run.
+     */
+    Object[] vals;
+
+    /**
+     * The number of runs.
+     */
+    int n;
+
+    /**
+     * Create an empty list of runs.
+     */
+    RunList() {
+      this.starts = new int[DEFAULT_CAPACITY];
+      this.ends = new int[DEFAULT_CAPACITY];
+      this.vals = new Object[DEFAULT_CAPACITY];
+    } // RunList()
+
+    /**
+     * Make a copy that may be changed independently.
+     *
+     * @return the copy.
+     */
+    RunList copy() {
+      RunList runs = new RunList();
+      runs.starts = this.starts.clone();
+      runs.ends = this.ends.clone();
+      runs.vals = this.vals.clone();
+      runs.n = this.n;
+      return runs;
+    } // copy()
+
+    /**
+     * Get the value in a column.
+     *
+     * @param col The column.
+     * @param def The value of columns outside every run.
+     *
+     * @return the value.
+     */
+    Object get(int col, Object def) {
+      int i = this.firstEndingAfter(col);
+      if (i < this.n && this.starts[i] <= col) {
+        return this.vals[i];
+      } // if
+      return def;
+    } // get(int, Object)
+
+    /**
+     * Store one value in a range of columns, splitting or replacing the runs that overlap the
+     * range and merging with the runs on either side when they hold an equal value.
+     *
+     * @param from The first column (inclusive).
+     * @param to The last column (exclusive).
+     * @param val The value.
+     * @param isDefault Whether the value is the default, in which case the range ends up
+     *        outside every run.
+     */
+    void assign(int from, int to, Object val, boolean isDefault) {
+      // The runs that overlap the range are lo .. hi-1.
+      int lo = this.firstEndingAfter(from);
+      int hi = this.firstStartingAtOrAfter(to);
+      int[] newStarts = new int[5];
+      int[] newEnds = new int[5];
+      Object[] newVals = new Object[5];
+      int k = 0;
+      // A non-default range may merge with the runs just before and just after it.
+      boolean mergeLeft = !isDefault && lo > 0 && this.ends[lo - 1] == from;
+      boolean mergeRight = !isDefault && hi < this.n && this.starts[hi] == to;
+      if (mergeLeft) {
+        newStarts[k] = this.starts[lo - 1];
+        newEnds[k] = this.ends[lo - 1];
+        newVals[k++] = this.vals[lo - 1];
+      } // if
+      if (lo < hi && this.starts[lo] < from) {
+        newStarts[k] = this.starts[lo];
+        newEnds[k] = from;
+        newVals[k++] = this.vals[lo];
+      } // if
+      if (!isDefault) {
+        newStarts[k] = from;
+        newEnds[k] = to;
+        newVals[k++] = val;
+      } // if
+      if (lo < hi && this.ends[hi - 1] > to) {
+        newStarts[k] = to;
+        newEnds[k] = this.ends[hi - 1];
+        newVals[k++] = this.vals[hi - 1];
+      } // if
+      if (mergeRight) {
+        newStarts[k] = this.starts[hi];
+        newEnds[k] = this.ends[hi];
+        newVals[k++] = this.vals[hi];
+      } // if
+      lo -= mergeLeft ? 1 : 0;
+      hi += mergeRight ? 1 : 0;
+      // Merge the new runs that touch and hold equal values.
+      int m = 0;
+      for (int j = 0; j < k; j++) {
+        if (m > 0 && newEnds[m - 1] == newStarts[j]
+            && Objects.equals(newVals[m - 1], newVals[j])) {
+          newEnds[m - 1] = newEnds[j];
+        } else {
+          newStarts[m] = newStarts[j];
+          newEnds[m] = newEnds[j];
+          newVals[m++] = newVals[j];
+        } // if/else
+      } // for
+      this.replace(lo, hi, m);
+      System.arraycopy(newStarts, 0, this.starts, lo, m);
+      System.arraycopy(newEnds, 0, this.ends, lo, m);
+      System.arraycopy(newVals, 0, this.vals, lo, m);
+    } // assign(int, int, Object, boolean)
+
+    /**
+     * Make room for a column of the default value.
+     *
+     * @param col The column to insert.
+     */
+    void insertCol(int col) {
+      int i = this.firstEndingAfter(col);
+      if (i < this.n && this.starts[i] < col) {
+        // The run holds the column, so it splits around the new one.
+        this.replace(i, i + 1, 2);
+        this.starts[i + 1] = col;
+        this.ends[i + 1] = this.ends[i];
+        this.vals[i + 1] = this.vals[i];
+        this.ends[i] = col;
+        i++;
+      } // if
+      for (int j = i; j < this.n; j++) {
+        this.starts[j]++;
+        this.ends[j]++;
+      } // for
+    } // insertCol(int)
+
+    /**
+     * Remove a column.
+     *
+     * @param col The column to remove.
+     */
+    void deleteCol(int col) {
+      int i = this.firstEndingAfter(col);
+      if (i < this.n && this.starts[i] <= col) {
+        this.ends[i]--;
+        if (this.starts[i] == this.ends[i]) {
+          this.replace(i, i + 1, 0);
+        } else {
+          i++;
+        } // if/else
+      } // if
+      for (int j = i; j < this.n; j++) {
+        this.starts[j]--;
+        this.ends[j]--;
+      } // for
+      // The runs on either side of the column may now touch.
+      if (i > 0 && i < this.n && this.ends[i - 1] == this.starts[i]
+          && Objects.equals(this.vals[i - 1], this.vals[i])) {
+        this.ends[i - 1] = this.ends[i];
+        this.replace(i, i + 1, 0);
+      } // if
+    } // deleteCol(int)
+
+    /**
+     * Find the first run that ends after a column.
+     *
+     * @param col The column.
+     *
+     * @return the index of the run, or n if there is none.
+     */
+    private int firstEndingAfter(int col) {
+      int lo = 0;
+      int hi = this.n;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (this.ends[mid] > col) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        } // if/else
+      } // while
+      return lo;
+    } // firstEndingAfter(int)
+
+    /**
+     * Find the first run that starts at or after a column.
+     *
+     * @param col The column.
+     *
+     * @return the index of the run, or n if there is none.
+     */
+    private int firstStartingAtOrAfter(int col) {
+      int lo = 0;
+      int hi = this.n;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (this.starts[mid] >= col) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        } // if/else
+      } // while
+      return lo;
+    } // firstStartingAtOrAfter(int)
+
+    /**
+     * Replace runs lo .. hi-1 with room for count runs, which the caller fills in.
+     *
+     * @param lo The first run to replace.
+     * @param hi The run after the last one to replace.
+     * @param count The number of runs to make room for.
+     */
+    private void replace(int lo, int hi, int count) {
+      int newN = this.n - (hi - lo) + count;
+      if (newN > this.starts.length) {
+        int capacity = Math.max(newN, this.starts.length * 2);
+        this.starts = Arrays.copyOf(this.starts, capacity);
+        this.ends = Arrays.copyOf(this.ends, capacity);
+        this.vals = Arrays.copyOf(this.vals, capacity);
+      } // if
+      System.arraycopy(this.starts, hi, this.starts, lo + count, this.n - hi);
+      System.arraycopy(this.ends, hi, this.ends, lo + count, this.n - hi);
+      System.arraycopy(this.vals, hi, this.vals, lo + count, this.n - hi);
+      for (int j = newN; j < this.n; j++) {
+        this.vals[j] = null;
+      } // for
+      this.n = newN;
+    } // replace(int, int, int)
+  } // class RunList
+} // class MatrixRuns
@@ -0,0 +1,1054 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * An implementation of two-dimensional matrices that divides the grid into square tiles of
+ * TILE_SIZE by TILE_SIZE cells. A tile is only allocated once something other than the default
+ * is written to it. Each tile stores its cells in whichever way suits it: a small hash map
+ * while few of its cells are set, a dense array once many are, or a single value when the whole
+ * tile has been filled with it. Tiles switch between these forms as they fill up and empty out.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class MatrixTiled<T> implements Matrix<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The base-two log of the tile size.
+   */
+  static final int TILE_BITS = 6;
+
+  /**
+   * The number of rows and columns in a tile.
+   */
+  static final int TILE_SIZE = 1 << TILE_BITS;
+
+  /**
+   * The mask for a row or column within a tile.
+   */
+  static final int TILE_MASK = TILE_SIZE - 1;
+
+  /**
+   * The number of cells in a tile.
+   */
+  static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+
+  /**
+   * A sparse tile with more set cells than this becomes dense.
+   */
+  static final int DENSE_ABOVE = TILE_CELLS / 4;
+
+  /**
+   * A dense tile with fewer set cells than this becomes sparse. Well below DENSE_ABOVE, so that
+   * a tile near the boundary does not keep switching back and forth.
+   */
+  static final int SPARSE_BELOW = TILE_CELLS / 16;
+
+  /**
+   * The kind of a tile whose cells all hold the same value.
+   */
+  static final int UNIFORM = 0;
+
+  /**
+   * The kind of a tile that keeps its set cells in a hash map.
+   */
+  static final int SPARSE = 1;
+
+  /**
+   * The kind of a tile that keeps all its cells in an array.
+   */
+  static final int DENSE = 2;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private int h;
+
+  /**
+   * The width.
+   */
+  private int w;
+
+  /**
+   * The default value.
+   */
+  private T defaultVal;
+
+  /**
+   * The number of tiles in each row of tiles.
+   */
+  private int tileCols;
+
+  /**
+   * The tiles, row of tiles by row of tiles. Null for tiles that only hold the default.
+   */
+  private Tile[] tiles;
+
+  /**
+   * Whether the tiles array may be shared with a clone.
+   */
+  private boolean shared;
+
+  /**
+   * Which tiles belong to this matrix alone, so that we may change them in place. Null if all
+   * of them do.
+   */
+  private boolean[] owned;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixTiled(int width, int height, T def) {
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.tileCols = tilesFor(width);
+    this.tiles = new Tile[tilesFor(height) * this.tileCols];
+  } // MatrixTiled(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public MatrixTiled(int width, int height) {
+    this(width, height, null);
+  } // MatrixTiled(int, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    this.checkCell(row, col);
+    Tile tile = this.tiles[(row >>> TILE_BITS) * this.tileCols + (col >>> TILE_BITS)];
+    if (tile == null) {
+      return this.defaultVal;
+    } // if
+    return (T) tile.get(local(row, col), this.defaultVal);
+  } // get(int, int)
+
+  /**
+   * Set the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public void set(int row, int col, T val) {
+    this.checkCell(row, col);
+    this.unshare();
+    this.put(row, col, val);
+  } // set(int, int, T)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Insert a row filled with the default value.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public void insertRow(int row) {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.rebuild(this.w, this.h + 1, (r) -> (r >= row) ? r + 1 : r, (c) -> c);
+  } // insertRow(int)
+
+  /**
+   * Insert a row filled with the specified values.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public void insertRow(int row, T[] vals) throws ArraySizeException {
+    if (row < 0 || row > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.w) {
+      throw new ArraySizeException();
+    } // if
+    this.insertRow(row);
+    for (int c = 0; c < this.w; c++) {
+      this.put(row, c, vals[c]);
+    } // for
+  } // insertRow(int, T[])
+
+  /**
+   * Insert a column filled with the default value.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public void insertCol(int col) {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.rebuild(this.w + 1, this.h, (r) -> r, (c) -> (c >= col) ? c + 1 : c);
+  } // insertCol(int)
+
+  /**
+   * Insert a column filled with the specified values.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public void insertCol(int col, T[] vals) throws ArraySizeException {
+    if (col < 0 || col > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (vals.length != this.h) {
+      throw new ArraySizeException();
+    } // if
+    this.insertCol(col);
+    for (int r = 0; r < this.h; r++) {
+      this.put(r, col, vals[r]);
+    } // for
+  } // insertCol(int, T[])
+
+  /**
+   * Delete a row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public void deleteRow(int row) {
+    if (row < 0 || row >= this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.rebuild(this.w, this.h - 1, (r) -> (r < row) ? r : (r == row) ? -1 : r - 1, (c) -> c);
+  } // deleteRow(int)
+
+  /**
+   * Delete a column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public void deleteCol(int col) {
+    if (col < 0 || col >= this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    this.rebuild(this.w - 1, this.h, (r) -> r, (c) -> (c < col) ? c : (c == col) ? -1 : c - 1);
+  } // deleteCol(int)
+
+  /**
+   * Fill a rectangular region of the matrix. Tiles that the region covers completely become
+   * uniform tiles (or go away, if the value is the default), so the cost depends on the number
+   * of tiles that the region only partly covers.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startRow >= endRow || startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    this.fillRows(startRow, startCol, endRow, endCol, val);
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Fill a rectangular region of the matrix, splitting its rows into bands of whole rows of
+   * tiles and filling the bands on the common fork/join pool. Bands are at least one tile high,
+   * even if that makes them larger than the threshold, so no two threads ever change the same
+   * tile.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   * @param threshold The number of cells below which a band is not split further.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillRegionParallel(int startRow, int startCol, int endRow, int endCol, T val,
+      int threshold) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+        || endRow > this.h || endCol > this.w) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    if (startRow >= endRow || startCol >= endCol) {
+      return;
+    } // if
+    this.unshare();
+    RowBands.run(startRow, endRow, endCol - startCol, threshold, TILE_SIZE,
+        (r0, r1) -> this.fillRows(r0, startCol, r1, endCol, val));
+  } // fillRegionParallel(int, int, int, int, T, int)
+
+  /**
+   * Replace the value of every cell by the result of applying a function to it. Applies the
+   * function only once to each tile that holds a single value, including the tiles that hold
+   * only the default.
+   *
+   * @param fun The function to apply.
+   */
+  public void mapInPlace(UnaryOperator<T> fun) {
+    this.unshare();
+    this.mapRows(0, this.h, fun);
+  } // mapInPlace(UnaryOperator<T>)
+
+  /**
+   * Replace the value of every cell by the result of applying a function to it, splitting the
+   * rows into bands of whole rows of tiles and mapping the bands on the common fork/join pool.
+   *
+   * @param fun The function to apply. Must be safe to call from several threads at once.
+   * @param threshold The number of cells below which a band is not split further.
+   */
+  public void mapInPlaceParallel(UnaryOperator<T> fun, int threshold) {
+    this.unshare();
+    RowBands.run(0, this.h, this.w, threshold, TILE_SIZE,
+        (r0, r1) -> this.mapRows(r0, r1, fun));
+  } // mapInPlaceParallel(UnaryOperator<T>, int)
+
+  /**
+   * Apply a function to every cell, giving a new MatrixTiled of the same size. Applies the
+   * function once to each tile that holds a single value, and once to the default if some
+   * cell holds it, so takes time proportional to the number of tiles plus the number of cells
+   * in other tiles.
+   *
+   * @param fun The function to apply. Should not have side effects.
+   *
+   * @return the new matrix.
+   */
+  public <U> Matrix<U> map(Function<? super T, ? extends U> fun) {
+    MatrixTiled<U> result = new MatrixTiled<U>(this.w, this.h, this.mappedDefault(fun));
+    this.mapInto(result, 0, this.h, fun);
+    return result;
+  } // map(Function<? super T, ? extends U>)
+
+  /**
+   * Apply a function to every cell, giving a new MatrixTiled of the same size, with bands of
+   * whole rows of tiles mapped on the common fork/join pool.
+   *
+   * @param fun The function to apply. Should not have side effects, and must be safe to call
+   *        from several threads at once.
+   *
+   * @return the new matrix.
+   */
+  public <U> Matrix<U> mapParallel(Function<? super T, ? extends U> fun) {
+    MatrixTiled<U> result = new MatrixTiled<U>(this.w, this.h, this.mappedDefault(fun));
+    RowBands.run(0, this.h, this.w, RowBands.DEFAULT_THRESHOLD, TILE_SIZE,
+        (r0, r1) -> this.mapInto(result, r0, r1, fun));
+    return result;
+  } // mapParallel(Function<? super T, ? extends U>)
+
+  /**
+   * Fill a line (horizontal, vertical, diagonal).
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+      throw new IndexOutOfBoundsException();
+    } // if
+    int r = startRow;
+    int c = startCol;
+    while (r < endRow && c < endCol) {
+      this.set(r, c, val);
+      r += deltaRow;
+      c += deltaCol;
+    } // while
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Visit the cells that do not hold the default, tile by tile. Tiles that hold only the
+   * default are skipped.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachStored(CellConsumer<? super T> action) {
+    this.forEachStored(0, this.h, action);
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells in a band of rows that do not hold the default, tile by tile. Only looks
+   * at the tiles that hold the band.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    for (int tr = startRow >>> TILE_BITS; tr < tilesFor(endRow); tr++) {
+      int top = tr << TILE_BITS;
+      int rows = Math.min(TILE_SIZE, this.h - top);
+      for (int tc = 0; tc < this.tileCols; tc++) {
+        Tile tile = this.tiles[tr * this.tileCols + tc];
+        if (tile != null) {
+          int left = tc << TILE_BITS;
+          int cols = Math.min(TILE_SIZE, this.w - left);
+          tile.forEach(this.defaultVal, rows, cols, (i, val) -> {
+            int r = top + (i >>> TILE_BITS);
+            if (r >= startRow && r < endRow) {
+              action.accept(r, left + (i & TILE_MASK), (T) val);
+            } // if
+          });
+        } // if
+      } // for
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Get a spliterator over the cells that do not hold the default. Splits only between rows of
+   * tiles.
+   *
+   * @return the spliterator.
+   */
+  public CellSpliterator<T> cellSpliterator() {
+    return new RowCellSpliterator<T>(this, 0, this.h, TILE_SIZE);
+  } // cellSpliterator()
+
+  /**
+   * Determine how many cells do not hold the default. Counts them, so takes time
+   * proportional to the number of such cells.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    long[] count = new long[1];
+    this.forEachStored((row, col, val) -> count[0]++);
+    return count[0];
+  } // storedCount()
+
+  /**
+   * Determine how many tiles the matrix keeps. Tiles that only hold the default are dropped.
+   *
+   * @return the number of tiles.
+   */
+  int tileCount() {
+    int count = 0;
+    for (Tile tile : this.tiles) {
+      if (tile != null) {
+        count++;
+      } // if
+    } // for
+    return count;
+  } // tileCount()
+
+  /**
+   * A make a copy of the matrix. The copy shares the values with this matrix. Takes constant
+   * time: the two matrices share their tiles until one of them changes, and after that a tile
+   * is only copied the first time it changes.
+   *
+   * @return a copy of the matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    MatrixTiled<T> cloned = new MatrixTiled<T>(0, 0, this.defaultVal);
+    cloned.h = this.h;
+    cloned.w = this.w;
+    cloned.tileCols = this.tileCols;
+    cloned.tiles = this.tiles;
+    cloned.shared = true;
+    this.shared = true;
+    return cloned;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object. Compares only the cells that either
+   * matrix stores when the two have the same default value.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix from the cells it stores. Uses Matrix.cellsHashCode, so
+   * that equal matrices of any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make sure that a cell is in the matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  private void checkCell(int row, int col) {
+    if (col >= this.w || row >= this.h || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int)
+
+  /**
+   * Store a value in a cell, allocating, copying, or dropping its tile as necessary. The
+   * caller must already have called unshare().
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @param val The value.
+   */
+  private void put(int row, int col, Object val) {
+    int t = (row >>> TILE_BITS) * this.tileCols + (col >>> TILE_BITS);
+    Tile tile = this.tiles[t];
+    if (tile == null) {
+      if (Objects.equals(val, this.defaultVal)) {
+        return;
+      } // if
+      tile = new Tile(SPARSE);
+      this.tiles[t] = tile;
+      this.markOwned(t);
+    } else if (this.owned != null && !this.owned[t]) {
+      tile = tile.copy();
+      this.tiles[t] = tile;
+      this.owned[t] = true;
+    } // if/else
+    int rows = Math.min(TILE_SIZE, this.h - (row & ~TILE_MASK));
+    int cols = Math.min(TILE_SIZE, this.w - (col & ~TILE_MASK));
+    if (tile.set(local(row, col), val, this.defaultVal, rows, cols)) {
+      this.tiles[t] = null;
+    } // if
+  } // put(int, int, Object)
+
+  /**
+   * Fill a rectangular region that has already been checked. Only changes the tiles that hold
+   * the region, so regions in different rows of tiles may be filled at the same time. The
+   * caller must already have called unshare().
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   */
+  private void fillRows(int startRow, int startCol, int endRow, int endCol, Object val) {
+    boolean isDefault = Objects.equals(val, this.defaultVal);
+    for (int tr = startRow >>> TILE_BITS; tr <= (endRow - 1) >>> TILE_BITS; tr++) {
+      int top = tr << TILE_BITS;
+      int bottom = Math.min(top + TILE_SIZE, this.h);
+      int r0 = Math.max(startRow, top);
+      int r1 = Math.min(endRow, bottom);
+      for (int tc = startCol >>> TILE_BITS; tc <= (endCol - 1) >>> TILE_BITS; tc++) {
+        int left = tc << TILE_BITS;
+        int right = Math.min(left + TILE_SIZE, this.w);
+        int c0 = Math.max(startCol, left);
+        int c1 = Math.min(endCol, right);
+        int t = tr * this.tileCols + tc;
+        if (r0 == top && r1 == bottom && c0 == left && c1 == right) {
+          this.tiles[t] = isDefault ? null : Tile.uniform(val);
+          this.markOwned(t);
+        } else if (!isDefault || this.tiles[t] != null) {
+          for (int r = r0; r < r1; r++) {
+            for (int c = c0; c < c1; c++) {
+              this.put(r, c, val);
+            } // for
+          } // for
+        } // if/else
+      } // for
+    } // for
+  } // fillRows(int, int, int, int, Object)
+
+  /**
+   * Apply a function to every cell in the rows of tiles that hold a range of rows. The range
+   * must start and end on tile boundaries (or at the bottom of the matrix), and the caller must
+   * already have called unshare().
+   *
+   * @param startRow The first row (inclusive).
+   * @param endRow The last row (exclusive).
+   * @param fun The function to apply.
+   */
+  @SuppressWarnings("unchecked")
+  private void mapRows(int startRow, int endRow, UnaryOperator<T> fun) {
+    for (int tr = startRow >>> TILE_BITS; tr < tilesFor(endRow); tr++) {
+      int top = tr << TILE_BITS;
+      int rows = Math.min(TILE_SIZE, this.h - top);
+      for (int tc = 0; tc < this.tileCols; tc++) {
+        int left = tc << TILE_BITS;
+        int cols = Math.min(TILE_SIZE, this.w - left);
+        int t = tr * this.tileCols + tc;
+        Tile tile = this.tiles[t];
+        if (tile == null || tile.kind == UNIFORM) {
+          T val = fun.apply((T) ((tile == null) ? this.defaultVal : tile.uniform));
+          this.tiles[t] = Objects.equals(val, this.defaultVal) ? null : Tile.uniform(val);
+          this.markOwned(t);
+        } else {
+          for (int r = top; r < top + rows; r++) {
+            for (int c = left; c < left + cols; c++) {
+              tile = this.tiles[t];
+              Object old =
+                  (tile == null) ? this.defaultVal : tile.get(local(r, c), this.defaultVal);
+              this.put(r, c, fun.apply((T) old));
+            } // for
+          } // for
+        } // if/else
+      } // for
+    } // for
+  } // mapRows(int, int, UnaryOperator<T>)
+
+  /**
+   * Apply a function to the cells in the rows of tiles that hold a range of rows, putting the
+   * results in a new matrix of the same size. The range must start and end on tile boundaries
+   * (or at the bottom of the matrix), and the new matrix must still only hold its default in
+   * those rows.
+   *
+   * @param result The new matrix, whose default is the function applied to our default.
+   * @param startRow The first row (inclusive).
+   * @param endRow The last row (exclusive).
+   * @param fun The function to apply.
+   */
+  @SuppressWarnings("unchecked")
+  private <U> void mapInto(MatrixTiled<U> result, int startRow, int endRow,
+      Function<? super T, ? extends U> fun) {
+    for (int tr = startRow >>> TILE_BITS; tr < tilesFor(endRow); tr++) {
+      int top = tr << TILE_BITS;
+      int rows = Math.min(TILE_SIZE, this.h - top);
+      for (int tc = 0; tc < this.tileCols; tc++) {
+        int left = tc << TILE_BITS;
+        int cols = Math.min(TILE_SIZE, this.w - left);
+        int t = tr * this.tileCols + tc;
+        Tile tile = this.tiles[t];
+        if (tile != null && tile.kind == UNIFORM) {
+          U val = fun.apply((T) tile.uniform);
+          result.tiles[t] = Objects.equals(val, result.defaultVal) ? null : Tile.uniform(val);
+        } else if (tile != null) {
+          tile.forEach(this.defaultVal, rows, cols, (i, val) ->
+              result.put(top + (i >>> TILE_BITS), left + (i & TILE_MASK), fun.apply((T) val)));
+        } // if/else
+      } // for
+    } // for
+  } // mapInto(MatrixTiled<U>, int, int, Function<? super T, ? extends U>)
+
+  /**
+   * Choose the default of a matrix that holds the results of mapping a function over this one.
+   * If some cell holds our default, the new default is the function applied to it. Otherwise
+   * we never apply the function to the default (it may be a value, such as null, that the
+   * function cannot take), and use the new value of the cell in row 0, column 0 instead.
+   *
+   * @param fun The function.
+   *
+   * @return the new default, or null if there are no cells.
+   */
+  private <U> U mappedDefault(Function<? super T, ? extends U> fun) {
+    long cells = (long) this.w * this.h;
+    if (cells == 0) {
+      return null;
+    } // if
+    boolean covered = true;
+    for (Tile tile : this.tiles) {
+      covered = covered && tile != null;
+    } // for
+    if (!covered || this.storedCount() < cells) {
+      return fun.apply(this.defaultVal);
+    } // if
+    return fun.apply(this.get(0, 0));
+  } // mappedDefault(Function<? super T, ? extends U>)
+
+  /**
+   * Note that a tile now belongs to this matrix alone.
+   *
+   * @param t The index of the tile.
+   */
+  private void markOwned(int t) {
+    if (this.owned != null) {
+      this.owned[t] = true;
+    } // if
+  } // markOwned(int)
+
+  /**
+   * Stop sharing our tiles array with any clone. Copies the array, but not the tiles; from now
+   * on, each tile is copied the first time it changes.
+   */
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    } // if
+    this.tiles = this.tiles.clone();
+    this.owned = new boolean[this.tiles.length];
+    this.shared = false;
+  } // unshare()
+
+  /**
+   * Move every cell that does not hold the default into a new grid of tiles. Used for the
+   * structural edits, which move cells between tiles; takes time proportional to the number of
+   * cells in allocated tiles.
+   *
+   * @param newWidth The width of the new grid.
+   * @param newHeight The height of the new grid.
+   * @param rowMap Maps each old row to its new row, or to -1 if it goes away.
+   * @param colMap Maps each old column to its new column, or to -1 if it goes away.
+   */
+  private void rebuild(int newWidth, int newHeight, IntUnaryOperator rowMap,
+      IntUnaryOperator colMap) {
+    Tile[] oldTiles = this.tiles;
+    int oldTileCols = this.tileCols;
+    int oldW = this.w;
+    int oldH = this.h;
+    this.w = newWidth;
+    this.h = newHeight;
+    this.tileCols = tilesFor(newWidth);
+    this.tiles = new Tile[tilesFor(newHeight) * this.tileCols];
+    this.owned = null;
+    this.shared = false;
+    for (int t = 0; t < oldTiles.length; t++) {
+      if (oldTiles[t] != null) {
+        int top = (t / oldTileCols) << TILE_BITS;
+        int left = (t % oldTileCols) << TILE_BITS;
+        int rows = Math.min(TILE_SIZE, oldH - top);
+        int cols = Math.min(TILE_SIZE, oldW - left);
+        oldTiles[t].forEach(this.defaultVal, rows, cols, (i, val) -> {
+          int r = rowMap.applyAsInt(top + (i >>> TILE_BITS));
+          int c = colMap.applyAsInt(left + (i & TILE_MASK));
+          if (r >= 0 && c >= 0) {
+            this.put(r, c, val);
+          } // if
+        });
+      } // if
+    } // for
+  } // rebuild(int, int, IntUnaryOperator, IntUnaryOperator)
+
+  /**
+   * Determine how many tiles it takes to cover a number of rows or columns.
+   *
+   * @param n The number of rows or columns.
+   *
+   * @return the number of tiles.
+   */
+  private static int tilesFor(int n) {
+    return (n + TILE_MASK) >>> TILE_BITS;
+  } // tilesFor(int)
+
+  /**
+   * Find the index of a cell within its tile.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   *
+   * @return the index.
+   */
+  private static int local(int row, int col) {
+    return ((row & TILE_MASK) << TILE_BITS) | (col & TILE_MASK);
+  } // local(int, int)
+
+  // +-------------+-------------------------------------------------
+  // | Inner class |
+  // +-------------+
+
+  /**
+   * One tile of the matrix. Cells are numbered row by row within the tile.
+   */
+  private static final class Tile {
+    /**
+     * How the cells are stored: UNIFORM, SPARSE, or DENSE.
+     */
+    int kind;
+
+    /**
+     * The value of every cell, for a uniform tile.
+     */
+    Object uniform;
+
+    /**
+     * The cells that do not hold the default, for a sparse tile.
+     */
+    IntObjectMap<Object> sparse;
+
+    /**
+     * All the cells, for a dense tile.
+     */
+    Object[] dense;
+
+    /**
+     * The number of cells that do not hold the default, for a sparse or dense tile.
+     */
+    int count;
+
+    /**
+     * Create a new tile. A sparse tile starts out holding only the default; the caller fills
+     * in the other kinds.
+     *
+     * @param kind The kind of tile.
+     */
+    Tile(int kind) {
+      this.kind = kind;
+      if (kind == SPARSE) {
+        this.sparse = new IntObjectMap<Object>();
+      } // if
+    } // Tile(int)
+
+    /**
+     * Create a tile in which every cell holds the same value.
+     *
+     * @param val The value, which should not be the default.
+     *
+     * @return the tile.
+     */
+    static Tile uniform(Object val) {
+      Tile tile = new Tile(UNIFORM);
+      tile.uniform = val;
+      return tile;
+    } // uniform(Object)
+
+    /**
+     * Make a copy of the tile that may be changed independently.
+     *
+     * @return the copy.
+     */
+    Tile copy() {
+      Tile tile = new Tile(DENSE);
+      tile.kind = this.kind;
+      tile.uniform = this.uniform;
+      tile.sparse = (this.sparse == null) ? null : this.sparse.clone();
+      tile.dense = (this.dense == null) ? null : this.dense.clone();
+      tile.count = this.count;
+      return tile;
+    } // copy()
+
+    /**
+     * Get the value of a cell.
+     *
+     * @param i The index of the cell.
+     * @param def The default value.
+     *
+     * @return the value.
+     */
+    Object get(int i, Object def) {
+      if (this.kind == UNIFORM) {
+        return this.uniform;
+      } else if (this.kind == SPARSE) {
+        return this.sparse.getOrDefault(i, def);
+      } else {
+        return this.dense[i];
+      } // if/else
+    } // get(int, Object)
+
+    /**
+     * Set the value of a cell, switching to whichever kind of tile now fits best.
+     *
+     * @param i The index of the cell.
+     * @param val The value.
+     * @param def The default value.
+     * @param rows The number of rows of the tile that are in the matrix.
+     * @param cols The number of columns of the tile that are in the matrix.
+     *
+     * @return true if the tile now only holds the default, and false otherwise.
+     */
+    boolean set(int i, Object val, Object def, int rows, int cols) {
+      boolean isDefault = Objects.equals(val, def);
+      if (this.kind == UNIFORM) {
+        if (Objects.equals(val, this.uniform)) {
+          return false;
+        } // if
+        // Only the cells in the matrix take the uniform value; the rest of an edge tile holds
+        // the default, so that count stays the number of non-default cells in the matrix.
+        this.dense = new Object[TILE_CELLS];
+        if (def != null) {
+          Arrays.fill(this.dense, def);
+        } // if
+        for (int r = 0; r < rows; r++) {
+          Arrays.fill(this.dense, r << TILE_BITS, (r << TILE_BITS) + cols, this.uniform);
+        } // for
+        this.count = rows * cols;
+        this.uniform = null;
+        this.kind = DENSE;
+      } // if
+      if (this.kind == SPARSE) {
+        if (isDefault) {
+          if (this.sparse.hasKey(i)) {
+            this.sparse.remove(i);
+            this.count--;
+          } // if
+        } else {
+          if (!this.sparse.hasKey(i)) {
+            this.count++;
+          } // if
+          this.sparse.set(i, val);
+          if (this.count > DENSE_ABOVE) {
+            this.toDense(def);
+          } // if
+        } // if/else
+      } else {
+        boolean wasDefault = Objects.equals(this.dense[i], def);
+        this.dense[i] = val;
+        if (wasDefault && !isDefault) {
+          this.count++;
+        } else if (!wasDefault && isDefault) {
+          this.count--;
+          if (this.count < SPARSE_BELOW) {
+            this.toSparse(def);
+          } // if
+        } // if/else
+      } // if/else
+      return this.count == 0;
+    } // set(int, Object, Object, int, int)
+
+    /**
+     * Visit the cells of the tile that do not hold the default.
+     *
+     * @param def The default value.
+     * @param rows Only visit cells in the first rows rows of the tile.
+     * @param cols Only visit cells in the first cols columns of the tile.
+     * @param visitor What to do with each cell.
+     */
+    void forEach(Object def, int rows, int cols, IntObjectMap.EntryVisitor<Object> visitor) {
+      if (this.kind == SPARSE) {
+        this.sparse.forEach((i, val) -> {
+          if ((i >>> TILE_BITS) < rows && (i & TILE_MASK) < cols) {
+            visitor.visit(i, val);
+          } // if
+        });
+        return;
+      } // if
+      for (int r = 0; r < rows; r++) {
+        for (int c = 0; c < cols; c++) {
+          int i = (r << TILE_BITS) | c;
+          Object val = this.get(i, def);
+          if (!Objects.equals(val, def)) {
+            visitor.visit(i, val);
+          } // if
+        } // for
+      } // for
+    } // forEach(Object, int, int, IntObjectMap.EntryVisitor<Object>)
+
+    /**
+     * Switch from a hash map to an array.
+     *
+     * @param def The default value.
+     */
+    private void toDense(Object def) {
+      Object[] cells = new Object[TILE_CELLS];
+      if (def != null) {
+        Arrays.fill(cells, def);
+      } // if
+      this.sparse.forEach((i, val) -> cells[i] = val);
+      this.dense = cells;
+      this.sparse = null;
+      this.kind = DENSE;
+    } // toDense(Object)
+
+    /**
+     * Switch from an array to a hash map.
+     *
+     * @param def The default value.
+     */
+    private void toSparse(Object def) {
+      IntObjectMap<Object> cells = new IntObjectMap<Object>(this.count);
+      for (int i = 0; i < TILE_CELLS; i++) {
+        if (!Objects.equals(this.dense[i], def)) {
+          cells.set(i, this.dense[i]);
+        } // if
+      } // for
+      this.sparse = cells;
+      this.dense = null;
+      this.kind = SPARSE;
+    } // toSparse(Object)
+  } // class Tile
+} // class MatrixTiled
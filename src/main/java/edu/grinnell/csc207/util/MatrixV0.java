@@ -1,5 +1,8 @@
 package edu.grinnell.csc207.util;
 
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
 
 /**
  * An implementation of two-dimensional matrices.
@@ -10,6 +13,16 @@ package edu.grinnell.csc207.util;
  * @param <T> The type of values stored in the matrix.
  */
 public class MatrixV0<T> implements Matrix<T> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Each chunk holds the cells whose indices (row * w + col) agree in all but their lowest
+   * CHUNK_BITS bits.
+   */
+  static final int CHUNK_BITS = 12;
+
   // +--------+------------------------------------------------------
   // | Fields |
   // +--------+
@@ -29,10 +42,40 @@ public class MatrixV0<T> implements Matrix<T> {
   private T defaultVal; // The default value
 
   /**
-   * The inputed locations and associated values. (row,col) -> val
+   * The inputed locations and associated values, (row,col) -> val, in chunks of consecutive
+   * indices. Chunk i holds the cells whose index row * w + col shifted right by CHUNK_BITS is
+   * i, and is null (or missing, past the end of the table) if it holds none. Cells that hold
+   * the default value are never stored.
+   */
+  private IntObjectMap<T>[] chunks;
+
+  /**
+   * The number of stored cells.
+   */
+  private int size;
+
+  /**
+   * Whether the table of chunks may also be in use by a clone (or by the matrix we were cloned
+   * from).
+   */
+  private boolean shared;
+
+  /**
+   * Which chunks we have copied (or made) since we last shared the table, or null if we have
+   * not shared it. A chunk we do not own may be in use by a clone, and is copied before it
+   * changes.
    */
-  private AssociativeArray<Integer, T> values;
+  private boolean[] owned;
 
+  /**
+   * The hash code, if hashed is true.
+   */
+  private int hash;
+
+  /**
+   * Whether hash is up to date. Cleared by every change.
+   */
+  private boolean hashed;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -51,7 +94,7 @@ public class MatrixV0<T> implements Matrix<T> {
     this.w = width;
     this.h = height;
     this.defaultVal = def;
-    this.values = new AssociativeArray<Integer, T>();
+    this.chunks = newTable(0);
   } // MatrixV0(int, int, T)
 
   /**
@@ -84,12 +127,7 @@ public class MatrixV0<T> implements Matrix<T> {
     if (col >= this.w || row >= this.h || row < 0 || col < 0) {
       throw new IndexOutOfBoundsException();
     } // if
-    try {
-      int toFind = (row * this.w) + col;
-      return values.get(toFind);
-    } catch (Exception e) {
-      return defaultVal;
-    } // try/catch
+    return this.lookup((row * this.w) + col);
   } // get(int, int)
 
   /**
@@ -106,11 +144,7 @@ public class MatrixV0<T> implements Matrix<T> {
       throw new IndexOutOfBoundsException();
     } // if
     int toAdd = (row * this.w) + col;
-    try {
-      this.values.set(toAdd, val);
-    } catch (Exception e) {
-      System.err.println("Failed to add value at row: " + row + " col: " + col);
-    } // try/catch
+    this.put(toAdd, val);
   } // set(int, int, T)
 
   /**
@@ -152,21 +186,9 @@ public class MatrixV0<T> implements Matrix<T> {
     if (row < 0 || row > this.h) {
       throw new IndexOutOfBoundsException();
     } // if
-    AssociativeArray<Integer, T> valsToAdd = new AssociativeArray<Integer, T>();
-    for (int c = 0; c < this.w; c++) {
-      for (int r = 0; r < this.h; r++) {
-        try {
-          if (r >= row) {
-            valsToAdd.set(((r + 1) * this.w) + c, this.get(r, c));
-          } else {
-            valsToAdd.set((r * this.w) + c, this.get(r, c));
-          } // if/else
-        } catch (Exception e) {
-          System.err.println("Failed to add row");
-        } // try/catch
-      } // for
-    } // for
-    values = valsToAdd;
+    int first = row * this.w;
+    int shift = this.w;
+    this.rekey(first, (key) -> (key >= first) ? key + shift : key);
     this.h++;
   } // insertRow(int)
 
@@ -186,28 +208,9 @@ public class MatrixV0<T> implements Matrix<T> {
     if (vals.length != this.w) {
       throw new ArraySizeException();
     } // if
-    AssociativeArray<Integer, T> valsToAdd = new AssociativeArray<Integer, T>();
-    for (int c = 0; c < this.w; c++) {
-      for (int r = 0; r < this.h; r++) {
-        try {
-          if (r >= row) {
-            valsToAdd.set(((r + 1) * this.w) + c, this.get(r, c));
-          } else {
-            valsToAdd.set((r * this.w) + c, this.get(r, c));
-          } // if/else
-        } catch (Exception e) {
-          System.err.println("Failed to add col");
-        } // try/catch
-      } // for
-    } // for
-    values = valsToAdd;
-    this.h++;
+    this.insertRow(row);
     for (int i = 0; i < vals.length; i++) {
-      try {
-        values.set(row * this.w + i, vals[i]);
-      } catch (Exception e) {
-        System.err.println("Failed to add values");
-      } // try/catch
+      this.put(row * this.w + i, vals[i]);
     } // for
   } // insertRow(int, T[])
 
@@ -222,21 +225,11 @@ public class MatrixV0<T> implements Matrix<T> {
     if (col < 0 || col > this.w) {
       throw new IndexOutOfBoundsException();
     } // if
-    AssociativeArray<Integer, T> valsToAdd = new AssociativeArray<Integer, T>();
-    for (int c = 0; c < this.w; c++) {
-      for (int r = 0; r < this.h; r++) {
-        try {
-          if (c >= col) {
-            valsToAdd.set((r * (this.w + 1)) + c + 1, this.get(r, c));
-          } else {
-            valsToAdd.set((r * (this.w + 1)) + c, this.get(r, c));
-          } // if/else
-        } catch (Exception e) {
-          System.err.println("Failed to add col");
-        } // try/catch
-      } // for
-    } // for
-    values = valsToAdd;
+    int oldW = this.w;
+    this.rekey(0, (key) -> {
+      int c = key % oldW;
+      return key + (key / oldW) + ((c >= col) ? 1 : 0);
+    });
     this.w++;
   } // insertCol(int)
 
@@ -256,28 +249,9 @@ public class MatrixV0<T> implements Matrix<T> {
     if (vals.length != this.h) {
       throw new ArraySizeException();
     } // if
-    AssociativeArray<Integer, T> valsToAdd = new AssociativeArray<Integer, T>();
-    for (int c = 0; c < this.w; c++) {
-      for (int r = 0; r < this.h; r++) {
-        try {
-          if (c >= col) {
-            valsToAdd.set((r * (this.w + 1)) + c + 1, this.get(r, c));
-          } else {
-            valsToAdd.set((r * (this.w + 1)) + c, this.get(r, c));
-          } // if/else
-        } catch (Exception e) {
-          System.err.println("Failed to add col");
-        } // try/catch
-      } // for
-    } // for
-    values = valsToAdd;
-    this.w++;
+    this.insertCol(col);
     for (int i = 0; i < vals.length; i++) {
-      try {
-        values.set(i * this.w + col, vals[i]);
-      } catch (Exception e) {
-        System.err.println("Failed to add values");
-      } // try/catch
+      this.put(i * this.w + col, vals[i]);
     } // for
   } // insertCol(int, T[])
 
@@ -293,21 +267,9 @@ public class MatrixV0<T> implements Matrix<T> {
     if (row < 0 || row >= this.h) {
       throw new IndexOutOfBoundsException();
     } // if
-    AssociativeArray<Integer, T> newVals = new AssociativeArray<Integer, T>();
-    for (int r = 0; r < this.h; r++) {
-      for (int c = 0; c < this.w; c++) {
-        try {
-          if (r < row) {
-            newVals.set(r * (this.w) + c, this.get(r, c));
-          } else if (r > row) {
-            newVals.set(((r - 1) * this.w) + c, this.get(r, c));
-          } // if/elseif
-        } catch (Exception e) {
-          System.err.println("Failed to remove col");
-        } // try/catch
-      } // for
-    } // for
-    values = newVals;
+    int first = row * this.w;
+    int shift = this.w;
+    this.rekey(first, (key) -> (key < first + shift) ? -1 : key - shift);
     this.h--;
   } // deleteRow(int)
 
@@ -323,21 +285,11 @@ public class MatrixV0<T> implements Matrix<T> {
     if (col < 0 || col >= this.w) {
       throw new IndexOutOfBoundsException();
     } // if
-    AssociativeArray<Integer, T> newVals = new AssociativeArray<Integer, T>();
-    for (int r = 0; r < this.h; r++) {
-      for (int c = 0; c < this.w; c++) {
-        try {
-          if (c < col) {
-            newVals.set(r * (this.w - 1) + c, this.get(r, c));
-          } else if (c > col) {
-            newVals.set(r * (this.w - 1) + c - 1, this.get(r, c));
-          } // if/elseif
-        } catch (Exception e) {
-          System.err.println("Failed to remove col");
-        } // try/catch
-      } // for
-    } // for
-    values = newVals;
+    int oldW = this.w;
+    this.rekey(0, (key) -> {
+      int c = key % oldW;
+      return (c == col) ? -1 : key - (key / oldW) - ((c > col) ? 1 : 0);
+    });
     this.w--;
   } // deleteCol(int)
 
@@ -358,11 +310,7 @@ public class MatrixV0<T> implements Matrix<T> {
     } // if
     for (int r = startRow; r < endRow; r++) {
       for (int c = startCol; c < endCol; c++) {
-        try {
-          values.set((r * this.w) + c, val);
-        } catch (NullKeyException e) {
-          System.err.println("Failed to add element at row: " + r + " col: " + c);
-        } // try/catch
+        this.put((r * this.w) + c, val);
       } // for
     } // for
   } // fillRegion(int, int, int, int, T)
@@ -388,75 +336,329 @@ public class MatrixV0<T> implements Matrix<T> {
     int r = startRow;
     int c = startCol;
     while (r < endRow && c < endCol) {
-      try {
-        values.set((r * this.w) + c, val);
-      } catch (NullKeyException e) {
-        System.err.println("Failed to add value");
-      } // try/catch
+      this.put((r * this.w) + c, val);
       r += deltaRow;
       c += deltaCol;
     } // while
   } // fillLine(int, int, int, int, int, int, T)
 
+  /**
+   * Copy a rectangular region of the matrix into an array, row by row. Makes one pass over
+   * the stored cells when there are fewer of them than cells in the region.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals Where to put the values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void getRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int cols = endCol - startCol;
+    if (this.size < vals.length) {
+      Arrays.fill(vals, this.defaultVal);
+      this.forEachStored(startRow, endRow, (r, c, val) -> {
+        if (c >= startCol && c < endCol) {
+          vals[(r - startRow) * cols + (c - startCol)] = val;
+        } // if
+      });
+    } else {
+      int i = 0;
+      for (int r = startRow; r < endRow; r++) {
+        for (int c = startCol; c < endCol; c++) {
+          vals[i++] = this.lookup(r * this.w + c);
+        } // for
+      } // for
+    } // if/else
+  } // getRegion(int, int, int, int, T[])
+
+  /**
+   * Set every cell of a rectangular region of the matrix from an array, row by row.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param vals The new values.
+   *
+   * @throws IndexOutOfBoundsException If the region is not within the matrix.
+   * @throws ArraySizeException If the size of vals is not the number of cells in the region.
+   */
+  public void setRegion(int startRow, int startCol, int endRow, int endCol, T[] vals)
+      throws ArraySizeException {
+    Matrix.checkRegion(this, startRow, startCol, endRow, endCol, vals.length);
+    int i = 0;
+    for (int r = startRow; r < endRow; r++) {
+      for (int c = startCol; c < endCol; c++) {
+        this.put(r * this.w + c, vals[i++]);
+      } // for
+    } // for
+  } // setRegion(int, int, int, int, T[])
+
+  /**
+   * Visit the cells that hold something other than the default value, in no particular order.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachStored(CellConsumer<? super T> action) {
+    int width = this.w;
+    for (IntObjectMap<T> chunk : this.chunks) {
+      if (chunk != null) {
+        chunk.forEach((key, val) -> action.accept(key / width, key % width, val));
+      } // if
+    } // for
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells in a band of rows that hold something other than the default value, in no
+   * particular order. Only looks at the chunks that hold cells of the band.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    int width = this.w;
+    long first = (long) startRow * width;
+    long last = (long) endRow * width;
+    long stop = Math.min(this.chunks.length, (last + (1 << CHUNK_BITS) - 1) >>> CHUNK_BITS);
+    for (int i = (int) (first >>> CHUNK_BITS); i < stop; i++) {
+      if (this.chunks[i] != null) {
+        this.chunks[i].forEach((key, val) -> {
+          if (key >= first && key < last) {
+            action.accept(key / width, key % width, val);
+          } // if
+        });
+      } // if
+    } // for
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Get a spliterator over the cells that hold something other than the default value. Splits
+   * the table of chunks rather than the rows.
+   *
+   * @return the spliterator.
+   */
+  public CellSpliterator<T> cellSpliterator() {
+    return new ChunkCellSpliterator<T>(this.chunks, this.w, 0, this.chunks.length, this.size);
+  } // cellSpliterator()
+
+  /**
+   * Determine how many cells hold something other than the default value.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    return this.size;
+  } // storedCount()
+
   /**
    * A make a copy of the matrix. May share references (e.g., if individual elements are mutable,
-   * mutating them in one matrix may affect the other matrix) or may not.
+   * mutating them in one matrix may affect the other matrix) or may not. Takes constant time:
+   * the two matrices share their chunks of stored cells, and each copies a chunk only when it
+   * first changes a cell in it.
    *
    * @return a copy of the matrix.
    */
   @SuppressWarnings("rawtypes")
   public Matrix clone() {
     MatrixV0<T> cloned = new MatrixV0<T>(this.w, this.h, this.defaultVal);
-    AssociativeArray<Integer, T> clonedValues = this.values;
-    cloned.values = clonedValues;
+    cloned.chunks = this.chunks;
+    cloned.size = this.size;
+    cloned.shared = true;
+    cloned.hash = this.hash;
+    cloned.hashed = this.hashed;
+    this.shared = true;
     return cloned;
   } // clone()
 
   /**
-   * Determine if this object is equal to another object.
+   * Determine if this object is equal to another object. Null cells are equal to each other.
+   * Another MatrixV0 with the same default value is compared entry by entry, after checking the
+   * dimensions, the number of stored cells, and any cached hash codes, so comparing sparse
+   * matrices takes time proportional to the number of stored cells.
    *
    * @param other The object to compare.
    *
    * @return true if the other object is a matrix with the same width, height, and equal elements;
    *         false otherwise.
    */
+  @SuppressWarnings("unchecked")
   public boolean equals(Object other) {
-    if (other instanceof Matrix) {
-      Matrix otherMatrix = (Matrix) other;
-      if (otherMatrix.height() == this.h && otherMatrix.width() == this.w) {
-        for (int r = 0; r < this.h; r++) {
-          for (int c = 0; c < this.w; c++) {
-            if (!(this.get(r, c).equals(otherMatrix.get(r, c)))) {
-              return false;
-            } // if
-          } // for
-        } // for
-        return true;
-      } // if
+    if (!(other instanceof MatrixV0)) {
+      return Matrix.cellsEqual(this, other);
+    } // if
+    // Only read from, so the element type does not matter.
+    MatrixV0<T> otherMatrix = (MatrixV0<T>) other;
+    if (otherMatrix.h != this.h || otherMatrix.w != this.w) {
+      return false;
     } // if
-    return false;
+    if (!Objects.equals(this.defaultVal, otherMatrix.defaultVal)) {
+      return Matrix.cellsEqual(this, other);
+    } // if
+    if (this.size != otherMatrix.size
+        || (this.hashed && otherMatrix.hashed && this.hash != otherMatrix.hash)) {
+      return false;
+    } // if
+    // Both store exactly their non-default cells, so the same cells must be stored.
+    boolean[] same = {true};
+    for (int i = 0; i < this.chunks.length && same[0]; i++) {
+      if (this.chunks[i] != null) {
+        this.chunks[i].forEach((key, val) -> {
+          if (same[0] && !Objects.equals(val, otherMatrix.lookup(key))) {
+            same[0] = false;
+          } // if
+        });
+      } // if
+    } // for
+    return same[0];
   } // equals(Object)
 
   /**
-   * Compute a hash code for this matrix. Included because any object that implements `equals` is
-   * expected to implement `hashCode` and ensure that the hash codes for two equal objects are the
-   * same.
+   * Compute a hash code for this matrix, in time proportional to the number of stored cells.
+   * The code is kept until the matrix changes.
    *
    * @return the hash code.
    */
   public int hashCode() {
-    int multiplier = 7;
-    int code = this.width() + multiplier * this.height();
-    for (int row = 0; row < this.height(); row++) {
-      for (int col = 0; col < this.width(); col++) {
-        T val = this.get(row, col);
-        if (val != null) {
-          // It's okay if the following computation overflows, since
-          // it will overflow uniformly.
-          code = code * multiplier + val.hashCode();
-        } // if
-      } // for col
-    } // for row
-    return code;
+    if (!this.hashed) {
+      this.hash = Matrix.cellsHashCode(this);
+      this.hashed = true;
+    } // if
+    return this.hash;
   } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make an empty table of chunks.
+   *
+   * @param length The length of the table.
+   *
+   * @return the table.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> IntObjectMap<T>[] newTable(int length) {
+    return (IntObjectMap<T>[]) new IntObjectMap[length];
+  } // newTable(int)
+
+  /**
+   * Look up a cell.
+   *
+   * @param key The index of the cell, row * w + col.
+   *
+   * @return the value of the cell.
+   */
+  private T lookup(int key) {
+    int i = key >>> CHUNK_BITS;
+    IntObjectMap<T> chunk = (i < this.chunks.length) ? this.chunks[i] : null;
+    return (chunk == null) ? this.defaultVal : chunk.getOrDefault(key, this.defaultVal);
+  } // lookup(int)
+
+  /**
+   * Move stored cells to new indices in a single pass over the stored cells. Cells that were
+   * never set are not touched, so the cost depends only on how many cells are stored. Chunks
+   * that hold only indices below first are kept, and stay shared with any clone.
+   *
+   * @param first The lowest index that may move. Every lower index must stay where it is.
+   * @param move Maps each old index to its new index, or to -1 if the cell should be dropped.
+   */
+  private void rekey(int first, IntUnaryOperator move) {
+    this.unshare();
+    IntObjectMap<T>[] old = this.chunks;
+    int keep = Math.min(first >>> CHUNK_BITS, old.length);
+    this.chunks = Arrays.copyOf(old, keep);
+    if (this.owned != null) {
+      this.owned = Arrays.copyOf(this.owned, keep);
+    } // if
+    for (int i = keep; i < old.length; i++) {
+      if (old[i] != null) {
+        this.size -= old[i].size();
+        old[i].forEach((key, val) -> {
+          int newKey = (key < first) ? key : move.applyAsInt(key);
+          if (newKey >= 0) {
+            this.writable(newKey >>> CHUNK_BITS).set(newKey, val);
+            this.size++;
+          } // if
+        });
+      } // if
+    } // for
+    this.hashed = false;
+  } // rekey(int, IntUnaryOperator)
+
+  /**
+   * Store a cell, or forget it if it holds the default value.
+   *
+   * @param key The index of the cell, row * w + col.
+   * @param val The value of the cell.
+   */
+  private void put(int key, T val) {
+    int i = key >>> CHUNK_BITS;
+    if (Objects.equals(val, this.defaultVal)) {
+      if (i < this.chunks.length && this.chunks[i] != null && this.chunks[i].hasKey(key)) {
+        this.writable(i).remove(key);
+        this.size--;
+      } // if
+    } else {
+      IntObjectMap<T> chunk = this.writable(i);
+      int before = chunk.size();
+      chunk.set(key, val);
+      this.size += chunk.size() - before;
+    } // if/else
+    this.hashed = false;
+  } // put(int, T)
+
+  /**
+   * Get a chunk that we may change, making it if it does not exist and copying it if it may be
+   * in use by a clone.
+   *
+   * @param i The number of the chunk.
+   *
+   * @return the chunk.
+   */
+  private IntObjectMap<T> writable(int i) {
+    this.unshare();
+    if (i >= this.chunks.length) {
+      this.chunks = Arrays.copyOf(this.chunks, Math.max(i + 1, 2 * this.chunks.length));
+      if (this.owned != null) {
+        this.owned = Arrays.copyOf(this.owned, this.chunks.length);
+      } // if
+    } // if
+    IntObjectMap<T> chunk = this.chunks[i];
+    if (chunk == null) {
+      chunk = new IntObjectMap<T>();
+      this.chunks[i] = chunk;
+      if (this.owned != null) {
+        this.owned[i] = true;
+      } // if
+    } else if (this.owned != null && !this.owned[i]) {
+      chunk = chunk.clone();
+      this.chunks[i] = chunk;
+      this.owned[i] = true;
+    } // if/else
+    return chunk;
+  } // writable(int)
+
+  /**
+   * Stop sharing the table of chunks with any clone, by copying it if necessary. Copies only
+   * the table, not the chunks, which are copied one at a time as they change. Called before
+   * every change to the stored cells.
+   */
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    } // if
+    this.chunks = this.chunks.clone();
+    this.owned = new boolean[this.chunks.length];
+    this.shared = false;
+  } // unshare()
 } // class MatrixV0
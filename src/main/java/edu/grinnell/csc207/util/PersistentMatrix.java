@@ -0,0 +1,996 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An immutable implementation of two-dimensional matrices. Rather than changing the matrix,
+ * the with... methods return a new version, which shares everything that did not change with
+ * the old one; old versions stay valid, which makes them cheap to keep for undo or auditing.
+ * Cells live in a 32-way trie keyed by cell index ({@link IntTrie}), so changing one cell
+ * copies only the handful of trie nodes on the path to that cell.
+ *
+ * <p>For many edits at once, {@link #asTransient()} gives a mutable matrix that changes its
+ * own trie nodes in place; {@link Transient#persistent()} turns the result back into a
+ * PersistentMatrix.</p>
+ *
+ * <p>Because the matrix is immutable, the mutators of {@link Matrix} (set, the insert and
+ * delete methods, fillRegion, and fillLine) throw UnsupportedOperationException. So do the
+ * default methods of Matrix that change cells through them: setRow, setCol, setRegion,
+ * mapInPlace, mapInPlaceParallel, and fillRegionParallel. Use the with... methods, or make the
+ * changes on {@link #asTransient()}, instead.</p>
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+public class PersistentMatrix<T> implements Matrix<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The height.
+   */
+  private final int h;
+
+  /**
+   * The width.
+   */
+  private final int w;
+
+  /**
+   * The default value.
+   */
+  private final T defaultVal;
+
+  /**
+   * The cells that hold something other than the default, keyed by row * w + col. Null if
+   * there are none.
+   */
+  private final IntTrie.Node root;
+
+  /**
+   * The number of cells in the trie.
+   */
+  private final int count;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new matrix of the specified width and height with the given value as the default.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value, used to fill all the cells.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public PersistentMatrix(int width, int height, T def) {
+    this(width, height, def, null, 0);
+    if (width < 0 || height < 0) {
+      throw new NegativeArraySizeException();
+    } // if
+  } // PersistentMatrix(int, int, T)
+
+  /**
+   * Create a new matrix of the specified width and height with null as the default value.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   *
+   * @throws NegativeArraySizeException If either the width or height are negative.
+   */
+  public PersistentMatrix(int width, int height) {
+    this(width, height, null);
+  } // PersistentMatrix(int, int)
+
+  /**
+   * Create a matrix from its parts.
+   *
+   * @param width The width of the matrix.
+   * @param height The height of the matrix.
+   * @param def The default value.
+   * @param cells The trie of cells.
+   * @param cellCount The number of cells in the trie.
+   */
+  private PersistentMatrix(int width, int height, T def, IntTrie.Node cells, int cellCount) {
+    this.w = width;
+    this.h = height;
+    this.defaultVal = def;
+    this.root = cells;
+    this.count = cellCount;
+  } // PersistentMatrix(int, int, T, IntTrie.Node, int)
+
+  // +--------------+------------------------------------------------
+  // | Core methods |
+  // +--------------+
+
+  /**
+   * Get the element at the given row and column.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   *
+   * @return the value at the specified location.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int row, int col) {
+    checkCell(row, col, this.h, this.w);
+    return (T) IntTrie.get(this.root, row * this.w + col, this.defaultVal);
+  } // get(int, int)
+
+  /**
+   * Determine the number of rows in the matrix.
+   *
+   * @return the number of rows.
+   */
+  public int height() {
+    return this.h;
+  } // height()
+
+  /**
+   * Determine the number of columns in the matrix.
+   *
+   * @return the number of columns.
+   */
+  public int width() {
+    return this.w;
+  } // width()
+
+  /**
+   * Get the default value.
+   *
+   * @return the value used for cells that have not been set.
+   */
+  public T getDefaultVal() {
+    return this.defaultVal;
+  } // getDefaultVal()
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withCell instead.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void set(int row, int col, T val) {
+    throw immutable();
+  } // set(int, int, T)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withRowInserted instead.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void insertRow(int row) {
+    throw immutable();
+  } // insertRow(int)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withRowInserted instead.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void insertRow(int row, T[] vals) {
+    throw immutable();
+  } // insertRow(int, T[])
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withColInserted instead.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void insertCol(int col) {
+    throw immutable();
+  } // insertCol(int)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withColInserted instead.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void insertCol(int col, T[] vals) {
+    throw immutable();
+  } // insertCol(int, T[])
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withRowDeleted instead.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void deleteRow(int row) {
+    throw immutable();
+  } // deleteRow(int)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withColDeleted instead.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void deleteCol(int col) {
+    throw immutable();
+  } // deleteCol(int)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withRegionFilled instead.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+    throw immutable();
+  } // fillRegion(int, int, int, int, T)
+
+  /**
+   * Unsupported: PersistentMatrix is immutable. Use withLineFilled instead.
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+      int endCol, T val) {
+    throw immutable();
+  } // fillLine(int, int, int, int, int, int, T)
+
+  /**
+   * Visit the cells that do not hold the default, in no particular order.
+   *
+   * @param action What to do with each cell.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(CellConsumer<? super T> action) {
+    int width = this.w;
+    IntTrie.forEach(this.root, IntTrie.TOP_SHIFT, 0,
+        (key, val) -> action.accept(key / width, key % width, (T) val));
+  } // forEachStored(CellConsumer<? super T>)
+
+  /**
+   * Visit the cells in a band of rows that do not hold the default, in order. Since the keys
+   * of the cells in the band are consecutive, only visits the part of the trie that holds them.
+   *
+   * @param startRow The first row to visit (inclusive).
+   * @param endRow The last row to visit (exclusive).
+   * @param action What to do with each cell.
+   *
+   * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+    Matrix.checkRows(this, startRow, endRow);
+    int width = this.w;
+    IntTrie.forEach(this.root, IntTrie.TOP_SHIFT, 0, (long) startRow * width,
+        (long) endRow * width, (key, val) -> action.accept(key / width, key % width, (T) val));
+  } // forEachStored(int, int, CellConsumer<? super T>)
+
+  /**
+   * Determine how many cells do not hold the default.
+   *
+   * @return the number of cells.
+   */
+  public long storedCount() {
+    return this.count;
+  } // storedCount()
+
+  /**
+   * Make a copy of the matrix. Since the matrix never changes, the copy is the matrix itself.
+   *
+   * @return this matrix.
+   */
+  @SuppressWarnings("rawtypes")
+  public Matrix clone() {
+    return this;
+  } // clone()
+
+  /**
+   * Determine if this object is equal to another object.
+   *
+   * @param other The object to compare.
+   *
+   * @return true if the other object is a matrix with the same width, height, and equal elements;
+   *         false otherwise.
+   */
+  public boolean equals(Object other) {
+    return Matrix.cellsEqual(this, other);
+  } // equals(Object)
+
+  /**
+   * Compute a hash code for this matrix from the cells it stores. Uses Matrix.cellsHashCode, so
+   * that equal matrices of any kind have equal hash codes.
+   *
+   * @return the hash code.
+   */
+  public int hashCode() {
+    return Matrix.cellsHashCode(this);
+  } // hashCode()
+
+  // +-----------------+---------------------------------------------
+  // | Version methods |
+  // +-----------------+
+
+  /**
+   * Get a version of this matrix with one cell changed.
+   *
+   * @param row The row of the element.
+   * @param col The column of the element.
+   * @param val The value to set.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+   */
+  public PersistentMatrix<T> withCell(int row, int col, T val) {
+    Transient<T> edits = this.asTransient();
+    edits.set(row, col, val);
+    return edits.persistent();
+  } // withCell(int, int, T)
+
+  /**
+   * Get a version of this matrix with a row of default values inserted.
+   *
+   * @param row The number of the row to insert.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   */
+  public PersistentMatrix<T> withRowInserted(int row) {
+    Transient<T> edits = this.asTransient();
+    edits.insertRow(row);
+    return edits.persistent();
+  } // withRowInserted(int)
+
+  /**
+   * Get a version of this matrix with a row of the given values inserted.
+   *
+   * @param row The number of the row to insert.
+   * @param vals The values to insert.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+   * @throws ArraySizeException If the size of vals is not the same as the width of the matrix.
+   */
+  public PersistentMatrix<T> withRowInserted(int row, T[] vals) throws ArraySizeException {
+    Transient<T> edits = this.asTransient();
+    edits.insertRow(row, vals);
+    return edits.persistent();
+  } // withRowInserted(int, T[])
+
+  /**
+   * Get a version of this matrix with a column of default values inserted.
+   *
+   * @param col The number of the column to insert.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   */
+  public PersistentMatrix<T> withColInserted(int col) {
+    Transient<T> edits = this.asTransient();
+    edits.insertCol(col);
+    return edits.persistent();
+  } // withColInserted(int)
+
+  /**
+   * Get a version of this matrix with a column of the given values inserted.
+   *
+   * @param col The number of the column to insert.
+   * @param vals The values to insert.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+   * @throws ArraySizeException If the size of vals is not the same as the height of the matrix.
+   */
+  public PersistentMatrix<T> withColInserted(int col, T[] vals) throws ArraySizeException {
+    Transient<T> edits = this.asTransient();
+    edits.insertCol(col, vals);
+    return edits.persistent();
+  } // withColInserted(int, T[])
+
+  /**
+   * Get a version of this matrix without one row.
+   *
+   * @param row The number of the row to delete.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+   *         height.
+   */
+  public PersistentMatrix<T> withRowDeleted(int row) {
+    Transient<T> edits = this.asTransient();
+    edits.deleteRow(row);
+    return edits.persistent();
+  } // withRowDeleted(int)
+
+  /**
+   * Get a version of this matrix without one column.
+   *
+   * @param col The number of the column to delete.
+   *
+   * @return the new version.
+   *
+   * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to the
+   *         width.
+   */
+  public PersistentMatrix<T> withColDeleted(int col) {
+    Transient<T> edits = this.asTransient();
+    edits.deleteCol(col);
+    return edits.persistent();
+  } // withColDeleted(int)
+
+  /**
+   * Get a version of this matrix with a rectangular region filled.
+   *
+   * @param startRow The top edge / row to start with (inclusive).
+   * @param startCol The left edge / column to start with (inclusive).
+   * @param endRow The bottom edge / row to stop with (exclusive).
+   * @param endCol The right edge / column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @return the new version.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public PersistentMatrix<T> withRegionFilled(int startRow, int startCol, int endRow,
+      int endCol, T val) {
+    Transient<T> edits = this.asTransient();
+    edits.fillRegion(startRow, startCol, endRow, endCol, val);
+    return edits.persistent();
+  } // withRegionFilled(int, int, int, int, T)
+
+  /**
+   * Get a version of this matrix with a line (horizontal, vertical, diagonal) filled.
+   *
+   * @param startRow The row to start with (inclusive).
+   * @param startCol The column to start with (inclusive).
+   * @param deltaRow How much to change the row in each step.
+   * @param deltaCol How much to change the column in each step.
+   * @param endRow The row to stop with (exclusive).
+   * @param endCol The column to stop with (exclusive).
+   * @param val The value to store.
+   *
+   * @return the new version.
+   *
+   * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+   */
+  public PersistentMatrix<T> withLineFilled(int startRow, int startCol, int deltaRow,
+      int deltaCol, int endRow, int endCol, T val) {
+    Transient<T> edits = this.asTransient();
+    edits.fillLine(startRow, startCol, deltaRow, deltaCol, endRow, endCol, val);
+    return edits.persistent();
+  } // withLineFilled(int, int, int, int, int, int, T)
+
+  /**
+   * Get a mutable matrix that starts out like this one, for making a batch of changes. This
+   * matrix is not affected by changes to the transient one.
+   *
+   * @return the transient matrix.
+   */
+  public Transient<T> asTransient() {
+    return new Transient<T>(this.w, this.h, this.defaultVal, this.root, this.count);
+  } // asTransient()
+
+  // +----------------+----------------------------------------------
+  // | Static helpers |
+  // +----------------+
+
+  /**
+   * Build the exception for the unsupported mutators.
+   *
+   * @return the exception.
+   */
+  private static UnsupportedOperationException immutable() {
+    return new UnsupportedOperationException(
+        "PersistentMatrix is immutable; use the with... methods or asTransient()");
+  } // immutable()
+
+  /**
+   * Make sure that a cell is in a matrix.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @param height The height of the matrix.
+   * @param width The width of the matrix.
+   *
+   * @throws IndexOutOfBoundsException If either the row or column is out of bounds.
+   */
+  static void checkCell(int row, int col, int height, int width) {
+    if (col >= width || row >= height || row < 0 || col < 0) {
+      throw new IndexOutOfBoundsException();
+    } // if
+  } // checkCell(int, int, int, int)
+
+  // +-----------------+---------------------------------------------
+  // | Transient class |
+  // +-----------------+
+
+  /**
+   * A mutable matrix for making a batch of changes to a PersistentMatrix. Trie nodes created
+   * by the batch are changed in place by later changes in the same batch, so a batch of n cell
+   * changes copies each trie node at most once rather than once per change.
+   *
+   * @param <T> The type of values stored in the matrix.
+   */
+  public static class Transient<T> implements Matrix<T> {
+    // +--------+----------------------------------------------------
+    // | Fields |
+    // +--------+
+
+    /**
+     * The height.
+     */
+    private int h;
+
+    /**
+     * The width.
+     */
+    private int w;
+
+    /**
+     * The default value.
+     */
+    private final T defaultVal;
+
+    /**
+     * The cells that hold something other than the default, keyed by row * w + col.
+     */
+    private IntTrie.Node root;
+
+    /**
+     * The number of cells in the trie.
+     */
+    private int count;
+
+    /**
+     * The token that marks the trie nodes this batch may change in place. Null once the batch
+     * has been turned into a PersistentMatrix.
+     */
+    private Object edit;
+
+    // +--------------+----------------------------------------------
+    // | Constructors |
+    // +--------------+
+
+    /**
+     * Create a new transient matrix.
+     *
+     * @param width The width of the matrix.
+     * @param height The height of the matrix.
+     * @param def The default value.
+     * @param cells The trie of cells.
+     * @param cellCount The number of cells in the trie.
+     */
+    Transient(int width, int height, T def, IntTrie.Node cells, int cellCount) {
+      this.w = width;
+      this.h = height;
+      this.defaultVal = def;
+      this.root = cells;
+      this.count = cellCount;
+      this.edit = new Object();
+    } // Transient(int, int, T, IntTrie.Node, int)
+
+    // +---------+---------------------------------------------------
+    // | Methods |
+    // +---------+
+
+    /**
+     * Finish the batch. The transient matrix may not be used afterwards.
+     *
+     * @return a PersistentMatrix with the contents of this matrix.
+     *
+     * @throws IllegalStateException If the batch has already been finished.
+     */
+    public PersistentMatrix<T> persistent() {
+      this.checkOpen();
+      this.edit = null;
+      return new PersistentMatrix<T>(this.w, this.h, this.defaultVal, this.root, this.count);
+    } // persistent()
+
+    /**
+     * Get the element at the given row and column.
+     *
+     * @param row The row of the element.
+     * @param col The column of the element.
+     *
+     * @return the value at the specified location.
+     *
+     * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int row, int col) {
+      checkCell(row, col, this.h, this.w);
+      return (T) IntTrie.get(this.root, row * this.w + col, this.defaultVal);
+    } // get(int, int)
+
+    /**
+     * Set the element at the given row and column.
+     *
+     * @param row The row of the element.
+     * @param col The column of the element.
+     * @param val The value to set.
+     *
+     * @throws IndexOutOfBoundsException If either the row or column is out of reasonable bounds.
+     */
+    public void set(int row, int col, T val) {
+      this.checkOpen();
+      checkCell(row, col, this.h, this.w);
+      this.put(row * this.w + col, val);
+    } // set(int, int, T)
+
+    /**
+     * Determine the number of rows in the matrix.
+     *
+     * @return the number of rows.
+     */
+    public int height() {
+      return this.h;
+    } // height()
+
+    /**
+     * Determine the number of columns in the matrix.
+     *
+     * @return the number of columns.
+     */
+    public int width() {
+      return this.w;
+    } // width()
+
+    /**
+     * Get the default value.
+     *
+     * @return the value used for cells that have not been set.
+     */
+    public T getDefaultVal() {
+      return this.defaultVal;
+    } // getDefaultVal()
+
+    /**
+     * Insert a row filled with the default value.
+     *
+     * @param row The number of the row to insert.
+     *
+     * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+     */
+    public void insertRow(int row) {
+      this.checkOpen();
+      if (row < 0 || row > this.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int first = row * this.w;
+      int shift = this.w;
+      this.rekey(first, (key) -> key + shift);
+      this.h++;
+    } // insertRow(int)
+
+    /**
+     * Insert a row filled with the specified values.
+     *
+     * @param row The number of the row to insert.
+     * @param vals The values to insert.
+     *
+     * @throws IndexOutOfBoundsException If the row is negative or greater than the height.
+     * @throws ArraySizeException If the size of vals is not the same as the width of the
+     *         matrix.
+     */
+    public void insertRow(int row, T[] vals) throws ArraySizeException {
+      this.checkOpen();
+      if (row < 0 || row > this.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != this.w) {
+        throw new ArraySizeException();
+      } // if
+      this.insertRow(row);
+      for (int c = 0; c < this.w; c++) {
+        this.put(row * this.w + c, vals[c]);
+      } // for
+    } // insertRow(int, T[])
+
+    /**
+     * Insert a column filled with the default value.
+     *
+     * @param col The number of the column to insert.
+     *
+     * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+     */
+    public void insertCol(int col) {
+      this.checkOpen();
+      if (col < 0 || col > this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int oldW = this.w;
+      this.rekey(0, (key) -> key + (key / oldW) + ((key % oldW >= col) ? 1 : 0));
+      this.w++;
+    } // insertCol(int)
+
+    /**
+     * Insert a column filled with the specified values.
+     *
+     * @param col The number of the column to insert.
+     * @param vals The values to insert.
+     *
+     * @throws IndexOutOfBoundsException If the column is negative or greater than the width.
+     * @throws ArraySizeException If the size of vals is not the same as the height of the
+     *         matrix.
+     */
+    public void insertCol(int col, T[] vals) throws ArraySizeException {
+      this.checkOpen();
+      if (col < 0 || col > this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      if (vals.length != this.h) {
+        throw new ArraySizeException();
+      } // if
+      this.insertCol(col);
+      for (int r = 0; r < this.h; r++) {
+        this.put(r * this.w + col, vals[r]);
+      } // for
+    } // insertCol(int, T[])
+
+    /**
+     * Delete a row.
+     *
+     * @param row The number of the row to delete.
+     *
+     * @throws IndexOutOfBoundsException If the row is negative or greater than or equal to the
+     *         height.
+     */
+    public void deleteRow(int row) {
+      this.checkOpen();
+      if (row < 0 || row >= this.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int first = row * this.w;
+      int shift = this.w;
+      this.rekey(first, (key) -> (key < first + shift) ? -1 : key - shift);
+      this.h--;
+    } // deleteRow(int)
+
+    /**
+     * Delete a column.
+     *
+     * @param col The number of the column to delete.
+     *
+     * @throws IndexOutOfBoundsException If the column is negative or greater than or equal to
+     *         the width.
+     */
+    public void deleteCol(int col) {
+      this.checkOpen();
+      if (col < 0 || col >= this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int oldW = this.w;
+      this.rekey(0, (key) -> {
+        int c = key % oldW;
+        return (c == col) ? -1 : key - (key / oldW) - ((c > col) ? 1 : 0);
+      });
+      this.w--;
+    } // deleteCol(int)
+
+    /**
+     * Fill a rectangular region of the matrix.
+     *
+     * @param startRow The top edge / row to start with (inclusive).
+     * @param startCol The left edge / column to start with (inclusive).
+     * @param endRow The bottom edge / row to stop with (exclusive).
+     * @param endCol The right edge / column to stop with (exclusive).
+     * @param val The value to store.
+     *
+     * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+     */
+    public void fillRegion(int startRow, int startCol, int endRow, int endCol, T val) {
+      this.checkOpen();
+      if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h
+          || endRow > this.h || endCol > this.w) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      for (int r = startRow; r < endRow; r++) {
+        for (int c = startCol; c < endCol; c++) {
+          this.put(r * this.w + c, val);
+        } // for
+      } // for
+    } // fillRegion(int, int, int, int, T)
+
+    /**
+     * Fill a line (horizontal, vertical, diagonal).
+     *
+     * @param startRow The row to start with (inclusive).
+     * @param startCol The column to start with (inclusive).
+     * @param deltaRow How much to change the row in each step.
+     * @param deltaCol How much to change the column in each step.
+     * @param endRow The row to stop with (exclusive).
+     * @param endCol The column to stop with (exclusive).
+     * @param val The value to store.
+     *
+     * @throw IndexOutOfBoundsException If the rows or columns are inappropriate.
+     */
+    public void fillLine(int startRow, int startCol, int deltaRow, int deltaCol, int endRow,
+        int endCol, T val) {
+      this.checkOpen();
+      if (startCol < 0 || startCol > this.w || startRow < 0 || startRow > this.h) {
+        throw new IndexOutOfBoundsException();
+      } // if
+      int r = startRow;
+      int c = startCol;
+      while (r < endRow && c < endCol) {
+        this.set(r, c, val);
+        r += deltaRow;
+        c += deltaCol;
+      } // while
+    } // fillLine(int, int, int, int, int, int, T)
+
+    /**
+     * Visit the cells that do not hold the default, in no particular order.
+     *
+     * @param action What to do with each cell.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachStored(CellConsumer<? super T> action) {
+      int width = this.w;
+      IntTrie.forEach(this.root, IntTrie.TOP_SHIFT, 0,
+          (key, val) -> action.accept(key / width, key % width, (T) val));
+    } // forEachStored(CellConsumer<? super T>)
+
+    /**
+     * Visit the cells in a band of rows that do not hold the default, in order. Since the keys
+     * of the cells in the band are consecutive, only visits the part of the trie that holds them.
+     *
+     * @param startRow The first row to visit (inclusive).
+     * @param endRow The last row to visit (exclusive).
+     * @param action What to do with each cell.
+     *
+     * @throws IndexOutOfBoundsException If the rows are not within the matrix.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachStored(int startRow, int endRow, CellConsumer<? super T> action) {
+      Matrix.checkRows(this, startRow, endRow);
+      int width = this.w;
+      IntTrie.forEach(this.root, IntTrie.TOP_SHIFT, 0, (long) startRow * width,
+          (long) endRow * width, (key, val) -> action.accept(key / width, key % width, (T) val));
+    } // forEachStored(int, int, CellConsumer<? super T>)
+
+    /**
+     * Determine how many cells do not hold the default.
+     *
+     * @return the number of cells.
+     */
+    public long storedCount() {
+      return this.count;
+    } // storedCount()
+
+    /**
+     * Make a copy of the matrix. Takes constant time: the two matrices share the trie, and
+     * each copies a node the first time it changes it.
+     *
+     * @return a copy of the matrix.
+     */
+    @SuppressWarnings("rawtypes")
+    public Matrix clone() {
+      this.checkOpen();
+      // From now on the nodes are shared, so neither matrix may change them in place.
+      this.edit = new Object();
+      return new Transient<T>(this.w, this.h, this.defaultVal, this.root, this.count);
+    } // clone()
+
+    /**
+     * Determine if this object is equal to another object.
+     *
+     * @param other The object to compare.
+     *
+     * @return true if the other object is a matrix with the same width, height, and equal
+     *         elements; false otherwise.
+     */
+    public boolean equals(Object other) {
+      return Matrix.cellsEqual(this, other);
+    } // equals(Object)
+
+    /**
+     * Compute a hash code for this matrix.
+     *
+     * @return the hash code.
+     */
+    public int hashCode() {
+      return Matrix.cellsHashCode(this);
+    } // hashCode()
+
+    // +-----------------+-------------------------------------------
+    // | Private Methods |
+    // +-----------------+
+
+    /**
+     * Make sure that the batch has not been finished.
+     *
+     * @throws IllegalStateException If it has.
+     */
+    private void checkOpen() {
+      if (this.edit == null) {
+        throw new IllegalStateException("transient matrix used after persistent()");
+      } // if
+    } // checkOpen()
+
+    /**
+     * Store a value in a cell, or forget the cell if the value is the default.
+     *
+     * @param key The index of the cell.
+     * @param val The value.
+     */
+    private void put(int key, T val) {
+      boolean present = IntTrie.contains(this.root, key);
+      if (Objects.equals(val, this.defaultVal)) {
+        if (present) {
+          this.root = IntTrie.remove(this.root, IntTrie.TOP_SHIFT, key, this.edit);
+          this.count--;
+        } // if
+      } else {
+        this.root = IntTrie.put(this.root, IntTrie.TOP_SHIFT, key, val, this.edit);
+        if (!present) {
+          this.count++;
+        } // if
+      } // if/else
+    } // put(int, T)
+
+    /**
+     * Move the stored cells from some index on to new indices. The part of the trie that holds
+     * the smaller indices is kept, and so stays shared with earlier versions; only the cells
+     * that move are put into the trie again.
+     *
+     * @param first The smallest index that moves.
+     * @param move Maps each old index (at least first) to its new index, or to -1 if the cell
+     *        should be dropped. Must not map an index below first.
+     */
+    private void rekey(int first, IntUnaryOperator move) {
+      IntTrie.Node old = this.root;
+      // A fresh token, so that putting the moved cells cannot change in place any node of the
+      // old trie, which we are still reading.
+      this.edit = new Object();
+      Object token = this.edit;
+      IntTrie.Node[] newRoot = {IntTrie.truncate(old, IntTrie.TOP_SHIFT, 0, first, token)};
+      int[] newCount = {this.count};
+      IntTrie.forEach(old, IntTrie.TOP_SHIFT, 0, first, 1L << 31, (key, val) -> {
+        newCount[0]--;
+        int newKey = move.applyAsInt(key);
+        if (newKey >= 0) {
+          newRoot[0] = IntTrie.put(newRoot[0], IntTrie.TOP_SHIFT, newKey, val, token);
+          newCount[0]++;
+        } // if
+      });
+      this.root = newRoot[0];
+      this.count = newCount[0];
+    } // rekey(int, IntUnaryOperator)
+  } // class Transient<T>
+} // class PersistentMatrix<T>
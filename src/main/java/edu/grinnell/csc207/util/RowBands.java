@@ -0,0 +1,167 @@
+package edu.grinnell.csc207.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task that splits a range of rows into bands and works on the bands in parallel.
+ * Used by the parallel fills and maps, which change disjoint rows from different threads.
+ *
+ * @author Alexander Pollock
+ */
+final class RowBands extends RecursiveAction {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The version of the serialized form.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of cells below which a band is not split, unless the caller says otherwise.
+   */
+  static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The first row of the band (inclusive).
+   */
+  private final int start;
+
+  /**
+   * The last row of the band (exclusive).
+   */
+  private final int end;
+
+  /**
+   * The number of cells in each row.
+   */
+  private final int cellsPerRow;
+
+  /**
+   * The number of cells below which the band is not split.
+   */
+  private final int threshold;
+
+  /**
+   * Splits fall on multiples of this many rows.
+   */
+  private final int align;
+
+  /**
+   * What to do with each band.
+   */
+  private final Band body;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a task for a band of rows.
+   *
+   * @param start The first row of the band (inclusive).
+   * @param end The last row of the band (exclusive).
+   * @param cellsPerRow The number of cells in each row.
+   * @param threshold The number of cells below which the band is not split.
+   * @param align Splits fall on multiples of this many rows.
+   * @param body What to do with each band.
+   */
+  private RowBands(int start, int end, int cellsPerRow, int threshold, int align, Band body) {
+    this.start = start;
+    this.end = end;
+    this.cellsPerRow = cellsPerRow;
+    this.threshold = threshold;
+    this.align = align;
+    this.body = body;
+  } // RowBands(int, int, int, int, int, Band)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Work on a range of rows, in bands on the common fork/join pool if the range has more than
+   * threshold cells and on the calling thread otherwise. Returns once every band is done, and
+   * everything the bands did is visible to the caller.
+   *
+   * @param start The first row (inclusive).
+   * @param end The last row (exclusive).
+   * @param cellsPerRow The number of cells in each row.
+   * @param threshold The number of cells below which a band is not split.
+   * @param align Splits fall on multiples of this many rows, so that bands never share anything
+   *        that spans several rows.
+   * @param body What to do with each band.
+   */
+  static void run(int start, int end, int cellsPerRow, int threshold, int align, Band body) {
+    RowBands task = new RowBands(start, end, cellsPerRow, Math.max(threshold, 1), align, body);
+    if (task.split() < 0) {
+      body.apply(start, end);
+    } else {
+      ForkJoinPool.commonPool().invoke(task);
+    } // if/else
+  } // run(int, int, int, int, int, Band)
+
+  // +--------------+------------------------------------------------
+  // | Task methods |
+  // +--------------+
+
+  /**
+   * Split the band in two and work on the halves in parallel, or work on it directly if it is
+   * small enough.
+   */
+  protected void compute() {
+    int mid = this.split();
+    if (mid < 0) {
+      this.body.apply(this.start, this.end);
+      return;
+    } // if
+    invokeAll(
+        new RowBands(this.start, mid, this.cellsPerRow, this.threshold, this.align, this.body),
+        new RowBands(mid, this.end, this.cellsPerRow, this.threshold, this.align, this.body));
+  } // compute()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Decide where to split the band.
+   *
+   * @return the first row of the second half, or -1 if the band should not be split.
+   */
+  private int split() {
+    if ((long) (this.end - this.start) * this.cellsPerRow <= this.threshold) {
+      return -1;
+    } // if
+    int mid = this.start + (this.end - this.start) / 2;
+    mid -= mid % this.align;
+    if (mid <= this.start) {
+      mid = this.start - this.start % this.align + this.align;
+    } // if
+    return (mid < this.end) ? mid : -1;
+  } // split()
+
+  // +-------------+-------------------------------------------------
+  // | Inner class |
+  // +-------------+
+
+  /**
+   * Something to do with a band of rows.
+   */
+  @FunctionalInterface
+  interface Band {
+    /**
+     * Work on a band of rows.
+     *
+     * @param start The first row of the band (inclusive).
+     * @param end The last row of the band (exclusive).
+     */
+    void apply(int start, int end);
+  } // interface Band
+} // class RowBands
@@ -0,0 +1,232 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * A spliterator over the stored cells of a band of rows of a matrix. Splits the band in half,
+ * at a multiple of some number of rows, and visits cells with the ranged version of
+ * Matrix.forEachStored, so it suits any matrix that can find the cells of a row quickly.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class RowCellSpliterator<T> implements CellSpliterator<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The matrix.
+   */
+  private final Matrix<T> matrix;
+
+  /**
+   * The next row to visit (or to buffer).
+   */
+  private int row;
+
+  /**
+   * The last row of the band (exclusive).
+   */
+  private final int end;
+
+  /**
+   * Splits fall on multiples of this many rows.
+   */
+  private final int align;
+
+  /**
+   * The fraction of the matrix's cells that it stores, or -1 if not yet computed. Passed on to
+   * the parts split off, so that storedCount is called at most once.
+   */
+  private double density;
+
+  /**
+   * The row of the buffered cells.
+   */
+  private int bufferRow;
+
+  /**
+   * The columns of the buffered cells, for tryAdvanceCell.
+   */
+  private int[] cols;
+
+  /**
+   * The values of the buffered cells.
+   */
+  private Object[] vals;
+
+  /**
+   * The number of buffered cells.
+   */
+  private int size;
+
+  /**
+   * The index of the next buffered cell.
+   */
+  private int next;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over a band of rows.
+   *
+   * @param matrix The matrix.
+   * @param start The first row of the band (inclusive).
+   * @param end The last row of the band (exclusive).
+   * @param align Splits fall on multiples of this many rows.
+   */
+  RowCellSpliterator(Matrix<T> matrix, int start, int end, int align) {
+    this(matrix, start, end, align, -1);
+  } // RowCellSpliterator(Matrix<T>, int, int, int)
+
+  /**
+   * Create a spliterator over a band of rows of a matrix whose density may be known.
+   *
+   * @param matrix The matrix.
+   * @param start The first row of the band (inclusive).
+   * @param end The last row of the band (exclusive).
+   * @param align Splits fall on multiples of this many rows.
+   * @param density The fraction of cells that the matrix stores, or -1 if not known.
+   */
+  private RowCellSpliterator(Matrix<T> matrix, int start, int end, int align, double density) {
+    this.matrix = matrix;
+    this.row = start;
+    this.end = end;
+    this.align = align;
+    this.density = density;
+  } // RowCellSpliterator(Matrix<T>, int, int, int, double)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the next cell, if there is one. Buffers the stored cells of one row at a
+   * time.
+   *
+   * @param action What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean tryAdvanceCell(CellConsumer<? super T> action) {
+    while (this.next == this.size) {
+      if (this.row >= this.end) {
+        return false;
+      } // if
+      this.fill(this.row++);
+    } // while
+    int i = this.next++;
+    Object val = this.vals[i];
+    this.vals[i] = null;
+    action.accept(this.bufferRow, this.cols[i], (T) val);
+    return true;
+  } // tryAdvanceCell(CellConsumer<? super T>)
+
+  /**
+   * Do something with each remaining cell.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachRemainingCell(CellConsumer<? super T> action) {
+    while (this.next < this.size && this.tryAdvanceCell(action)) {
+      // Empty the buffer first.
+    } // while
+    if (this.row >= this.end) {
+      return;
+    } // if
+    if (this.row == 0 && this.end == this.matrix.height()) {
+      this.matrix.forEachStored(action);
+    } else {
+      this.matrix.forEachStored(this.row, this.end, action);
+    } // if/else
+    this.row = this.end;
+  } // forEachRemainingCell(CellConsumer<? super T>)
+
+  /**
+   * Split off the first half of the remaining rows.
+   *
+   * @return a spliterator over those rows, or null if there are too few to split.
+   */
+  public CellSpliterator<T> trySplit() {
+    int mid = this.row + (this.end - this.row) / 2;
+    mid -= mid % this.align;
+    if (mid <= this.row) {
+      mid = this.row - this.row % this.align + this.align;
+    } // if
+    if (this.next < this.size || mid >= this.end) {
+      return null;
+    } // if
+    RowCellSpliterator<T> prefix = new RowCellSpliterator<T>(this.matrix, this.row, mid,
+        this.align, this.density());
+    this.row = mid;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Estimate the number of cells left, as the number of cells in the remaining rows scaled by
+   * the fraction of cells that the matrix stores. So a sparse matrix is not split into parts
+   * with only a few stored cells each.
+   *
+   * @return the estimate.
+   */
+  public long estimateSize() {
+    long cells = (long) (this.end - this.row) * this.matrix.width();
+    return (long) Math.ceil(cells * this.density()) + (this.size - this.next);
+  } // estimateSize()
+
+  /**
+   * Describe the cells. Promises nothing: the number of stored cells in a band is not known
+   * in advance, and some matrices visit the cells of a band in an order of their own.
+   *
+   * @return 0.
+   */
+  public int characteristics() {
+    return 0;
+  } // characteristics()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find the fraction of the matrix's cells that it stores, the first time it is needed.
+   *
+   * @return the fraction, from 0 to 1.
+   */
+  private double density() {
+    if (this.density < 0) {
+      long cells = (long) this.matrix.height() * this.matrix.width();
+      this.density = (cells == 0) ? 0 : Math.min(1.0, (double) this.matrix.storedCount() / cells);
+    } // if
+    return this.density;
+  } // density()
+
+  /**
+   * Buffer the stored cells of one row.
+   *
+   * @param r The row.
+   */
+  private void fill(int r) {
+    if (this.cols == null) {
+      int capacity = Math.max(1, Math.min(this.matrix.width(), 64));
+      this.cols = new int[capacity];
+      this.vals = new Object[capacity];
+    } // if
+    this.bufferRow = r;
+    this.size = 0;
+    this.next = 0;
+    this.matrix.forEachStored(r, r + 1, (row, col, val) -> {
+      if (this.size == this.cols.length) {
+        this.cols = Arrays.copyOf(this.cols, 2 * this.size);
+        this.vals = Arrays.copyOf(this.vals, 2 * this.size);
+      } // if
+      this.cols[this.size] = col;
+      this.vals[this.size++] = val;
+    });
+  } // fill(int)
+} // class RowCellSpliterator
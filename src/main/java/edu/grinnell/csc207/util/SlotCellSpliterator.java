@@ -0,0 +1,160 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * A spliterator over the cells of a matrix that keeps its cells in an IntObjectMap, keyed by
+ * row * width + col. Splits the slots of the hash table in half rather than the rows, so each
+ * part only looks at its own slots, and the parts together take time proportional to the size
+ * of the table.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class SlotCellSpliterator<T> implements CellSpliterator<T> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The map that holds the cells.
+   */
+  private final IntObjectMap<T> map;
+
+  /**
+   * The width of the matrix.
+   */
+  private final int width;
+
+  /**
+   * The next slot to look at.
+   */
+  private int slot;
+
+  /**
+   * The last slot to look at (exclusive).
+   */
+  private final int end;
+
+  /**
+   * Whether this spliterator covers the whole table, and so knows exactly how many cells it
+   * has left.
+   */
+  private boolean sized;
+
+  /**
+   * The number of cells visited so far, while sized.
+   */
+  private int seen;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over all the slots of a map.
+   *
+   * @param map The map that holds the cells.
+   * @param width The width of the matrix.
+   */
+  SlotCellSpliterator(IntObjectMap<T> map, int width) {
+    this(map, width, 0, map.keys.length);
+    this.sized = true;
+  } // SlotCellSpliterator(IntObjectMap<T>, int)
+
+  /**
+   * Create a spliterator over some of the slots of a map.
+   *
+   * @param map The map that holds the cells.
+   * @param width The width of the matrix.
+   * @param start The first slot (inclusive).
+   * @param end The last slot (exclusive).
+   */
+  private SlotCellSpliterator(IntObjectMap<T> map, int width, int start, int end) {
+    this.map = map;
+    this.width = width;
+    this.slot = start;
+    this.end = end;
+  } // SlotCellSpliterator(IntObjectMap<T>, int, int, int)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the cell in the next used slot, if there is one.
+   *
+   * @param action What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean tryAdvanceCell(CellConsumer<? super T> action) {
+    while (this.slot < this.end) {
+      int i = this.slot++;
+      if (this.map.used[i]) {
+        int key = this.map.keys[i];
+        this.seen++;
+        action.accept(key / this.width, key % this.width, (T) this.map.vals[i]);
+        return true;
+      } // if
+    } // while
+    return false;
+  } // tryAdvanceCell(CellConsumer<? super T>)
+
+  /**
+   * Do something with each remaining cell.
+   *
+   * @param action What to do with each cell.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEachRemainingCell(CellConsumer<? super T> action) {
+    for (int i = this.slot; i < this.end; i++) {
+      if (this.map.used[i]) {
+        int key = this.map.keys[i];
+        action.accept(key / this.width, key % this.width, (T) this.map.vals[i]);
+      } // if
+    } // for
+    this.slot = this.end;
+    this.seen = this.map.size;
+  } // forEachRemainingCell(CellConsumer<? super T>)
+
+  /**
+   * Split off the first half of the remaining slots.
+   *
+   * @return a spliterator over those slots, or null if there are too few to split.
+   */
+  public CellSpliterator<T> trySplit() {
+    int mid = (this.slot + this.end) >>> 1;
+    if (mid <= this.slot) {
+      return null;
+    } // if
+    SlotCellSpliterator<T> prefix =
+        new SlotCellSpliterator<T>(this.map, this.width, this.slot, mid);
+    this.slot = mid;
+    this.sized = false;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Determine the number of cells left, exactly if the table has not been split, and otherwise
+   * assuming that the used slots are spread evenly through the table.
+   *
+   * @return the number or the estimate.
+   */
+  public long estimateSize() {
+    if (this.sized) {
+      return this.map.size - this.seen;
+    } // if
+    return (long) this.map.size * (this.end - this.slot) / Math.max(1, this.map.keys.length);
+  } // estimateSize()
+
+  /**
+   * Describe the cells. Until it is split, the spliterator knows how many cells it has; the
+   * parts of a split table hold unknown numbers of cells.
+   *
+   * @return SIZED before splitting, and 0 after.
+   */
+  public int characteristics() {
+    return this.sized ? SIZED : 0;
+  } // characteristics()
+} // class SlotCellSpliterator
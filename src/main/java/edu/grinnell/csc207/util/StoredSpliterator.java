@@ -0,0 +1,92 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the stored cells of a matrix, as Cell objects. Wraps a CellSpliterator,
+ * and so splits however the matrix splits its stored cells: by bands of rows, or by ranges of
+ * a hash table for matrices that store their cells in one.
+ *
+ * @author Alexander Pollock
+ *
+ * @param <T> The type of values stored in the matrix.
+ */
+class StoredSpliterator<T> implements Spliterator<Cell<T>> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The stored cells.
+   */
+  private final CellSpliterator<T> cells;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over some stored cells.
+   *
+   * @param cells The stored cells.
+   */
+  StoredSpliterator(CellSpliterator<T> cells) {
+    this.cells = cells;
+  } // StoredSpliterator(CellSpliterator<T>)
+
+  // +---------------------+-----------------------------------------
+  // | Spliterator methods |
+  // +---------------------+
+
+  /**
+   * Do something with the next cell, if there is one.
+   *
+   * @param action What to do with the cell.
+   *
+   * @return true if there was a cell, and false otherwise.
+   */
+  public boolean tryAdvance(Consumer<? super Cell<T>> action) {
+    return this.cells.tryAdvanceCell(
+        (row, col, val) -> action.accept(new Cell<T>(row, col, val)));
+  } // tryAdvance(Consumer<? super Cell<T>>)
+
+  /**
+   * Do something with each remaining cell.
+   *
+   * @param action What to do with each cell.
+   */
+  public void forEachRemaining(Consumer<? super Cell<T>> action) {
+    this.cells.forEachRemainingCell(
+        (row, col, val) -> action.accept(new Cell<T>(row, col, val)));
+  } // forEachRemaining(Consumer<? super Cell<T>>)
+
+  /**
+   * Split off some of the remaining cells.
+   *
+   * @return a spliterator over those cells, or null if the cells were not split.
+   */
+  public Spliterator<Cell<T>> trySplit() {
+    CellSpliterator<T> prefix = this.cells.trySplit();
+    return (prefix == null) ? null : new StoredSpliterator<T>(prefix);
+  } // trySplit()
+
+  /**
+   * Estimate how many cells are left.
+   *
+   * @return the estimate.
+   */
+  public long estimateSize() {
+    return this.cells.estimateSize();
+  } // estimateSize()
+
+  /**
+   * Describe the cells: whatever the underlying cells promise about their number, plus
+   * NONNULL and DISTINCT, since each cell is a new object with its own position.
+   *
+   * @return the characteristics.
+   */
+  public int characteristics() {
+    return (this.cells.characteristics() & (SIZED | SUBSIZED)) | NONNULL | DISTINCT;
+  } // characteristics()
+} // class StoredSpliterator
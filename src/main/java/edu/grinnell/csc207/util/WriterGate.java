@@ -0,0 +1,105 @@
+package edu.grinnell.csc207.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps cell operations and structural edits of a concurrent matrix apart without making cell
+ * operations share a lock. Each operation announces itself in a slot of a padded counter array
+ * picked by its thread, so operations on different cores touch different cache lines. A
+ * structural edit raises a flag, waits for the operations in progress to leave, and lowers the
+ * flag when it is done; operations that arrive during an edit wait for it.
+ *
+ * <p>Operations must not nest: an operation that entered must leave before the same thread
+ * enters again, or an edit that starts in between waits forever.</p>
+ *
+ * @author Alexander Pollock
+ */
+final class WriterGate {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of slots. Must be a power of two.
+   */
+  static final int SLOTS = 64;
+
+  /**
+   * The distance between slots in the counter array, so that each is on its own cache line.
+   */
+  static final int PAD = 8;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of operations in progress in each slot.
+   */
+  private final AtomicLongArray writers = new AtomicLongArray(SLOTS * PAD);
+
+  /**
+   * Whether a structural edit is waiting for operations or in progress.
+   */
+  private volatile boolean editing;
+
+  /**
+   * Held by structural edits, one at a time; operations wait on it while one is in progress.
+   */
+  private final ReentrantLock edits = new ReentrantLock();
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Announce an operation, waiting for any structural edit to finish first.
+   *
+   * @return the slot, to pass to leave when the operation is done.
+   */
+  int enter() {
+    int slot = (IntObjectMap.hash(System.identityHashCode(Thread.currentThread()))
+        & (SLOTS - 1)) * PAD;
+    while (true) {
+      this.writers.getAndIncrement(slot);
+      if (!this.editing) {
+        return slot;
+      } // if
+      this.writers.getAndDecrement(slot);
+      // Wait for the edit to finish.
+      this.edits.lock();
+      this.edits.unlock();
+    } // while
+  } // enter()
+
+  /**
+   * Announce that an operation is done.
+   *
+   * @param slot The slot that enter returned.
+   */
+  void leave(int slot) {
+    this.writers.getAndDecrement(slot);
+  } // leave(int)
+
+  /**
+   * Start a structural edit: keep new operations out and wait for the ones in progress.
+   */
+  void beginEdit() {
+    this.edits.lock();
+    this.editing = true;
+    for (int slot = 0; slot < SLOTS * PAD; slot += PAD) {
+      while (this.writers.get(slot) != 0) {
+        Thread.onSpinWait();
+      } // while
+    } // for
+  } // beginEdit()
+
+  /**
+   * Finish a structural edit and let operations in.
+   */
+  void endEdit() {
+    this.editing = false;
+    this.edits.unlock();
+  } // endEdit()
+} // class WriterGate
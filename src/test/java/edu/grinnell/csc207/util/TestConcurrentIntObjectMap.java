@@ -0,0 +1,125 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the lock-free int-keyed map.
+ *
+ * @author Alexander Pollock
+ */
+class TestConcurrentIntObjectMap {
+  /**
+   * Values survive many insertions, resizes, and removals by one thread.
+   */
+  @Test
+  public void testOneThread() {
+    ConcurrentIntObjectMap<String> map = new ConcurrentIntObjectMap<String>();
+    for (int i = -5000; i < 5000; i++) {
+      map.set(i * 7, "v" + i);
+    } // for
+    for (int i = -5000; i < 5000; i += 3) {
+      map.remove(i * 7);
+    } // for
+    for (int i = -5000; i < 5000; i++) {
+      if ((i + 5000) % 3 == 0) {
+        assertFalse(map.hasKey(i * 7), "removed key " + (i * 7));
+      } else {
+        assertEquals("v" + i, map.getOrDefault(i * 7, "missing"), "value of key " + (i * 7));
+      } // if/else
+    } // for
+    assertEquals(6666, map.size(), "size");
+    int[] visited = new int[1];
+    map.forEach((key, val) -> visited[0]++);
+    assertEquals(6666, visited[0], "pairs visited");
+
+    map.set(14, null);
+    assertTrue(map.hasKey(14), "key with null value");
+    assertNull(map.getOrDefault(14, "missing"), "null value");
+    map.remove(12345);
+    assertEquals(6666, map.size(), "size after removing a missing key");
+    assertThrows(IllegalArgumentException.class, () -> map.set(Integer.MIN_VALUE, "x"));
+    assertFalse(map.hasKey(Integer.MIN_VALUE), "reserved key");
+  } // testOneThread()
+
+  /**
+   * Threads that write disjoint keys, starting from a tiny table, all see their own writes
+   * and end up with every key, while readers only ever see values that were written.
+   */
+  @Test
+  public void testDisjointWriters() throws InterruptedException {
+    int threads = 8;
+    int perThread = 20000;
+    ConcurrentIntObjectMap<Integer> map = new ConcurrentIntObjectMap<Integer>(1);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    AtomicBoolean done = new AtomicBoolean();
+    Thread[] writers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      int first = t;
+      writers[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; i++) {
+          int key = i * threads + first;
+          map.set(key, key);
+          if (i % 4 == 3) {
+            // Remove a key written a while ago, and put back the one before it.
+            map.remove(key - 2 * threads);
+            map.set(key - 3 * threads, -key);
+          } // if
+          if (map.getOrDefault(key, -1) != key) {
+            throw new AssertionError("lost " + key);
+          } // if
+        } // for
+      });
+    } // for
+    Thread reader = new Thread(() -> {
+      int key = 0;
+      while (!done.get()) {
+        Integer val = map.getOrDefault(key, null);
+        if (val != null && val != key && val > -key) {
+          throw new AssertionError("saw " + val + " for " + key);
+        } // if
+        key = (key + 7919) % (threads * perThread);
+      } // while
+    });
+    reader.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+    reader.start();
+    for (Thread writer : writers) {
+      writer.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+      writer.start();
+    } // for
+    for (Thread writer : writers) {
+      writer.join();
+    } // for
+    done.set(true);
+    reader.join();
+
+    assertNull(failure.get(), "no thread failed");
+    int expected = 0;
+    for (int key = 0; key < threads * perThread; key++) {
+      int i = key / threads;
+      Integer val = map.getOrDefault(key, null);
+      if (i % 4 == 1 && i + 2 < perThread) {
+        assertNull(val, "removed key " + key);
+      } else {
+        expected++;
+        if (i % 4 == 0 && i + 3 < perThread) {
+          assertEquals(-(key + 3 * threads), val, "rewritten key " + key);
+        } else {
+          assertEquals(key, val, "key " + key);
+        } // if/else
+      } // if/else
+    } // for
+    assertEquals(expected, map.size(), "size");
+    int[] visited = new int[1];
+    map.forEach((key, val) -> visited[0]++);
+    assertEquals(expected, visited[0], "pairs visited");
+  } // testDisjointWriters()
+} // class TestConcurrentIntObjectMap
@@ -0,0 +1,131 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link TestMatrix} tests, run on {@link ConcurrentMatrix}, plus a stress test with many
+ * threads.
+ *
+ * @author Alexander Pollock
+ */
+class TestConcurrentMatrix extends TestMatrix {
+  /**
+   * The number of writer threads, each of which owns a column.
+   */
+  static final int WRITERS = 6;
+
+  /**
+   * The number of reader threads.
+   */
+  static final int READERS = 3;
+
+  /**
+   * The number of rows the writers write.
+   */
+  static final int ROWS = 100;
+
+  /**
+   * The number of passes each writer makes over its column.
+   */
+  static final int PASSES = 300;
+
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new ConcurrentMatrix<T>(width, height, def, 3);
+  } // newMatrix(int, int, T)
+
+  /**
+   * Writers fill their own columns with increasing values, cell by cell and a region at a time,
+   * while readers check that every cell only ever moves forward and another thread keeps adding
+   * and removing rows and columns past the ones the writers use. Afterwards every cell holds
+   * its writer's last value.
+   */
+  @Test
+  public void testStress() throws InterruptedException {
+    ConcurrentMatrix<Integer> matrix = new ConcurrentMatrix<Integer>(WRITERS, ROWS, -1, 4);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    AtomicBoolean done = new AtomicBoolean();
+    Thread[] writers = new Thread[WRITERS];
+    Thread[] others = new Thread[READERS + 1];
+
+    for (int t = 0; t < WRITERS; t++) {
+      int col = t;
+      writers[t] = new Thread(() -> {
+        for (int pass = 0; pass < PASSES; pass++) {
+          if (pass % 3 == 0) {
+            matrix.fillRegion(0, col, ROWS, col + 1, pass);
+          } else {
+            for (int row = 0; row < ROWS; row++) {
+              matrix.set(row, col, pass);
+            } // for
+          } // if/else
+        } // for
+      });
+    } // for
+
+    for (int t = 0; t < READERS; t++) {
+      Random random = new Random(t);
+      others[t] = new Thread(() -> {
+        int[] seen = new int[ROWS * WRITERS];
+        Arrays.fill(seen, -1);
+        while (!done.get()) {
+          int row = random.nextInt(ROWS);
+          int col = random.nextInt(WRITERS);
+          int val = matrix.get(row, col);
+          if (val < seen[row * WRITERS + col] || val >= PASSES) {
+            throw new AssertionError("saw " + val + " at (" + row + "," + col + ")");
+          } // if
+          seen[row * WRITERS + col] = val;
+        } // while
+      });
+    } // for
+
+    Integer[] extraCol = new Integer[ROWS];
+    Arrays.fill(extraCol, 7);
+    others[READERS] = new Thread(() -> {
+      try {
+        while (!done.get()) {
+          matrix.insertRow(ROWS);
+          matrix.insertCol(WRITERS, new Integer[ROWS + 1]);
+          matrix.deleteRow(ROWS);
+          matrix.deleteCol(WRITERS);
+          matrix.insertCol(WRITERS, extraCol);
+          matrix.deleteCol(WRITERS);
+        } // while
+      } catch (ArraySizeException e) {
+        throw new AssertionError(e);
+      } // try/catch
+    });
+
+    for (Thread thread : others) {
+      thread.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+      thread.start();
+    } // for
+    for (Thread thread : writers) {
+      thread.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+      thread.start();
+    } // for
+    for (Thread thread : writers) {
+      thread.join();
+    } // for
+    done.set(true);
+    for (Thread thread : others) {
+      thread.join();
+    } // for
+
+    assertNull(failure.get(), "no thread failed");
+    assertEquals(ROWS, matrix.height(), "height");
+    assertEquals(WRITERS, matrix.width(), "width");
+    Matrix<Integer> expected = new MatrixDense<Integer>(WRITERS, ROWS, PASSES - 1);
+    assertTrue(expected.equals(matrix), "every cell holds its last value");
+  } // testStress()
+} // class TestConcurrentMatrix
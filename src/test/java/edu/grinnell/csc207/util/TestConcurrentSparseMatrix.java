@@ -0,0 +1,82 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link TestMatrix} tests, run on {@link ConcurrentSparseMatrix}, plus a test with many
+ * threads.
+ *
+ * @author Alexander Pollock
+ */
+class TestConcurrentSparseMatrix extends TestMatrix {
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new ConcurrentSparseMatrix<T>(width, height, def);
+  } // newMatrix(int, int, T)
+
+  /**
+   * Threads fill disjoint bands of rows, cell by cell and a region at a time, while another
+   * thread keeps adding and removing rows and columns past the bands. Afterwards the matrix
+   * matches the same fills done by one thread.
+   */
+  @Test
+  public void testDisjointRegions() throws InterruptedException {
+    int threads = 8;
+    int band = 40;
+    int width = 300;
+    ConcurrentSparseMatrix<Integer> matrix =
+        new ConcurrentSparseMatrix<Integer>(width, threads * band, 0);
+    Matrix<Integer> expected = new MatrixV0<Integer>(width, threads * band, 0);
+    AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] writers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      int top = t * band;
+      writers[t] = new Thread(() -> {
+        matrix.fillRegion(top, 0, top + band, width, top);
+        for (int r = top; r < top + band; r++) {
+          for (int c = r % 3; c < width; c += 3) {
+            matrix.set(r, c, r * width + c);
+          } // for
+        } // for
+        matrix.fillRegion(top + 5, 10, top + 15, 20, 0);
+      });
+      expected.fillRegion(top, 0, top + band, width, top);
+      for (int r = top; r < top + band; r++) {
+        for (int c = r % 3; c < width; c += 3) {
+          expected.set(r, c, r * width + c);
+        } // for
+      } // for
+      expected.fillRegion(top + 5, 10, top + 15, 20, 0);
+    } // for
+    Thread editor = new Thread(() -> {
+      for (int i = 0; i < 200; i++) {
+        matrix.insertRow(threads * band);
+        matrix.insertCol(width);
+        matrix.set(threads * band, width, i);
+        matrix.deleteCol(width);
+        matrix.deleteRow(threads * band);
+      } // for
+    });
+
+    editor.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+    editor.start();
+    for (Thread writer : writers) {
+      writer.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+      writer.start();
+    } // for
+    for (Thread writer : writers) {
+      writer.join();
+    } // for
+    editor.join();
+
+    assertNull(failure.get(), "no thread failed");
+    assertTrue(expected.equals(matrix), "cells after the fills");
+    assertEquals(expected.storedCount(), matrix.storedCount(), "stored cells");
+  } // testDisjointRegions()
+} // class TestConcurrentSparseMatrix
@@ -0,0 +1,85 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the open-addressing int-keyed map.
+ *
+ * @author Alexander Pollock
+ */
+class TestIntObjectMap {
+  /**
+   * Make sure that values survive many insertions (and therefore resizes).
+   */
+  @Test
+  public void testSetGetGrow() throws KeyNotFoundException {
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    for (int i = 0; i < 10000; i++) {
+      map.set(i * 7, "v" + i);
+    } // for
+    assertEquals(10000, map.size(), "size after inserting");
+    for (int i = 0; i < 10000; i++) {
+      assertEquals("v" + i, map.get(i * 7), "value of key " + (i * 7));
+    } // for
+    assertFalse(map.hasKey(1), "missing key");
+    assertThrows(KeyNotFoundException.class, () -> map.get(1), "get of missing key");
+
+    map.set(7, "replaced");
+    assertEquals("replaced", map.get(7), "replaced value");
+    assertEquals(10000, map.size(), "size after replacing");
+  } // testSetGetGrow()
+
+  /**
+   * Make sure that removal leaves the rest of each probe sequence reachable.
+   */
+  @Test
+  public void testRemove() throws KeyNotFoundException {
+    IntObjectMap<Integer> map = new IntObjectMap<Integer>();
+    for (int i = -500; i < 500; i++) {
+      map.set(i, i);
+    } // for
+    for (int i = -500; i < 500; i += 3) {
+      map.remove(i);
+    } // for
+    for (int i = -500; i < 500; i++) {
+      if ((i + 500) % 3 == 0) {
+        assertFalse(map.hasKey(i), "removed key " + i);
+      } else {
+        assertEquals(i, map.get(i), "kept key " + i);
+      } // if/else
+    } // for
+    map.remove(12345);
+    assertEquals(666, map.size(), "size after removing");
+  } // testRemove()
+
+  /**
+   * Null values are values, not missing keys.
+   */
+  @Test
+  public void testNullValues() throws KeyNotFoundException {
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    map.set(0, null);
+    assertTrue(map.hasKey(0), "key with null value");
+    assertNull(map.get(0), "null value");
+  } // testNullValues()
+
+  /**
+   * Clones do not share tables.
+   */
+  @Test
+  public void testClone() throws KeyNotFoundException {
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    map.set(1, "a");
+    IntObjectMap<String> copy = map.clone();
+    copy.set(1, "b");
+    copy.set(2, "c");
+    assertEquals("a", map.get(1), "original after changing the clone");
+    assertFalse(map.hasKey(2), "original after adding to the clone");
+  } // testClone()
+} // class TestIntObjectMap
@@ -3,11 +3,18 @@ package edu.grinnell.csc207.util;
 import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.Test;
 
 /**e
@@ -16,6 +23,45 @@ import org.junit.jupiter.api.Test;
  * @author Samuel A. Rebelsky
  */
 class TestMatrix {
+  // +-----------+---------------------------------------------------
+  // | Factories |
+  // +-----------+
+
+  /**
+   * Build the matrix to test. Subclasses override this to run the
+   * same tests on other implementations.
+   *
+   * @param width
+   *   The width of the matrix.
+   * @param height
+   *   The height of the matrix.
+   * @param def
+   *   The default value.
+   *
+   * @return a new matrix.
+   */
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new MatrixV0<T>(width, height, def);
+  } // newMatrix(int, int, T)
+
+  /**
+   * Build a matrix to test with null as the default value.
+   *
+   * @param width
+   *   The width of the matrix.
+   * @param height
+   *   The height of the matrix.
+   *
+   * @return a new matrix.
+   */
+  <T> Matrix<T> newMatrix(int width, int height) {
+    return newMatrix(width, height, null);
+  } // newMatrix(int, int)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
   /**
    * Make sure that we can create and change 1x1 matrices.
    */
@@ -24,28 +70,28 @@ class TestMatrix {
     Integer five = Integer.valueOf(5);
     Integer six = Integer.valueOf(6);
 
-    Matrix<Integer> oneByOneA = new MatrixV0<Integer>(1, 1);
+    Matrix<Integer> oneByOneA = newMatrix(1, 1);
     assertMatrixEquals(new Integer[][] {{null}}, oneByOneA,
         "one-by-one of null");
     oneByOneA.set(0, 0, five);
     assertMatrixEquals(new Integer[][] {{five}}, oneByOneA,
         "after setting one-by-one to five");
 
-    Matrix<String> oneByOneB = new MatrixV0<String>(1, 1);
+    Matrix<String> oneByOneB = newMatrix(1, 1);
     assertMatrixEquals(new String[][] {{null}}, oneByOneB,
         "one-by-one of null");
     oneByOneB.set(0, 0, "hi");
     assertMatrixEquals(new String[][] {{"hi"}}, oneByOneB,
         "after setting one-by-one to 'hi'");
 
-    Matrix<Integer> oneByOneC = new MatrixV0<Integer>(1, 1, five);
+    Matrix<Integer> oneByOneC = newMatrix(1, 1, five);
     assertMatrixEquals(new Integer[][] {{five}}, oneByOneC,
         "one-by-one of 5");
     oneByOneC.set(0, 0, six);
     assertMatrixEquals(new Integer[][] {{six}}, oneByOneC,
         "after setting one-by-one to six");
 
-    Matrix<String> oneByOneD = new MatrixV0<String>(1, 1, " ");
+    Matrix<String> oneByOneD = newMatrix(1, 1, " ");
     assertMatrixEquals(new String[][] {{" "}}, oneByOneD,
         "one-by-one of space");
     oneByOneD.set(0, 0, "");
@@ -65,7 +111,7 @@ class TestMatrix {
     Integer i4 = Integer.valueOf(4);
     Integer i5 = Integer.valueOf(5);
 
-    Matrix<Integer> horizA = new MatrixV0<Integer>(5, 1);
+    Matrix<Integer> horizA = newMatrix(5, 1);
     assertMatrixEquals(new Integer[][] {{null, null, null, null, null}}, horizA,
         "R: 5x1 matrix of null");
     horizA.set(0, 0, i0);
@@ -106,7 +152,7 @@ class TestMatrix {
     assertMatrixEquals(new Integer[][] {{i0, null, i3, i0, null, i5}}, horizA,
         "M: insert last column / 5x1 matrix now 6x1 matrix");
 
-    Matrix<Integer> horizB = new MatrixV0<Integer>(3, 1, i5);
+    Matrix<Integer> horizB = newMatrix(3, 1, i5);
     assertMatrixEquals(new Integer[][] {{i5, i5, i5}}, horizB,
         "R: 3x1 matrix of 5");
     horizB.set(0, 0, i3);
@@ -152,7 +198,7 @@ class TestMatrix {
     String s4 = "four";
     String s5 = "five";
 
-    Matrix<String> vertA = new MatrixV0<String>(1, 5);
+    Matrix<String> vertA = newMatrix(1, 5);
     assertMatrixEquals(new String[][] {{null}, {null}, {null}, {null}, {null}},
         vertA,
         "R: 1x5 matrix of null");
@@ -195,7 +241,7 @@ class TestMatrix {
         vertA,
         "M: insert last column / 1x5 matrix now 1x6 matrix");
 
-    Matrix<String> vertB = new MatrixV0<String>(1, 3, s5);
+    Matrix<String> vertB = newMatrix(1, 3, s5);
     assertMatrixEquals(new String[][] {{s5}, {s5}, {s5}}, vertB,
          "R: 1x3 matrix of 5");
     vertB.set(0, 0, s3);
@@ -239,7 +285,7 @@ class TestMatrix {
    */
   @Test
   public void testSetException() {
-    Matrix<String> matrix = new MatrixV0(7, 3);
+    Matrix<String> matrix = newMatrix(7, 3);
     assertThrows(IndexOutOfBoundsException.class,
         () -> {matrix.set(-1, 0, "value");},
         "E: set with negative row");
@@ -265,7 +311,7 @@ class TestMatrix {
    */
   @Test
   public void testGetException() {
-    Matrix<String> matrix = new MatrixV0(3, 6);
+    Matrix<String> matrix = newMatrix(3, 6);
     assertThrows(IndexOutOfBoundsException.class,
         () -> {matrix.get(-1, 0);},
         "E: get with negative row");
@@ -291,7 +337,7 @@ class TestMatrix {
    */
   @Test
   public void testInsertRowException() {
-    Matrix<Integer> matrix = new MatrixV0<Integer>(5, 3);
+    Matrix<Integer> matrix = newMatrix(5, 3);
     Integer four = Integer.valueOf(4);
 
     assertThrows(IndexOutOfBoundsException.class,
@@ -329,7 +375,7 @@ class TestMatrix {
    */
   @Test
   public void testInsertColException() {
-    Matrix<String> matrix = new MatrixV0<String>(5, 3);
+    Matrix<String> matrix = newMatrix(5, 3);
 
     assertThrows(IndexOutOfBoundsException.class,
         () -> {matrix.insertCol(-1);},
@@ -358,7 +404,7 @@ class TestMatrix {
    */
   @Test
   void testAssorted() {
-    Matrix<String> strings = new MatrixV0(4, 2, " ");
+    Matrix<String> strings = newMatrix(4, 2, " ");
     assertMatrixEquals(
         new String[][]
             {{" ", " ", " ", " "},
@@ -434,24 +480,98 @@ class TestMatrix {
         "E: After deleting column 1");
   } // testAssorted()
 
+  /**
+   * Changes to a clone do not affect the original, and vice versa.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCloneIndependence() throws ArraySizeException {
+    Matrix<String> original = newMatrix(3, 2, ".");
+    original.set(0, 0, "a");
+    original.set(1, 2, "b");
+
+    Matrix<String> copy = original.clone();
+    copy.set(0, 0, "c");
+    assertMatrixEquals(new String[][] {{"a", ".", "."}, {".", ".", "b"}}, original,
+        "M: original after setting a cell of the clone");
+    assertMatrixEquals(new String[][] {{"c", ".", "."}, {".", ".", "b"}}, copy,
+        "M: clone after setting a cell");
+
+    original.fillRegion(0, 1, 2, 3, "d");
+    assertMatrixEquals(new String[][] {{"a", "d", "d"}, {".", "d", "d"}}, original,
+        "M: original after filling");
+    assertMatrixEquals(new String[][] {{"c", ".", "."}, {".", ".", "b"}}, copy,
+        "M: clone after filling the original");
+
+    Matrix<String> copy2 = copy.clone();
+    copy2.deleteCol(0);
+    copy2.insertRow(0, new String[] {"e", "e"});
+    copy.insertCol(1);
+    copy.set(1, 1, "f");
+    assertMatrixEquals(new String[][] {{"e", "e"}, {".", "."}, {".", "b"}}, copy2,
+        "M: second clone after structural edits");
+    assertMatrixEquals(new String[][] {{"c", ".", ".", "."}, {".", "f", ".", "b"}}, copy,
+        "M: clone after structural edits");
+    assertMatrixEquals(new String[][] {{"a", "d", "d"}, {".", "d", "d"}}, original,
+        "M: original after editing both clones");
+  } // testCloneIndependence()
+
+  /**
+   * Clones of a larger matrix stay independent through many changes to both sides, including
+   * structural edits that leave the first rows in place.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCloneLarge() throws ArraySizeException {
+    Matrix<Integer> original = newMatrix(150, 100, -1);
+    for (int r = 0; r < 100; r++) {
+      for (int c = r % 3; c < 150; c += 3) {
+        original.set(r, c, r * 1000 + c);
+      } // for
+    } // for
+    Matrix<Integer> copy = original.clone();
+    Matrix<Integer> copy2 = original.clone();
+    for (int r = 0; r < 100; r += 7) {
+      copy.set(r, r, -2);
+      original.set(r, 149 - r, -3);
+    } // for
+    copy2.deleteRow(60);
+    copy2.insertRow(80, new Integer[150]);
+    copy2.set(0, 0, -4);
+    for (int r = 0; r < 100; r++) {
+      for (int c = 0; c < 150; c++) {
+        Integer start = (c % 3 == r % 3) ? r * 1000 + c : -1;
+        Integer inOriginal = (r % 7 == 0 && c == 149 - r) ? -3 : start;
+        Integer inCopy = (r % 7 == 0 && c == r) ? -2 : start;
+        assertEquals(inOriginal, original.get(r, c), "M: original at " + r + "," + c);
+        assertEquals(inCopy, copy.get(r, c), "M: clone at " + r + "," + c);
+        int from = (r < 60) ? r : (r < 80) ? r + 1 : r;
+        Integer inCopy2 = (r == 80) ? null
+            : (r == 0 && c == 0) ? -4
+            : (c % 3 == from % 3) ? from * 1000 + c : -1;
+        assertEquals(inCopy2, copy2.get(r, c), "M: second clone at " + r + "," + c);
+      } // for
+    } // for
+  } // testCloneLarge()
+
   /**
    * Some fun with equality.
    */
   @Test
   public void testEquals() throws ArraySizeException {
     // Build five equivalent matrices in different ways.
-    Matrix<String> matrix0 = new MatrixV0<String>(4, 3, "X");
+    Matrix<String> matrix0 = newMatrix(4, 3, "X");
 
-    Matrix<String> matrix1 = new MatrixV0<String>(3, 3, "X");
+    Matrix<String> matrix1 = newMatrix(3, 3, "X");
     matrix1.insertCol(1);
 
-    Matrix<String> matrix2 = new MatrixV0<String>(4, 3);
+    Matrix<String> matrix2 = newMatrix(4, 3);
     matrix2.fillRegion(0, 0, 3, 4, "EX".substring(1));
 
-    Matrix<String> matrix3 = new MatrixV0<String>(4, 2, new String("X"));
+    Matrix<String> matrix3 = newMatrix(4, 2, new String("X"));
     matrix3.insertRow(0, new String[] {"X", "X", "X", "X"});
 
-    Matrix<String> matrix4 = new MatrixV0<String>(5, 4, "X" + "");
+    Matrix<String> matrix4 = newMatrix(5, 4, "X" + "");
     matrix4.deleteRow(0);
     matrix4.deleteCol(1);
 
@@ -521,4 +641,366 @@ class TestMatrix {
     } // for i
   } // testEquals()
 
+  /**
+   * Bulk row, column, and region accessors agree with get and set.
+   */
+  @Test
+  public void testBulk() throws ArraySizeException {
+    Matrix<Integer> matrix = newMatrix(4, 3, 0);
+    matrix.setRow(1, new Integer[] {1, 2, 3, 4});
+    matrix.setCol(2, new Integer[] {5, null, 7});
+    assertMatrixEquals(new Integer[][] {{0, 0, 5, 0}, {1, 2, null, 4}, {0, 0, 7, 0}},
+        matrix, "B: after setRow and setCol");
+
+    Integer[] row = new Integer[4];
+    matrix.getRow(1, row);
+    assertArrayEquals(new Integer[] {1, 2, null, 4}, row, "B: getRow");
+    Integer[] col = new Integer[3];
+    matrix.getCol(0, col);
+    assertArrayEquals(new Integer[] {0, 1, 0}, col, "B: getCol");
+
+    Integer[] region = new Integer[4];
+    matrix.getRegion(1, 1, 3, 3, region);
+    assertArrayEquals(new Integer[] {2, null, 0, 7}, region, "B: getRegion");
+    matrix.setRegion(0, 2, 2, 4, new Integer[] {8, 9, 10, 11});
+    assertMatrixEquals(new Integer[][] {{0, 0, 8, 9}, {1, 2, 10, 11}, {0, 0, 7, 0}},
+        matrix, "B: after setRegion");
+    matrix.getRegion(3, 4, 3, 4, new Integer[0]);
+
+    Matrix<String> sparse = newMatrix(100, 50, ".");
+    sparse.set(20, 30, "x");
+    String[] wide = new String[100];
+    sparse.getRow(20, wide);
+    assertTrue(wide[30].equals("x") && wide[29].equals(".") && wide[31].equals("."),
+        "B: getRow of a sparse row");
+
+    assertThrows(ArraySizeException.class, () -> matrix.getRow(0, new Integer[3]));
+    assertThrows(ArraySizeException.class, () -> matrix.setCol(0, new Integer[4]));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.getRow(3, row));
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.setCol(-1, col));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> matrix.getRegion(2, 2, 4, 3, new Integer[2]));
+  } // testBulk()
+
+  /**
+   * forEachStored visits each changed cell once, and nothing else that differs from the
+   * default.
+   */
+  @Test
+  public void testForEachStored() throws ArraySizeException {
+    Matrix<String> matrix = newMatrix(90, 70, ".");
+    assertEquals(".", matrix.getDefaultVal(), "S: default");
+    matrix.set(3, 80, "a");
+    matrix.set(69, 0, "b");
+    matrix.fillRegion(10, 10, 12, 15, "c");
+    matrix.insertRow(5);
+    matrix.deleteCol(1);
+    Matrix<String> copy = new MatrixDense<String>(89, 71, ".");
+    Matrix<Integer> visits = new MatrixDense<Integer>(89, 71, 0);
+    matrix.forEachStored((row, col, val) -> {
+      copy.set(row, col, val);
+      visits.set(row, col, visits.get(row, col) + 1);
+    });
+    assertTrue(copy.equals(matrix), "S: stored cells reproduce the matrix");
+    long visited = 0;
+    for (int r = 0; r < 71; r++) {
+      for (int c = 0; c < 89; c++) {
+        assertTrue(visits.get(r, c) <= 1, "S: each cell at most once");
+        visited += visits.get(r, c);
+      } // for
+    } // for
+    assertEquals(matrix.storedCount(), visited, "S: storedCount");
+  } // testForEachStored()
+
+  /**
+   * Equality and hash codes handle null cells, agree with other kinds of matrices, and follow
+   * changes, including changes back to the default.
+   */
+  @Test
+  public void testEqualsSparse() throws ArraySizeException {
+    Matrix<String> matrix = newMatrix(300, 200, ".");
+    Matrix<String> dense = new MatrixDense<String>(300, 200, ".");
+    matrix.set(5, 7, null);
+    dense.set(5, 7, null);
+    matrix.set(199, 299, "end");
+    dense.set(199, 299, "end");
+    assertTrue(matrix.equals(dense), "S: null cells");
+    assertTrue(dense.equals(matrix), "S: null cells, reversed");
+    assertEquals(dense.hashCode(), matrix.hashCode(), "S: hash codes agree");
+
+    int hash = matrix.hashCode();
+    matrix.set(100, 100, "x");
+    assertFalse(matrix.equals(dense), "S: changed after hashing");
+    matrix.set(100, 100, ".");
+    assertTrue(matrix.equals(dense), "S: changed back to the default");
+    assertEquals(hash, matrix.hashCode(), "S: hash after change back");
+
+    Matrix<String> copy = newMatrix(300, 200, ".");
+    copy.set(199, 299, "end");
+    copy.set(5, 7, null);
+    assertTrue(copy.equals(matrix), "S: same kind");
+    assertEquals(matrix.hashCode(), copy.hashCode(), "S: same kind, hash codes");
+    copy.set(5, 7, "/");
+    assertFalse(copy.equals(matrix), "S: null versus value");
+    assertFalse(matrix.equals(newMatrix(300, 200, null)), "S: different defaults");
+    assertFalse(matrix.equals(newMatrix(200, 300, ".")), "S: different shapes");
+  } // testEqualsSparse()
+
+  /**
+   * The parallel fills and maps, with bands of every size, leave the same cells as the
+   * sequential ones, and do not change clones.
+   */
+  @Test
+  public void testParallel() {
+    for (int threshold : new int[] {1, 1000, Integer.MAX_VALUE}) {
+      Matrix<Integer> matrix = newMatrix(150, 130, 0);
+      Matrix<Integer> expected = new MatrixDense<Integer>(150, 130, 0);
+      matrix.fillRegionParallel(3, 5, 129, 140, 7, threshold);
+      expected.fillRegion(3, 5, 129, 140, 7);
+      matrix.fillRegionParallel(64, 0, 128, 64, 9, threshold);
+      expected.fillRegion(64, 0, 128, 64, 9);
+      @SuppressWarnings("unchecked")
+      Matrix<Integer> copy = matrix.clone();
+      matrix.fillRegionParallel(10, 20, 100, 30, 0, threshold);
+      expected.fillRegion(10, 20, 100, 30, 0);
+      matrix.fillRegionParallel(50, 50, 50, 60, 1, threshold);
+      assertTrue(expected.equals(matrix), "S: fill, threshold " + threshold);
+
+      matrix.set(100, 149, 5);
+      expected.set(100, 149, 5);
+      matrix.mapInPlaceParallel((x) -> (x == 9) ? 0 : x + 1, threshold);
+      expected.mapInPlace((x) -> (x == 9) ? 0 : x + 1);
+      assertTrue(expected.equals(matrix), "S: map, threshold " + threshold);
+      matrix.mapInPlace((x) -> x * 2);
+      expected.mapInPlace((x) -> x * 2);
+      assertTrue(expected.equals(matrix), "S: sequential map, threshold " + threshold);
+      assertEquals(7, copy.get(3, 5), "S: clone unchanged, threshold " + threshold);
+      assertEquals(9, copy.get(64, 0), "S: clone unchanged, threshold " + threshold);
+      assertEquals(0, copy.get(0, 0), "S: clone unchanged, threshold " + threshold);
+    } // for
+  } // testParallel()
+
+  /**
+   * Map, zipWith, reduce, fold, count, and anyMatch, sequential and parallel, agree with loops
+   * over every cell, including the cells that hold the default.
+   */
+  @Test
+  public void testElementWise() throws ArraySizeException {
+    Matrix<Integer> matrix = newMatrix(200, 150, 2);
+    Matrix<Integer> expected = new MatrixDense<Integer>(200, 150, 2);
+    for (Matrix<Integer> m : List.of(matrix, expected)) {
+      for (int r = 0; r < 150; r++) {
+        for (int c = (r * 7) % 5; c < 200; c += 5) {
+          m.set(r, c, r + c);
+        } // for
+      } // for
+      m.fillRegion(10, 10, 40, 100, 3);
+      m.set(149, 199, -1);
+    } // for
+    long sum = 0;
+    long threes = 0;
+    for (int r = 0; r < 150; r++) {
+      for (int c = 0; c < 200; c++) {
+        sum += expected.get(r, c);
+        threes += (expected.get(r, c) == 3) ? 1 : 0;
+      } // for
+    } // for
+
+    Matrix<Integer> doubled = new MatrixDense<Integer>(200, 150, 5);
+    for (int r = 0; r < 150; r++) {
+      for (int c = 0; c < 200; c++) {
+        doubled.set(r, c, expected.get(r, c) * 2 + 1);
+      } // for
+    } // for
+    assertTrue(doubled.equals(matrix.map((x) -> x * 2 + 1)), "S: map");
+    assertTrue(doubled.equals(matrix.mapParallel((x) -> x * 2 + 1)), "S: mapParallel");
+    assertEquals(5, matrix.map((x) -> x * 2 + 1).getDefaultVal(), "S: default of map");
+
+    Matrix<Integer> other = newMatrix(200, 150, 7);
+    other.set(0, 0, 100);
+    other.fillRegion(100, 150, 150, 200, 1);
+    Matrix<Integer> diff = new MatrixDense<Integer>(200, 150, 0);
+    for (int r = 0; r < 150; r++) {
+      for (int c = 0; c < 200; c++) {
+        diff.set(r, c, expected.get(r, c) - other.get(r, c));
+      } // for
+    } // for
+    assertTrue(diff.equals(matrix.zipWith(other, (a, b) -> a - b)), "S: zipWith");
+    assertTrue(diff.equals(matrix.zipWithParallel(other, (a, b) -> a - b)),
+        "S: zipWithParallel");
+    assertThrows(ArraySizeException.class,
+        () -> matrix.zipWith(newMatrix(150, 200, 0), (a, b) -> a));
+
+    assertEquals(sum, (long) matrix.reduce(0, Integer::sum), "S: reduce");
+    assertEquals(sum, (long) matrix.reduceParallel(0, Integer::sum), "S: reduceParallel");
+    assertEquals(-1, matrix.reduceParallel(Integer.MAX_VALUE, Math::min), "S: minimum");
+    assertEquals(sum, matrix.fold(0L, (acc, x) -> acc + x, Long::sum), "S: fold");
+    assertEquals(sum, matrix.foldParallel(0L, (acc, x) -> acc + x, Long::sum),
+        "S: foldParallel");
+    assertEquals(threes, matrix.count((x) -> x == 3), "S: count");
+    assertEquals(threes, matrix.countParallel((x) -> x == 3), "S: countParallel");
+    assertEquals(30000 - threes, matrix.countParallel((x) -> x != 3), "S: count others");
+    assertTrue(matrix.anyMatch((x) -> x == 2), "S: anyMatch on the default");
+    assertTrue(matrix.anyMatchParallel((x) -> x < 0), "S: anyMatchParallel");
+    assertFalse(matrix.anyMatch((x) -> x > 1000), "S: anyMatch, none");
+    assertFalse(matrix.anyMatchParallel((x) -> x > 1000), "S: anyMatchParallel, none");
+  } // testElementWise()
+
+  /**
+   * Map and zipWith do not apply the function to a null default that no cell holds, and
+   * zipWith combines each cell once.
+   */
+  @Test
+  public void testNullDefaultMap() throws ArraySizeException {
+    Matrix<Integer> full = newMatrix(3, 2, null);
+    full.fillRegion(0, 0, 2, 3, 5);
+    Integer[][] sixes = {{6, 6, 6}, {6, 6, 6}};
+    assertMatrixEquals(sixes, full.map((x) -> x + 1), "M: map of a full matrix");
+    assertMatrixEquals(sixes, full.mapParallel((x) -> x + 1), "M: mapParallel");
+    assertEquals(6, full.map((x) -> x + 1).getDefaultVal(), "S: default of map");
+
+    Matrix<Integer> partial = newMatrix(3, 2, null);
+    partial.set(1, 2, 4);
+    AtomicInteger calls = new AtomicInteger();
+    Matrix<Integer> sums = full.zipWith(partial, (a, b) -> {
+      calls.incrementAndGet();
+      return a + ((b == null) ? 0 : b);
+    });
+    assertMatrixEquals(new Integer[][] {{5, 5, 5}, {5, 5, 9}}, sums, "M: zipWith");
+    assertEquals(6, calls.get(), "S: zipWith combines each cell once");
+    calls.set(0);
+    full.zipWithParallel(full, (a, b) -> calls.incrementAndGet());
+    assertEquals(6, calls.get(), "S: zipWithParallel combines each cell once");
+
+    Matrix<Integer> mapped = partial.map((x) -> (x == null) ? -1 : x + 1);
+    assertMatrixEquals(new Integer[][] {{-1, -1, -1}, {-1, -1, 5}}, mapped,
+        "M: map of a partly filled matrix");
+    assertEquals(-1, mapped.getDefaultVal(), "S: default of the partly filled map");
+  } // testNullDefaultMap()
+
+  /**
+   * Every kind of matrix picks the same default for the results of map and zipWith: the
+   * function applied to the old default if some cell holds it, and otherwise the new value of
+   * the cell in row 0, column 0.
+   */
+  @Test
+  public void testMappedDefault() throws ArraySizeException {
+    Matrix<Integer> full = newMatrix(70, 70, 0);
+    for (int r = 69; r >= 0; r--) {
+      for (int c = 69; c >= 0; c--) {
+        full.set(r, c, r * 70 + c + 1);
+      } // for
+    } // for
+    assertEquals(10, full.map((x) -> x * 10).getDefaultVal(), "S: map of a full matrix");
+    assertEquals(10, full.mapParallel((x) -> x * 10).getDefaultVal(), "S: mapParallel");
+    assertEquals(2, full.zipWith(full, (a, b) -> a + b).getDefaultVal(),
+        "S: zipWith of full matrices");
+    assertEquals(2, full.zipWithParallel(full, (a, b) -> a + b).getDefaultVal(),
+        "S: zipWithParallel");
+
+    full.set(69, 69, 0);
+    assertEquals(3, full.map((x) -> x + 3).getDefaultVal(), "S: map with one default cell");
+    assertEquals(3, full.mapParallel((x) -> x + 3).getDefaultVal(), "S: mapParallel");
+    assertEquals(-4, full.zipWith(full, (a, b) -> a + b - 4).getDefaultVal(),
+        "S: zipWith with one default cell");
+
+    Matrix<Integer> empty = newMatrix(0, 3, 5);
+    assertEquals(null, empty.map((x) -> x + 1).getDefaultVal(), "S: map with no cells");
+  } // testMappedDefault()
+
+  /**
+   * Splitting a cell spliterator as far as it goes, and mixing tryAdvanceCell with
+   * forEachRemainingCell, visits each stored cell exactly once.
+   */
+  @Test
+  public void testCellSpliterator() {
+    Matrix<String> matrix = newMatrix(150, 140, ".");
+    for (int r = 0; r < 140; r += 3) {
+      for (int c = r % 7; c < 150; c += 7) {
+        matrix.set(r, c, r + "," + c);
+      } // for
+    } // for
+    matrix.fillRegion(60, 0, 70, 150, "x");
+    Matrix<String> copy = new MatrixDense<String>(150, 140, ".");
+    Matrix<Integer> visits = new MatrixDense<Integer>(150, 140, 0);
+    CellConsumer<String> visit = (row, col, val) -> {
+      copy.set(row, col, val);
+      visits.set(row, col, visits.get(row, col) + 1);
+    };
+    List<CellSpliterator<String>> parts = new ArrayList<CellSpliterator<String>>();
+    parts.add(matrix.cellSpliterator());
+    for (int i = 0; i < parts.size(); i++) {
+      CellSpliterator<String> prefix = parts.get(i).trySplit();
+      if (prefix != null) {
+        parts.add(prefix);
+        i--;
+      } // if
+    } // for
+    for (CellSpliterator<String> part : parts) {
+      part.tryAdvanceCell(visit);
+      part.forEachRemainingCell(visit);
+      assertFalse(part.tryAdvanceCell(visit), "S: part is used up");
+    } // for
+    assertTrue(copy.equals(matrix), "S: parts reproduce the matrix");
+    for (int r = 0; r < 140; r++) {
+      for (int c = 0; c < 150; c++) {
+        assertTrue(visits.get(r, c) <= 1, "S: each cell at most once");
+      } // for
+    } // for
+  } // testCellSpliterator()
+
+  /**
+   * The cell, stored-cell, row, and column streams see every value, sequentially and in
+   * parallel, and the sized ones split into parts of exactly known size.
+   */
+  @Test
+  public void testStreams() {
+    Matrix<Integer> matrix = newMatrix(130, 90, 0);
+    for (int r = 0; r < 90; r += 2) {
+      for (int c = r % 3; c < 130; c += 3) {
+        matrix.set(r, c, r * 1000 + c);
+      } // for
+    } // for
+    matrix.fillRegion(20, 20, 30, 130, 7);
+
+    assertEquals(130 * 90, matrix.cells().count(), "S: number of cells");
+    Matrix<Integer> copy = new MatrixDense<Integer>(130, 90, -1);
+    matrix.cells().parallel().forEach((cell) -> copy.set(cell.row(), cell.col(), cell.val()));
+    assertTrue(copy.equals(matrix), "S: parallel cells reproduce the matrix");
+    Cell<Integer> first = matrix.cells().findFirst().get();
+    assertEquals(new Cell<Integer>(0, 0, matrix.get(0, 0)), first, "S: first cell");
+
+    Spliterator<Cell<Integer>> all = matrix.cells().spliterator();
+    assertTrue(all.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED),
+        "S: cells are sized");
+    Spliterator<Cell<Integer>> prefix = all.trySplit();
+    assertEquals(130 * 90, prefix.estimateSize() + all.estimateSize(), "S: split sizes");
+    assertEquals(0, prefix.estimateSize() % 130, "S: split at a row boundary");
+    long size = prefix.getExactSizeIfKnown();
+    long[] counted = new long[1];
+    prefix.forEachRemaining((cell) -> counted[0]++);
+    assertEquals(size, counted[0], "S: prefix size is exact");
+    assertEquals(0, prefix.estimateSize(), "S: prefix used up");
+
+    long sum = matrix.fold(0L, (acc, x) -> acc + x, Long::sum);
+    assertEquals(sum, matrix.storedCells().parallel().mapToLong(Cell::val).sum(),
+        "S: sum of stored cells");
+    Matrix<Integer> stored = new MatrixDense<Integer>(130, 90, 0);
+    matrix.storedCells().forEach((cell) -> stored.set(cell.row(), cell.col(), cell.val()));
+    assertTrue(stored.equals(matrix), "S: stored cells reproduce the matrix");
+
+    List<List<Integer>> rows = matrix.rows().parallel().collect(Collectors.toList());
+    List<List<Integer>> cols = matrix.cols().parallel().collect(Collectors.toList());
+    assertEquals(90, rows.size(), "S: number of rows");
+    assertEquals(130, cols.size(), "S: number of columns");
+    for (int r = 0; r < 90; r++) {
+      for (int c = 0; c < 130; c++) {
+        assertEquals(matrix.get(r, c), rows.get(r).get(c), "S: row " + r);
+        assertEquals(matrix.get(r, c), cols.get(c).get(r), "S: column " + c);
+      } // for
+    } // for
+    assertTrue(matrix.rows().spliterator().hasCharacteristics(Spliterator.SUBSIZED),
+        "S: rows are sized");
+    assertThrows(UnsupportedOperationException.class, () -> rows.get(0).set(0, 5));
+  } // testStreams()
 } // TestMatrix
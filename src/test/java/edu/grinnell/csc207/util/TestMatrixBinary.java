@@ -0,0 +1,185 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link MatrixBinary}.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixBinary {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Write a matrix and return the bytes.
+   *
+   * @param <T>
+   *   The type of values in the matrix.
+   * @param codec
+   *   How to write values.
+   * @param matrix
+   *   The matrix.
+   * @param def
+   *   The default value of the matrix.
+   * @param layout
+   *   DENSE, SPARSE, or -1 to let MatrixBinary choose.
+   *
+   * @return the bytes.
+   */
+  static <T> byte[] write(ElementCodec<T> codec, Matrix<T> matrix, T def, int layout)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    if (layout < 0) {
+      MatrixBinary.write(Channels.newChannel(bytes), codec, matrix, def);
+    } else {
+      MatrixBinary.write(Channels.newChannel(bytes), codec, matrix, def, layout);
+    } // if/else
+    return bytes.toByteArray();
+  } // write(ElementCodec<T>, Matrix<T>, T, int)
+
+  /**
+   * Read a matrix from bytes into a MatrixV0.
+   *
+   * @param <T>
+   *   The type of values in the matrix.
+   * @param codec
+   *   How to read values.
+   * @param bytes
+   *   The bytes.
+   *
+   * @return the matrix.
+   */
+  static <T> Matrix<T> read(ElementCodec<T> codec, byte[] bytes) throws IOException {
+    return MatrixBinary.read(Channels.newChannel(new ByteArrayInputStream(bytes)), codec,
+        MatrixV0::new);
+  } // read(ElementCodec<T>, byte[])
+
+  /**
+   * Check that two matrices have the same size and equal cells, nulls included.
+   *
+   * @param expected
+   *   The expected matrix.
+   * @param actual
+   *   The matrix to check.
+   * @param msg
+   *   What to say if they differ.
+   */
+  static void assertSameCells(Matrix<?> expected, Matrix<?> actual, String msg) {
+    assertEquals(expected.height(), actual.height(), msg + ": height");
+    assertEquals(expected.width(), actual.width(), msg + ": width");
+    for (int r = 0; r < expected.height(); r++) {
+      for (int c = 0; c < expected.width(); c++) {
+        assertTrue(Objects.equals(expected.get(r, c), actual.get(r, c)),
+            msg + ": cell " + r + "," + c);
+      } // for
+    } // for
+  } // assertSameCells(Matrix<?>, Matrix<?>, String)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Random MatrixV0s, with and without nulls, survive both layouts.
+   */
+  @Test
+  public void testRoundTrips() throws IOException {
+    Random random = new Random(207);
+    for (int trial = 0; trial < 20; trial++) {
+      int width = random.nextInt(30);
+      int height = random.nextInt(30);
+      Integer def = (trial % 3 == 0) ? null : random.nextInt(5);
+      Matrix<Integer> matrix = new MatrixV0<Integer>(width, height, def);
+      for (int i = 0; i < width * height / (1 + trial % 4); i++) {
+        int r = random.nextInt(height);
+        int c = random.nextInt(width);
+        matrix.set(r, c, (i % 5 == 0) ? null : random.nextInt(5));
+      } // for
+      for (int layout = -1; layout <= MatrixBinary.SPARSE; layout++) {
+        byte[] bytes = write(ElementCodec.INT, matrix, def, layout);
+        assertSameCells(matrix, read(ElementCodec.INT, bytes), "trial " + trial + "/" + layout);
+      } // for
+    } // for
+  } // testRoundTrips()
+
+  /**
+   * The sparse layout stores a filled region as one run per row, and is chosen for it.
+   */
+  @Test
+  public void testSparseIsCompact() throws IOException {
+    Matrix<Long> matrix = new MatrixV0<Long>(1000, 1000, 0L);
+    matrix.fillRegion(10, 0, 20, 1000, 3L);
+    matrix.fillRegion(500, 5, 510, 15, 4L);
+    byte[] bytes = write(ElementCodec.LONG, matrix, 0L, -1);
+    assertTrue(bytes.length < 1000, "sparse layout used: " + bytes.length + " bytes");
+    assertSameCells(matrix, read(ElementCodec.LONG, bytes), "filled regions");
+  } // testSparseIsCompact()
+
+  /**
+   * Matrices that visit their stored cells in different orders write the same bytes, runs
+   * that cross bands of rows stay whole, and a default other than the matrix's own still
+   * round trips.
+   */
+  @Test
+  public void testStoredCellOrder() throws IOException {
+    Random random = new Random(208);
+    int[][] sizes = {{5000, 3}, {40, 300}, {7, 7}};
+    for (int[] size : sizes) {
+      Matrix<Integer> sparse = new MatrixV0<Integer>(size[0], size[1], null);
+      Matrix<Integer> dense = new MatrixDense<Integer>(size[0], size[1], null);
+      sparse.fillRegion(0, size[0] / 2, size[1], size[0], 1);
+      dense.fillRegion(0, size[0] / 2, size[1], size[0], 1);
+      for (int i = 0; i < 200; i++) {
+        int r = random.nextInt(size[1]);
+        int c = random.nextInt(size[0]);
+        Integer val = (i % 7 == 0) ? null : random.nextInt(3);
+        sparse.set(r, c, val);
+        dense.set(r, c, val);
+      } // for
+      String msg = size[0] + "x" + size[1];
+      for (int layout = -1; layout <= MatrixBinary.SPARSE; layout++) {
+        byte[] bytes = write(ElementCodec.INT, sparse, null, layout);
+        assertArrayEquals(write(ElementCodec.INT, dense, null, layout), bytes,
+            msg + "/" + layout + ": same bytes");
+        assertSameCells(dense, read(ElementCodec.INT, bytes), msg + "/" + layout);
+        byte[] other = write(ElementCodec.INT, sparse, 1, layout);
+        assertSameCells(dense, read(ElementCodec.INT, other), msg + "/" + layout + " with 1");
+      } // for
+    } // for
+  } // testStoredCellOrder()
+
+  /**
+   * Byte records round trip, and bad input is rejected.
+   */
+  @Test
+  public void testRecordsAndErrors() throws IOException {
+    ElementCodec<byte[]> codec = ElementCodec.bytes(3);
+    Matrix<byte[]> matrix = new MatrixDense<byte[]>(2, 2, new byte[3]);
+    matrix.set(1, 0, new byte[] {1, 2, 3});
+    byte[] bytes = write(codec, matrix, matrix.get(0, 0), MatrixBinary.DENSE);
+    Matrix<byte[]> copy = read(codec, bytes);
+    assertArrayEquals(new byte[] {1, 2, 3}, copy.get(1, 0), "record");
+    assertArrayEquals(new byte[3], copy.get(1, 1), "default");
+    assertThrows(EOFException.class,
+        () -> read(codec, Arrays.copyOf(bytes, bytes.length - 1)));
+    assertThrows(IOException.class, () -> read(ElementCodec.INT, bytes));
+    bytes[0]++;
+    assertThrows(IOException.class, () -> read(codec, bytes));
+  } // testRecordsAndErrors()
+} // class TestMatrixBinary
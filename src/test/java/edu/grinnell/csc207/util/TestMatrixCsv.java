@@ -0,0 +1,93 @@
+package edu.grinnell.csc207.util;
+
+import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link MatrixCsv} and {@link CellParser}.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixCsv {
+  /**
+   * Reading grows an empty matrix, replaces existing rows, and treats slashes as null.
+   */
+  @Test
+  public void testRead() throws IOException, ArraySizeException {
+    Matrix<Integer> matrix = new MatrixV0<Integer>(0, 0, 0);
+    int rows = MatrixCsv.read(new StringReader("1, 2,3\r\n\n4,/,-6\n"), MatrixCsv.COMMA,
+        CellParser.INTEGER, matrix);
+    assertEquals(2, rows, "rows read");
+    assertMatrixEquals(new Integer[][] {{1, 2, 3}, {4, null, -6}}, matrix, "M: new rows");
+    MatrixCsv.read(new StringReader("7\t8\t9\n10\t11\t12\n13\t14\t15"), MatrixCsv.TAB,
+        CellParser.INTEGER, matrix);
+    assertMatrixEquals(new Integer[][] {{7, 8, 9}, {10, 11, 12}, {13, 14, 15}}, matrix,
+        "M: replaced and added rows");
+  } // testRead()
+
+  /**
+   * Strings with separators, quotation marks, line breaks, and slashes survive a round trip
+   * through a channel.
+   */
+  @Test
+  public void testRoundTrip() throws IOException, ArraySizeException {
+    Matrix<String> matrix = new MatrixDense<String>(3, 2, "x");
+    matrix.set(0, 0, "a,b");
+    matrix.set(0, 1, "say \"hi\"");
+    matrix.set(0, 2, "two\nlines");
+    matrix.set(1, 0, "/");
+    matrix.set(1, 1, null);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    MatrixCsv.write(Channels.newChannel(bytes), MatrixCsv.COMMA, matrix);
+    assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\"\n\"/\",/,x\n", bytes.toString(),
+        "text");
+    Matrix<String> copy = new MatrixDense<String>(3, 0, "");
+    MatrixCsv.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())),
+        MatrixCsv.COMMA, CellParser.STRING, copy);
+    assertMatrixEquals(new String[][] {{"a,b", "say \"hi\"", "two\nlines"}, {"/", null, "x"}},
+        copy, "M: read back");
+  } // testRoundTrip()
+
+  /**
+   * Large matrices stream through in both directions.
+   */
+  @Test
+  public void testLarge() throws IOException, ArraySizeException {
+    Matrix<Long> matrix = new MatrixDense<Long>(300, 200, 0L);
+    for (int r = 0; r < 200; r++) {
+      for (int c = 0; c < 300; c++) {
+        matrix.set(r, c, (long) r * c - 1000);
+      } // for
+    } // for
+    StringWriter text = new StringWriter();
+    MatrixCsv.write(text, MatrixCsv.TAB, matrix);
+    Matrix<Long> copy = new MatrixDense<Long>(0, 0, 0L);
+    MatrixCsv.read(new StringReader(text.toString()), MatrixCsv.TAB, CellParser.LONG, copy);
+    assertEquals(matrix, copy, "read back");
+  } // testLarge()
+
+  /**
+   * Malformed input is reported.
+   */
+  @Test
+  public void testErrors() {
+    Matrix<Double> matrix = new MatrixDense<Double>(2, 1, 0.0);
+    assertThrows(ArraySizeException.class, () -> MatrixCsv.read(new StringReader("1,2,3"),
+        MatrixCsv.COMMA, CellParser.DOUBLE, matrix));
+    assertThrows(IOException.class, () -> MatrixCsv.read(new StringReader("1,two"),
+        MatrixCsv.COMMA, CellParser.DOUBLE, matrix));
+    assertThrows(IOException.class, () -> MatrixCsv.read(new StringReader("1,\"2"),
+        MatrixCsv.COMMA, CellParser.DOUBLE, matrix));
+  } // testErrors()
+} // class TestMatrixCsv
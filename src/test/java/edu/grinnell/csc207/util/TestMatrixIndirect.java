@@ -0,0 +1,13 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * The {@link TestMatrix} tests, run on {@link MatrixIndirect}.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixIndirect extends TestMatrix {
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new MatrixIndirect<T>(width, height, def);
+  } // newMatrix(int, int, T)
+} // class TestMatrixIndirect
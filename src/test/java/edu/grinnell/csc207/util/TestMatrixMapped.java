@@ -0,0 +1,159 @@
+package edu.grinnell.csc207.util;
+
+import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of {@link MatrixMapped}. The matrices are bigger than a tile, so that edits cross
+ * tile boundaries.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixMapped {
+  /**
+   * A directory for the matrix files.
+   */
+  @TempDir
+  Path dir;
+
+  /**
+   * Apply the same random edits to a MatrixMapped and a MatrixDense and compare them, then
+   * check that the edits survive closing and reopening the file.
+   */
+  @Test
+  public void testRandomEdits() throws ArraySizeException, IOException {
+    Random random = new Random(207);
+    Path file = this.dir.resolve("random.mtx");
+    MatrixMapped<Integer> mapped = MatrixMapped.create(file, ElementCodec.INT, 70, 90, -1);
+    Matrix<Integer> expected = new MatrixDense<Integer>(70, 90, -1);
+    for (int step = 0; step < 300; step++) {
+      int r = random.nextInt(mapped.height());
+      int c = random.nextInt(mapped.width());
+      Integer val = random.nextInt(1000);
+      switch (random.nextInt(7)) {
+        case 0:
+          mapped.insertRow(r);
+          expected.insertRow(r);
+          break;
+        case 1:
+          if (mapped.height() > 1) {
+            mapped.deleteRow(r);
+            expected.deleteRow(r);
+          } // if
+          break;
+        case 2:
+          Integer[] vals = new Integer[mapped.height()];
+          Arrays.fill(vals, val);
+          mapped.insertCol(c, vals);
+          expected.insertCol(c, vals);
+          break;
+        case 3:
+          if (mapped.width() > 1) {
+            mapped.deleteCol(c);
+            expected.deleteCol(c);
+          } // if
+          break;
+        case 4:
+          mapped.fillRegion(r, c, Math.min(r + 20, mapped.height()), mapped.width(), val);
+          expected.fillRegion(r, c, Math.min(r + 20, expected.height()), expected.width(), val);
+          break;
+        default:
+          mapped.set(r, c, val);
+          expected.set(r, c, val);
+          break;
+      } // switch
+    } // for
+    assertEquals(expected, mapped, "after edits");
+    assertEquals(expected.hashCode(), mapped.hashCode(), "hash codes");
+    mapped.close();
+    try (MatrixMapped<Integer> reopened = MatrixMapped.open(file, ElementCodec.INT)) {
+      assertEquals(expected, reopened, "after reopening");
+    } // try
+  } // testRandomEdits()
+
+  /**
+   * Only the tiles that are written are added to the file.
+   */
+  @Test
+  public void testSparseFile() throws IOException {
+    Path file = this.dir.resolve("sparse.mtx");
+    try (MatrixMapped<Long> matrix = MatrixMapped.create(file, ElementCodec.LONG, 1000, 1000,
+        0L)) {
+      matrix.set(999, 999, 5L);
+      matrix.set(998, 998, 0L);
+      matrix.force();
+      assertEquals(5L, matrix.get(999, 999), "set cell");
+      assertEquals(0L, matrix.get(0, 0), "default cell");
+      long tileBytes = Long.BYTES * MatrixMapped.TILE_SIZE * MatrixMapped.TILE_SIZE;
+      assertTrue(Files.size(file) < 2 * tileBytes, "file holds a single tile");
+    } // try
+  } // testSparseFile()
+
+  /**
+   * With a default of all zero bytes, the unset cells of a new tile read as the default even
+   * though the tile takes the place of the metadata that flush() wrote, both in a new file and
+   * after reopening one.
+   */
+  @Test
+  public void testZeroDefaultNewTile() throws IOException {
+    Path file = this.dir.resolve("zeros.mtx");
+    try (MatrixMapped<Integer> matrix = MatrixMapped.create(file, ElementCodec.INT, 100, 100,
+        0)) {
+      matrix.set(0, 0, 5);
+      for (int c = 1; c < 10; c++) {
+        assertEquals(0, matrix.get(0, c), "cell 0, " + c + " of the first tile");
+      } // for
+      matrix.flush();
+      matrix.set(0, 70, 4);
+    } // try
+    try (MatrixMapped<Integer> matrix = MatrixMapped.open(file, ElementCodec.INT)) {
+      matrix.set(70, 0, 6);
+      for (int r = 0; r < matrix.height(); r++) {
+        for (int c = 0; c < matrix.width(); c++) {
+          int expected = (r == 0 && c == 0) ? 5 : (r == 0 && c == 70) ? 4
+              : (r == 70 && c == 0) ? 6 : 0;
+          assertEquals(expected, matrix.get(r, c), "cell " + r + ", " + c);
+        } // for
+      } // for
+    } // try
+  } // testZeroDefaultNewTile()
+
+  /**
+   * Clones are independent and their files go away when they are closed; closed matrices
+   * refuse to work; files made with other codecs are rejected.
+   */
+  @Test
+  public void testCloneAndClose() throws IOException {
+    Path file = this.dir.resolve("clone.mtx");
+    MatrixMapped<Double> matrix = MatrixMapped.create(file, ElementCodec.DOUBLE, 2, 2, 0.5);
+    @SuppressWarnings("unchecked")
+    MatrixMapped<Double> copy = (MatrixMapped<Double>) matrix.clone();
+    copy.set(0, 0, 2.0);
+    assertMatrixEquals(new Double[][] {{0.5, 0.5}, {0.5, 0.5}}, matrix, "M: original");
+    assertMatrixEquals(new Double[][] {{2.0, 0.5}, {0.5, 0.5}}, copy, "M: clone");
+    assertThrows(NullPointerException.class, () -> copy.set(1, 1, null));
+    matrix.close();
+    matrix.close();
+    assertThrows(IllegalStateException.class, () -> matrix.get(0, 0));
+    copy.close();
+    try (Stream<Path> files = Files.list(this.dir)) {
+      assertEquals(1, files.count(), "clone file deleted");
+    } // try
+    assertThrows(IOException.class, () -> MatrixMapped.open(file, ElementCodec.INT));
+    assertFalse(Files.size(file) == 0, "file kept");
+  } // testCloneAndClose()
+} // class TestMatrixMapped
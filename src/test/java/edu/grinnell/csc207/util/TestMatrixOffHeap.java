@@ -0,0 +1,151 @@
+package edu.grinnell.csc207.util;
+
+import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link MatrixOffHeap}. Most use tiny chunks, so that rows and copies cross chunk
+ * boundaries.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixOffHeap {
+  /**
+   * Apply the same random edits to a MatrixOffHeap and a MatrixDense and compare them.
+   */
+  @Test
+  public void testRandomEdits() throws ArraySizeException {
+    Random random = new Random(207);
+    MatrixOffHeap<Integer> offHeap = new MatrixOffHeap<Integer>(ElementCodec.INT, 7, 5, -1, 40);
+    Matrix<Integer> expected = new MatrixDense<Integer>(7, 5, -1);
+    for (int step = 0; step < 500; step++) {
+      int r = random.nextInt(offHeap.height());
+      int c = random.nextInt(offHeap.width());
+      Integer val = random.nextInt(1000);
+      switch (random.nextInt(7)) {
+        case 0:
+          offHeap.insertRow(r);
+          expected.insertRow(r);
+          break;
+        case 1:
+          if (offHeap.height() > 1) {
+            offHeap.deleteRow(r);
+            expected.deleteRow(r);
+          } // if
+          break;
+        case 2:
+          Integer[] vals = new Integer[offHeap.height()];
+          Arrays.fill(vals, val);
+          offHeap.insertCol(c, vals);
+          expected.insertCol(c, vals);
+          break;
+        case 3:
+          if (offHeap.width() > 1) {
+            offHeap.deleteCol(c);
+            expected.deleteCol(c);
+          } // if
+          break;
+        case 4:
+          offHeap.fillRegion(r, c, offHeap.height(), offHeap.width(), val);
+          expected.fillRegion(r, c, expected.height(), expected.width(), val);
+          break;
+        default:
+          offHeap.set(r, c, val);
+          expected.set(r, c, val);
+          break;
+      } // switch
+      assertEquals(expected, offHeap, "after step " + step);
+    } // for
+    assertEquals(expected.hashCode(), offHeap.hashCode(), "hash codes");
+    offHeap.close();
+  } // testRandomEdits()
+
+  /**
+   * Clones are independent; closed matrices refuse to work; null cannot be stored.
+   */
+  @Test
+  public void testCloneAndClose() {
+    MatrixOffHeap<Double> matrix = new MatrixOffHeap<Double>(ElementCodec.DOUBLE, 2, 2, 0.5);
+    @SuppressWarnings("unchecked")
+    MatrixOffHeap<Double> copy = (MatrixOffHeap<Double>) matrix.clone();
+    copy.set(0, 0, 2.0);
+    assertMatrixEquals(new Double[][] {{0.5, 0.5}, {0.5, 0.5}}, matrix, "M: original");
+    assertMatrixEquals(new Double[][] {{2.0, 0.5}, {0.5, 0.5}}, copy, "M: clone");
+    assertThrows(NullPointerException.class, () -> copy.set(1, 1, null));
+    matrix.close();
+    matrix.close();
+    assertThrows(IllegalStateException.class, () -> matrix.get(0, 0));
+    assertEquals(2.0, copy.get(0, 0), "clone after closing the original");
+    copy.close();
+  } // testCloneAndClose()
+
+  /**
+   * Closing frees the matrix's buffers: every operation on the closed matrix is refused, and a
+   * clone keeps working once the original's memory is gone.
+   */
+  @Test
+  public void testCloseFreesBuffers() {
+    MatrixOffHeap<Integer> matrix = new MatrixOffHeap<Integer>(ElementCodec.INT, 30, 20, 7, 64);
+    matrix.fillRegion(5, 5, 15, 25, 3);
+    @SuppressWarnings("unchecked")
+    MatrixOffHeap<Integer> copy = (MatrixOffHeap<Integer>) matrix.clone();
+    matrix.close();
+    assertThrows(IllegalStateException.class, () -> matrix.get(0, 0));
+    assertThrows(IllegalStateException.class, () -> matrix.set(0, 0, 1));
+    assertThrows(IllegalStateException.class, () -> matrix.insertRow(0));
+    assertThrows(IllegalStateException.class, () -> matrix.fillRegion(0, 0, 1, 1, 1));
+    assertThrows(IllegalStateException.class, () -> matrix.clone());
+    System.gc();
+    assertEquals(3, copy.get(10, 20), "filled cell of the clone");
+    assertEquals(7, copy.get(19, 29), "default cell of the clone");
+    copy.close();
+  } // testCloseFreesBuffers()
+
+  /**
+   * Direct buffers are freed where the JDK allows it; heap buffers and slices are left alone
+   * and stay usable.
+   */
+  @Test
+  public void testFreeBuffers() {
+    assertTrue(DirectBuffers.canFree(), "invokeCleaner found");
+    assertTrue(DirectBuffers.free(ByteBuffer.allocateDirect(64)), "direct buffer freed");
+    ByteBuffer heap = ByteBuffer.allocate(8);
+    assertFalse(DirectBuffers.free(heap), "heap buffer left alone");
+    heap.putLong(0, 5L);
+    assertEquals(5L, heap.getLong(0), "heap buffer still usable");
+    ByteBuffer direct = ByteBuffer.allocateDirect(16);
+    ByteBuffer slice = direct.slice(8, 8);
+    assertFalse(DirectBuffers.free(slice), "slice left alone");
+    slice.putLong(0, 6L);
+    assertEquals(6L, direct.getLong(8), "slice still usable");
+    assertTrue(DirectBuffers.free(direct), "parent freed");
+  } // testFreeBuffers()
+
+  /**
+   * Byte records compare by content.
+   */
+  @Test
+  public void testByteRecords() {
+    ElementCodec<byte[]> codec = ElementCodec.bytes(3);
+    try (MatrixOffHeap<byte[]> a = new MatrixOffHeap<byte[]>(codec, 2, 1, new byte[3]);
+        MatrixOffHeap<byte[]> b = new MatrixOffHeap<byte[]>(codec, 2, 1, new byte[3])) {
+      a.set(0, 1, new byte[] {1, 2, 3});
+      b.set(0, 1, new byte[] {1, 2, 3});
+      assertArrayEquals(new byte[] {1, 2, 3}, a.get(0, 1), "record");
+      assertEquals(a, b, "equal records");
+      assertEquals(a.hashCode(), b.hashCode(), "hash codes");
+      assertThrows(IllegalArgumentException.class, () -> a.set(0, 0, new byte[2]));
+    } // try
+  } // testByteRecords()
+} // class TestMatrixOffHeap
@@ -0,0 +1,86 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link MatrixPager} and of printing windows with {@link Matrix#print}.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixPager {
+  /**
+   * Print a window of a matrix with labels.
+   *
+   * @param matrix
+   *   The matrix.
+   * @param startRow
+   *   The top row of the window.
+   * @param startCol
+   *   The left column of the window.
+   * @param endRow
+   *   The bottom row of the window.
+   * @param endCol
+   *   The right column of the window.
+   *
+   * @return what was printed.
+   */
+  static String window(Matrix<?> matrix, int startRow, int startCol, int endRow, int endCol) {
+    StringWriter out = new StringWriter();
+    PrintWriter pen = new PrintWriter(out);
+    Matrix.print(pen, matrix, startRow, startCol, endRow, endCol, true);
+    pen.flush();
+    return out.toString();
+  } // window(Matrix<?>, int, int, int, int)
+
+  /**
+   * The pager prints the same windows that Matrix.print does, in order, cutting off the
+   * last band and column of pages at the edges of the matrix.
+   */
+  @Test
+  public void testPages() {
+    Matrix<Integer> matrix = new MatrixV0<Integer>(7, 5, 0);
+    for (int r = 0; r < 5; r++) {
+      matrix.set(r, r, r * 11);
+    } // for
+    MatrixPager pager = new MatrixPager(matrix, 2, 3, true);
+    StringWriter out = new StringWriter();
+    PrintWriter pen = new PrintWriter(out);
+    StringBuilder expected = new StringBuilder();
+    int pages = 0;
+    while (pager.hasNext()) {
+      pager.printNext(pen);
+      int row = 2 * (pages / 3);
+      int col = 3 * (pages % 3);
+      expected.append(window(matrix, row, col, row + 2, col + 3));
+      pages++;
+    } // while
+    pen.flush();
+    assertEquals(9, pages, "number of pages");
+    assertEquals(expected.toString(), out.toString(), "pages");
+  } // testPages()
+
+  /**
+   * Seeking moves to a page; the pager stops at the end of the matrix.
+   */
+  @Test
+  public void testSeek() {
+    Matrix<String> matrix = new MatrixV0<String>(1000, 1000000, ".");
+    matrix.set(999999, 999, "end");
+    MatrixPager pager = new MatrixPager(matrix, 10, 10, true);
+    pager.seek(999995, 995);
+    StringWriter out = new StringWriter();
+    PrintWriter pen = new PrintWriter(out);
+    pager.printNext(pen);
+    pen.flush();
+    assertEquals(window(matrix, 999995, 995, 1000000, 1000), out.toString(), "last page");
+    assertFalse(pager.hasNext(), "no more pages");
+    assertThrows(IndexOutOfBoundsException.class, () -> pager.seek(1000000, 0));
+  } // testSeek()
+} // class TestMatrixPager
@@ -0,0 +1,80 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link MatrixRenderer}.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixRenderer {
+  /**
+   * Draw a window of a matrix.
+   *
+   * @param renderer
+   *   The renderer to draw with.
+   * @param matrix
+   *   The matrix.
+   * @param startRow
+   *   The top row of the window.
+   * @param startCol
+   *   The left column of the window.
+   * @param endRow
+   *   The bottom row of the window.
+   * @param endCol
+   *   The right column of the window.
+   *
+   * @return the drawing, with "\n" between lines.
+   */
+  static String render(MatrixRenderer renderer, Matrix<?> matrix, int startRow, int startCol,
+      int endRow, int endCol) {
+    StringWriter out = new StringWriter();
+    PrintWriter pen = new PrintWriter(out);
+    renderer.render(pen, matrix, startRow, startCol, endRow, endCol);
+    pen.flush();
+    return out.toString().replace(System.lineSeparator(), "\n");
+  } // render(MatrixRenderer, Matrix<?>, int, int, int, int)
+
+  /**
+   * Columns can each have their own width.
+   */
+  @Test
+  public void testPerColumnWidths() {
+    Matrix<String> matrix = new MatrixDense<String>(3, 2, "a");
+    matrix.set(0, 1, "wider");
+    matrix.set(1, 2, null);
+    assertEquals("+---+-------+---+\n"
+        + "| a | wider | a |\n"
+        + "+---+-------+---+\n"
+        + "| a |   a   | / |\n"
+        + "+---+-------+---+\n",
+        render(new MatrixRenderer(false, true), matrix, 0, 0, 2, 3), "per-column widths");
+  } // testPerColumnWidths()
+
+  /**
+   * Windows are labelled with their real row and column numbers, and only their cells count
+   * toward the widths.
+   */
+  @Test
+  public void testWindow() {
+    Matrix<Integer> matrix = new MatrixV0<Integer>(200, 1500, 0);
+    matrix.set(1000, 100, 7);
+    matrix.set(0, 0, 123456);
+    assertEquals("      100 101 \n"
+        + "      +---+---+\n"
+        + "  999 | 0 | 0 |\n"
+        + "      +---+---+\n"
+        + " 1000 | 7 | 0 |\n"
+        + "      +---+---+\n",
+        render(new MatrixRenderer(true, false), matrix, 999, 100, 1001, 102), "window");
+    assertEquals("+\n", render(new MatrixRenderer(), matrix, 5, 5, 5, 5), "empty window");
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> render(new MatrixRenderer(), matrix, 0, 0, 1501, 1));
+  } // testWindow()
+} // class TestMatrixRenderer
@@ -0,0 +1,61 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link TestMatrix} tests, run on {@link MatrixRuns}, plus random edits that split and
+ * merge runs.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixRuns extends TestMatrix {
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new MatrixRuns<T>(width, height, def);
+  } // newMatrix(int, int, T)
+
+  /**
+   * Apply the same random edits to a MatrixRuns and a MatrixDense and compare them.
+   */
+  @Test
+  public void testRandomEdits() {
+    Random random = new Random(207);
+    Matrix<Integer> runs = new MatrixRuns<Integer>(40, 30, 0);
+    Matrix<Integer> expected = new MatrixDense<Integer>(40, 30, 0);
+    for (int step = 0; step < 2000; step++) {
+      int r0 = random.nextInt(runs.height());
+      int c0 = random.nextInt(runs.width());
+      int r1 = r0 + 1 + random.nextInt(runs.height() - r0);
+      int c1 = c0 + 1 + random.nextInt(runs.width() - c0);
+      Integer val = random.nextInt(3);
+      switch (random.nextInt(8)) {
+        case 0:
+          runs.insertCol(c0);
+          expected.insertCol(c0);
+          break;
+        case 1:
+          runs.deleteCol(c0);
+          expected.deleteCol(c0);
+          break;
+        case 2:
+          runs.fillLine(r0, c0, 0, 1, r0 + 1, c1, val);
+          expected.fillLine(r0, c0, 0, 1, r0 + 1, c1, val);
+          break;
+        case 3:
+        case 4:
+          runs.fillRegion(r0, c0, r1, c1, val);
+          expected.fillRegion(r0, c0, r1, c1, val);
+          break;
+        default:
+          runs.set(r0, c0, val);
+          expected.set(r0, c0, val);
+          break;
+      } // switch
+      assertEquals(expected, runs, "after step " + step);
+    } // for
+  } // testRandomEdits()
+} // class TestMatrixRuns
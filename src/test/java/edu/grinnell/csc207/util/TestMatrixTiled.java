@@ -0,0 +1,91 @@
+package edu.grinnell.csc207.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link TestMatrix} tests, run on {@link MatrixTiled}, plus tests that cross tile
+ * boundaries.
+ *
+ * @author Alexander Pollock
+ */
+class TestMatrixTiled extends TestMatrix {
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new MatrixTiled<T>(width, height, def);
+  } // newMatrix(int, int, T)
+
+  /**
+   * Fill, overwrite, and shift regions that span several tiles, and compare against MatrixV0.
+   */
+  @Test
+  public void testAcrossTiles() throws ArraySizeException {
+    Matrix<Integer> tiled = new MatrixTiled<Integer>(200, 150, 0);
+    Matrix<Integer> expected = new MatrixV0<Integer>(200, 150, 0);
+    for (Matrix<Integer> m : List.of(tiled, expected)) {
+      // Whole tiles, partial tiles, and the ragged edge tiles.
+      m.fillRegion(0, 0, 150, 200, 1);
+      m.fillRegion(10, 70, 140, 190, 0);
+      // Enough single cells to make a tile dense, then empty it again.
+      for (int i = 0; i < 2000; i++) {
+        m.set(64 + (i % 64), 128 + (i / 64) % 64, i);
+      } // for
+      m.fillRegion(64, 128, 128, 192, 0);
+      m.set(149, 199, 7);
+      m.insertRow(5);
+      m.deleteCol(64);
+      Integer[] col = new Integer[151];
+      Arrays.fill(col, 3);
+      m.insertCol(0, col);
+    } // for
+    assertEquals(tiled, expected, "tiled matrix after edits");
+    assertEquals(expected.hashCode(), tiled.hashCode(), "hash codes");
+  } // testAcrossTiles()
+
+  /**
+   * An edge tile filled with one value counts only its cells in the matrix, so clearing them
+   * one at a time turns it sparse and then drops it.
+   */
+  @Test
+  public void testClearEdgeTile() {
+    MatrixTiled<Integer> tiled = new MatrixTiled<Integer>(30, 20, 0);
+    tiled.fillRegion(0, 0, 20, 30, 4);
+    assertEquals(1, tiled.tileCount(), "one uniform tile");
+    for (int i = 0; i < 590; i++) {
+      tiled.set(i / 30, i % 30, 0);
+    } // for
+    assertEquals(10, tiled.storedCount(), "cells left");
+    assertEquals(4, tiled.get(19, 29), "last cell");
+    assertEquals(0, tiled.get(19, 19), "cleared cell");
+    for (int c = 20; c < 30; c++) {
+      tiled.set(19, c, 0);
+    } // for
+    assertEquals(0, tiled.storedCount(), "no cells left");
+    assertEquals(0, tiled.tileCount(), "empty tile dropped");
+    assertEquals(new MatrixV0<Integer>(30, 20, 0), tiled, "cleared matrix");
+  } // testClearEdgeTile()
+
+  /**
+   * The cell spliterator of a sparse matrix estimates its size from the stored cells, so it is
+   * not split into parts that hold almost nothing.
+   */
+  @Test
+  public void testSparseEstimate() {
+    MatrixTiled<Integer> tiled = new MatrixTiled<Integer>(1000, 1000, 0);
+    for (int r = 0; r < 1000; r += 10) {
+      tiled.set(r, r, 1);
+    } // for
+    CellSpliterator<Integer> cells = tiled.cellSpliterator();
+    assertEquals(100, cells.estimateSize(), "estimate for the whole matrix");
+    CellSpliterator<Integer> prefix = cells.trySplit();
+    long halves = prefix.estimateSize() + cells.estimateSize();
+    assertTrue(halves >= 100 && halves <= 102, "estimates for the halves: " + halves);
+    assertEquals(100, tiled.count((x) -> x == 1), "count of the stored cells");
+    assertEquals(100, tiled.countParallel((x) -> x == 1), "parallel count");
+  } // testSparseEstimate()
+} // class TestMatrixTiled
@@ -0,0 +1,130 @@
+package edu.grinnell.csc207.util;
+
+import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link TestMatrix} tests, run on the transient form of {@link PersistentMatrix}, plus
+ * tests of the versions themselves.
+ *
+ * @author Alexander Pollock
+ */
+class TestPersistentMatrix extends TestMatrix {
+  @Override
+  <T> Matrix<T> newMatrix(int width, int height, T def) {
+    return new PersistentMatrix<T>(width, height, def).asTransient();
+  } // newMatrix(int, int, T)
+
+  /**
+   * Old versions do not change when new versions are made from them.
+   */
+  @Test
+  public void testVersions() throws ArraySizeException {
+    PersistentMatrix<String> v0 = new PersistentMatrix<String>(3, 2, ".");
+    PersistentMatrix<String> v1 = v0.withCell(0, 1, "a");
+    PersistentMatrix<String> v2 = v1.withRegionFilled(1, 0, 2, 3, "b");
+    PersistentMatrix<String> v3 = v2.withColDeleted(0).withRowInserted(0, new String[] {"c", "c"});
+    PersistentMatrix<String> v4 = v1.withCell(0, 1, ".");
+
+    assertMatrixEquals(new String[][] {{".", ".", "."}, {".", ".", "."}}, v0, "M: v0");
+    assertMatrixEquals(new String[][] {{".", "a", "."}, {".", ".", "."}}, v1, "M: v1");
+    assertMatrixEquals(new String[][] {{".", "a", "."}, {"b", "b", "b"}}, v2, "M: v2");
+    assertMatrixEquals(new String[][] {{"c", "c"}, {"a", "."}, {"b", "b"}}, v3, "M: v3");
+    assertMatrixEquals(new String[][] {{".", ".", "."}, {".", ".", "."}}, v4, "M: v4");
+    assertMatrixEquals(new String[][] {{".", "a", "."}, {".", ".", "."}}, v1, "M: v1 again");
+  } // testVersions()
+
+  /**
+   * Versions made by inserting and deleting rows and columns of a larger matrix match a
+   * MatrixDense edited the same way, and leave the versions they came from alone.
+   */
+  @Test
+  public void testStructuralVersions() throws ArraySizeException {
+    PersistentMatrix.Transient<Integer> edits = new PersistentMatrix<Integer>(40, 50, 0)
+        .asTransient();
+    MatrixDense<Integer> expected = new MatrixDense<Integer>(40, 50, 0);
+    for (int r = 0; r < 50; r++) {
+      for (int c = (r * 7) % 3; c < 40; c += 3) {
+        edits.set(r, c, r * 100 + c);
+        expected.set(r, c, r * 100 + c);
+      } // for
+    } // for
+    PersistentMatrix<Integer> v0 = edits.persistent();
+    Matrix<Integer> original = expected.clone();
+
+    PersistentMatrix<Integer> v1 = v0.withRowInserted(25);
+    expected.insertRow(25);
+    assertTrue(expected.equals(v1), "M: after inserting a row");
+    PersistentMatrix<Integer> v2 = v1.withRowDeleted(10).withRowDeleted(49);
+    expected.deleteRow(10);
+    expected.deleteRow(49);
+    assertTrue(expected.equals(v2), "M: after deleting rows");
+    PersistentMatrix<Integer> v3 = v2.withColInserted(5).withColDeleted(0).withRowInserted(0);
+    expected.insertCol(5);
+    expected.deleteCol(0);
+    expected.insertRow(0);
+    assertTrue(expected.equals(v3), "M: after column edits");
+    assertTrue(original.equals(v0), "M: first version unchanged");
+  } // testStructuralVersions()
+
+  /**
+   * A cell set to null under a non-null default survives row and column inserts and deletes,
+   * in the versions and in a transient.
+   */
+  @Test
+  public void testNullCellStructural() throws ArraySizeException {
+    PersistentMatrix<Integer> v0 = new PersistentMatrix<Integer>(3, 3, 0).withCell(0, 1, null)
+        .withCell(1, 0, 5);
+    PersistentMatrix<Integer> v1 = v0.withRowInserted(1);
+    assertMatrixEquals(new Integer[][] {{0, null, 0}, {0, 0, 0}, {5, 0, 0}, {0, 0, 0}}, v1,
+        "M: after inserting a row");
+    assertEquals(2, v1.storedCount(), "S: stored cells after inserting a row");
+    long[] visited = new long[1];
+    v1.forEachStored((row, col, val) -> visited[0]++);
+    assertEquals(2, visited[0], "S: cells visited after inserting a row");
+    PersistentMatrix<Integer> v2 = v1.withRowDeleted(1).withColInserted(0);
+    assertMatrixEquals(new Integer[][] {{0, 0, null, 0}, {0, 5, 0, 0}, {0, 0, 0, 0}}, v2,
+        "M: after deleting a row and inserting a column");
+    assertEquals(2, v2.storedCount(), "S: stored cells after column insert");
+    PersistentMatrix<Integer> v3 = v2.withColDeleted(0);
+    assertMatrixEquals(new Integer[][] {{0, null, 0}, {5, 0, 0}, {0, 0, 0}}, v3,
+        "M: after deleting a column");
+
+    PersistentMatrix.Transient<Integer> edits = v0.asTransient();
+    edits.deleteRow(1);
+    assertMatrixEquals(new Integer[][] {{0, null, 0}, {0, 0, 0}}, edits,
+        "M: transient after deleting a row");
+    assertEquals(1, edits.storedCount(), "S: transient stored cells");
+    edits.insertRow(0);
+    edits.insertCol(1);
+    edits.deleteCol(0);
+    assertMatrixEquals(new Integer[][] {{0, 0, 0}, {0, null, 0}, {0, 0, 0}}, edits,
+        "M: transient after more edits");
+    assertEquals(1, edits.storedCount(), "S: transient stored cells after more edits");
+  } // testNullCellStructural()
+
+  /**
+   * The immutable matrix rejects mutation, and a finished transient rejects further edits.
+   */
+  @Test
+  public void testImmutability() {
+    PersistentMatrix<String> matrix = new PersistentMatrix<String>(2, 2, ".");
+    assertThrows(UnsupportedOperationException.class, () -> matrix.set(0, 0, "a"));
+    assertThrows(UnsupportedOperationException.class, () -> matrix.deleteRow(0));
+    assertThrows(UnsupportedOperationException.class, () -> matrix.mapInPlace((x) -> x));
+    assertThrows(UnsupportedOperationException.class,
+        () -> matrix.setRow(0, new String[] {"a", "b"}));
+
+    PersistentMatrix.Transient<String> edits = matrix.asTransient();
+    edits.set(0, 0, "a");
+    PersistentMatrix<String> result = edits.persistent();
+    assertThrows(IllegalStateException.class, () -> edits.set(1, 1, "b"));
+    assertMatrixEquals(new String[][] {{"a", "."}, {".", "."}}, result, "M: batch result");
+    assertMatrixEquals(new String[][] {{".", "."}, {".", "."}}, matrix, "M: batch source");
+  } // testImmutability()
+} // class TestPersistentMatrix
@@ -0,0 +1,68 @@
+package edu.grinnell.csc207.util;
+
+import static edu.grinnell.csc207.util.MatrixAssertions.assertMatrixEquals;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the primitive matrices and their Matrix views.
+ *
+ * @author Alexander Pollock
+ */
+class TestPrimitiveMatrices {
+  /**
+   * Structural edits and fills on an IntMatrixDense.
+   */
+  @Test
+  public void testIntEdits() throws ArraySizeException {
+    IntMatrix matrix = new IntMatrixDense(3, 2, 9);
+    matrix.setInt(0, 1, 5);
+    matrix.insertRow(1, new int[] {1, 2, 3});
+    matrix.insertCol(0);
+    matrix.fillLine(0, 0, 1, 1, 3, 4, 0);
+    matrix.deleteRow(2);
+    matrix.fillRegion(0, 2, 1, 4, 7);
+    assertMatrixEquals(new Integer[][] {{0, 9, 7, 7}, {9, 0, 2, 3}}, matrix.asMatrix(),
+        "M: after edits");
+    assertThrows(IndexOutOfBoundsException.class, () -> matrix.getInt(2, 0));
+    assertThrows(ArraySizeException.class, () -> matrix.insertCol(0, new int[] {1}));
+  } // testIntEdits()
+
+  /**
+   * The views agree with a MatrixV0 holding the same values, and reject null.
+   */
+  @Test
+  public void testViews() throws ArraySizeException {
+    Matrix<Integer> view = new IntMatrixDense(2, 2).asMatrix();
+    Matrix<Integer> expected = new MatrixV0<Integer>(2, 2, 0);
+    view.set(1, 0, 4);
+    expected.set(1, 0, 4);
+    assertEquals(view, expected, "view equals MatrixV0");
+    assertEquals(expected.hashCode(), view.hashCode(), "hash codes");
+    assertThrows(NullPointerException.class, () -> view.set(0, 0, null));
+    assertThrows(NullPointerException.class,
+        () -> view.insertRow(0, new Integer[] {1, null}));
+
+    Matrix<Double> doubles = new DoubleMatrixDense(1, 1, Double.NaN).asMatrix();
+    assertEquals(doubles, doubles.clone(), "NaN cells");
+  } // testViews()
+
+  /**
+   * Clones are independent of the original.
+   */
+  @Test
+  public void testClone() {
+    LongMatrix matrix = new LongMatrixDense(2, 1, 1L << 40);
+    LongMatrix copy = matrix.clone();
+    copy.setLong(0, 0, 3);
+    assertEquals(1L << 40, matrix.getLong(0, 0), "original after setting the clone");
+    assertEquals(3, copy.getLong(0, 0), "clone after setting it");
+    assertNotEquals(matrix, copy, "original and clone differ");
+    matrix.setLong(0, 0, 3);
+    assertEquals(matrix, copy, "original and clone agree again");
+  } // testClone()
+} // class TestPrimitiveMatrices